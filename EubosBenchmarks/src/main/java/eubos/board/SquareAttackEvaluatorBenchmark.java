@@ -0,0 +1,52 @@
+package eubos.board;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eubos.board.Piece.Colour;
+import eubos.position.BenchmarkPositions;
+import eubos.position.Position;
+import eubos.position.PositionManager;
+
+/* Tests every square of each corpus position for attack by both sides. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SquareAttackEvaluatorBenchmark {
+
+	private Board[] boards;
+
+	@Setup
+	public void setUp() {
+		PositionManager[] positions = BenchmarkPositions.createPositions();
+		boards = new Board[positions.length];
+		for (int i=0; i < positions.length; i++) {
+			boards[i] = positions[i].getTheBoard();
+		}
+	}
+
+	@Benchmark
+	public int isAttacked() {
+		int count = 0;
+		for (Board bd : boards) {
+			for (int atPos : Position.values) {
+				if (SquareAttackEvaluator.isAttacked(bd, atPos, Colour.white)) count++;
+				if (SquareAttackEvaluator.isAttacked(bd, atPos, Colour.black)) count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,46 @@
+package eubos.position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eubos.board.InvalidPieceException;
+
+/* The fixed corpus of positions that the benchmarks are run over: the opening, middlegame positions with
+ * castling, en passant and promotion possibilities, and some endgames. */
+public final class BenchmarkPositions {
+
+	public static final String[] FENS = {
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+		"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+		"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+		"r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 4 8",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"8/5pk1/6p1/3R4/7P/6P1/r4P1K/8 b - - 0 40",
+	};
+
+	private BenchmarkPositions() {}
+
+	public static PositionManager[] createPositions() {
+		PositionManager[] positions = new PositionManager[FENS.length];
+		for (int i=0; i < FENS.length; i++) {
+			positions[i] = new PositionManager(FENS[i]);
+		}
+		return positions;
+	}
+
+	public static int[] getLegalMoves(PositionManager pm) throws InvalidPieceException {
+		MoveList ml = new MoveList(pm, 1);
+		List<Integer> moves = new ArrayList<Integer>();
+		MoveList.MoveListIterator iter = ml.getStandardIterator(false, Position.NOPOSITION);
+		while (iter.hasNext()) {
+			moves.add(iter.nextInt());
+		}
+		int[] legalMoves = new int[moves.size()];
+		for (int i=0; i < legalMoves.length; i++) {
+			legalMoves[i] = moves.get(i);
+		}
+		return legalMoves;
+	}
+}
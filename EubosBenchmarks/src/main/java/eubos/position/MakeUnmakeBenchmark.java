@@ -0,0 +1,66 @@
+package eubos.position;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eubos.board.InvalidPieceException;
+
+/* Makes and unmakes every legal move in each corpus position, with and without updating the hash code. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MakeUnmakeBenchmark {
+
+	private PositionManager[] positions;
+	private int[][] moves;
+
+	@Setup
+	public void setUp() throws InvalidPieceException {
+		positions = BenchmarkPositions.createPositions();
+		moves = new int[positions.length][];
+		for (int i=0; i < positions.length; i++) {
+			moves[i] = BenchmarkPositions.getLegalMoves(positions[i]);
+		}
+	}
+
+	@Benchmark
+	public long performMove() throws InvalidPieceException {
+		long hashes = 0L;
+		for (int i=0; i < positions.length; i++) {
+			PositionManager pm = positions[i];
+			for (int move : moves[i]) {
+				pm.performMove(move);
+				hashes ^= pm.getHash();
+				pm.unperformMove();
+			}
+		}
+		return hashes;
+	}
+
+	@Benchmark
+	public int performMove_NoHash() throws InvalidPieceException {
+		int count = 0;
+		for (int i=0; i < positions.length; i++) {
+			PositionManager pm = positions[i];
+			for (int move : moves[i]) {
+				pm.performMove(move, false);
+				count += pm.getTheBoard().getPieceAtSquare(Move.getTargetPosition(move));
+				pm.unperformMove(false);
+			}
+		}
+		return count;
+	}
+}
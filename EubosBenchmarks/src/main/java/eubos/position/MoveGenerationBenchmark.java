@@ -0,0 +1,75 @@
+package eubos.position;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eubos.board.InvalidPieceException;
+
+/* Generates the legal moves of each corpus position into a preallocated MoveList with staged move generation,
+ * as the search does, retrieving them with the staged iterator that checks legality as each move is taken. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+
+	private PositionManager[] positions;
+	private MoveList ml;
+
+	@Setup
+	public void setUp() {
+		positions = BenchmarkPositions.createPositions();
+		ml = new MoveList();
+	}
+
+	private int countMoves(int orderMoveList) throws InvalidPieceException {
+		int count = 0;
+		for (PositionManager pm : positions) {
+			ml.initialiseStaged(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, orderMoveList, Position.NOPOSITION);
+			if (ml.isMateOccurred()) continue;
+			MoveList.MoveListIterator iter = ml.getStandardIterator(false, Position.NOPOSITION);
+			while (iter.hasNextMove()) {
+				iter.nextInt();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int generateMoves() throws InvalidPieceException {
+		return countMoves(1);
+	}
+
+	@Benchmark
+	public int generateMoves_Unordered() throws InvalidPieceException {
+		return countMoves(0);
+	}
+
+	/* Only the first move is taken, as at a node where it is a refutation. */
+	@Benchmark
+	public int generateFirstMove() throws InvalidPieceException {
+		int move = 0;
+		for (PositionManager pm : positions) {
+			ml.initialiseStaged(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.NOPOSITION);
+			if (ml.isMateOccurred()) continue;
+			MoveList.MoveListIterator iter = ml.getStandardIterator(false, Position.NOPOSITION);
+			if (iter.hasNextMove()) {
+				move ^= iter.nextInt();
+			}
+		}
+		return move;
+	}
+}
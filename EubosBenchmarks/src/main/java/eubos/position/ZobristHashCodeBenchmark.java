@@ -0,0 +1,70 @@
+package eubos.position;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fluxchess.jcpi.models.IntFile;
+
+import eubos.board.InvalidPieceException;
+
+/* Applies the incremental hash update for every legal move in each corpus position, then the update for the
+ * reversed move, without changing the board. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ZobristHashCodeBenchmark {
+
+	private ZobristHashCode[] hashes;
+	private int[][] moves;
+	private int[][] capturePositions;
+
+	@Setup
+	public void setUp() throws InvalidPieceException {
+		PositionManager[] positions = BenchmarkPositions.createPositions();
+		hashes = new ZobristHashCode[positions.length];
+		moves = new int[positions.length][];
+		capturePositions = new int[positions.length][];
+		for (int i=0; i < positions.length; i++) {
+			PositionManager pm = positions[i];
+			hashes[i] = new ZobristHashCode(pm, pm.castling);
+			moves[i] = BenchmarkPositions.getLegalMoves(pm);
+			capturePositions[i] = new int[moves[i].length];
+			for (int j=0; j < moves[i].length; j++) {
+				int move = moves[i][j];
+				int target = Move.getTargetPosition(move);
+				if (Move.isEnPassantCapture(move)) {
+					target = pm.getTheBoard().generateCapturePositionForEnPassant(Move.getOriginPiece(move), target);
+				}
+				capturePositions[i][j] = Move.isCapture(move) ? target : Position.NOPOSITION;
+			}
+		}
+	}
+
+	@Benchmark
+	public long update() {
+		long hashCodes = 0L;
+		for (int i=0; i < hashes.length; i++) {
+			ZobristHashCode hash = hashes[i];
+			for (int j=0; j < moves[i].length; j++) {
+				int move = moves[i][j];
+				hash.update(move, capturePositions[i][j], IntFile.NOFILE);
+				hashCodes ^= hash.hashCode;
+				hash.update(Move.reverse(move), capturePositions[i][j], IntFile.NOFILE);
+			}
+		}
+		return hashCodes;
+	}
+}
@@ -0,0 +1,71 @@
+package eubos.score;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eubos.board.Board;
+import eubos.position.BenchmarkPositions;
+import eubos.position.PositionManager;
+
+/* Evaluates each corpus position as on an eval hash table miss. Probing the table would answer every call after
+ * the first from the cache, so the evaluation is computed directly; the terms it sums are also measured alone. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionEvaluatorBenchmark {
+
+	private PositionManager[] positions;
+	private PositionEvaluator[] evaluators;
+
+	@Setup
+	public void setUp() {
+		positions = BenchmarkPositions.createPositions();
+		evaluators = new PositionEvaluator[positions.length];
+		// The default reference score, as no search has been run
+		ReferenceScore refScore = new ReferenceScore(null);
+		for (int i=0; i < positions.length; i++) {
+			evaluators[i] = new PositionEvaluator(positions[i], refScore);
+		}
+	}
+
+	@Benchmark
+	public int evaluatePosition() {
+		int score = 0;
+		for (PositionEvaluator pe : evaluators) {
+			score += pe.computeEvaluation();
+		}
+		return score;
+	}
+
+	@Benchmark
+	public int evaluateMaterial() {
+		int score = 0;
+		for (PositionManager pm : positions) {
+			score += pm.getTheBoard().evaluateMaterial().getDelta();
+		}
+		return score;
+	}
+
+	@Benchmark
+	public int evaluateKingSafety() {
+		int score = 0;
+		for (PositionManager pm : positions) {
+			Board bd = pm.getTheBoard();
+			score += bd.evaluateKingSafety(true) - bd.evaluateKingSafety(false);
+		}
+		return score;
+	}
+}
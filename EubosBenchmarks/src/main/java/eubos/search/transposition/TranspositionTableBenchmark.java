@@ -0,0 +1,81 @@
+package eubos.search.transposition;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eubos.board.InvalidPieceException;
+import eubos.position.BenchmarkPositions;
+import eubos.position.PositionManager;
+import eubos.search.Score;
+
+/* Stores and probes transpositions for the hash codes of the positions one move from each corpus position,
+ * padded out with random hash codes to a fixed number of keys. Uses the packed data words, as the search does
+ * through the TranspositionTableAccessor, so nothing is allocated. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranspositionTableBenchmark {
+
+	private static final int NUM_KEYS = 4096;
+	private static final long HASH_SIZE_MBYTES = 16;
+
+	private FixedSizeTranspositionTable tt;
+	private long[] hashCodes;
+	private long[] transpositions;
+
+	@Setup
+	public void setUp() throws InvalidPieceException {
+		tt = new FixedSizeTranspositionTable(HASH_SIZE_MBYTES, 1);
+		hashCodes = new long[NUM_KEYS];
+		transpositions = new long[NUM_KEYS];
+		int count = 0;
+		for (PositionManager pm : BenchmarkPositions.createPositions()) {
+			for (int move : BenchmarkPositions.getLegalMoves(pm)) {
+				if (count == NUM_KEYS) break;
+				pm.performMove(move);
+				hashCodes[count] = pm.getHash();
+				transpositions[count] = FixedSizeTranspositionTable.pack((byte)(1+count%8), (short)(count%200), Score.exact, move);
+				pm.unperformMove();
+				count++;
+			}
+		}
+		Random random = new Random(0x5EEDL);
+		for (; count < NUM_KEYS; count++) {
+			hashCodes[count] = random.nextLong();
+			transpositions[count] = FixedSizeTranspositionTable.pack((byte)(1+count%8), (short)(count%200), Score.exact, 0);
+		}
+		for (int i=0; i < NUM_KEYS; i++) {
+			tt.putTranspositionData(hashCodes[i], transpositions[i]);
+		}
+	}
+
+	@Benchmark
+	public int getTransposition() {
+		int found = 0;
+		for (long hashCode : hashCodes) {
+			if (tt.getTranspositionData(hashCode) != 0L) found++;
+		}
+		return found;
+	}
+
+	@Benchmark
+	public void putTransposition() {
+		for (int i=0; i < NUM_KEYS; i++) {
+			tt.putTranspositionData(hashCodes[i], transpositions[i]);
+		}
+	}
+}
@@ -10,24 +10,6 @@ import com.fluxchess.jcpi.models.IntRank;
 
 public final class BitBoard {
 	
-	static final int[] bitToPosition_Lut = new int[64];
-	static {
-		int bit_index = 0;
-		for (int square : Position.values) {
-			bitToPosition_Lut[bit_index++] = square;
-		}
-	}
-	
-	static final long[] positionToMask_Lut = new long[128];
-	static {
-		int bit_index = 0;
-		for (int x88_square : Position.values) {
-			long atPosMask = 1L << bit_index;
-			positionToMask_Lut[x88_square] = atPosMask;
-			bit_index++;
-		}
-	}
-			
 	public static String toString(long bitBoard) {
 		StringBuilder sb = new StringBuilder();
 		PrimitiveIterator.OfInt iter = iterator(bitBoard);
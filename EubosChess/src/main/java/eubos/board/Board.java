@@ -23,6 +23,7 @@ import com.fluxchess.jcpi.models.IntRank;
 public class Board {
 	
 	public static final boolean ENABLE_PIECE_LISTS = true;
+	public static final boolean ENABLE_MAGIC_BITBOARDS = true;
 	
 	private static final long LIGHT_SQUARES_MASK = 0x55AA55AA55AA55AAL;
 	private static final long DARK_SQUARES_MASK = 0xAA55AA55AA55AA55L; 
@@ -52,12 +53,12 @@ public class Board {
 	
 	private static final long[][] PassedPawn_Lut = new long[2][]; 
 	static {
-		long[] white_map = new long[128];
+		long[] white_map = new long[64];
 		PassedPawn_Lut[Colour.white.ordinal()] = white_map;
 		for (int atPos : Position.values) {
 			white_map[atPos] = buildPassedPawnFileMask(Position.getFile(atPos), Position.getRank(atPos), true);
 		}
-		long[] black_map = new long[128];
+		long[] black_map = new long[64];
 		PassedPawn_Lut[Colour.black.ordinal()] = black_map;
 		for (int atPos : Position.values) {
 			black_map[atPos] = buildPassedPawnFileMask(Position.getFile(atPos), Position.getRank(atPos), false);
@@ -104,7 +105,7 @@ public class Board {
 	
 	static final byte[] PAWN_WHITE_WEIGHTINGS;
     static {
-    	PAWN_WHITE_WEIGHTINGS = new byte[128];
+    	PAWN_WHITE_WEIGHTINGS = new byte[64];
         PAWN_WHITE_WEIGHTINGS[Position.a1] = 0; PAWN_WHITE_WEIGHTINGS[Position.b1] = 0; PAWN_WHITE_WEIGHTINGS[Position.c1] = 0; PAWN_WHITE_WEIGHTINGS[Position.d1] = 0; PAWN_WHITE_WEIGHTINGS[Position.e1] = 0; PAWN_WHITE_WEIGHTINGS[Position.f1] = 0; PAWN_WHITE_WEIGHTINGS[Position.g1] = 0; PAWN_WHITE_WEIGHTINGS[Position.h1] = 0;
         PAWN_WHITE_WEIGHTINGS[Position.a2] = 0; PAWN_WHITE_WEIGHTINGS[Position.b2] = 0; PAWN_WHITE_WEIGHTINGS[Position.c2] = 0; PAWN_WHITE_WEIGHTINGS[Position.d2] = 0; PAWN_WHITE_WEIGHTINGS[Position.e2] = 0; PAWN_WHITE_WEIGHTINGS[Position.f2] = 0; PAWN_WHITE_WEIGHTINGS[Position.g2] = 0; PAWN_WHITE_WEIGHTINGS[Position.h2] = 0;
         PAWN_WHITE_WEIGHTINGS[Position.a3] = 0; PAWN_WHITE_WEIGHTINGS[Position.b3] = 0; PAWN_WHITE_WEIGHTINGS[Position.c3] = 0; PAWN_WHITE_WEIGHTINGS[Position.d3] = 5; PAWN_WHITE_WEIGHTINGS[Position.e3] = 5; PAWN_WHITE_WEIGHTINGS[Position.f3] = 0; PAWN_WHITE_WEIGHTINGS[Position.g3] = 0; PAWN_WHITE_WEIGHTINGS[Position.h3] = 0;
@@ -117,7 +118,7 @@ public class Board {
     
 	static final byte[] PAWN_BLACK_WEIGHTINGS;
     static {
-    	PAWN_BLACK_WEIGHTINGS = new byte[128];
+    	PAWN_BLACK_WEIGHTINGS = new byte[64];
         PAWN_BLACK_WEIGHTINGS[Position.a1] = 0; PAWN_BLACK_WEIGHTINGS[Position.b1] = 0; PAWN_BLACK_WEIGHTINGS[Position.c1] = 0; PAWN_BLACK_WEIGHTINGS[Position.d1] = 0; PAWN_BLACK_WEIGHTINGS[Position.e1] = 0; PAWN_BLACK_WEIGHTINGS[Position.f1] = 0; PAWN_BLACK_WEIGHTINGS[Position.g1] = 0; PAWN_BLACK_WEIGHTINGS[Position.h1] = 0;
         PAWN_BLACK_WEIGHTINGS[Position.a2] = 25; PAWN_BLACK_WEIGHTINGS[Position.b2] = 50; PAWN_BLACK_WEIGHTINGS[Position.c2] = 50; PAWN_BLACK_WEIGHTINGS[Position.d2] = 50;PAWN_BLACK_WEIGHTINGS[Position.e2] = 50;PAWN_BLACK_WEIGHTINGS[Position.f2] = 50; PAWN_BLACK_WEIGHTINGS[Position.g2] = 50; PAWN_BLACK_WEIGHTINGS[Position.h2] = 25;
         PAWN_BLACK_WEIGHTINGS[Position.a3] = 5; PAWN_BLACK_WEIGHTINGS[Position.b3] = 25; PAWN_BLACK_WEIGHTINGS[Position.c3] = 25; PAWN_BLACK_WEIGHTINGS[Position.d3] = 25;PAWN_BLACK_WEIGHTINGS[Position.e3] = 25;PAWN_BLACK_WEIGHTINGS[Position.f3] = 25; PAWN_BLACK_WEIGHTINGS[Position.g3] = 25; PAWN_BLACK_WEIGHTINGS[Position.h3] = 10;
@@ -130,7 +131,7 @@ public class Board {
 	
 	static final byte[] KNIGHT_WEIGHTINGS;
     static {
-    	KNIGHT_WEIGHTINGS = new byte[128];
+    	KNIGHT_WEIGHTINGS = new byte[64];
         KNIGHT_WEIGHTINGS[Position.a1] = -20;KNIGHT_WEIGHTINGS[Position.b1] = -10;KNIGHT_WEIGHTINGS[Position.c1] = -10;KNIGHT_WEIGHTINGS[Position.d1] = -10;KNIGHT_WEIGHTINGS[Position.e1] = -10;KNIGHT_WEIGHTINGS[Position.f1] = -10;KNIGHT_WEIGHTINGS[Position.g1] = -10;KNIGHT_WEIGHTINGS[Position.h1] = -20;
 		KNIGHT_WEIGHTINGS[Position.a2] = -10;KNIGHT_WEIGHTINGS[Position.b2] = 0;KNIGHT_WEIGHTINGS[Position.c2] = 0;KNIGHT_WEIGHTINGS[Position.d2] = 0;KNIGHT_WEIGHTINGS[Position.e2] = 0;KNIGHT_WEIGHTINGS[Position.f2] = 0;KNIGHT_WEIGHTINGS[Position.g2] = 0;KNIGHT_WEIGHTINGS[Position.h2] = -10;
 		KNIGHT_WEIGHTINGS[Position.a3] = -10;KNIGHT_WEIGHTINGS[Position.b3] = 0;KNIGHT_WEIGHTINGS[Position.c3] = 10;KNIGHT_WEIGHTINGS[Position.d3] = 10;KNIGHT_WEIGHTINGS[Position.e3] = 10;KNIGHT_WEIGHTINGS[Position.f3] = 10;KNIGHT_WEIGHTINGS[Position.g3] = 0;KNIGHT_WEIGHTINGS[Position.h3] = -10;
@@ -143,7 +144,7 @@ public class Board {
     
     static final byte[] KING_ENDGAME_WEIGHTINGS;
     static {
-    	KING_ENDGAME_WEIGHTINGS = new byte[128];
+    	KING_ENDGAME_WEIGHTINGS = new byte[64];
         KING_ENDGAME_WEIGHTINGS[Position.a1] = -30;KING_ENDGAME_WEIGHTINGS[Position.b1] = -30;KING_ENDGAME_WEIGHTINGS[Position.c1] = -30;KING_ENDGAME_WEIGHTINGS[Position.d1] = -30;KING_ENDGAME_WEIGHTINGS[Position.e1] = -30;KING_ENDGAME_WEIGHTINGS[Position.f1] = -30;KING_ENDGAME_WEIGHTINGS[Position.g1] = -30;KING_ENDGAME_WEIGHTINGS[Position.h1] = -30;
 		KING_ENDGAME_WEIGHTINGS[Position.a2] = -30;KING_ENDGAME_WEIGHTINGS[Position.b2] = -20;KING_ENDGAME_WEIGHTINGS[Position.c2] = -20;KING_ENDGAME_WEIGHTINGS[Position.d2] = -20;KING_ENDGAME_WEIGHTINGS[Position.e2] = -20;KING_ENDGAME_WEIGHTINGS[Position.f2] = -20;KING_ENDGAME_WEIGHTINGS[Position.g2] = -20;KING_ENDGAME_WEIGHTINGS[Position.h2] = -30;
 		KING_ENDGAME_WEIGHTINGS[Position.a3] = -30;KING_ENDGAME_WEIGHTINGS[Position.b3] = -10;KING_ENDGAME_WEIGHTINGS[Position.c3] = 0;KING_ENDGAME_WEIGHTINGS[Position.d3] = 10;KING_ENDGAME_WEIGHTINGS[Position.e3] = 10;KING_ENDGAME_WEIGHTINGS[Position.f3] = 0;KING_ENDGAME_WEIGHTINGS[Position.g3] = -10;KING_ENDGAME_WEIGHTINGS[Position.h3] = -30;
@@ -156,7 +157,7 @@ public class Board {
     
     static final byte[] KING_MIDGAME_WEIGHTINGS;
     static {
-    	KING_MIDGAME_WEIGHTINGS = new byte[128];
+    	KING_MIDGAME_WEIGHTINGS = new byte[64];
         KING_MIDGAME_WEIGHTINGS[Position.a1] = 5;KING_MIDGAME_WEIGHTINGS[Position.b1] = 10;KING_MIDGAME_WEIGHTINGS[Position.c1] = 5;KING_MIDGAME_WEIGHTINGS[Position.d1] = 0;KING_MIDGAME_WEIGHTINGS[Position.e1] = 0;KING_MIDGAME_WEIGHTINGS[Position.f1] = 5;KING_MIDGAME_WEIGHTINGS[Position.g1] = 10;KING_MIDGAME_WEIGHTINGS[Position.h1] = 5;
 		KING_MIDGAME_WEIGHTINGS[Position.a2] = 0;KING_MIDGAME_WEIGHTINGS[Position.b2] = 0;KING_MIDGAME_WEIGHTINGS[Position.c2] = 0;KING_MIDGAME_WEIGHTINGS[Position.d2] = 0;KING_MIDGAME_WEIGHTINGS[Position.e2] = 0;KING_MIDGAME_WEIGHTINGS[Position.f2] = 0;KING_MIDGAME_WEIGHTINGS[Position.g2] = 0;KING_MIDGAME_WEIGHTINGS[Position.h2] = 0;
 		KING_MIDGAME_WEIGHTINGS[Position.a3] = -20;KING_MIDGAME_WEIGHTINGS[Position.b3] = -20;KING_MIDGAME_WEIGHTINGS[Position.c3] = -30;KING_MIDGAME_WEIGHTINGS[Position.d3] = -30;KING_MIDGAME_WEIGHTINGS[Position.e3] = -30;KING_MIDGAME_WEIGHTINGS[Position.f3] = -30;KING_MIDGAME_WEIGHTINGS[Position.g3] = -20;KING_MIDGAME_WEIGHTINGS[Position.h3] = -20;
@@ -177,6 +178,9 @@ public class Board {
 	public long getBlackPieces() {
 		return blackPieces;
 	}
+	public long getAllPieces() {
+		return allPieces;
+	}
 
 	private static final int INDEX_PAWN = Piece.PAWN;
 	private static final int INDEX_KNIGHT = Piece.KNIGHT;
@@ -187,6 +191,8 @@ public class Board {
 	//private static final int INDEX_NONE = Piece.NONE;
 	
 	private long[] pieces = new long[7]; // N.b. INDEX_NONE is an empty long at index 0.
+	// The piece on each square, kept in step with the bitboards so that identifying a piece is a single array read
+	private byte[] mailbox = new byte[64];
 	
 	static final int ENDGAME_MATERIAL_THRESHOLD = 
 			Board.MATERIAL_VALUE_KING + 
@@ -205,7 +211,27 @@ public class Board {
 	
 	private PieceList pieceLists = new PieceList(this);
 	
-	public PiecewiseEvaluation me;
+	// Material is updated incrementally as pieces are added, removed and promoted; the positional score is computed on demand
+	public PiecewiseEvaluation me = new PiecewiseEvaluation();
+	// Incrementally updated sum of the static piece square table weightings, positive favours white
+	private short staticPosition = 0;
+	private short[][] staticWeightings = MIDGAME_STATIC_WEIGHTINGS;
+	
+	// Static weightings indexed by piece then square, negated for black. Sliding pieces are instead weighted by their mobility.
+	private static final short[][] MIDGAME_STATIC_WEIGHTINGS = buildStaticWeightings(KING_MIDGAME_WEIGHTINGS);
+	private static final short[][] ENDGAME_STATIC_WEIGHTINGS = buildStaticWeightings(KING_ENDGAME_WEIGHTINGS);
+	private static short[][] buildStaticWeightings(byte[] kingWeightings) {
+		short[][] weightings = new short[Piece.BLACK_PAWN+1][64];
+		for (int atPos : Position.values) {
+			weightings[Piece.WHITE_PAWN][atPos] = PAWN_WHITE_WEIGHTINGS[atPos];
+			weightings[Piece.BLACK_PAWN][atPos] = (short)-PAWN_BLACK_WEIGHTINGS[atPos];
+			weightings[Piece.WHITE_KNIGHT][atPos] = KNIGHT_WEIGHTINGS[atPos];
+			weightings[Piece.BLACK_KNIGHT][atPos] = (short)-KNIGHT_WEIGHTINGS[atPos];
+			weightings[Piece.WHITE_KING][atPos] = kingWeightings[atPos];
+			weightings[Piece.BLACK_KING][atPos] = (short)-kingWeightings[atPos];
+		}
+		return weightings;
+	}
 	
 	public Board( Map<Integer, Integer> pieceMap,  Piece.Colour initialOnMove ) {
 		allPieces = 0x0;
@@ -225,9 +251,32 @@ public class Board {
 		boolean materialQuantityThreshholdReached = me.getWhite() <= ENDGAME_MATERIAL_THRESHOLD && me.getBlack() <= ENDGAME_MATERIAL_THRESHOLD;
 		if ((queensOffBoard && queensOffMaterialThresholdReached) || materialQuantityThreshholdReached) {
 			isEndgame = true;
+			// The king weightings depend on the phase of the game
+			staticWeightings = ENDGAME_STATIC_WEIGHTINGS;
+			initialiseStaticPosition();
+		}
+	}
+	
+	private void initialiseStaticPosition() {
+		staticPosition = 0;
+		long scratchBitBoard = allPieces;
+		while ( scratchBitBoard != 0x0L ) {
+			int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
+			staticPosition += staticWeightings[getPieceAtSquare(atSquare)][atSquare];
+			scratchBitBoard &= scratchBitBoard-1L;
 		}
 	}
 	
+	private void addStaticEvaluation(int piece, int atPos) {
+		me.addPiece(Piece.isWhite(piece), piece & Piece.PIECE_NO_COLOUR_MASK);
+		staticPosition += staticWeightings[piece][atPos];
+	}
+	
+	private void removeStaticEvaluation(int piece, int atPos) {
+		me.removePiece(Piece.isWhite(piece), piece & Piece.PIECE_NO_COLOUR_MASK);
+		staticPosition -= staticWeightings[piece][atPos];
+	}
+	
 	public static String reportStaticDataSizes() {
 		StringBuilder s = new StringBuilder();
 		int bytecountofstatics = PAWN_WHITE_WEIGHTINGS.length + PAWN_BLACK_WEIGHTINGS.length + KNIGHT_WEIGHTINGS.length + KING_ENDGAME_WEIGHTINGS.length + KING_MIDGAME_WEIGHTINGS.length;
@@ -276,8 +325,8 @@ public class Board {
 		int targetSquare = Move.getTargetPosition(move);
 		int targetPiece = Move.getTargetPiece(move);
 		int promotedPiece = Move.getPromotion(move);
-		long initialSquareMask = BitBoard.positionToMask_Lut[originSquare];
-		long targetSquareMask = BitBoard.positionToMask_Lut[targetSquare];
+		long initialSquareMask = 1L << originSquare;
+		long targetSquareMask = 1L << targetSquare;
 		long positionsMask = initialSquareMask | targetSquareMask;
 		
 		// Initialise En Passant target square
@@ -306,15 +355,21 @@ public class Board {
 			// For a promotion, need to resolve piece-specific across multiple bitboards
 			pieces[INDEX_PAWN] &= ~initialSquareMask;
 			pieces[promotedPiece] |= targetSquareMask;
+			mailbox[originSquare] = Piece.NONE;
+			mailbox[targetSquare] = (byte)(isWhite ? promotedPiece : promotedPiece|Piece.BLACK);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(pieceToMove, (isWhite ? promotedPiece : promotedPiece|Piece.BLACK), originSquare, targetSquare);
 			}
+			removeStaticEvaluation(pieceToMove, originSquare);
+			addStaticEvaluation((isWhite ? promotedPiece : promotedPiece|Piece.BLACK), targetSquare);
 		} else {
 			// Piece type doesn't change across boards
 			pieces[Piece.PIECE_NO_COLOUR_MASK & pieceToMove] ^= positionsMask;
+			movePieceInMailbox(originSquare, targetSquare);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(pieceToMove, originSquare, targetSquare);
 			}
+			staticPosition += staticWeightings[pieceToMove][targetSquare] - staticWeightings[pieceToMove][originSquare];
 		}
 		// Switch colour bitboard
 		if (isWhite) {
@@ -336,8 +391,8 @@ public class Board {
 		int targetSquare = Move.getTargetPosition(moveToUndo);
 		int targetPiece = Move.getTargetPiece(moveToUndo);
 		int promotedPiece = Move.getPromotion(moveToUndo);
-		long initialSquareMask = BitBoard.positionToMask_Lut[originSquare];
-		long targetSquareMask = BitBoard.positionToMask_Lut[targetSquare];
+		long initialSquareMask = 1L << originSquare;
+		long targetSquareMask = 1L << targetSquare;
 		long positionsMask = initialSquareMask | targetSquareMask;
 		boolean isCapture = targetPiece != Piece.NONE;
 		
@@ -350,16 +405,22 @@ public class Board {
 			// Remove promoted piece and replace it with a pawn
 			pieces[promotedPiece] &= ~initialSquareMask;	
 			pieces[INDEX_PAWN] |= targetSquareMask;
+			mailbox[originSquare] = Piece.NONE;
+			mailbox[targetSquare] = (byte)originPiece;
 			// and update piece list
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece((isWhite ? promotedPiece : promotedPiece|Piece.BLACK), originPiece, originSquare, targetSquare);
 			}
+			removeStaticEvaluation((isWhite ? promotedPiece : promotedPiece|Piece.BLACK), originSquare);
+			addStaticEvaluation(originPiece, targetSquare);
 		} else {
 			// Piece type doesn't change across boards
 			pieces[Piece.PIECE_NO_COLOUR_MASK & originPiece] ^= positionsMask;
+			movePieceInMailbox(originSquare, targetSquare);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(originPiece, originSquare, targetSquare);
 			}
+			staticPosition += staticWeightings[originPiece][targetSquare] - staticWeightings[originPiece][originSquare];
 		}
 		// Switch colour bitboard
 		if (isWhite) {
@@ -383,9 +444,9 @@ public class Board {
 	
 	public int generateCapturePositionForEnPassant(int pieceToMove, int targetSquare) {
 		if (pieceToMove == Piece.WHITE_PAWN) {
-			targetSquare -= 16;
+			targetSquare -= 8;
 		} else if (pieceToMove == Piece.BLACK_PAWN){
-			targetSquare += 16;
+			targetSquare += 8;
 		}
 		return targetSquare;
 	}
@@ -396,28 +457,34 @@ public class Board {
 			if (Position.getRank(originSquare) == IntRank.R2) {
 				if (Position.getRank(targetSquare) == IntRank.R4) {
 					isEnPassantCapturePossible = true;
-					setEnPassantTargetSq(targetSquare-16);
+					setEnPassantTargetSq(targetSquare-8);
 				}
 			} else if (Position.getRank(originSquare) == IntRank.R7) {
 				if (Position.getRank(targetSquare) == IntRank.R5) {
 					isEnPassantCapturePossible = true;
-					setEnPassantTargetSq(targetSquare+16);
+					setEnPassantTargetSq(targetSquare+8);
 				}
 			}
 		}
 		return isEnPassantCapturePossible;
 	}
 	
-	private static final long wksc_mask = BitBoard.positionToMask_Lut[Position.h1] | BitBoard.positionToMask_Lut[Position.f1];
-	private static final long wqsc_mask = BitBoard.positionToMask_Lut[Position.a1] | BitBoard.positionToMask_Lut[Position.d1];
-	private static final long bksc_mask = BitBoard.positionToMask_Lut[Position.h8] | BitBoard.positionToMask_Lut[Position.f8];
-	private static final long bqsc_mask = BitBoard.positionToMask_Lut[Position.a8] | BitBoard.positionToMask_Lut[Position.d8];
+	private static final long wksc_mask = (1L << Position.h1) | (1L << Position.f1);
+	private static final long wqsc_mask = (1L << Position.a1) | (1L << Position.d1);
+	private static final long bksc_mask = (1L << Position.h8) | (1L << Position.f8);
+	private static final long bqsc_mask = (1L << Position.a8) | (1L << Position.d8);
+	
+	private void movePieceInMailbox(int originSquare, int targetSquare) {
+		mailbox[targetSquare] = mailbox[originSquare];
+		mailbox[originSquare] = Piece.NONE;
+	}
 	
 	private void performSecondaryCastlingMove(int move) throws InvalidPieceException {
 		if (Move.areEqual(move, CastlingManager.wksc)) {
 			pieces[INDEX_ROOK] ^= (wksc_mask);
 			whitePieces ^= (wksc_mask);
 			allPieces ^= (wksc_mask);
+			movePieceInMailbox(Position.h1, Position.f1);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.WHITE_ROOK, Position.h1, Position.f1);
 			}
@@ -425,6 +492,7 @@ public class Board {
 			pieces[INDEX_ROOK] ^= (wqsc_mask);
 			whitePieces ^= (wqsc_mask);
 			allPieces ^= (wqsc_mask);
+			movePieceInMailbox(Position.a1, Position.d1);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.WHITE_ROOK, Position.a1, Position.d1);
 			}
@@ -432,6 +500,7 @@ public class Board {
 			pieces[INDEX_ROOK] ^= (bksc_mask);
 			blackPieces ^= (bksc_mask);
 			allPieces ^= (bksc_mask);
+			movePieceInMailbox(Position.h8, Position.f8);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.BLACK_ROOK, Position.h8, Position.f8);
 			}
@@ -439,6 +508,7 @@ public class Board {
 			pieces[INDEX_ROOK] ^= (bqsc_mask);
 			blackPieces ^= (bqsc_mask);
 			allPieces ^= (bqsc_mask);
+			movePieceInMailbox(Position.a8, Position.d8);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.BLACK_ROOK, Position.a8, Position.d8);
 			}
@@ -450,6 +520,7 @@ public class Board {
 			pieces[INDEX_ROOK] ^= (wksc_mask);
 			whitePieces ^= (wksc_mask);
 			allPieces ^= (wksc_mask);
+			movePieceInMailbox(Position.f1, Position.h1);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.WHITE_ROOK, Position.f1, Position.h1);
 			}
@@ -457,6 +528,7 @@ public class Board {
 			pieces[INDEX_ROOK] ^= (wqsc_mask);
 			whitePieces ^= (wqsc_mask);
 			allPieces ^= (wqsc_mask);
+			movePieceInMailbox(Position.d1, Position.a1);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.WHITE_ROOK, Position.d1, Position.a1);
 			}
@@ -464,6 +536,7 @@ public class Board {
 			pieces[INDEX_ROOK] ^= (bksc_mask);
 			blackPieces ^= (bksc_mask);
 			allPieces ^= (bksc_mask);
+			movePieceInMailbox(Position.f8, Position.h8);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.BLACK_ROOK, Position.f8, Position.h8);
 			}
@@ -471,6 +544,7 @@ public class Board {
 			pieces[INDEX_ROOK] ^= (bqsc_mask);
 			blackPieces ^= (bqsc_mask);
 			allPieces ^= (bqsc_mask);
+			movePieceInMailbox(Position.d8, Position.a8);
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.updatePiece(Piece.BLACK_ROOK, Position.d8, Position.a8);
 			}
@@ -487,7 +561,7 @@ public class Board {
 	}
 	
 	public boolean squareIsEmpty( int atPos ) {
-		return (allPieces & BitBoard.positionToMask_Lut[atPos]) == 0;		
+		return (allPieces & (1L << atPos)) == 0;		
 	}
 	
 	public boolean squareIsAttacked( int atPos, Piece.Colour attackingColour ) {
@@ -495,59 +569,13 @@ public class Board {
 	}
 	
 	public int getPieceAtSquare( int atPos ) {
-		int type = Piece.NONE;
-		long pieceToGet = BitBoard.positionToMask_Lut[atPos];;
-		if ((allPieces & pieceToGet) != 0) {	
-			if ((blackPieces & pieceToGet) != 0) {
-				type |= Piece.BLACK;
-			} else {
-				if (EubosEngineMain.ASSERTS_ENABLED)
-					assert (whitePieces & pieceToGet) != 0;
-			}
-			// Sorted in order of frequency of piece on the chess board, for efficiency
-			if ((pieces[INDEX_PAWN] & pieceToGet) != 0) {
-				type |= Piece.PAWN;
-			} else if ((pieces[INDEX_ROOK] & pieceToGet) != 0) {
-				type |= Piece.ROOK;
-			} else if ((pieces[INDEX_BISHOP] & pieceToGet) != 0) {
-				type |= Piece.BISHOP;
-			} else if ((pieces[INDEX_KNIGHT] & pieceToGet) != 0) {
-				type |= Piece.KNIGHT;
-			} else if ((pieces[INDEX_KING] & pieceToGet) != 0) {
-				type |= Piece.KING;
-			} else if ((pieces[INDEX_QUEEN] & pieceToGet) != 0) {
-				type |= Piece.QUEEN;
-			}
-		}
-		return type;
+		return mailbox[atPos];
 	}
 	
 	public int getPieceAtSquareOptimise( int atPos, boolean ownSideIsWhite ) {
-		int type = Piece.NONE;
-		long pieceToGet = BitBoard.positionToMask_Lut[atPos];;
-		if ((allPieces & pieceToGet) != 0) {	
-			if ((blackPieces & pieceToGet) != 0) {
-				if (!ownSideIsWhite) return Piece.DONT_CARE;
-				type |= Piece.BLACK;
-			} else {
-				if (EubosEngineMain.ASSERTS_ENABLED)
-					assert (whitePieces & pieceToGet) != 0;
-				if (ownSideIsWhite) return Piece.DONT_CARE;
-			}
-			// Sorted in order of frequency of piece on the chess board, for efficiency
-			if ((pieces[INDEX_PAWN] & pieceToGet) != 0) {
-				type |= Piece.PAWN;
-			} else if ((pieces[INDEX_ROOK] & pieceToGet) != 0) {
-				type |= Piece.ROOK;
-			} else if ((pieces[INDEX_BISHOP] & pieceToGet) != 0) {
-				type |= Piece.BISHOP;
-			} else if ((pieces[INDEX_KNIGHT] & pieceToGet) != 0) {
-				type |= Piece.KNIGHT;
-			} else if ((pieces[INDEX_KING] & pieceToGet) != 0) {
-				type |= Piece.KING;
-			} else if ((pieces[INDEX_QUEEN] & pieceToGet) != 0) {
-				type |= Piece.QUEEN;
-			}
+		int type = mailbox[atPos];
+		if (type != Piece.NONE && Piece.isWhite(type) == ownSideIsWhite) {
+			return Piece.DONT_CARE;
 		}
 		return type;
 	}
@@ -560,9 +588,11 @@ public class Board {
 		if (ENABLE_PIECE_LISTS) {
 			pieceLists.addPiece(pieceToPlace, atPos);
 		}
-		long mask = BitBoard.positionToMask_Lut[atPos];
+		addStaticEvaluation(pieceToPlace, atPos);
+		long mask = 1L << atPos;
 		// Set on piece-specific bitboard
 		pieces[pieceToPlace & Piece.PIECE_NO_COLOUR_MASK] |= mask;
+		mailbox[atPos] = (byte)pieceToPlace;
 		// Set on colour bitboard
 		if (Piece.isBlack(pieceToPlace)) {
 			blackPieces |= (mask);
@@ -573,18 +603,22 @@ public class Board {
 		allPieces |= (mask);
 	}
 	
-	public boolean isKingInCheck(Piece.Colour side) {
-		boolean inCheck = false;
+	public int getKingPosition(boolean isWhite) {
 		int kingSquare = Position.NOPOSITION;
 		if (ENABLE_PIECE_LISTS) {
-			kingSquare = pieceLists.getKingPos(Colour.isWhite(side));
+			kingSquare = pieceLists.getKingPos(isWhite);
 		} else {
-			long king = (Piece.Colour.isWhite(side)) ? getWhiteKing() : getBlackKing();
-
-			if (king == 0)  return false;
-			
-			kingSquare = BitBoard.bitToPosition_Lut[Long.numberOfTrailingZeros(king)];
+			long king = isWhite ? getWhiteKing() : getBlackKing();
+			if (king != 0) {
+				kingSquare = Long.numberOfTrailingZeros(king);
+			}
 		}
+		return kingSquare;
+	}
+	
+	public boolean isKingInCheck(Piece.Colour side) {
+		boolean inCheck = false;
+		int kingSquare = getKingPosition(Colour.isWhite(side));
 		if (kingSquare != Position.NOPOSITION) {
 			// The conditional is needed because some unit test positions don't have a king...
 			inCheck = squareIsAttacked(kingSquare, Piece.Colour.getOpposite(side));
@@ -593,50 +627,11 @@ public class Board {
 	}
 	
 	public int pickUpPieceAtSquare( int atPos ) {
-		int type = Piece.NONE;
-		long pieceToPickUp = BitBoard.positionToMask_Lut[atPos];
-		if ((allPieces & pieceToPickUp) != 0) {	
-			// Remove from relevant colour bitboard
-			if ((blackPieces & pieceToPickUp) != 0) {
-				blackPieces &= ~pieceToPickUp;
-				type |= Piece.BLACK;
-			} else {
-				if (EubosEngineMain.ASSERTS_ENABLED)
-					assert (whitePieces & pieceToPickUp) != 0;
-				whitePieces &= ~pieceToPickUp;
-			}
-			// Remove from specific-piece bitboard
-			if ((pieces[INDEX_KING] & pieceToPickUp) == pieceToPickUp) {
-				pieces[INDEX_KING] &= ~pieceToPickUp;
-				type |= Piece.KING;
-			} else if ((pieces[INDEX_QUEEN] & pieceToPickUp) == pieceToPickUp) {
-				pieces[INDEX_QUEEN] &= ~pieceToPickUp;
-				type |= Piece.QUEEN;
-			} else if ((pieces[INDEX_ROOK] & pieceToPickUp) == pieceToPickUp) {
-				pieces[INDEX_ROOK] &= ~pieceToPickUp;
-				type |= Piece.ROOK;
-			} else if ((pieces[INDEX_BISHOP] & pieceToPickUp) == pieceToPickUp) {
-				pieces[INDEX_BISHOP] &= ~pieceToPickUp;
-				type |= Piece.BISHOP;
-			} else if ((pieces[INDEX_KNIGHT] & pieceToPickUp) == pieceToPickUp) {
-				pieces[INDEX_KNIGHT] &= ~pieceToPickUp;
-				type |= Piece.KNIGHT;
-			} else if ((pieces[INDEX_PAWN] & pieceToPickUp) == pieceToPickUp) {
-				pieces[INDEX_PAWN] &= ~pieceToPickUp;
-				type |= Piece.PAWN;
-			}
-			// Remove from all pieces bitboard
-			allPieces &= ~pieceToPickUp;
-			// Remove from piece list
-			if (ENABLE_PIECE_LISTS) {
-				pieceLists.removePiece(type, atPos);
-			}
-		}
-		return type;
+		return pickUpPieceAtSquare(atPos, mailbox[atPos]);
 	}
 	
 	public int pickUpPieceAtSquare( int atPos, int piece ) {
-		long pieceToPickUp = BitBoard.positionToMask_Lut[atPos];
+		long pieceToPickUp = 1L << atPos;
 		if ((allPieces & pieceToPickUp) != 0) {	
 			// Remove from relevant colour bitboard
 			if (Piece.isBlack(piece)) {
@@ -646,12 +641,14 @@ public class Board {
 			}
 			// remove from specific bitboard
 			pieces[piece & Piece.PIECE_NO_COLOUR_MASK] &= ~pieceToPickUp;
+			mailbox[atPos] = Piece.NONE;
 			// Remove from all pieces bitboard
 			allPieces &= ~pieceToPickUp;
 			// Remove from piece list
 			if (ENABLE_PIECE_LISTS) {
 				pieceLists.removePiece(piece, atPos);
 			}
+			removeStaticEvaluation(piece, atPos);
 		} else {
 			piece = Piece.NONE;
 		}
@@ -682,6 +679,18 @@ public class Board {
 		return isPassed;
 	}
 	
+	public long getPawnAttacks(Colour side) {
+		long attacks = 0;
+		if (Colour.isWhite(side)) {
+			long pawns = getWhitePawns();
+			attacks = ((pawns & ~FileMask_Lut[IntFile.Fa]) << 7) | ((pawns & ~FileMask_Lut[IntFile.Fh]) << 9);
+		} else {
+			long pawns = getBlackPawns();
+			attacks = ((pawns & ~FileMask_Lut[IntFile.Fa]) >>> 9) | ((pawns & ~FileMask_Lut[IntFile.Fh]) >>> 7);
+		}
+		return attacks;
+	}
+	
 	class allPiecesOnBoardIterator implements PrimitiveIterator.OfInt {	
 		private int[] pieces = null;
 		private int count = 0;
@@ -709,7 +718,7 @@ public class Board {
 			PrimitiveIterator.OfInt iter = BitBoard.iterator(bitBoardToIterate);
 			while (iter.hasNext()) {
 				int bit_index = iter.nextInt();
-				pieces[count++] = BitBoard.bitToPosition_Lut[bit_index];
+				pieces[count++] = bit_index;
 			}
 		}	
 
@@ -810,16 +819,7 @@ public class Board {
 	
 	public boolean moveCouldLeadToOwnKingDiscoveredCheck(int move, int piece) {
 		boolean couldLeadToDiscoveredCheck = false;
-		int kingPosition = Position.NOPOSITION;
-		if (ENABLE_PIECE_LISTS) {
-			kingPosition = pieceLists.getKingPos(Piece.isWhite(piece));
-		} else {
-			long king = (Piece.isWhite(piece)) ? getWhiteKing() : getBlackKing();
-
-			if (king == 0)  return false;
-			
-			kingPosition = BitBoard.bitToPosition_Lut[Long.numberOfTrailingZeros(king)];
-		}
+		int kingPosition = getKingPosition(Piece.isWhite(piece));
 		if (kingPosition != Position.NOPOSITION) {
 			couldLeadToDiscoveredCheck = SquareAttackEvaluator.moveCouldLeadToDiscoveredCheck(move, kingPosition);
 		}
@@ -830,8 +830,7 @@ public class Board {
 		boolean potentialPromotion = false;
 		long scratchBitBoard = pawns;
 		while ( scratchBitBoard != 0x0L ) {
-			int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-			int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+			int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 			if (squareIsEmpty(Direction.getDirectMoveSq(dir, atSquare))) {
 				potentialPromotion = true;
 				break;
@@ -876,8 +875,7 @@ public class Board {
 				scratchBitBoard = bitBoardToIterate & pieces[INDEX_KING];
 				scratchBitBoard &= potentialAttackersMask;
 				while ( scratchBitBoard != 0x0L ) {
-					int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-					int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+					int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 					Piece.king_generateMoves(ml, this, atSquare, ownSideIsWhite);
 					scratchBitBoard &= scratchBitBoard-1L;
 				}
@@ -885,40 +883,35 @@ public class Board {
 			scratchBitBoard = bitBoardToIterate & pieces[INDEX_QUEEN];
 			scratchBitBoard &= potentialAttackersMask;
 			while ( scratchBitBoard != 0x0L ) {
-				int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-				int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+				int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 				Piece.queen_generateMoves(ml, this, atSquare, ownSideIsWhite);
 				scratchBitBoard &= scratchBitBoard-1L;
 			}
 			scratchBitBoard = bitBoardToIterate & pieces[INDEX_ROOK];
 			scratchBitBoard &= potentialAttackersMask;
 			while ( scratchBitBoard != 0x0L ) {
-				int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-				int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+				int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 				Piece.rook_generateMoves(ml, this, atSquare, ownSideIsWhite);
 				scratchBitBoard &= scratchBitBoard-1L;
 			}
 			scratchBitBoard = bitBoardToIterate & pieces[INDEX_BISHOP];
 			scratchBitBoard &= potentialAttackersMask;
 			while ( scratchBitBoard != 0x0L ) {
-				int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-				int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+				int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 				Piece.bishop_generateMoves(ml, this, atSquare, ownSideIsWhite);
 				scratchBitBoard &= scratchBitBoard-1L;
 			}
 			scratchBitBoard = bitBoardToIterate & pieces[INDEX_KNIGHT];
 			scratchBitBoard &= potentialAttackersMask;
 			while ( scratchBitBoard != 0x0L ) {
-				int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-				int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+				int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 				Piece.knight_generateMoves(ml, this, atSquare, ownSideIsWhite);
 				scratchBitBoard &= scratchBitBoard-1L;
 			}
 			scratchBitBoard = bitBoardToIterate & pieces[INDEX_PAWN];
 			//scratchBitBoard &= potentialAttackersMask;
 			while ( scratchBitBoard != 0x0L ) {
-				int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-				int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+				int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 				Piece.pawn_generateMoves(ml, this, atSquare, ownSideIsWhite);
 				scratchBitBoard &= scratchBitBoard-1L;
 			}
@@ -926,8 +919,7 @@ public class Board {
 				scratchBitBoard = bitBoardToIterate & pieces[INDEX_KING];
 				scratchBitBoard &= potentialAttackersMask;
 				while ( scratchBitBoard != 0x0L ) {
-					int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-					int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+					int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 					Piece.king_generateMoves(ml, this, atSquare, ownSideIsWhite);
 					scratchBitBoard &= scratchBitBoard-1L;
 				}
@@ -935,11 +927,58 @@ public class Board {
 		}
 	}
 	
+	/* Generates the moves that can escape a single check: moves of the other pieces are only generated to the
+	 * squares in the evasion targets mask, i.e. capturing the checker or interposing on the check ray. */
+	public void getEvasionMoves(MoveList ml, boolean ownSideIsWhite, long evasionTargets) {
+		long bitBoardToIterate = ownSideIsWhite ? whitePieces : blackPieces;
+		if (isEndgame) {
+			getKingMoves(ml, ownSideIsWhite);
+		}
+		long scratchBitBoard = bitBoardToIterate & pieces[INDEX_QUEEN];
+		while ( scratchBitBoard != 0x0L ) {
+			Piece.queen_generateEvasions(ml, this, Long.numberOfTrailingZeros(scratchBitBoard), ownSideIsWhite, evasionTargets);
+			scratchBitBoard &= scratchBitBoard-1L;
+		}
+		scratchBitBoard = bitBoardToIterate & pieces[INDEX_ROOK];
+		while ( scratchBitBoard != 0x0L ) {
+			Piece.rook_generateEvasions(ml, this, Long.numberOfTrailingZeros(scratchBitBoard), ownSideIsWhite, evasionTargets);
+			scratchBitBoard &= scratchBitBoard-1L;
+		}
+		scratchBitBoard = bitBoardToIterate & pieces[INDEX_BISHOP];
+		while ( scratchBitBoard != 0x0L ) {
+			Piece.bishop_generateEvasions(ml, this, Long.numberOfTrailingZeros(scratchBitBoard), ownSideIsWhite, evasionTargets);
+			scratchBitBoard &= scratchBitBoard-1L;
+		}
+		scratchBitBoard = bitBoardToIterate & pieces[INDEX_KNIGHT];
+		while ( scratchBitBoard != 0x0L ) {
+			Piece.knight_generateEvasions(ml, this, Long.numberOfTrailingZeros(scratchBitBoard), ownSideIsWhite, evasionTargets);
+			scratchBitBoard &= scratchBitBoard-1L;
+		}
+		scratchBitBoard = bitBoardToIterate & pieces[INDEX_PAWN];
+		while ( scratchBitBoard != 0x0L ) {
+			Piece.pawn_generateEvasions(ml, this, Long.numberOfTrailingZeros(scratchBitBoard), ownSideIsWhite, evasionTargets);
+			scratchBitBoard &= scratchBitBoard-1L;
+		}
+		if (!isEndgame) {
+			getKingMoves(ml, ownSideIsWhite);
+		}
+	}
+	
+	public void getKingMoves(MoveList ml, boolean ownSideIsWhite) {
+		int kingPos = getKingPosition(ownSideIsWhite);
+		if (kingPos != Position.NOPOSITION) {
+			Piece.king_generateMoves(ml, this, kingPos, ownSideIsWhite);
+		}
+	}
+	
 	public PiecewiseEvaluation evaluateMaterial() {
 		if (ENABLE_PIECE_LISTS) {
-			me = new PiecewiseEvaluation();
-			pieceLists.evaluateMaterialBalanceAndPieceMobility(true);
-			pieceLists.evaluateMaterialBalanceAndPieceMobility(false);
+			// Material and static weightings are up to date, only piece mobility needs to be computed
+			me.setPosition(staticPosition);
+			if (PositionEvaluator.ENABLE_DYNAMIC_POSITIONAL_EVALUATION && !isEndgame) {
+				pieceLists.evaluatePieceMobility(true);
+				pieceLists.evaluatePieceMobility(false);
+			}
 			return me;
 		} else {
 			PrimitiveIterator.OfInt iter_p = this.iterator();
@@ -1048,6 +1087,12 @@ public class Board {
 		return true;
 	}
 	
+	/* True when the side has only a king and pawns, positions where zugzwang is likely. */
+	public boolean hasOnlyKingAndPawns(Piece.Colour side) {
+		long ownBitBoard =  Colour.isWhite(side) ? whitePieces : blackPieces;
+		return (ownBitBoard & ~(pieces[Piece.PAWN] | pieces[Piece.KING])) == 0;
+	}
+	
 	public boolean isInsufficientMaterial(Piece.Colour side) {
 		long ownBitBoard =  Colour.isWhite(side) ? whitePieces : blackPieces;
 		// Major pieces
@@ -1096,7 +1141,7 @@ public class Board {
 			if (ENABLE_PIECE_LISTS) {
 				kingPos = pieceLists.getKingPos(onMoveWasWhite);
 			} else {
-				kingPos = BitBoard.bitToPosition_Lut[Long.numberOfTrailingZeros(kingMask)];
+				kingPos = Long.numberOfTrailingZeros(kingMask);
 			}
 			evaluation = (getTwiceNumEmptyDiagonalSquares(kingPos)/2) * -numPotentialAttackers;
 			
@@ -1111,18 +1156,27 @@ public class Board {
 	}
 	
 	public byte getTwiceNumEmptyDiagonalSquares(int atPos) {
+		if (ENABLE_MAGIC_BITBOARDS) {
+			return (byte)(Long.bitCount(MagicBitBoard.getBishopAttacks(atPos, allPieces) & ~allPieces)*2);
+		}
 		return getTwiceNumEmptySquaresInDirection(atPos, SquareAttackEvaluator.diagonals);
 	}
 	
 	public byte getTwiceNumEmptyRankFileSquares(int atPos) {
+		if (ENABLE_MAGIC_BITBOARDS) {
+			return (byte)(Long.bitCount(MagicBitBoard.getRookAttacks(atPos, allPieces) & ~allPieces)*2);
+		}
 		return getTwiceNumEmptySquaresInDirection(atPos, SquareAttackEvaluator.rankFile);
 	}
 	
 	public byte getTwiceNumEmptyAllDirectSquares(int atPos) {
+		if (ENABLE_MAGIC_BITBOARDS) {
+			return (byte)(Long.bitCount(MagicBitBoard.getQueenAttacks(atPos, allPieces) & ~allPieces)*2);
+		}
 		return getTwiceNumEmptySquaresInDirection(atPos, SquareAttackEvaluator.allDirect);
 	}
 	
-	static final long[][][] emptySquareMask_Lut = new long[128][SquareAttackEvaluator.allDirect.length][];
+	static final long[][][] emptySquareMask_Lut = new long[64][SquareAttackEvaluator.allDirect.length][];
 	static {
 		for (int square : Position.values) {
 			int [][] forSqArray = SquareAttackEvaluator.directPieceMove_Lut[square];
@@ -1131,7 +1185,7 @@ public class Board {
 				long [] mask = new long[dir.length];
 				int i=0;
 				for (int sq : dir) {
-					mask[i++] = BitBoard.positionToMask_Lut[sq];
+					mask[i++] = 1L << sq;
 				}
 				emptySquareMask_Lut[square][j++] = mask;
 			}
@@ -1170,8 +1224,7 @@ public class Board {
 		} else {
 			long scratchBitBoard = allPieces;
 			while ( scratchBitBoard != 0x0L ) {
-				int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-				int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+				int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 				caller.callback(getPieceAtSquare(atSquare), atSquare);
 				scratchBitBoard &= scratchBitBoard-1L;
 			}
@@ -1186,8 +1239,7 @@ public class Board {
 			int piece = isBlack ? Piece.BLACK_PAWN : Piece.WHITE_PAWN;
 			long scratchBitBoard = pawnMask;
 			while ( scratchBitBoard != 0x0L ) {
-				int bitIndex = Long.numberOfTrailingZeros(scratchBitBoard);
-				int atSquare = BitBoard.bitToPosition_Lut[bitIndex];
+				int atSquare = Long.numberOfTrailingZeros(scratchBitBoard);
 				caller.callback(piece, atSquare);
 				scratchBitBoard &= scratchBitBoard-1L;
 			}
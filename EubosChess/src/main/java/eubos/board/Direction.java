@@ -5,113 +5,105 @@ import eubos.position.Position;
 public enum Direction {
 	up, upRight, right, downRight, down, downLeft, left, upLeft, rightUp, rightDown, leftDown, leftUp;
 	
-	public static int getDirectMoveSq( Direction dir, int startSq ) {
-		int retVal = Position.NOPOSITION;
-		switch( dir ) {
-		case downLeft:
-		case leftDown:
-			retVal = startSq-17;
-			break;
-		case down:
-			retVal = startSq-16;
-			break;
-		case downRight:
-		case rightDown:
-			retVal = startSq-15;
-			break;
-		case left:
-			retVal = startSq-1;
-			break;
-		case right:
-			retVal = startSq+1;
-			break;
-		case up:
-			retVal = startSq+16;
-			break;
-		case upLeft:
-		case leftUp:
-			retVal = startSq+15;
-			break;
-		case upRight:
-		case rightUp:
-			retVal = startSq+17;
-			break;
-		default:
-			break;
+	// The square reached by a one square move, or a knight move, in each direction; NOPOSITION if it is off the board
+	private static final int[][] DirectMoveSq_Lut = new int[Direction.values().length][64];
+	private static final int[][] IndirectMoveSq_Lut = new int[Direction.values().length][64];
+	static {
+		for (Direction dir : Direction.values()) {
+			for (int sq : Position.values) {
+				DirectMoveSq_Lut[dir.ordinal()][sq] = createDirectMoveSq(dir, sq);
+				IndirectMoveSq_Lut[dir.ordinal()][sq] = createIndirectMoveSq(dir, sq);
+			}
 		}
-		if ((retVal & 0x88) != 0)
-			retVal = Position.NOPOSITION;
-		return retVal;
 	}
 	
-	public static int getDirectMoveSqRaw( Direction dir, int startSq ) {
+	private static int offsetSq(int startSq, int fileOffset, int rankOffset) {
+		int file = Position.getFile(startSq) + fileOffset;
+		int rank = Position.getRank(startSq) + rankOffset;
+		if (file < 0 || file > 7 || rank < 0 || rank > 7)
+			return Position.NOPOSITION;
+		return Position.valueOf(file, rank);
+	}
+	
+	private static int createDirectMoveSq( Direction dir, int startSq ) {
+		int retVal = Position.NOPOSITION;
 		switch( dir ) {
 		case downLeft:
 		case leftDown:
-			startSq -= 17;
+			retVal = offsetSq(startSq, -1, -1);
 			break;
 		case down:
-			startSq -= 16;
+			retVal = offsetSq(startSq, 0, -1);
 			break;
 		case downRight:
 		case rightDown:
-			startSq -= 15;
+			retVal = offsetSq(startSq, 1, -1);
 			break;
 		case left:
-			startSq -= 1;
+			retVal = offsetSq(startSq, -1, 0);
 			break;
 		case right:
-			startSq += 1;
+			retVal = offsetSq(startSq, 1, 0);
 			break;
 		case up:
-			startSq += 16;
+			retVal = offsetSq(startSq, 0, 1);
 			break;
 		case upLeft:
 		case leftUp:
-			startSq += 15;
+			retVal = offsetSq(startSq, -1, 1);
 			break;
 		case upRight:
 		case rightUp:
-			startSq += 17;
+			retVal = offsetSq(startSq, 1, 1);
 			break;
 		default:
-			startSq = Position.NOPOSITION;
+			break;
 		}
-		return startSq;
+		return retVal;
 	}
 	
-	public static int getIndirectMoveSq( Direction dir, int onSquare ) {
+	private static int createIndirectMoveSq( Direction dir, int onSquare ) {
 		int retVal = Position.NOPOSITION;
 		switch( dir ) {
 		case downLeft:
-			retVal = onSquare-33;
+			retVal = offsetSq(onSquare, -1, -2);
 			break;
 		case downRight:
-			retVal = onSquare-31;
+			retVal = offsetSq(onSquare, 1, -2);
 			break;
 		case leftUp:
-			retVal = onSquare+14;
+			retVal = offsetSq(onSquare, -2, 1);
 			break;
 		case leftDown:
-			retVal = onSquare-18;
+			retVal = offsetSq(onSquare, -2, -1);
 			break;
 		case rightUp:
-			retVal = onSquare+18;
+			retVal = offsetSq(onSquare, 2, 1);
 			break;
 		case rightDown:
-			retVal = onSquare-14;
+			retVal = offsetSq(onSquare, 2, -1);
 			break;
 		case upLeft:
-			retVal = onSquare+31;
+			retVal = offsetSq(onSquare, -1, 2);
 			break;
 		case upRight:
-			retVal = onSquare+33;	
+			retVal = offsetSq(onSquare, 1, 2);
 			break;
 		default:
 			break;
 		}
-		if ((retVal & 0x88) != 0)
-			retVal = Position.NOPOSITION;
 		return retVal;
+	}
+	
+	public static int getDirectMoveSq( Direction dir, int startSq ) {
+		if (startSq == Position.NOPOSITION)
+			return Position.NOPOSITION;
+		return DirectMoveSq_Lut[dir.ordinal()][startSq];
+	}
+	
+	public static int getIndirectMoveSq( Direction dir, int onSquare ) {
+		if (onSquare == Position.NOPOSITION)
+			return Position.NOPOSITION;
+		return IndirectMoveSq_Lut[dir.ordinal()][onSquare];
 	}	
 }
@@ -0,0 +1,189 @@
+package eubos.board;
+
+import eubos.board.Piece.Colour;
+import eubos.position.Move;
+import eubos.position.Position;
+
+/* Decides the legality of pseudo-legal moves without making them. The pieces pinned to the king of the side on
+ * move are found once per position, then a pinned piece may only move along its pin ray and the king may only
+ * move to a square that isn't attacked once it has left its current square. When in check, the other pieces
+ * must also capture the checker or interpose on the check ray. Relies on the magic bitboard sliding piece attacks. */
+public final class LegalMoveChecker {
+
+	// A king can be pinned against from at most eight directions
+	private static final int MAX_PINS = 8;
+
+	private Board bd;
+	private boolean ownSideIsWhite;
+	private Colour attackingColour;
+	private int kingPos;
+	private long kingMask;
+	private long pinnedPieces;
+	private int numPins;
+	private final long[] pinnedPieceMasks = new long[MAX_PINS];
+	private final long[] pinRayMasks = new long[MAX_PINS];
+	private boolean inCheck;
+	private boolean doubleCheck;
+	// The squares a piece other than the king can move to in order to escape a single check
+	private long evasionTargets;
+
+	public void initialise(Board bd, boolean ownSideIsWhite, boolean inCheck) {
+		this.bd = bd;
+		this.inCheck = inCheck;
+		this.ownSideIsWhite = ownSideIsWhite;
+		attackingColour = ownSideIsWhite ? Colour.black : Colour.white;
+		pinnedPieces = 0L;
+		numPins = 0;
+		doubleCheck = false;
+		evasionTargets = 0L;
+		kingPos = bd.getKingPosition(ownSideIsWhite);
+		if (kingPos == Position.NOPOSITION) {
+			// Some unit test positions don't have a king, so nothing can be pinned
+			kingMask = 0L;
+			return;
+		}
+		kingMask = 1L << kingPos;
+		long ownPieces = ownSideIsWhite ? bd.getWhitePieces() : bd.getBlackPieces();
+		long enemyQueens = ownSideIsWhite ? bd.getBlackQueens() : bd.getWhiteQueens();
+		long enemyRankFile = (ownSideIsWhite ? bd.getBlackRooks() : bd.getWhiteRooks()) | enemyQueens;
+		long enemyDiagonal = (ownSideIsWhite ? bd.getBlackBishops() : bd.getWhiteBishops()) | enemyQueens;
+		long rankFileRays = MagicBitBoard.getRookAttacks(kingPos, 0L);
+		long diagonalRays = MagicBitBoard.getBishopAttacks(kingPos, 0L);
+		// Snipers are the enemy sliders that would attack the king on an otherwise empty board
+		findPins(enemyRankFile & rankFileRays, ownPieces, true);
+		findPins(enemyDiagonal & diagonalRays, ownPieces, false);
+		if (inCheck) {
+			long checkers = SquareAttackEvaluator.getAttackers(bd, kingPos, attackingColour);
+			if ((checkers & (checkers-1)) != 0L) {
+				// Only the king can move out of a double check
+				doubleCheck = true;
+			} else {
+				evasionTargets = checkers;
+				if ((checkers & enemyRankFile & rankFileRays) != 0L) {
+					evasionTargets |= getSquaresBetween(Long.numberOfTrailingZeros(checkers), true);
+				} else if ((checkers & enemyDiagonal & diagonalRays) != 0L) {
+					evasionTargets |= getSquaresBetween(Long.numberOfTrailingZeros(checkers), false);
+				}
+			}
+		}
+	}
+
+	private long getSquaresBetween(int sliderPos, boolean isRankFile) {
+		long sliderMask = 1L << sliderPos;
+		return isRankFile ?
+				MagicBitBoard.getRookAttacks(kingPos, sliderMask) & MagicBitBoard.getRookAttacks(sliderPos, kingMask) :
+				MagicBitBoard.getBishopAttacks(kingPos, sliderMask) & MagicBitBoard.getBishopAttacks(sliderPos, kingMask);
+	}
+
+	private void findPins(long snipers, long ownPieces, boolean isRankFile) {
+		long allPieces = bd.getAllPieces();
+		while (snipers != 0L) {
+			int bitIndex = Long.numberOfTrailingZeros(snipers);
+			long sniperMask = 1L << bitIndex;
+			long between = getSquaresBetween(bitIndex, isRankFile);
+			long blockers = between & allPieces;
+			// Pinned if the only piece between is one of our own
+			if ((blockers & ownPieces) != 0L && (blockers & (blockers-1)) == 0L) {
+				pinnedPieces |= blockers;
+				pinnedPieceMasks[numPins] = blockers;
+				pinRayMasks[numPins] = between | sniperMask;
+				numPins++;
+			}
+			// clear the lssb
+			snipers &= snipers-1;
+		}
+	}
+
+	/* En passant captures can uncover an attack along the rank through both pawns and castling needs the
+	 * squares the king passes over to be checked, so these moves still have to be made to test their legality. */
+	public static boolean mustBeMadeToCheckLegality(int move) {
+		if (Move.isEnPassantCapture(move)) return true;
+		return Piece.isKing(Move.getOriginPiece(move)) &&
+				Math.abs(Move.getTargetPosition(move) - Move.getOriginPosition(move)) == 2;
+	}
+
+	public boolean isLegal(int move) {
+		int origin = Move.getOriginPosition(move);
+		int target = Move.getTargetPosition(move);
+		if (origin == kingPos) {
+			// Remove the king, so that it can't block a slider's attack on a square further along the same line
+			return !SquareAttackEvaluator.isAttacked(bd, target, attackingColour, bd.getAllPieces() & ~kingMask);
+		}
+		long originMask = 1L << origin;
+		if (inCheck) {
+			// A pinned piece can never block or capture a checker, as it would have to leave its pin ray
+			return (pinnedPieces & originMask) == 0L && (evasionTargets & (1L << target)) != 0L;
+		}
+		if ((pinnedPieces & originMask) == 0L) {
+			return true;
+		}
+		return (getPinRay(originMask) & (1L << target)) != 0L;
+	}
+
+	private long getPinRay(long pinnedPieceMask) {
+		for (int i=0; i < numPins; i++) {
+			if (pinnedPieceMasks[i] == pinnedPieceMask) {
+				return pinRayMasks[i];
+			}
+		}
+		return -1L;
+	}
+
+	/* Returns true if a knight, a sliding piece or the king has a legal move, which rules out mate without
+	 * generating all the moves. Pawn moves aren't considered. Only valid when not in check. */
+	public boolean hasLegalPieceMove() {
+		long ownPieces = ownSideIsWhite ? bd.getWhitePieces() : bd.getBlackPieces();
+		long allPieces = bd.getAllPieces();
+		// A pinned knight can never move
+		long knights = (ownSideIsWhite ? bd.getWhiteKnights() : bd.getBlackKnights()) & ~pinnedPieces;
+		while (knights != 0L) {
+			int atPos = Long.numberOfTrailingZeros(knights);
+			if ((SquareAttackEvaluator.KnightMove_Lut[atPos] & ~ownPieces) != 0L) return true;
+			knights &= knights-1;
+		}
+		long queens = ownSideIsWhite ? bd.getWhiteQueens() : bd.getBlackQueens();
+		long sliders = (ownSideIsWhite ? bd.getWhiteRooks() : bd.getBlackRooks()) | queens;
+		while (sliders != 0L) {
+			int bitIndex = Long.numberOfTrailingZeros(sliders);
+			long attacks = MagicBitBoard.getRookAttacks(bitIndex, allPieces) & ~ownPieces;
+			if ((attacks & getPinRay(1L << bitIndex)) != 0L) return true;
+			sliders &= sliders-1;
+		}
+		sliders = (ownSideIsWhite ? bd.getWhiteBishops() : bd.getBlackBishops()) | queens;
+		while (sliders != 0L) {
+			int bitIndex = Long.numberOfTrailingZeros(sliders);
+			long attacks = MagicBitBoard.getBishopAttacks(bitIndex, allPieces) & ~ownPieces;
+			if ((attacks & getPinRay(1L << bitIndex)) != 0L) return true;
+			sliders &= sliders-1;
+		}
+		if (kingPos != Position.NOPOSITION) {
+			long targets = SquareAttackEvaluator.KingMove_Lut[kingPos] & ~ownPieces;
+			while (targets != 0L) {
+				int atPos = Long.numberOfTrailingZeros(targets);
+				if (!SquareAttackEvaluator.isAttacked(bd, atPos, attackingColour, allPieces & ~kingMask)) return true;
+				targets &= targets-1;
+			}
+		}
+		return false;
+	}
+
+	/* Used to discard pseudo-legal moves that can't escape check as they are generated in extended search. En passant
+	 * captures are kept, as the captured pawn isn't on the target square, so they are decided by making the move. */
+	public boolean isEvasionCandidate(int move) {
+		return Move.getOriginPosition(move) == kingPos ||
+				(evasionTargets & (1L << Move.getTargetPosition(move))) != 0L ||
+				Move.isEnPassantCapture(move);
+	}
+
+	public boolean isDoubleCheck() {
+		return doubleCheck;
+	}
+
+	public long getEvasionTargets() {
+		return evasionTargets;
+	}
+
+	public long getPinnedPieces() {
+		return pinnedPieces;
+	}
+}
@@ -0,0 +1,118 @@
+package eubos.board;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import eubos.position.Position;
+
+/* Magic bitboard attack tables for the sliding pieces. The relevant occupancy of a slider's rays, multiplied by
+ * a magic number for the square and shifted down, indexes a table of the attacked squares for that occupancy.
+ * All tables are indexed by the position of the origin square, like the other look up tables in this package. */
+public final class MagicBitBoard {
+
+	// Fixed seed, so that the same magic numbers are found on every run
+	private static final long MAGIC_SEED = 0x4D41474943L;
+
+	private static final long[] RookMask_Lut = new long[64];
+	private static final long[] RookMagic_Lut = new long[64];
+	private static final int[] RookShift_Lut = new int[64];
+	private static final long[][] RookAttacks_Lut = new long[64][];
+
+	private static final long[] BishopMask_Lut = new long[64];
+	private static final long[] BishopMagic_Lut = new long[64];
+	private static final int[] BishopShift_Lut = new int[64];
+	private static final long[][] BishopAttacks_Lut = new long[64][];
+
+	static int Attacks_Lut_Size = 0;
+	static {
+		Random random = new Random(MAGIC_SEED);
+		for (int square : Position.values) {
+			initialiseSquare(square, SquareAttackEvaluator.rankFile, random, RookMask_Lut, RookMagic_Lut, RookShift_Lut, RookAttacks_Lut);
+			initialiseSquare(square, SquareAttackEvaluator.diagonals, random, BishopMask_Lut, BishopMagic_Lut, BishopShift_Lut, BishopAttacks_Lut);
+		}
+	}
+
+	private MagicBitBoard() {}
+
+	public static long getRookAttacks(int atPos, long occupied) {
+		return RookAttacks_Lut[atPos][(int)(((occupied & RookMask_Lut[atPos]) * RookMagic_Lut[atPos]) >>> RookShift_Lut[atPos])];
+	}
+
+	public static long getBishopAttacks(int atPos, long occupied) {
+		return BishopAttacks_Lut[atPos][(int)(((occupied & BishopMask_Lut[atPos]) * BishopMagic_Lut[atPos]) >>> BishopShift_Lut[atPos])];
+	}
+
+	public static long getQueenAttacks(int atPos, long occupied) {
+		return getRookAttacks(atPos, occupied) | getBishopAttacks(atPos, occupied);
+	}
+
+	static long createRelevantOccupancyMask(int atPos, Direction [] dirs) {
+		long mask = 0L;
+		for (Direction dir: dirs) {
+			int [] sqs = SquareAttackEvaluator.directPieceMove_Lut[atPos][SquareAttackEvaluator.directionIndex_Lut.get(dir)];
+			// The last square in each direction is attacked regardless of whether it is occupied, so it is not relevant
+			for (int i=0; i < sqs.length-1; i++) {
+				mask |= 1L << sqs[i];
+			}
+		}
+		return mask;
+	}
+
+	static long createAttacksSlowly(int atPos, Direction [] dirs, long occupied) {
+		long attacks = 0L;
+		for (Direction dir: dirs) {
+			for (int sq : SquareAttackEvaluator.directPieceMove_Lut[atPos][SquareAttackEvaluator.directionIndex_Lut.get(dir)]) {
+				long sqMask = 1L << sq;
+				attacks |= sqMask;
+				if ((occupied & sqMask) != 0) break;
+			}
+		}
+		return attacks;
+	}
+
+	private static void initialiseSquare(int atPos, Direction [] dirs, Random random,
+			long [] masks, long [] magics, int [] shifts, long [][] attacksTable) {
+		long mask = createRelevantOccupancyMask(atPos, dirs);
+		int numBits = Long.bitCount(mask);
+		int numOccupancies = 1 << numBits;
+
+		// Enumerate every subset of the relevant occupancy mask, with the attacks for each
+		long [] occupancies = new long[numOccupancies];
+		long [] attacks = new long[numOccupancies];
+		long subset = 0L;
+		for (int i=0; i < numOccupancies; i++) {
+			occupancies[i] = subset;
+			attacks[i] = createAttacksSlowly(atPos, dirs, subset);
+			subset = (subset - mask) & mask;
+		}
+
+		// Search for a magic that maps every occupancy to an index without a destructive collision
+		long [] table = new long[numOccupancies];
+		int shift = 64 - numBits;
+		long magic;
+		boolean found;
+		do {
+			magic = random.nextLong() & random.nextLong() & random.nextLong();
+			if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+				found = false;
+				continue;
+			}
+			Arrays.fill(table, 0L);
+			found = true;
+			for (int i=0; i < numOccupancies && found; i++) {
+				int index = (int)((occupancies[i] * magic) >>> shift);
+				if (table[index] == 0L) {
+					table[index] = attacks[i];
+				} else if (table[index] != attacks[i]) {
+					found = false;
+				}
+			}
+		} while (!found);
+
+		masks[atPos] = mask;
+		magics[atPos] = magic;
+		shifts[atPos] = shift;
+		attacksTable[atPos] = table;
+		Attacks_Lut_Size += numOccupancies;
+	}
+}
@@ -151,13 +151,13 @@ public abstract class Piece {
 	}
 	
 	static int KnightMove_Lut_Size = 0;
-	static final int[][] WhiteKnightMove_Lut = new int[128][];
+	static final int[][] WhiteKnightMove_Lut = new int[64][];
 	static {
 		for (int square : Position.values) {
 			WhiteKnightMove_Lut[square] = createKnightMovesFromOriginPosition(square, true);
 		}
 	}
-	static final int[][] BlackKnightMove_Lut = new int[128][];
+	static final int[][] BlackKnightMove_Lut = new int[64][];
 	static {
 		for (int square : Position.values) {
 			BlackKnightMove_Lut[square] = createKnightMovesFromOriginPosition(square, false);
@@ -182,13 +182,13 @@ public abstract class Piece {
 	}
 	
 	static int KingMove_Lut_Size = 0;
-	static final int[][] WhiteKingMove_Lut = new int[128][];
+	static final int[][] WhiteKingMove_Lut = new int[64][];
 	static {
 		for (int square : Position.values) {
 			WhiteKingMove_Lut[square] = createKingMovesFromOriginPosition(square, true);
 		}
 	}
-	static final int[][] BlackKingMove_Lut = new int[128][];
+	static final int[][] BlackKingMove_Lut = new int[64][];
 	static {
 		for (int square : Position.values) {
 			BlackKingMove_Lut[square] = createKingMovesFromOriginPosition(square, false);
@@ -214,13 +214,13 @@ public abstract class Piece {
 	}
 	
 	static int RookMove_Lut_Size = 0;
-	static final int[][][] WhiteRookMove_Lut = new int[128][][]; // Position by direction by moves in that direction
+	static final int[][][] WhiteRookMove_Lut = new int[64][][]; // Position by direction by moves in that direction
 	static {
 		for (int square : Position.values) {
 			WhiteRookMove_Lut[square] = createRookMovesFromOriginPosition(square, true);
 		}
 	}
-	static final int[][][] BlackRookMove_Lut = new int[128][][];
+	static final int[][][] BlackRookMove_Lut = new int[64][][];
 	static {
 		for (int square : Position.values) {
 			BlackRookMove_Lut[square] = createRookMovesFromOriginPosition(square, false);
@@ -253,13 +253,13 @@ public abstract class Piece {
 	}
 	
 	static int BishopMove_Lut_Size = 0;
-	static final int[][][] WhiteBishopMove_Lut = new int[128][][]; // Position by direction by moves in that direction
+	static final int[][][] WhiteBishopMove_Lut = new int[64][][]; // Position by direction by moves in that direction
 	static {
 		for (int square : Position.values) {
 			WhiteBishopMove_Lut[square] = createBishopMovesFromOriginPosition(square, true);
 		}
 	}
-	static final int[][][] BlackBishopMove_Lut = new int[128][][];
+	static final int[][][] BlackBishopMove_Lut = new int[64][][];
 	static {
 		for (int square : Position.values) {
 			BlackBishopMove_Lut[square] = createBishopMovesFromOriginPosition(square, false);
@@ -292,13 +292,13 @@ public abstract class Piece {
 	}
 	
 	static int QueenMove_Lut_Size = 0;
-	static final int[][][] WhiteQueenMove_Lut = new int[128][][]; // Position by direction by moves in that direction
+	static final int[][][] WhiteQueenMove_Lut = new int[64][][]; // Position by direction by moves in that direction
 	static {
 		for (int square : Position.values) {
 			WhiteQueenMove_Lut[square] = createQueenMovesFromOriginPosition(square, true);
 		}
 	}
-	static final int[][][] BlackQueenMove_Lut = new int[128][][];
+	static final int[][][] BlackQueenMove_Lut = new int[64][][];
 	static {
 		for (int square : Position.values) {
 			BlackQueenMove_Lut[square] = createQueenMovesFromOriginPosition(square, false);
@@ -330,6 +330,28 @@ public abstract class Piece {
 		return return_value;
 	}
 	
+	/* 2-dimensional arrays:
+	 * 1st is a position integer, this is the origin square
+	 * 2nd is a direction, in the same order as the move look up tables of the piece, indexing a mask of all squares in that direction */
+	static final long[][] RookRays_Lut = new long[64][];
+	static final long[][] BishopRays_Lut = new long[64][];
+	static final long[][] QueenRays_Lut = new long[64][];
+	static {
+		for (int square : Position.values) {
+			RookRays_Lut[square] = createRaysFromOriginPosition(square, SquareAttackEvaluator.rankFile);
+			BishopRays_Lut[square] = createRaysFromOriginPosition(square, SquareAttackEvaluator.diagonals);
+			QueenRays_Lut[square] = createRaysFromOriginPosition(square, SquareAttackEvaluator.allDirect);
+		}
+	}
+	static long [] createRaysFromOriginPosition(int originPosition, Direction [] dirs) {
+		long [] rays = new long[dirs.length];
+		int direction_index = 0;
+		for (Direction dir : dirs) {
+			rays[direction_index++] = SquareAttackEvaluator.directAttacksOnPositionAll_Lut[SquareAttackEvaluator.directionIndex_Lut.get(dir)][originPosition];
+		}
+		return rays;
+	}
+	
 	static void king_generateMoves(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite) {
 		int [] ref_moves = ownSideIsWhite ? WhiteKingMove_Lut[atSquare] : BlackKingMove_Lut[atSquare];
 		single_addMoves(ownSideIsWhite, ml, theBoard, ref_moves);	
@@ -358,25 +380,45 @@ public abstract class Piece {
 	
 	static void rook_generateMoves(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite) {
 		int [][] ref_moves = ownSideIsWhite ? WhiteRookMove_Lut[atSquare] : BlackRookMove_Lut[atSquare];
-		multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves);
+		if (Board.ENABLE_MAGIC_BITBOARDS) {
+			long attacks = MagicBitBoard.getRookAttacks(atSquare, theBoard.getAllPieces());
+			multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves, RookRays_Lut[atSquare], attacks);
+		} else {
+			multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves);
+		}
 	}
 	
 	static void queen_generateMoves(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite) {
 		int [][] ref_moves = ownSideIsWhite ? WhiteQueenMove_Lut[atSquare] : BlackQueenMove_Lut[atSquare];
-		multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves);	
+		if (Board.ENABLE_MAGIC_BITBOARDS) {
+			long attacks = MagicBitBoard.getQueenAttacks(atSquare, theBoard.getAllPieces());
+			multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves, QueenRays_Lut[atSquare], attacks);
+		} else {
+			multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves);
+		}
 	}
 	
 	static void bishop_generateMoves(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite) {
 		int [][] ref_moves = ownSideIsWhite ? WhiteBishopMove_Lut[atSquare] : BlackBishopMove_Lut[atSquare];
-		multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves);	
+		if (Board.ENABLE_MAGIC_BITBOARDS) {
+			long attacks = MagicBitBoard.getBishopAttacks(atSquare, theBoard.getAllPieces());
+			multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves, BishopRays_Lut[atSquare], attacks);
+		} else {
+			multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves);
+		}
 	}
 	
 	static void rook_generateMovesExtSearch(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, int targetSq) {
 		int [][] ref_moves = ownSideIsWhite ? WhiteRookMove_Lut[atSquare] : BlackRookMove_Lut[atSquare];
 		Direction dir = SquareAttackEvaluator.findDirectionToTarget(atSquare, targetSq, SquareAttackEvaluator.rankFile);
 		if (dir != null) {
-			int [] moves = ref_moves[SquareAttackEvaluator.rankFileDirectionIndex_Lut.get(dir)];
-			multidirect_addMoves(ownSideIsWhite, ml, theBoard, moves, atSquare, targetSq);
+			int direction_index = SquareAttackEvaluator.rankFileDirectionIndex_Lut.get(dir);
+			if (Board.ENABLE_MAGIC_BITBOARDS) {
+				long attacks = MagicBitBoard.getRookAttacks(atSquare, theBoard.getAllPieces());
+				multidirect_addCapture(ownSideIsWhite, ml, theBoard, ref_moves[direction_index], attacks & RookRays_Lut[atSquare][direction_index]);
+			} else {
+				multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves[direction_index], atSquare, targetSq);
+			}
 		}
 	}
 	
@@ -384,8 +426,13 @@ public abstract class Piece {
 		int [][] ref_moves = ownSideIsWhite ? WhiteQueenMove_Lut[atSquare] : BlackQueenMove_Lut[atSquare];
 		Direction dir = SquareAttackEvaluator.findDirectionToTarget(atSquare, targetSq, SquareAttackEvaluator.allDirect);
 		if (dir != null) {
-			int [] moves = ref_moves[SquareAttackEvaluator.directionIndex_Lut.get(dir)];
-			multidirect_addMoves(ownSideIsWhite, ml, theBoard, moves, atSquare, targetSq);
+			int direction_index = SquareAttackEvaluator.directionIndex_Lut.get(dir);
+			if (Board.ENABLE_MAGIC_BITBOARDS) {
+				long attacks = MagicBitBoard.getQueenAttacks(atSquare, theBoard.getAllPieces());
+				multidirect_addCapture(ownSideIsWhite, ml, theBoard, ref_moves[direction_index], attacks & QueenRays_Lut[atSquare][direction_index]);
+			} else {
+				multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves[direction_index], atSquare, targetSq);
+			}
 		}	
 	}
 	
@@ -393,8 +440,49 @@ public abstract class Piece {
 		int [][] ref_moves = ownSideIsWhite ? WhiteBishopMove_Lut[atSquare] : BlackBishopMove_Lut[atSquare];
 		Direction dir = SquareAttackEvaluator.findDirectionToTarget(atSquare, targetSq, SquareAttackEvaluator.diagonals);
 		if (dir != null) {
-			int [] moves = ref_moves[SquareAttackEvaluator.diagonalsDirectionIndex_Lut.get(dir)];
-			multidirect_addMoves(ownSideIsWhite, ml, theBoard, moves, atSquare, targetSq);
+			int direction_index = SquareAttackEvaluator.diagonalsDirectionIndex_Lut.get(dir);
+			if (Board.ENABLE_MAGIC_BITBOARDS) {
+				long attacks = MagicBitBoard.getBishopAttacks(atSquare, theBoard.getAllPieces());
+				multidirect_addCapture(ownSideIsWhite, ml, theBoard, ref_moves[direction_index], attacks & BishopRays_Lut[atSquare][direction_index]);
+			} else {
+				multidirect_addMoves(ownSideIsWhite, ml, theBoard, ref_moves[direction_index], atSquare, targetSq);
+			}
+		}
+	}
+
+	static void knight_generateEvasions(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, long evasionTargets) {
+		int piece = ownSideIsWhite ? Piece.WHITE_KNIGHT : Piece.BLACK_KNIGHT;
+		targeted_addMoves(ownSideIsWhite, ml, theBoard, atSquare, piece, SquareAttackEvaluator.KnightMove_Lut[atSquare] & evasionTargets);
+	}
+	
+	static void rook_generateEvasions(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, long evasionTargets) {
+		int piece = ownSideIsWhite ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
+		long attacks = MagicBitBoard.getRookAttacks(atSquare, theBoard.getAllPieces());
+		targeted_addMoves(ownSideIsWhite, ml, theBoard, atSquare, piece, attacks & evasionTargets);
+	}
+	
+	static void queen_generateEvasions(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, long evasionTargets) {
+		int piece = ownSideIsWhite ? Piece.WHITE_QUEEN : Piece.BLACK_QUEEN;
+		long attacks = MagicBitBoard.getQueenAttacks(atSquare, theBoard.getAllPieces());
+		targeted_addMoves(ownSideIsWhite, ml, theBoard, atSquare, piece, attacks & evasionTargets);
+	}
+	
+	static void bishop_generateEvasions(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, long evasionTargets) {
+		int piece = ownSideIsWhite ? Piece.WHITE_BISHOP : Piece.BLACK_BISHOP;
+		long attacks = MagicBitBoard.getBishopAttacks(atSquare, theBoard.getAllPieces());
+		targeted_addMoves(ownSideIsWhite, ml, theBoard, atSquare, piece, attacks & evasionTargets);
+	}
+	
+	private static void targeted_addMoves(boolean ownSideIsWhite, MoveList ml, Board theBoard, int atSquare, int piece, long targets) {
+		while (targets != 0L) {
+			int targetSq = Long.numberOfTrailingZeros(targets);
+			int targetPiece = theBoard.getPieceAtSquareOptimise(targetSq, ownSideIsWhite);
+			if (targetPiece == Piece.NONE) {
+				ml.addNormal(Move.valueOf(atSquare, piece, targetSq, Piece.NONE));
+			} else if (targetPiece != Piece.DONT_CARE) {
+				ml.addPrio(Move.valueOf(atSquare, piece, targetSq, targetPiece));
+			}
+			targets &= targets-1L;
 		}
 	}
 
@@ -418,6 +506,28 @@ public abstract class Piece {
 		}
 	}
 	
+	private static void multidirect_addMoves(boolean ownSideIsWhite, MoveList ml, Board theBoard, int[][] moves, long[] rays, long attacks) {
+		for (int i=0; i < moves.length; i++) {
+			long attacksInDirection = attacks & rays[i];
+			if (attacksInDirection == 0) continue;
+			// The attacked squares are the nearest squares in the direction, only the furthest can be occupied
+			int [] movesInDirection = moves[i];
+			int furthest = Long.bitCount(attacksInDirection)-1;
+			for (int j=0; j < furthest; j++) {
+				ml.addNormal(movesInDirection[j]);
+			}
+			int new_move = movesInDirection[furthest];
+			if ((attacksInDirection & theBoard.getAllPieces()) == 0) {
+				ml.addNormal(new_move);
+			} else {
+				int targetPiece = theBoard.getPieceAtSquareOptimise(Move.getTargetPosition(new_move), ownSideIsWhite);
+				if (targetPiece != Piece.DONT_CARE) {
+					ml.addPrio(Move.setCapture(new_move, targetPiece));
+				}
+			}
+		}
+	}
+	
 	private static void multidirect_addMoves(boolean ownSideIsWhite, MoveList ml, Board theBoard, int[] moves, int atSquare, int targetSq) {
 		for (int new_move : moves) {
 			int targetPiece = theBoard.getPieceAtSquareOptimise(Move.getTargetPosition(new_move), ownSideIsWhite);
@@ -435,6 +545,16 @@ public abstract class Piece {
 		}	
 	}
 	
+	private static void multidirect_addCapture(boolean ownSideIsWhite, MoveList ml, Board theBoard, int[] moves, long attacksInDirection) {
+		if ((attacksInDirection & theBoard.getAllPieces()) != 0) {
+			int new_move = moves[Long.bitCount(attacksInDirection)-1];
+			int targetPiece = theBoard.getPieceAtSquareOptimise(Move.getTargetPosition(new_move), ownSideIsWhite);
+			if (targetPiece != Piece.DONT_CARE) {
+				ml.addPrio(Move.setCapture(new_move, targetPiece));
+			}
+		}
+	}
+	
 	private static void single_addMoves(boolean ownSideIsWhite, MoveList ml, Board theBoard, int[] moves) {
 		for (int new_move : moves) {
 			int targetPiece = theBoard.getPieceAtSquareOptimise(Move.getTargetPosition(new_move), ownSideIsWhite);
@@ -581,24 +701,57 @@ public abstract class Piece {
 		}
 	}
 	
-	static void pawn_generateMovesForExtendedSearch(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite) {
+	static void pawn_generateEvasions(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, long evasionTargets) {
 		int ownPiece = ownSideIsWhite ? Piece.WHITE_PAWN : Piece.BLACK_PAWN;
-		int capturePiece = Piece.NONE;
-		// Standard move
+		// Pushes can only interpose on the check ray
 		int moveTo = pawn_genOneSqTarget(atSquare, ownSideIsWhite);
 		if ( moveTo != Position.NOPOSITION && theBoard.squareIsEmpty( moveTo )) {
+			if ((evasionTargets & (1L << moveTo)) != 0L) {
+				pawn_checkPromotionAddMove(ownPiece, theBoard, atSquare, ownSideIsWhite, ml, moveTo, Piece.NONE);
+			}
+			moveTo = pawn_genTwoSqTarget(atSquare, ownSideIsWhite);
+			if ( moveTo != Position.NOPOSITION && (evasionTargets & (1L << moveTo)) != 0L && theBoard.squareIsEmpty( moveTo )) {
+				ml.addNormal(Move.valueOf(atSquare, ownPiece, moveTo , Piece.NONE));
+			}
+		}
+		// Captures can only take the checker, except en passant, which may remove a checking pawn
+		pawn_addEvasionCapture(ml, theBoard, atSquare, ownSideIsWhite, ownPiece, pawn_genLeftCaptureTarget(atSquare, ownSideIsWhite), evasionTargets);
+		pawn_addEvasionCapture(ml, theBoard, atSquare, ownSideIsWhite, ownPiece, pawn_genRightCaptureTarget(atSquare, ownSideIsWhite), evasionTargets);
+	}
+	
+	private static void pawn_addEvasionCapture(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, int ownPiece, int captureAt, long evasionTargets) {
+		if ( captureAt != Position.NOPOSITION ) {
+			int capturePiece = Piece.NONE;
+			if ((evasionTargets & (1L << captureAt)) != 0L) {
+				capturePiece = pawn_isCapturable(ownSideIsWhite, theBoard, captureAt);
+			}
+			if (capturePiece != Piece.NONE) {
+				pawn_checkPromotionAddMove(ownPiece, theBoard, atSquare, ownSideIsWhite, ml, captureAt, capturePiece);
+			} else if (captureAt == theBoard.getEnPassantTargetSq()) {
+				capturePiece = !ownSideIsWhite ? Piece.WHITE_PAWN : Piece.BLACK_PAWN;
+				ml.addPrio(Move.valueOf(Move.MISC_EN_PASSANT_CAPTURE_MASK, 0, atSquare, ownPiece, captureAt, capturePiece, Piece.NONE));
+			}
+		}
+	}
+	
+	static void pawn_generateMovesForExtendedSearch(MoveList ml, Board theBoard, int atSquare, boolean ownSideIsWhite, int targetSq) {
+		int ownPiece = ownSideIsWhite ? Piece.WHITE_PAWN : Piece.BLACK_PAWN;
+		int capturePiece = Piece.NONE;
+		// Only queen promotions and captures on the target square are searched, so don't generate quiet moves
+		int moveTo = pawn_genOneSqTarget(atSquare, ownSideIsWhite);
+		if ( moveTo != Position.NOPOSITION && pawn_checkPromotionPossible(ownSideIsWhite, moveTo) && theBoard.squareIsEmpty( moveTo )) {
 			pawn_checkQueenPromotionAddMove(ownPiece, theBoard, atSquare, ownSideIsWhite, ml, moveTo, Piece.NONE);
 		}
 		// Capture moves
 		int captureAt = pawn_genLeftCaptureTarget(atSquare, ownSideIsWhite);
-		if ( captureAt != Position.NOPOSITION ) {
+		if ( captureAt != Position.NOPOSITION && (captureAt == targetSq || pawn_checkPromotionPossible(ownSideIsWhite, captureAt))) {
 			capturePiece = pawn_isCapturable(ownSideIsWhite, theBoard, captureAt);
 			if (capturePiece != Piece.NONE) {
 				pawn_checkQueenPromotionAddMove(ownPiece, theBoard, atSquare, ownSideIsWhite, ml, captureAt, capturePiece);
 			}
 		}
 		captureAt = pawn_genRightCaptureTarget(atSquare, ownSideIsWhite);
-		if ( captureAt != Position.NOPOSITION ) {
+		if ( captureAt != Position.NOPOSITION && (captureAt == targetSq || pawn_checkPromotionPossible(ownSideIsWhite, captureAt))) {
 			capturePiece = pawn_isCapturable(ownSideIsWhite, theBoard, captureAt);
 			if (capturePiece != Piece.NONE) {
 				pawn_checkQueenPromotionAddMove(ownPiece, theBoard, atSquare, ownSideIsWhite, ml, captureAt, capturePiece);
@@ -5,7 +5,6 @@ import java.util.Arrays;
 import eubos.main.EubosEngineMain;
 import eubos.position.MoveList;
 import eubos.position.Position;
-import eubos.score.PositionEvaluator;
 
 public class PieceList {
 	
@@ -177,7 +176,7 @@ public class PieceList {
 				int atSquare = piece_list[side+Piece.KING][0];
 				if (atSquare != Position.NOPOSITION) {
 					long kingAttacksMask = SquareAttackEvaluator.KingMove_Lut[potentialAttackersOfSquare];
-					if ((BitBoard.positionToMask_Lut[atSquare] & kingAttacksMask) != 0) {
+					if (((1L << atSquare) & kingAttacksMask) != 0) {
 						Piece.king_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 					}
 				}
@@ -186,7 +185,7 @@ public class PieceList {
 			if ((allAttacksMask & pieceMask) != 0) {
 				for(int atSquare : piece_list[side+Piece.QUEEN]) {
 					if (atSquare != Position.NOPOSITION) {
-						if ((BitBoard.positionToMask_Lut[atSquare] & allAttacksMask) != 0) {
+						if (((1L << atSquare) & allAttacksMask) != 0) {
 							Piece.queen_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
@@ -196,7 +195,7 @@ public class PieceList {
 			if ((allAttacksMask & pieceMask) != 0) {
 				for(int atSquare : piece_list[side+Piece.ROOK]) {
 					if (atSquare != Position.NOPOSITION) {
-						if ((BitBoard.positionToMask_Lut[atSquare] & allAttacksMask) != 0) {	
+						if (((1L << atSquare) & allAttacksMask) != 0) {	
 							Piece.rook_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
@@ -206,7 +205,7 @@ public class PieceList {
 			if ((allAttacksMask & pieceMask) != 0) {
 				for(int atSquare : piece_list[side+Piece.BISHOP]) {
 					if (atSquare != Position.NOPOSITION) {
-						if ((BitBoard.positionToMask_Lut[atSquare] & allAttacksMask) != 0) {			
+						if (((1L << atSquare) & allAttacksMask) != 0) {			
 							Piece.bishop_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
@@ -217,16 +216,16 @@ public class PieceList {
 				long knightAttacksMask = SquareAttackEvaluator.KnightMove_Lut[potentialAttackersOfSquare];
 				for(int atSquare : piece_list[side+Piece.KNIGHT]) {
 					if (atSquare != Position.NOPOSITION) {	
-						if ((BitBoard.positionToMask_Lut[atSquare] & knightAttacksMask) != 0) {
+						if (((1L << atSquare) & knightAttacksMask) != 0) {
 							Piece.knight_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
 				}
 			}
-			// Search pawn moves in extended search because they could lead to a promotion, but only add promotions and captures
+			// Search pawn moves in extended search because they could lead to a promotion, but only add queen promotions and captures on the square
 			for(int atSquare : piece_list[side+Piece.PAWN]) {
 				if (atSquare != Position.NOPOSITION) {
-					Piece.pawn_generateMovesForExtendedSearch(ml, theBoard, atSquare, ownSideIsWhite);
+					Piece.pawn_generateMovesForExtendedSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 				} else break;
 			}
 		}
@@ -272,7 +271,7 @@ public class PieceList {
 			if ((allAttacksMask & pieceMask) != 0) {
 				for(int atSquare : piece_list[side+Piece.QUEEN]) {
 					if (atSquare != Position.NOPOSITION) {
-						if ((BitBoard.positionToMask_Lut[atSquare] & allAttacksMask) != 0) {
+						if (((1L << atSquare) & allAttacksMask) != 0) {
 							Piece.queen_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
@@ -282,7 +281,7 @@ public class PieceList {
 			if ((allAttacksMask & pieceMask) != 0) {
 				for(int atSquare : piece_list[side+Piece.ROOK]) {
 					if (atSquare != Position.NOPOSITION) {	
-						if ((BitBoard.positionToMask_Lut[atSquare] & allAttacksMask) != 0) {
+						if (((1L << atSquare) & allAttacksMask) != 0) {
 							Piece.rook_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
@@ -292,7 +291,7 @@ public class PieceList {
 			if ((allAttacksMask & pieceMask) != 0) {
 				for(int atSquare : piece_list[side+Piece.BISHOP]) {
 					if (atSquare != Position.NOPOSITION) {		
-						if ((BitBoard.positionToMask_Lut[atSquare] & allAttacksMask) != 0) {
+						if (((1L << atSquare) & allAttacksMask) != 0) {
 							Piece.bishop_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
@@ -303,17 +302,17 @@ public class PieceList {
 				long knightAttacksMask = SquareAttackEvaluator.KnightMove_Lut[potentialAttackersOfSquare];
 				for(int atSquare : piece_list[side+Piece.KNIGHT]) {
 					if (atSquare != Position.NOPOSITION) {
-						if ((BitBoard.positionToMask_Lut[atSquare] & knightAttacksMask) != 0) {
+						if (((1L << atSquare) & knightAttacksMask) != 0) {
 							Piece.knight_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 						}
 					} else break;
 				}
 			}
 			pieceMask = ownSideIsWhite ? theBoard.getWhitePawns() : theBoard.getBlackPawns();
-			// Search pawn moves in extended search because they could lead to a promotion, but only add promotions and captures
+			// Search pawn moves in extended search because they could lead to a promotion, but only add queen promotions and captures on the square
 			for(int atSquare : piece_list[side+Piece.PAWN]) {
 				if (atSquare != Position.NOPOSITION) {
-					Piece.pawn_generateMovesForExtendedSearch(ml, theBoard, atSquare, ownSideIsWhite);
+					Piece.pawn_generateMovesForExtendedSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 				} else break;
 			}
 			pieceMask = ownSideIsWhite ? theBoard.getWhiteKing() : theBoard.getBlackKing();
@@ -321,7 +320,7 @@ public class PieceList {
 				int atSquare = piece_list[side+Piece.KING][0];
 				if (atSquare != Position.NOPOSITION) {
 					long kingAttacksMask = SquareAttackEvaluator.KingMove_Lut[potentialAttackersOfSquare];
-					if ((BitBoard.positionToMask_Lut[atSquare] & kingAttacksMask) != 0) {
+					if (((1L << atSquare) & kingAttacksMask) != 0) {
 						Piece.king_generateMovesExtSearch(ml, theBoard, atSquare, ownSideIsWhite, potentialAttackersOfSquare);
 					}
 				}
@@ -329,47 +328,21 @@ public class PieceList {
 		}
 	}
 	
-	@SuppressWarnings("unused")
-	public void evaluateMaterialBalanceAndPieceMobility(boolean isWhite) {
+	public void evaluatePieceMobility(boolean isWhite) {
 		int side = isWhite ? 0 : Piece.BLACK;
-		{
-			int atSquare = piece_list[side+Piece.KING][0];
-			if (atSquare != Position.NOPOSITION) {			
-				theBoard.me.addPiece(isWhite, Piece.KING);
-				theBoard.me.addPosition(isWhite, theBoard.isEndgame ? Board.KING_ENDGAME_WEIGHTINGS[atSquare] : Board.KING_MIDGAME_WEIGHTINGS[atSquare]);
-			}
-		}
 		for(int atSquare : piece_list[side+Piece.QUEEN]) {
-			if (atSquare != Position.NOPOSITION) {			
-				theBoard.me.addPiece(isWhite, Piece.QUEEN);
-				if (PositionEvaluator.ENABLE_DYNAMIC_POSITIONAL_EVALUATION && !theBoard.isEndgame)
-					theBoard.me.addPosition(isWhite, theBoard.getTwiceNumEmptyAllDirectSquares(atSquare));
+			if (atSquare != Position.NOPOSITION) {
+				theBoard.me.addPosition(isWhite, theBoard.getTwiceNumEmptyAllDirectSquares(atSquare));
 			} else break;
 		}
 		for(int atSquare : piece_list[side+Piece.ROOK]) {
-			if (atSquare != Position.NOPOSITION) {			
-				theBoard.me.addPiece(isWhite, Piece.ROOK);
-				if (PositionEvaluator.ENABLE_DYNAMIC_POSITIONAL_EVALUATION && !theBoard.isEndgame)
-					theBoard.me.addPosition(isWhite, theBoard.getTwiceNumEmptyRankFileSquares(atSquare));
+			if (atSquare != Position.NOPOSITION) {
+				theBoard.me.addPosition(isWhite, theBoard.getTwiceNumEmptyRankFileSquares(atSquare));
 			} else break;
 		}
 		for(int atSquare : piece_list[side+Piece.BISHOP]) {
-			if (atSquare != Position.NOPOSITION) {			
-				theBoard.me.addPiece(isWhite, Piece.BISHOP);
-				if (PositionEvaluator.ENABLE_DYNAMIC_POSITIONAL_EVALUATION && !theBoard.isEndgame)
-					theBoard.me.addPosition(isWhite, theBoard.getTwiceNumEmptyDiagonalSquares(atSquare));
-			} else break;
-		}
-		for(int atSquare : piece_list[side+Piece.KNIGHT]) {
-			if (atSquare != Position.NOPOSITION) {			
-				theBoard.me.addPiece(isWhite, Piece.KNIGHT);
-				theBoard.me.addPosition(isWhite, Board.KNIGHT_WEIGHTINGS[atSquare]);
-			} else break;
-		}
-		for(int atSquare : piece_list[side+Piece.PAWN]) {
-			if (atSquare != Position.NOPOSITION) {			
-				theBoard.me.addPiece(isWhite, Piece.PAWN);
-				theBoard.me.addPosition(isWhite, isWhite ? Board.PAWN_WHITE_WEIGHTINGS[atSquare] : Board.PAWN_BLACK_WEIGHTINGS[atSquare]);
+			if (atSquare != Position.NOPOSITION) {
+				theBoard.me.addPosition(isWhite, theBoard.getTwiceNumEmptyDiagonalSquares(atSquare));
 			} else break;
 		}
 	}
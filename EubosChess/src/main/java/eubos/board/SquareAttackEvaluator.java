@@ -51,13 +51,14 @@ public class SquareAttackEvaluator {
 	public static String reportStaticDataSizes() {
 		StringBuilder s = new StringBuilder();
 		s.append(String.format("DirectPieceMove_Lut_Size %d bytes\n", directPieceMove_Lut_Size*4));
-		s.append(String.format("All In Direction Masks %d bytes\n", 8*128*8));
-		s.append(String.format("Knight, King, Pawn W/B All + Direct masks %d bytes\n", 6*128*8));
+		s.append(String.format("All In Direction Masks %d bytes\n", 8*64*8));
+		s.append(String.format("Knight, King, Pawn W/B All + Direct masks %d bytes\n", 6*64*8));
+		s.append(String.format("Magic bitboard attack tables %d bytes\n", MagicBitBoard.Attacks_Lut_Size*8));
 		return s.toString();
 	}
 	
 	public static int getStaticDataSize() {
-		return (directPieceMove_Lut_Size * 4) + ((6+8)*128*8);
+		return (directPieceMove_Lut_Size * 4) + ((6+8)*64*8);
 	}
 	
 	/* 3-dimensional array:
@@ -65,7 +66,7 @@ public class SquareAttackEvaluator {
 	 * 2nd is a direction from the origin square (diagonal/rank+file) i.e all direct attack directions from origin square
 	 * 3rd is a position integer, representing all the squares on the board in that direction */
 	static int directPieceMove_Lut_Size = 0;
-	static final int[][][] directPieceMove_Lut = new int[128][allDirect.length][];
+	static final int[][][] directPieceMove_Lut = new int[64][allDirect.length][];
 	static {
 		for (int square : Position.values) {
 			directPieceMove_Lut[square] = createLinesFromSq(square);
@@ -97,7 +98,7 @@ public class SquareAttackEvaluator {
 			if (newSquare != Position.NOPOSITION)
 				newSquare = Direction.getDirectMoveSq(dir, newSquare);
 			if (newSquare != Position.NOPOSITION)
-				currMask |= BitBoard.positionToMask_Lut[newSquare];
+				currMask |= 1L << newSquare;
 		}
 		return currMask;
 	}
@@ -105,7 +106,7 @@ public class SquareAttackEvaluator {
 	/* 1-dimensional array:
 	 * 1st index is a position integer, this is the target square
 	 * indexes a bit mask of the squares that attack the target square by a Knight (indirect) move */
-	static final long[] KnightMove_Lut = new long[128];
+	static final long[] KnightMove_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			KnightMove_Lut[square] = createKnightMovesAtSq(square);
@@ -116,7 +117,7 @@ public class SquareAttackEvaluator {
 		for (Direction dir: Direction.values()) {
 			int sq = Direction.getIndirectMoveSq(dir, atPos);
 			if (sq != Position.NOPOSITION) {
-				mask |= BitBoard.positionToMask_Lut[sq];
+				mask |= 1L << sq;
 			}
 		}
 		return mask;
@@ -125,7 +126,7 @@ public class SquareAttackEvaluator {
 	/* 1-dimensional array:
 	 * 1st index is a position integer, this is the target square
 	 * indexes a bit mask of all the squares on the board that can attack the target square by either a direct or indirect move */
-	static final long[] allAttacksOnPosition_Lut = new long[128];
+	static final long[] allAttacksOnPosition_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			Long allAttacksMask = 0L;
@@ -141,7 +142,7 @@ public class SquareAttackEvaluator {
 	
 	/* The following 1-dimensional arrays provide bit masks of all the squares that can directly attack the target square:
 	 * 1st index is a position integer, this is the target square */	
-	static final long[] directAttacksOnPosition_Lut = new long[128];
+	static final long[] directAttacksOnPosition_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			Long allAttacksMask = 0L;
@@ -154,7 +155,7 @@ public class SquareAttackEvaluator {
 	
 	/* The following 1-dimensional arrays provide bit masks of all the squares in a direction that can attack the target square:
 	 * 1st index is a position integer, this is the target square */
-	static final long[] directAttacksOnPositionUp_Lut = new long[128];
+	static final long[] directAttacksOnPositionUp_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -163,7 +164,7 @@ public class SquareAttackEvaluator {
 		}
 	}
 	
-	static final long[] directAttacksOnPositionUpLeft_Lut = new long[128];
+	static final long[] directAttacksOnPositionUpLeft_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -172,7 +173,7 @@ public class SquareAttackEvaluator {
 		}
 	}
 	
-	static final long[] directAttacksOnPositionLeft_Lut = new long[128];
+	static final long[] directAttacksOnPositionLeft_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -181,7 +182,7 @@ public class SquareAttackEvaluator {
 		}
 	}
 	
-	static final long[] directAttacksOnPositionDownLeft_Lut = new long[128];
+	static final long[] directAttacksOnPositionDownLeft_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -190,7 +191,7 @@ public class SquareAttackEvaluator {
 		}
 	}
 	
-	static final long[] directAttacksOnPositionDown_Lut = new long[128];
+	static final long[] directAttacksOnPositionDown_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -199,7 +200,7 @@ public class SquareAttackEvaluator {
 		}
 	}
 	
-	static final long[] directAttacksOnPositionDownRight_Lut = new long[128];
+	static final long[] directAttacksOnPositionDownRight_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -208,7 +209,7 @@ public class SquareAttackEvaluator {
 		}
 	}
 	
-	static final long[] directAttacksOnPositionRight_Lut = new long[128];
+	static final long[] directAttacksOnPositionRight_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -217,7 +218,7 @@ public class SquareAttackEvaluator {
 		}
 	}
 	
-	static final long[] directAttacksOnPositionUpRight_Lut = new long[128];
+	static final long[] directAttacksOnPositionUpRight_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			long mask = 0L;
@@ -241,7 +242,7 @@ public class SquareAttackEvaluator {
 	/* 1-dimensional array:
 	 * 1st index is a position integer, this is the origin square
 	 * indexes a bit mask of the squares that the origin square can attack by a King move */
-	static final long[] KingMove_Lut = new long[128];
+	static final long[] KingMove_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			KingMove_Lut[square] = createKingMovesAtSq(square);
@@ -252,7 +253,7 @@ public class SquareAttackEvaluator {
 		for (Direction dir: Direction.values()) {
 			int sq = Direction.getDirectMoveSq(dir, atPos);
 			if (sq != Position.NOPOSITION) {
-				mask |= BitBoard.positionToMask_Lut[sq];
+				mask |= 1L << sq;
 			}
 		}
 		return mask;
@@ -261,7 +262,7 @@ public class SquareAttackEvaluator {
 	/* 1-dimensional array:
 	 * 1st index is a position integer, this is the origin square
 	 * indexes a bit mask of the squares that the origin square can attack by a Black Pawn capture */
-	static final long[] BlackPawnAttacks_Lut = new long[128];
+	static final long[] BlackPawnAttacks_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			BlackPawnAttacks_Lut[square] = createBlackPawnMovesAtSq(square);
@@ -272,11 +273,11 @@ public class SquareAttackEvaluator {
 		if (Position.getRank(atPos) != 7) {
 			int sq = Direction.getDirectMoveSq(Direction.upRight, atPos);
 			if (sq != Position.NOPOSITION) {
-				mask |= BitBoard.positionToMask_Lut[sq];
+				mask |= 1L << sq;
 			}
 			sq = Direction.getDirectMoveSq(Direction.upLeft, atPos);
 			if (sq != Position.NOPOSITION) {
-				mask |= BitBoard.positionToMask_Lut[sq];
+				mask |= 1L << sq;
 			}
 		}
 		return mask;
@@ -285,7 +286,7 @@ public class SquareAttackEvaluator {
 	/* 1-dimensional array:
 	 * 1st index is a position integer, this is the origin square
 	 * indexes a bit mask of the squares that the origin square can attack by a White Pawn capture */
-	static final long[] WhitePawnAttacks_Lut = new long[128];
+	static final long[] WhitePawnAttacks_Lut = new long[64];
 	static {
 		for (int square : Position.values) {
 			WhitePawnAttacks_Lut[square] = createWhitePawnMovesAtSq(square);
@@ -296,17 +297,23 @@ public class SquareAttackEvaluator {
 		if (Position.getRank(atPos) != 0) {
 			int sq = Direction.getDirectMoveSq(Direction.downRight, atPos);
 			if (sq != Position.NOPOSITION) {
-				mask |= BitBoard.positionToMask_Lut[sq];
+				mask |= 1L << sq;
 			}
 			sq = Direction.getDirectMoveSq(Direction.downLeft, atPos);
 			if (sq != Position.NOPOSITION) {
-				mask |= BitBoard.positionToMask_Lut[sq];
+				mask |= 1L << sq;
 			}
 		}
 		return mask;
 	}
 	
 	public static boolean isAttacked( Board bd, int attackedSq, Piece.Colour attackingColour ) {
+		return isAttacked(bd, attackedSq, attackingColour, bd.getAllPieces());
+	}
+	
+	/* The occupancy is used to find sliding piece attacks, so that a square can be tested as though a piece had
+	 * moved away; it is only honoured when magic bitboards are enabled. */
+	public static boolean isAttacked( Board bd, int attackedSq, Piece.Colour attackingColour, long occupied ) {
 		boolean isBlackAttacking = Colour.isBlack(attackingColour);
 		
 		// Early terminate, if no potential attackers
@@ -341,13 +348,33 @@ public class SquareAttackEvaluator {
 				attacked = (bd.getWhiteKnights() & KnightMove_Lut[attackedSq]) != 0;
 				if (attacked) break;
 			}
-			attacked = checkForDirectPieceAttacker(bd, attackedSq, isBlackAttacking);
+			attacked = checkForDirectPieceAttacker(bd, attackedSq, isBlackAttacking, occupied);
 			if (attacked) break;
 		} while (false);
 		return attacked;	
 	}
 
-	private static boolean checkForDirectPieceAttacker(Board bd, int attackedSq, boolean isBlackAttacking) {
+	/* Returns a mask of all the pieces of the attacking colour that attack the square; needs magic bitboards. */
+	public static long getAttackers( Board bd, int attackedSq, Piece.Colour attackingColour ) {
+		long allPieces = bd.getAllPieces();
+		long rookAttacks = MagicBitBoard.getRookAttacks(attackedSq, allPieces);
+		long bishopAttacks = MagicBitBoard.getBishopAttacks(attackedSq, allPieces);
+		if (Colour.isBlack(attackingColour)) {
+			return (bd.getBlackPawns() & BlackPawnAttacks_Lut[attackedSq]) |
+				   (bd.getBlackKnights() & KnightMove_Lut[attackedSq]) |
+				   (bd.getBlackKing() & KingMove_Lut[attackedSq]) |
+				   ((bd.getBlackRooks() | bd.getBlackQueens()) & rookAttacks) |
+				   ((bd.getBlackBishops() | bd.getBlackQueens()) & bishopAttacks);
+		} else {
+			return (bd.getWhitePawns() & WhitePawnAttacks_Lut[attackedSq]) |
+				   (bd.getWhiteKnights() & KnightMove_Lut[attackedSq]) |
+				   (bd.getWhiteKing() & KingMove_Lut[attackedSq]) |
+				   ((bd.getWhiteRooks() | bd.getWhiteQueens()) & rookAttacks) |
+				   ((bd.getWhiteBishops() | bd.getWhiteQueens()) & bishopAttacks);
+		}
+	}
+
+	private static boolean checkForDirectPieceAttacker(Board bd, int attackedSq, boolean isBlackAttacking, long occupied) {
 		boolean attacked = false;
 		// direct piece check is computationally heavy, so just do what is necessary
 		long attackingQueensMask = isBlackAttacking ? bd.getBlackQueens() : bd.getWhiteQueens();
@@ -356,6 +383,10 @@ public class SquareAttackEvaluator {
 		// create masks of attackers
 		long diagonalAttackersMask = attackingQueensMask | attackingBishopsMask;
 		long rankFileAttackersMask = attackingQueensMask | attackingRooksMask;	
+		if (Board.ENABLE_MAGIC_BITBOARDS) {
+			return ((diagonalAttackersMask != 0) && (MagicBitBoard.getBishopAttacks(attackedSq, occupied) & diagonalAttackersMask) != 0) ||
+				   ((rankFileAttackersMask != 0) && (MagicBitBoard.getRookAttacks(attackedSq, occupied) & rankFileAttackersMask) != 0);
+		}
 		for (Direction dir: allDirect) { 
 			switch(dir) {
 			case downLeft:
@@ -462,13 +493,13 @@ public class SquareAttackEvaluator {
 	public static boolean moveCouldLeadToDiscoveredCheck(Integer move, int kingPosition) {
 		int atSquare = Move.getOriginPosition(move);
 		// Establish if the initial square is on a multiple square slider mask from the king position
-		long square = BitBoard.positionToMask_Lut[atSquare];
+		long square = 1L << atSquare;
 		long attackingSquares = directAttacksOnPosition_Lut[kingPosition];
 		return ((square & attackingSquares) != 0);
 	}
 	
 	public static Direction findDirectionToTarget(int atSquare, int targetSq, Direction[] directionsToConsider) {
-		long targetMask = BitBoard.positionToMask_Lut[targetSq];
+		long targetMask = 1L << targetSq;
 		Direction attackDir = null;
 		for (Direction direction : directionsToConsider) {
 			long directionMask = directAttacksOnPositionAll_Lut[directionIndex_Lut.get(direction)][atSquare];
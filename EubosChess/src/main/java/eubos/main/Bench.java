@@ -0,0 +1,128 @@
+package eubos.main;
+
+import java.io.PrintStream;
+
+import eubos.score.EvaluationCaches;
+import eubos.search.DrawChecker;
+import eubos.search.generators.MiniMaxMoveGenerator;
+import eubos.search.searchers.FixedDepthMoveSearcher;
+import eubos.search.transposition.FixedSizeTranspositionTable;
+
+/* Runs a fixed depth search of a set of positions, single threaded and with a fresh hash table of a fixed size
+ * for each, then reports the total nodes searched, the time taken and the nodes per second. The node count only
+ * changes when the search does, so it fingerprints a build; the nodes per second measures its speed. Usable from
+ * the command line and as the "bench" UCI extension command, both taking the same arguments. A "pvs" option after
+ * the depth runs the search with PrincipalVariationSearcher rather than PlySearcher, to compare their node counts.
+ * Aspiration windows are used in the iterative deepening as they are by the engine, unless "noaspiration" is given;
+ * "aspiration" turns them on when the engine doesn't use them. */
+public class Bench {
+
+	public static final byte DEFAULT_DEPTH = 7;
+	public static final long HASH_SIZE_MBYTES = 16;
+	static final String ARGUMENTS_USAGE = "[depth] [pvs] [aspiration|noaspiration]";
+
+	static final String[] FENS = {
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+		"r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 4 8",
+		"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+		"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"8/5pk1/6p1/3R4/7P/6P1/r4P1K/8 b - - 0 40",
+	};
+
+	private long nodes = 0;
+	private long elapsedMillis = 0;
+	private int aspirationReSearches = 0;
+	private boolean usePrincipalVariationSearch = false;
+	private boolean useAspirationWindows = MiniMaxMoveGenerator.ENABLE_ASPIRATION_WINDOWS;
+
+	public void setPrincipalVariationSearch(boolean enable) {
+		usePrincipalVariationSearch = enable;
+	}
+
+	public void setAspirationWindows(boolean enable) {
+		useAspirationWindows = enable;
+	}
+
+	public void run(byte depth, PrintStream out) {
+		nodes = 0;
+		elapsedMillis = 0;
+		aspirationReSearches = 0;
+		for (int i=0; i < FENS.length; i++) {
+			FixedSizeTranspositionTable hashMap = new FixedSizeTranspositionTable(HASH_SIZE_MBYTES, 1);
+			FixedDepthMoveSearcher ms = new FixedDepthMoveSearcher(null, hashMap, new EvaluationCaches(), FENS[i], new DrawChecker(), depth);
+			ms.usePrincipalVariationSearch(usePrincipalVariationSearch);
+			ms.useAspirationWindows(useAspirationWindows);
+			long start = System.currentTimeMillis();
+			// Run the search on this thread, it is only a separate thread when started by the engine
+			ms.run();
+			long positionMillis = System.currentTimeMillis() - start;
+			long positionNodes = ms.getNodesSearched();
+			nodes += positionNodes;
+			aspirationReSearches += ms.getAspirationReSearches();
+			elapsedMillis += positionMillis;
+			out.println(String.format("position %d/%d bestmove %s nodes %d time %d",
+					i+1, FENS.length, ms.getResult().bestMove, positionNodes, positionMillis));
+		}
+		out.println(String.format("bench depth %d nodes %d time %d nps %d researches %d",
+				depth, nodes, elapsedMillis, getNodesPerSecond(), aspirationReSearches));
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public int getAspirationReSearches() {
+		return aspirationReSearches;
+	}
+
+	public long getNodesPerSecond() {
+		return (elapsedMillis == 0) ? 0 : (nodes*1000)/elapsedMillis;
+	}
+
+	/* Parses the optional depth, the first of the arguments following "bench". */
+	static byte parseDepth(String[] args, int firstArg) {
+		byte depth = DEFAULT_DEPTH;
+		if (args.length > firstArg) {
+			depth = Byte.parseByte(args[firstArg]);
+		}
+		return depth;
+	}
+
+	/* Parses the options following the depth, throwing IllegalArgumentException for one it doesn't know. */
+	void parseOptions(String[] args, int firstOption) {
+		for (int i=firstOption; i < args.length; i++) {
+			if (args[i].equals("pvs")) {
+				setPrincipalVariationSearch(true);
+			} else if (args[i].equals("aspiration")) {
+				setAspirationWindows(true);
+			} else if (args[i].equals("noaspiration")) {
+				setAspirationWindows(false);
+			} else {
+				throw new IllegalArgumentException(args[i]);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		EubosEngineMain.logger.setLevel(java.util.logging.Level.OFF);
+		EubosEngineMain.logger.setUseParentHandlers(false);
+		Bench bench = new Bench();
+		byte depth;
+		try {
+			depth = parseDepth(args, 0);
+			bench.parseOptions(args, 1);
+		} catch (IllegalArgumentException e) {
+			// Also catches the NumberFormatException of a bad depth
+			System.out.println(String.format("usage: java %s %s", Bench.class.getName(), ARGUMENTS_USAGE));
+			return;
+		}
+		bench.run(depth, System.out);
+	}
+}
@@ -0,0 +1,51 @@
+package eubos.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+
+/* Reads the UCI input for the engine, running the "bench" extension command itself, as the UCI protocol
+ * parser ignores commands it doesn't know. The bench runs to completion before the next command is read. */
+class BenchCommandReader extends BufferedReader {
+
+	static final String BENCH_COMMAND = "bench";
+
+	private final PrintStream output;
+
+	BenchCommandReader(Reader input, PrintStream output) {
+		super(input);
+		this.output = output;
+	}
+
+	@Override
+	public String readLine() throws IOException {
+		String line = super.readLine();
+		while (line != null && isBenchCommand(line)) {
+			runBench(line);
+			line = super.readLine();
+		}
+		return line;
+	}
+
+	private static boolean isBenchCommand(String line) {
+		String[] tokens = line.trim().split("\\s+");
+		return tokens[0].equals(BENCH_COMMAND);
+	}
+
+	private void runBench(String line) {
+		String[] tokens = line.trim().split("\\s+");
+		Bench bench = new Bench();
+		byte depth;
+		try {
+			depth = Bench.parseDepth(tokens, 1);
+			bench.parseOptions(tokens, 2);
+		} catch (IllegalArgumentException e) {
+			// Also catches the NumberFormatException of a bad depth
+			output.println(String.format("usage: %s %s", BENCH_COMMAND, Bench.ARGUMENTS_USAGE));
+			return;
+		}
+		EubosEngineMain.logger.info(String.format("Bench command received, depth %d", depth));
+		bench.run(depth, output);
+	}
+}
@@ -1,7 +1,7 @@
 package eubos.main;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PipedReader;
 import java.io.PipedWriter;
 
@@ -20,8 +20,10 @@ import com.fluxchess.jcpi.commands.ProtocolInitializeAnswerCommand;
 import com.fluxchess.jcpi.commands.ProtocolReadyAnswerCommand;
 import com.fluxchess.jcpi.commands.ProtocolBestMoveCommand;
 import com.fluxchess.jcpi.models.*;
+import com.fluxchess.jcpi.options.ButtonOption;
 import com.fluxchess.jcpi.options.Options;
 import com.fluxchess.jcpi.options.SpinnerOption;
+import com.fluxchess.jcpi.options.TextboxOption;
 import com.fluxchess.jcpi.protocols.NoProtocolException;
 
 import eubos.board.Board;
@@ -31,6 +33,8 @@ import eubos.board.Piece.Colour;
 import eubos.board.SquareAttackEvaluator;
 import eubos.position.Move;
 import eubos.position.PositionManager;
+import eubos.score.EvalHashTable;
+import eubos.score.EvaluationCaches;
 import eubos.score.ReferenceScore;
 import eubos.search.DrawChecker;
 import eubos.search.searchers.AbstractMoveSearcher;
@@ -40,6 +44,8 @@ import eubos.search.searchers.MultithreadedIterativeMoveSearcher;
 import eubos.search.transposition.FixedSizeTranspositionTable;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.*;
 
 public class EubosEngineMain extends AbstractEngine {
@@ -54,6 +60,8 @@ public class EubosEngineMain extends AbstractEngine {
 	
 	// Permanent data structures - static for the duration of a single game
 	private FixedSizeTranspositionTable hashMap = null;
+	// One per worker thread, kept across searches until the eval hash size or number of threads changes
+	private List<EvaluationCaches> evaluationCaches = null;
 	DrawChecker dc;
 	ReferenceScore whiteRefScore;
 	ReferenceScore blackRefScore;
@@ -64,6 +72,7 @@ public class EubosEngineMain extends AbstractEngine {
 	private Piece.Colour lastOnMove = null;
 	String lastFen = null;
 	private boolean createdHashTable = false;
+	private Thread hashTableAllocator = null;
 	
 	// Multithreading configuration
 	public static int numberOfWorkerThreads;
@@ -77,31 +86,96 @@ public class EubosEngineMain extends AbstractEngine {
 	
 	// Hash configuration
 	public static final int MIN_HASH_SIZE = 32;
-	public static final int MAX_HASH_SIZE = 4*1000;
+	public static final int MAX_HASH_SIZE = 64*1000;
 	public static final long DEFAULT_HASH_SIZE = FixedSizeTranspositionTable.MBYTES_DEFAULT_HASH_SIZE;
 	public static long hashSize = DEFAULT_HASH_SIZE;
+	public static final String NO_HASH_FILE = "<empty>";
+	public static String hashFile = "";
+	
+	// Evaluation hash configuration, the size of the table used by each worker thread
+	public static final int MIN_EVAL_HASH_SIZE = 1;
+	public static final int MAX_EVAL_HASH_SIZE = 256;
+	public static int evalHashSize = EvalHashTable.MBYTES_DEFAULT_SIZE;
 
     public static Logger logger = Logger.getLogger("eubos.main");
 
 	private static FileHandler fh; 
     
 	public EubosEngineMain() { 
-		super();
+		super(new BenchCommandReader(new InputStreamReader(System.in), System.out), System.out);
 	}
 	
 	public EubosEngineMain( PipedWriter out) throws IOException {
-		super(new BufferedReader(new PipedReader(out)), System.out);
+		super(new BenchCommandReader(new PipedReader(out), System.out), System.out);
 		logger.setLevel(Level.INFO);
 	}
 	
 	private void checkToCreateEnginePermanentDataStructures() {
-		if (!createdHashTable) {
-			hashMap = new FixedSizeTranspositionTable(hashSize, numberOfWorkerThreads);
+		if (dc == null) {
 			dc = new DrawChecker();
-			whiteRefScore = new ReferenceScore(hashMap);
-			blackRefScore = new ReferenceScore(hashMap);
-			createdHashTable = true;
-		}	
+		}
+	}
+	
+	private void checkToCreateEvaluationCaches() {
+		if (evaluationCaches == null || evaluationCaches.size() < numberOfWorkerThreads) {
+			evaluationCaches = new ArrayList<EvaluationCaches>(numberOfWorkerThreads);
+			for (int i=0; i < numberOfWorkerThreads; i++) {
+				evaluationCaches.add(new EvaluationCaches(evalHashSize));
+			}
+		}
+	}
+	
+	/* Allocating a large hash table takes too long to do before replying to the isready that follows setting
+	 * its size or starting a new game, so it is allocated by a background thread. Anything that needs the
+	 * table waits for that thread with checkToCreateHashTable(). */
+	private void startHashTableAllocation() {
+		if (!createdHashTable && hashTableAllocator == null) {
+			hashTableAllocator = new Thread(() -> createHashTable(), "HashTableAllocator");
+			hashTableAllocator.start();
+		}
+	}
+	
+	private void waitForHashTableAllocation() {
+		if (hashTableAllocator != null) {
+			boolean interrupted = false;
+			while (hashTableAllocator.isAlive()) {
+				try {
+					hashTableAllocator.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			hashTableAllocator = null;
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	private void checkToCreateHashTable() {
+		waitForHashTableAllocation();
+		if (!createdHashTable) {
+			// Also covers a failed background allocation, which is retried here so that any error is reported
+			createHashTable();
+		}
+	}
+	
+	private void createHashTable() {
+		hashMap = new FixedSizeTranspositionTable(hashSize, numberOfWorkerThreads,
+				FixedSizeTranspositionTable.USE_LOCKLESS_HASHING, hashFile);
+		whiteRefScore = new ReferenceScore(hashMap);
+		blackRefScore = new ReferenceScore(hashMap);
+		createdHashTable = true;
+	}
+	
+	private void releaseHashTable() {
+		waitForHashTableAllocation();
+		// Drop every reference to the old table, so that it can be collected before a new one is allocated
+		hashMap = null;
+		whiteRefScore = null;
+		blackRefScore = null;
+		ms = null;
+		createdHashTable = false;
 	}
 
 	public void receive(EngineInitializeRequestCommand command) {
@@ -110,6 +184,9 @@ public class EubosEngineMain extends AbstractEngine {
 		ProtocolInitializeAnswerCommand reply = new ProtocolInitializeAnswerCommand("Eubos 2.0","Chris Bolt");
 		reply.addOption(Options.newHashOption((int)DEFAULT_HASH_SIZE, MIN_HASH_SIZE, MAX_HASH_SIZE));
 		reply.addOption(new SpinnerOption("Threads", defaultNumberOfWorkerThreads, 1, numCores));
+		reply.addOption(new TextboxOption("HashFile", hashFile.isEmpty() ? NO_HASH_FILE : hashFile));
+		reply.addOption(new ButtonOption("SaveHash"));
+		reply.addOption(new SpinnerOption("EvalHash", evalHashSize, MIN_EVAL_HASH_SIZE, MAX_EVAL_HASH_SIZE));
 		logger.fine(String.format("Cores available=%d", numCores));
 		this.getProtocol().send( reply );
 		lastOnMove = null;
@@ -118,14 +195,27 @@ public class EubosEngineMain extends AbstractEngine {
 	public void receive(EngineSetOptionCommand command) {
 		logger.fine(String.format("SetOptionCommand is %s", command.name));
 		// If the GUI has configured the hash table size, reinitialise it at the correct size
-		if (command.name.startsWith("Hash")) {
+		if (command.name.startsWith("SaveHash")) {
+			saveHashFile();
+		} else if (command.name.startsWith("HashFile")) {
+			hashFile = (command.value == null || command.value.equals(NO_HASH_FILE)) ? "" : command.value;
+			logger.fine(String.format("HashFile=%s", hashFile));
+			releaseHashTable();
+			startHashTableAllocation();
+		} else if (command.name.startsWith("Hash")) {
 			hashSize = Long.parseLong(command.value);
 			logger.fine(String.format("MaxHashSizeInMBs=%d", hashSize));
 			/* In Heroku Eubos deployments for lichess-bot, we never get a new game UCI command; 
 			 * so we need to rebuild the hash table if it was resized from the defaults, force this
-			 * by setting the created flag to false. */
-			createdHashTable = false;
-			checkToCreateEnginePermanentDataStructures();
+			 * by releasing it and rebuilding it at the new size. */
+			releaseHashTable();
+			startHashTableAllocation();
+		}
+		if (command.name.startsWith("EvalHash")) {
+			// Takes effect from the next search, when the evaluation caches are created again
+			evalHashSize = Integer.parseInt(command.value);
+			logger.fine(String.format("EvalHashSizeInMBs=%d", evalHashSize));
+			evaluationCaches = null;
 		}
 		if (command.name.startsWith("Threads")) {
 			numberOfWorkerThreads = Integer.parseInt(command.value);
@@ -133,6 +223,19 @@ public class EubosEngineMain extends AbstractEngine {
 		}
 	}
 
+	private void saveHashFile() {
+		if (hashFile.isEmpty()) {
+			logger.warning("Can't save hash table, HashFile option isn't set");
+			return;
+		}
+		checkToCreateHashTable();
+		try {
+			hashMap.saveToFile(hashFile);
+		} catch (IOException e) {
+			logger.warning(String.format("Can't save hash table to file %s, %s", hashFile, e.getMessage()));
+		}
+	}
+
 	public void receive(EngineDebugCommand command) {
 	}
 
@@ -143,12 +246,14 @@ public class EubosEngineMain extends AbstractEngine {
 	public void receive(EngineNewGameCommand command) {
 		logger.fine("New Game");
 		checkToCreateEnginePermanentDataStructures();
+		startHashTableAllocation();
 	}
 
 	public void receive(EngineAnalyzeCommand command) {
 		logger.fine(String.format("Analysing position: %s with moves %s",
 				command.board.toString(), command.moves));
 		checkToCreateEnginePermanentDataStructures();
+		startHashTableAllocation();
 		createPositionFromAnalyseCommand(command);
 	}
 	
@@ -204,6 +309,9 @@ public class EubosEngineMain extends AbstractEngine {
 	public void receive(EngineStartCalculatingCommand command) {
 		// The move searcher will report the best move found via a callback to this object, 
 		// this will occur when the tree search is concluded and the thread completes execution.
+		checkToCreateHashTable();
+		hashMap.incrementGeneration();
+		checkToCreateEvaluationCaches();
 		moveSearcherFactory(command);
 		ms.start();
 	}
@@ -225,11 +333,11 @@ public class EubosEngineMain extends AbstractEngine {
 		// Create Move Searcher
 		if (clockTimeValid) {
 			logger.info("Search move, clock time " + clockTime);
-			ms = new MultithreadedIterativeMoveSearcher(this, hashMap, lastFen, dc, clockTime, clockInc, numberOfWorkerThreads, refScore);
+			ms = new MultithreadedIterativeMoveSearcher(this, hashMap, evaluationCaches, lastFen, dc, clockTime, clockInc, numberOfWorkerThreads, refScore);
 		}
 		else if (command.getMoveTime() != null) {
 			logger.info("Search move, fixed time " + command.getMoveTime());
-			ms = new FixedTimeMoveSearcher(this, hashMap, lastFen, dc, command.getMoveTime());
+			ms = new FixedTimeMoveSearcher(this, hashMap, evaluationCaches.get(0), lastFen, dc, command.getMoveTime());
 		} else {
 			// Analyse mode
 			byte searchDepth = 0;
@@ -240,10 +348,10 @@ public class EubosEngineMain extends AbstractEngine {
 			}	
 			if (searchDepth != 0) {
 				logger.info(String.format("Search move, fixed depth %d", searchDepth));
-				ms = new FixedDepthMoveSearcher(this, hashMap, lastFen, dc, searchDepth);
+				ms = new FixedDepthMoveSearcher(this, hashMap, evaluationCaches.get(0), lastFen, dc, searchDepth);
 			} else {
 				logger.info(String.format("Search move, infinite search, threads %d", numberOfWorkerThreads));
-				ms = new MultithreadedIterativeMoveSearcher(this, hashMap, lastFen, dc, Long.MAX_VALUE, clockInc, numberOfWorkerThreads, refScore);
+				ms = new MultithreadedIterativeMoveSearcher(this, hashMap, evaluationCaches, lastFen, dc, Long.MAX_VALUE, clockInc, numberOfWorkerThreads, refScore);
 			}
 		}
 	}
@@ -251,7 +359,9 @@ public class EubosEngineMain extends AbstractEngine {
 	public void receive(EngineStopCalculatingCommand command) {
 		logger.info("UCI Stop command received");
 		// Request an early terminate of the move searcher.
-		ms.halt();
+		if (ms != null) {
+			ms.halt();
+		}
 	}
 
 	public void receive(EnginePonderHitCommand command) {
@@ -0,0 +1,105 @@
+package eubos.main;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import eubos.board.InvalidPieceException;
+import eubos.position.Move;
+import eubos.position.PositionManager;
+import eubos.search.ParallelPerformanceTest;
+import eubos.search.PerformanceTest;
+import eubos.search.PerftHashTable;
+import eubos.search.PerftSuite;
+
+/* Command line perft tool, for checking the move generator and measuring its speed. */
+public class PerftMain {
+
+	private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	private static final String USAGE =
+			"usage: PerftMain suite [-nobulk] [-hash <MB>]\n" +
+			"       PerftMain perft <depth> [-nobulk] [-threads <n>] [<fen>]\n" +
+			"       PerftMain divide <depth> [-nobulk] [-hash <MB>] [<fen>]";
+
+	private boolean bulkCounting = true;
+	private int hashSizeMBytes = 0;
+	private int numThreads = 1;
+	private String fen = START_FEN;
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println(USAGE);
+			System.exit(1);
+		}
+		PerftMain perft = new PerftMain();
+		try {
+			boolean passed = true;
+			if (args[0].equals("suite")) {
+				perft.parseOptions(Arrays.copyOfRange(args, 1, args.length));
+				passed = perft.runSuite();
+			} else if (args[0].equals("perft") && args.length > 1) {
+				perft.parseOptions(Arrays.copyOfRange(args, 2, args.length));
+				perft.runPerft(Integer.parseInt(args[1]));
+			} else if (args[0].equals("divide") && args.length > 1) {
+				perft.parseOptions(Arrays.copyOfRange(args, 2, args.length));
+				perft.runDivide(Integer.parseInt(args[1]));
+			} else {
+				System.out.println(USAGE);
+				passed = false;
+			}
+			System.exit(passed ? 0 : 1);
+		} catch (NumberFormatException | InvalidPieceException e) {
+			System.out.println(e.getMessage());
+			System.out.println(USAGE);
+			System.exit(1);
+		}
+	}
+
+	private void parseOptions(String[] options) {
+		int i = 0;
+		while (i < options.length && options[i].startsWith("-")) {
+			if (options[i].equals("-nobulk")) {
+				bulkCounting = false;
+			} else if (options[i].equals("-hash") && i+1 < options.length) {
+				hashSizeMBytes = Integer.parseInt(options[++i]);
+			} else if (options[i].equals("-threads") && i+1 < options.length) {
+				numThreads = Integer.parseInt(options[++i]);
+			}
+			i++;
+		}
+		// The remaining arguments are the fields of the FEN string
+		if (i < options.length) {
+			fen = String.join(" ", Arrays.copyOfRange(options, i, options.length));
+		}
+	}
+
+	private boolean runSuite() throws InvalidPieceException {
+		PerftSuite suite = new PerftSuite();
+		suite.setBulkCounting(bulkCounting);
+		suite.setHashSizeMBytes(hashSizeMBytes);
+		return suite.run(System.out);
+	}
+
+	private void runPerft(int depth) {
+		ParallelPerformanceTest perft = new ParallelPerformanceTest(fen, depth, 1, numThreads);
+		perft.setBulkCounting(bulkCounting);
+		perft.perft();
+		System.out.println(perft.report());
+	}
+
+	private void runDivide(int depth) throws InvalidPieceException {
+		PerformanceTest perft = new PerformanceTest(new PositionManager(fen), depth);
+		perft.setBulkCounting(bulkCounting);
+		if (hashSizeMBytes > 0) {
+			perft.setHashTable(new PerftHashTable(hashSizeMBytes));
+		}
+		long start = System.currentTimeMillis();
+		Map<Integer, Long> countPerMove = perft.divide();
+		long elapsedMillis = System.currentTimeMillis() - start;
+		long total = 0;
+		for (Map.Entry<Integer, Long> entry : countPerMove.entrySet()) {
+			System.out.println(String.format("%s: %d", Move.toGenericMove(entry.getKey()), entry.getValue()));
+			total += entry.getValue();
+		}
+		System.out.println(String.format("moves=%d nodes=%d time=%dms", countPerMove.size(), total, elapsedMillis));
+	}
+}
@@ -7,4 +7,6 @@ public interface IChangePosition {
 	public void performMove( int move, boolean computeHash ) throws InvalidPieceException;
 	public void unperformMove() throws InvalidPieceException;
 	public void unperformMove( boolean computeHash ) throws InvalidPieceException;
+	public void performNullMove();
+	public void unperformNullMove();
 }
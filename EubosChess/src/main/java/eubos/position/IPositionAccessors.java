@@ -13,6 +13,7 @@ public interface IPositionAccessors {
 	public int lastMoveTargetSquare();
 	public boolean isPromotionPossible();
 	public long getHash();
+	public long getPawnHash();
 	public String getFen();
 	public boolean isThreefoldRepetitionPossible();
 	public IEvaluate getPositionEvaluator();
@@ -72,7 +72,7 @@ public final class Move {
 
 		// Encode target position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 		move |= targetPosition << TARGETPOSITION_SHIFT;
 		
 		return move;
@@ -93,7 +93,7 @@ public final class Move {
 // Done in initial assignment
 //		// Encode origin position
 //		if (EubosEngineMain.ASSERTS_ENABLED)
-//			assert (originPosition & 0x88) == 0;
+//			assert Position.isValid(originPosition);
 //		move |= originPosition << ORIGINPOSITION_SHIFT;
 		
 		// Encode Origin Piece
@@ -103,7 +103,7 @@ public final class Move {
 
 		// Encode target position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 		move |= targetPosition << TARGETPOSITION_SHIFT;
 		
 		return move;
@@ -126,7 +126,7 @@ public final class Move {
 
 		// Encode target position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 		move |= targetPosition << TARGETPOSITION_SHIFT;
 		
 		return move;
@@ -147,7 +147,7 @@ public final class Move {
 		// Done in initial assignment
 //		// Encode origin position
 //		if (EubosEngineMain.ASSERTS_ENABLED)
-//			assert (originPosition & 0x88) == 0;
+//			assert Position.isValid(originPosition);
 //		move |= originPosition << ORIGINPOSITION_SHIFT;
 		
 		// Encode Origin Piece
@@ -157,7 +157,7 @@ public final class Move {
 
 		// Encode target position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 		move |= targetPosition << TARGETPOSITION_SHIFT;
 		
 		// Encode promotion
@@ -192,7 +192,7 @@ public final class Move {
 		// Done in initial assignment
 //		// Encode origin position
 //		if (EubosEngineMain.ASSERTS_ENABLED)
-//			assert (originPosition & 0x88) == 0;
+//			assert Position.isValid(originPosition);
 //		move |= originPosition << ORIGINPOSITION_SHIFT;
 		
 		// Encode Origin Piece
@@ -202,7 +202,7 @@ public final class Move {
 
 		// Encode target position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 		move |= targetPosition << TARGETPOSITION_SHIFT;
 		
 		// Encode Target Piece
@@ -243,7 +243,7 @@ public final class Move {
 
 		// Encode target position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 		move |= targetPosition << TARGETPOSITION_SHIFT;
 		
 		// Encode Target Piece
@@ -355,7 +355,7 @@ public final class Move {
 	public static int getOriginPosition(int move) {
 		int originPosition = (move & ORIGINPOSITION_MASK) >>> ORIGINPOSITION_SHIFT;
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (originPosition & 0x88) == 0;
+			assert Position.isValid(originPosition);
 
 		return originPosition;
 	}
@@ -366,7 +366,7 @@ public final class Move {
 
 		// Encode origin position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (originPosition & 0x88) == 0;
+			assert Position.isValid(originPosition);
 		move |= originPosition << ORIGINPOSITION_SHIFT;
 
 		return move;
@@ -375,7 +375,7 @@ public final class Move {
 	public static int getTargetPosition(int move) {
 		int targetPosition = (move & TARGETPOSITION_MASK) >>> TARGETPOSITION_SHIFT;
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 
 		return targetPosition;
 	}
@@ -386,7 +386,7 @@ public final class Move {
 
 		// Encode target position
 		if (EubosEngineMain.ASSERTS_ENABLED)
-			assert (targetPosition & 0x88) == 0;
+			assert Position.isValid(targetPosition);
 		move |= targetPosition << TARGETPOSITION_SHIFT;
 
 		return move;
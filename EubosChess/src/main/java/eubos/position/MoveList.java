@@ -1,17 +1,17 @@
 package eubos.position;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 
 import com.fluxchess.jcpi.models.GenericMove;
 
+import eubos.board.Board;
 import eubos.board.InvalidPieceException;
+import eubos.board.LegalMoveChecker;
 import eubos.board.Piece;
 import eubos.board.Piece.Colour;
 import eubos.main.EubosEngineMain;
@@ -19,18 +19,124 @@ import eubos.search.KillerList;
 
 public class MoveList implements Iterable<Integer> {
 	
-	private List<Integer> normal_search_moves;
-	private List<Integer> priority_moves;
-	private List<Integer> extended_search_moves;
-	private static final MoveTypeComparator moveTypeComparator = new MoveTypeComparator();
+	public static final boolean ENABLE_STAGED_MOVE_GENERATION = true;
+	// Needs the magic bitboard sliding piece attacks to find pins and test the squares the king moves to
+	public static final boolean ENABLE_PIN_AWARE_LEGALITY = Board.ENABLE_MAGIC_BITBOARDS;
+	// Uses the checkers found for the pin aware legality checks
+	public static final boolean ENABLE_CHECK_EVASION_GENERATION = ENABLE_PIN_AWARE_LEGALITY;
 	
-    static class MoveTypeComparator implements Comparator<Integer> {
-        @Override public int compare(Integer move1, Integer move2) {
-            boolean gt = Move.getType(move1) < Move.getType(move2);
-            boolean eq = Move.getType(move1) == Move.getType(move2);
-            return gt ? 1 : (eq ? 0 : -1);
-        }
-    }
+	// Comfortably more than the maximum number of pseudo-legal moves of either kind in any position
+	public static final int MAX_MOVES_IN_POSITION = 256;
+	
+	/* The moves are held in preallocated primitive arrays, so that a MoveList can be reused for each node at
+	 * a ply of the search tree without any heap allocation. The priority moves are followed by the normal moves. */
+	private final int[] normal_search_moves = new int[MAX_MOVES_IN_POSITION];
+	private int normalCount = 0;
+	private final int[] priority_moves = new int[MAX_MOVES_IN_POSITION];
+	private final int[] priority_scores = new int[MAX_MOVES_IN_POSITION];
+	private int priorityCount = 0;
+	private final int[] extended_search_moves = new int[MAX_MOVES_IN_POSITION];
+	private int extendedCount = 0;
+	
+	private final MoveListIterator iterator = new MoveListIterator();
+	private final LegalMoveChecker legalityChecker = new LegalMoveChecker();
+	private boolean generatingEvasions = false;
+	
+	/* State for staged move lists. The moves are generated pseudo-legally in one pass, then handed out in
+	 * stages; the best move, the captures and promotions, the killers, then the quiet moves. The legality of
+	 * each move is only checked when it is reached, so the moves after a cut-off are never made. */
+	private static final byte LEGALITY_UNKNOWN = 0;
+	private static final byte LEGAL = 1;
+	private static final byte ILLEGAL = 2;
+	
+	private static final int STAGE_BEST = 0;
+	private static final int STAGE_PRIORITY = 1;
+	private static final int STAGE_KILLERS = 2;
+	private static final int STAGE_NORMAL = 3;
+	private static final int STAGE_DONE = 4;
+	
+	private boolean staged = false;
+	private PositionManager pm;
+	private Colour onMove;
+	private boolean needToEscapeMate;
+	private int stagedBestMove = Move.NULL_MOVE;
+	private byte bestLegality;
+	private final int[] killer_moves = new int[2];
+	private int killerCount = 0;
+	private final byte[] priority_legality = new byte[MAX_MOVES_IN_POSITION];
+	private final byte[] normal_legality = new byte[MAX_MOVES_IN_POSITION];
+	private final byte[] killer_legality = new byte[2];
+	private int stage;
+	private int stageIndex;
+	private boolean stagedExtended;
+	private int stagedCaptureSq;
+	
+	public class MoveListIterator implements PrimitiveIterator.OfInt {
+		private int[] first;
+		private int firstCount;
+		private int[] second;
+		private int secondCount;
+		private int index;
+		private boolean isStaged;
+		private int nextStagedMove;
+		
+		private MoveListIterator() {}
+		
+		private MoveListIterator reset(int[] first, int firstCount, int[] second, int secondCount) {
+			this.first = first;
+			this.firstCount = firstCount;
+			this.second = second;
+			this.secondCount = secondCount;
+			index = 0;
+			isStaged = false;
+			return this;
+		}
+		
+		private MoveListIterator resetStaged() {
+			isStaged = true;
+			nextStagedMove = Move.NULL_MOVE;
+			return this;
+		}
+		
+		/* As hasNext(), but a failed legality check of a staged move is thrown, as it is by initialise(). */
+		public boolean hasNextMove() throws InvalidPieceException {
+			if (isStaged) {
+				if (nextStagedMove == Move.NULL_MOVE) {
+					nextStagedMove = getNextStagedMove();
+				}
+				return nextStagedMove != Move.NULL_MOVE;
+			}
+			return index < (firstCount + secondCount);
+		}
+		
+		@Override
+		public boolean hasNext() {
+			try {
+				return hasNextMove();
+			} catch (InvalidPieceException e) {
+				throw new IllegalStateException("Staged move list legality check failed", e);
+			}
+		}
+		
+		@Override
+		public int nextInt() {
+			if (isStaged) {
+				if (!hasNext()) throw new NoSuchElementException();
+				int move = nextStagedMove;
+				nextStagedMove = Move.NULL_MOVE;
+				return move;
+			}
+			if (index < firstCount) {
+				return first[index++];
+			} else if (index < (firstCount + secondCount)) {
+				return second[(index++)-firstCount];
+			}
+			throw new NoSuchElementException();
+		}
+	}
+	
+	public MoveList() {
+	}
 	
 	public MoveList(PositionManager pm) throws InvalidPieceException {
 		this(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.NOPOSITION);
@@ -45,21 +151,235 @@ public class MoveList implements Iterable<Integer> {
 	}	
 	
 	public MoveList(PositionManager pm, int bestMove, int killer1, int killer2, int orderMoveList, int targetPosition) throws InvalidPieceException {	
-		
-		normal_search_moves = new LinkedList<Integer>();
-		priority_moves = new LinkedList<Integer>();
+		initialise(pm, bestMove, killer1, killer2, orderMoveList, targetPosition);
+	}
+	
+	public void initialise(PositionManager pm, int orderMoveList) throws InvalidPieceException {
+		initialise(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, orderMoveList, Position.NOPOSITION);
+	}
+	
+	public void initialise(PositionManager pm, int bestMove, int killer1, int killer2, int orderMoveList, int targetPosition) throws InvalidPieceException {
+		normalCount = 0;
+		priorityCount = 0;
+		extendedCount = 0;
+		staged = false;
 		
 		Colour onMove = pm.getOnMove();
-		boolean needToEscapeMate = pm.isKingInCheck(onMove);
+		needToEscapeMate = pm.isKingInCheck(onMove);
 		boolean isWhiteOnMove = Piece.Colour.isWhite(onMove);
 		
-		pm.getTheBoard().getRegularPieceMoves(this, isWhiteOnMove, targetPosition);
-		pm.castling.addCastlingMoves(isWhiteOnMove, this);
+		generateMoves(pm, isWhiteOnMove, needToEscapeMate, targetPosition);
 		
 		removeInvalidIdentifyBestKillerMoves(pm, bestMove, killer1, killer2, onMove, needToEscapeMate);
 		checkToSortList(orderMoveList);
+	}
+	
+	/* Generates the pseudo-legal moves and orders them exactly as initialise() would, but defers the legality
+	 * checks until the moves are retrieved with the iterator returned by getStandardIterator(). */
+	public void initialiseStaged(PositionManager pm, int bestMove, int killer1, int killer2, int orderMoveList, int targetPosition) {
+		normalCount = 0;
+		priorityCount = 0;
+		extendedCount = 0;
+		killerCount = 0;
+		staged = true;
+		stagedBestMove = Move.NULL_MOVE;
+		bestLegality = LEGALITY_UNKNOWN;
+		
+		this.pm = pm;
+		onMove = pm.getOnMove();
+		needToEscapeMate = pm.isKingInCheck(onMove);
+		boolean isWhiteOnMove = Piece.Colour.isWhite(onMove);
+		
+		generateMoves(pm, isWhiteOnMove, needToEscapeMate, targetPosition);
+		
+		identifyBestAndKillerMoves(bestMove, killer1, killer2);
+		boolean isReversed = (orderMoveList == 2 || orderMoveList == 3);
+		if (isReversed && killerCount == 2) {
+			int temp = killer_moves[0];
+			killer_moves[0] = killer_moves[1];
+			killer_moves[1] = temp;
+		}
+		checkToSortList(orderMoveList);
 		
-		normal_search_moves.addAll(0, priority_moves);
+		for (int i=0; i < priorityCount; i++) {
+			priority_legality[i] = LEGALITY_UNKNOWN;
+		}
+		for (int i=0; i < normalCount; i++) {
+			normal_legality[i] = LEGALITY_UNKNOWN;
+		}
+		killer_legality[0] = LEGALITY_UNKNOWN;
+		killer_legality[1] = LEGALITY_UNKNOWN;
+	}
+	
+	private void generateMoves(PositionManager pm, boolean isWhiteOnMove, boolean needToEscapeMate, int targetPosition) {
+		Board theBoard = pm.getTheBoard();
+		if (ENABLE_PIN_AWARE_LEGALITY) {
+			legalityChecker.initialise(theBoard, isWhiteOnMove, needToEscapeMate);
+		}
+		if (ENABLE_CHECK_EVASION_GENERATION && needToEscapeMate) {
+			// Only king moves, captures of the checker and interpositions on the check ray; can't castle out of check
+			if (legalityChecker.isDoubleCheck()) {
+				theBoard.getKingMoves(this, isWhiteOnMove);
+			} else if (targetPosition == Position.NOPOSITION) {
+				theBoard.getEvasionMoves(this, isWhiteOnMove, legalityChecker.getEvasionTargets());
+			} else {
+				// Extended search only generates captures on the target square, so discard the other moves as they are added
+				generatingEvasions = true;
+				theBoard.getRegularPieceMoves(this, isWhiteOnMove, targetPosition);
+				generatingEvasions = false;
+			}
+		} else if (targetPosition != Position.NOPOSITION) {
+			// Extended search; only captures on the target square and queen promotions are generated
+			theBoard.getRegularPieceMoves(this, isWhiteOnMove, targetPosition);
+		} else {
+			theBoard.getRegularPieceMoves(this, isWhiteOnMove, targetPosition);
+			pm.castling.addCastlingMoves(isWhiteOnMove, this);
+		}
+	}
+	
+	private void identifyBestAndKillerMoves(int bestMove, int killer1, int killer2) {
+		boolean validBest = bestMove != Move.NULL_MOVE;
+		boolean validKillerMove1 = killer1 != Move.NULL_MOVE && !Move.areEqualForBestKiller(killer1, bestMove);
+		boolean validKillerMove2 = killer2 != Move.NULL_MOVE && !Move.areEqualForBestKiller(killer2, bestMove);
+		
+		// Take the best and killer moves out of the lists, they are handed out in their own stages
+		int count = priorityCount;
+		priorityCount = 0;
+		for (int i=0; i < count; i++) {
+			int currMove = priority_moves[i];
+			if (validBest && Move.areEqualForBestKiller(currMove, bestMove)) {
+				stagedBestMove = Move.setBest(currMove);
+				validBest = false;
+			} else {
+				priority_moves[priorityCount++] = currMove;
+			}
+		}
+		count = normalCount;
+		normalCount = 0;
+		for (int i=0; i < count; i++) {
+			int currMove = normal_search_moves[i];
+			if (validBest && Move.areEqualForBestKiller(currMove, bestMove)) {
+				stagedBestMove = Move.setBest(currMove);
+				validBest = false;
+				continue;
+			}
+			if (KillerList.ENABLE_KILLER_MOVES) {
+				boolean isKiller1 = validKillerMove1 && Move.areEqualForBestKiller(currMove, killer1);
+				if (isKiller1) {
+					validKillerMove1 = false;
+				}
+				boolean isKiller2 = validKillerMove2 && Move.areEqualForBestKiller(currMove, killer2);
+				if (isKiller2) {
+					validKillerMove2 = false;
+				}
+				if (isKiller1 || isKiller2) {
+					killer_moves[killerCount++] = Move.setKiller(currMove);
+					continue;
+				}
+			}
+			normal_search_moves[normalCount++] = currMove;
+		}
+	}
+	
+	private boolean isLegal(int move, byte [] legality, int index) throws InvalidPieceException {
+		if (legality[index] == LEGALITY_UNKNOWN) {
+			legality[index] = isIllegal(pm, move, onMove, needToEscapeMate) ? ILLEGAL : LEGAL;
+		}
+		return legality[index] == LEGAL;
+	}
+	
+	private boolean isBestLegal() throws InvalidPieceException {
+		if (bestLegality == LEGALITY_UNKNOWN) {
+			bestLegality = isIllegal(pm, stagedBestMove, onMove, needToEscapeMate) ? ILLEGAL : LEGAL;
+		}
+		return bestLegality == LEGAL;
+	}
+	
+	private boolean isExtendedSearchMove(int move) {
+		return (Move.isCapture(move) && (Move.getTargetPosition(move) == stagedCaptureSq)) || Move.isQueenPromotion(move);
+	}
+	
+	private int getNextStagedMove() throws InvalidPieceException {
+		while (stage != STAGE_DONE) {
+			switch (stage) {
+			case STAGE_BEST:
+				stage = STAGE_PRIORITY;
+				stageIndex = 0;
+				if (stagedBestMove != Move.NULL_MOVE && (!stagedExtended || isExtendedSearchMove(stagedBestMove)) && isBestLegal()) {
+					return stagedBestMove;
+				}
+				break;
+			case STAGE_PRIORITY:
+				while (stageIndex < priorityCount) {
+					int i = stageIndex++;
+					int move = priority_moves[i];
+					if ((!stagedExtended || isExtendedSearchMove(move)) && isLegal(move, priority_legality, i)) {
+						return move;
+					}
+				}
+				// Killers and quiet moves are not searched in the extended search
+				stage = stagedExtended ? STAGE_DONE : STAGE_KILLERS;
+				stageIndex = 0;
+				break;
+			case STAGE_KILLERS:
+				while (stageIndex < killerCount) {
+					int i = stageIndex++;
+					if (isLegal(killer_moves[i], killer_legality, i)) {
+						return killer_moves[i];
+					}
+				}
+				stage = STAGE_NORMAL;
+				stageIndex = 0;
+				break;
+			case STAGE_NORMAL:
+				while (stageIndex < normalCount) {
+					int i = stageIndex++;
+					if (isLegal(normal_search_moves[i], normal_legality, i)) {
+						return normal_search_moves[i];
+					}
+				}
+				stage = STAGE_DONE;
+				break;
+			default:
+				break;
+			}
+		}
+		return Move.NULL_MOVE;
+	}
+	
+	private boolean isStagedMateOccurred() throws InvalidPieceException {
+		// Only checks the legality of moves until the first legal move is found, the results are kept for the search
+		if (stagedBestMove != Move.NULL_MOVE && isBestLegal()) return false;
+		for (int i=0; i < priorityCount; i++) {
+			if (isLegal(priority_moves[i], priority_legality, i)) return false;
+		}
+		for (int i=0; i < killerCount; i++) {
+			if (isLegal(killer_moves[i], killer_legality, i)) return false;
+		}
+		for (int i=0; i < normalCount; i++) {
+			if (isLegal(normal_search_moves[i], normal_legality, i)) return false;
+		}
+		return true;
+	}
+	
+	private boolean isIllegal(PositionManager pm, int currMove, Colour onMove, boolean needToEscapeMate) throws InvalidPieceException {
+		if (ENABLE_PIN_AWARE_LEGALITY && !LegalMoveChecker.mustBeMadeToCheckLegality(currMove)) {
+			return !legalityChecker.isLegal(currMove);
+		}
+		int originPiece = Move.getOriginPiece(currMove);
+		boolean possibleDiscoveredOrMoveIntoCheck = pm.getTheBoard().moveCouldLeadToOwnKingDiscoveredCheck(currMove, originPiece) || 
+													Piece.isKing(originPiece);
+		pm.performMove(currMove, false);
+		// Scratch any moves resulting in the king being in check, including moves that don't escape mate!
+		boolean illegal = (possibleDiscoveredOrMoveIntoCheck || needToEscapeMate) && pm.isKingInCheck(onMove);
+		pm.unperformMove(false);
+		return illegal;
+	}
+	
+	private void addPrioAtHead(int move) {
+		System.arraycopy(priority_moves, 0, priority_moves, 1, priorityCount);
+		priority_moves[0] = move;
+		priorityCount++;
 	}
 
 	private void removeInvalidIdentifyBestKillerMoves(PositionManager pm, int bestMove, int killer1, int killer2, Colour onMove,
@@ -69,70 +389,95 @@ public class MoveList implements Iterable<Integer> {
 		boolean validKillerMove2 = killer2 != Move.NULL_MOVE && !Move.areEqualForBestKiller(killer2, bestMove);
 		int foundBestMove = Move.NULL_MOVE;
 		
-		ListIterator<Integer> it = priority_moves.listIterator();
-		while (it.hasNext()) {
-			int currMove = it.next();
-			int originPiece = Move.getOriginPiece(currMove);
-			boolean possibleDiscoveredOrMoveIntoCheck = pm.getTheBoard().moveCouldLeadToOwnKingDiscoveredCheck(currMove, originPiece) || 
-														Piece.isKing(originPiece);
-			pm.performMove(currMove, false);
-			if ((possibleDiscoveredOrMoveIntoCheck || needToEscapeMate) && pm.isKingInCheck(onMove)) {
-				// Scratch any moves resulting in the king being in check, including moves that don't escape mate!
-				it.remove();
+		// Compact the legal moves down the array, removing the best move
+		int count = priorityCount;
+		priorityCount = 0;
+		for (int i=0; i < count; i++) {
+			int currMove = priority_moves[i];
+			if (isIllegal(pm, currMove, onMove, needToEscapeMate)) continue;
+			// Check whether to set the best move - note it could be the same as one of the killers
+			if (validBest && Move.areEqualForBestKiller(currMove, bestMove)) {
+				foundBestMove = Move.setBest(currMove);
+				validBest = false; // as already found
 			} else {
-				// Check whether to set the best move - note it could be the same as one of the killers
-				boolean isBest = validBest && Move.areEqualForBestKiller(currMove, bestMove);
-				if (isBest) {
-					foundBestMove = Move.setBest(currMove);
-					validBest = false; // as already found
-					it.remove();
-				}
+				priority_moves[priorityCount++] = currMove;
 			}
-			pm.unperformMove(false);
 		}
 		if (foundBestMove != Move.NULL_MOVE) {
-			priority_moves.add(0, foundBestMove); // add back in at the head of the list
-		}
-		
-		it = normal_search_moves.listIterator();
-		while (it.hasNext()) {
-			int currMove = it.next();
-			int originPiece = Move.getOriginPiece(currMove);
-			boolean possibleDiscoveredOrMoveIntoCheck = pm.getTheBoard().moveCouldLeadToOwnKingDiscoveredCheck(currMove, originPiece) || 
-														Piece.isKing(originPiece);
-			pm.performMove(currMove, false);
-			if ((possibleDiscoveredOrMoveIntoCheck || needToEscapeMate) && pm.isKingInCheck(onMove)) {
-				// Scratch any moves resulting in the king being in check, including moves that don't escape mate!
-				it.remove();
-			} else {
-				// Check whether to set the best move - note it could be the same as one of the killers
-				boolean isBest = validBest && Move.areEqualForBestKiller(currMove, bestMove);
-				if (isBest) {
-					foundBestMove = Move.setBest(currMove);
-					validBest = false; // as already found
-					it.remove();
-					priority_moves.add(0, foundBestMove); // Add at head of priority list
+			addPrioAtHead(foundBestMove);
+		}
+		
+		count = normalCount;
+		normalCount = 0;
+		for (int i=0; i < count; i++) {
+			int currMove = normal_search_moves[i];
+			if (isIllegal(pm, currMove, onMove, needToEscapeMate)) continue;
+			// Check whether to set the best move - note it could be the same as one of the killers
+			if (validBest && Move.areEqualForBestKiller(currMove, bestMove)) {
+				validBest = false; // as already found
+				addPrioAtHead(Move.setBest(currMove));
+				continue;
+			}
+			if (KillerList.ENABLE_KILLER_MOVES) {
+				// Check whether to set Killer flags
+				boolean isKiller1 = validKillerMove1 && Move.areEqualForBestKiller(currMove, killer1);
+				if (isKiller1) {
+					validKillerMove1 = false; // as already found
 				}
-				
-				if (KillerList.ENABLE_KILLER_MOVES) {
-					// Check whether to set Killer flags
-					boolean isKiller1 = validKillerMove1 && Move.areEqualForBestKiller(currMove, killer1);
-					if (isKiller1) {
-						validKillerMove1 = false; // as already found
-					}
-					boolean isKiller2 = validKillerMove2 && Move.areEqualForBestKiller(currMove, killer2);
-					if (isKiller2) {
-						validKillerMove2 = false; // as already found
-					}
-					if (isKiller1 || isKiller2) {
-						// Move was modified, add it to the priority list, where it will be sorted (add killers at end)
-						currMove = Move.setKiller(currMove);
-						it.remove();
-						priority_moves.add(currMove);
-					}
+				boolean isKiller2 = validKillerMove2 && Move.areEqualForBestKiller(currMove, killer2);
+				if (isKiller2) {
+					validKillerMove2 = false; // as already found
 				}
+				if (isKiller1 || isKiller2) {
+					// Move was modified, add it to the priority list, where it will be sorted (add killers at end)
+					priority_moves[priorityCount++] = Move.setKiller(currMove);
+					continue;
+				}
+			}
+			normal_search_moves[normalCount++] = currMove;
+		}
+	}
+	
+	private static int getMoveTypeScore(int move) {
+		return Move.getType(move);
+	}
+	
+	private static int getMvvLvaScore(int move) {
+		// Orders by move type, then better promotions first, or most valuable victim, least valuable attacker
+		int tieBreak = 0;
+		if (Move.isPromotion(move)) {
+			tieBreak = Piece.PIECE_NO_COLOUR_MASK - Move.getPromotion(move);
+		} else if (Move.isCapture(move)) {
+			tieBreak = Board.PIECE_TO_MATERIAL_LUT[Move.getTargetPieceNoColour(move)] - 
+					Board.PIECE_TO_MATERIAL_LUT[Move.getOriginPieceNoColour(move)];
+		}
+		return (Move.getType(move) << 16) + (tieBreak + Short.MAX_VALUE);
+	}
+	
+	private void reversePriorityMoves() {
+		for (int i=0, j=priorityCount-1; i < j; i++, j--) {
+			int temp = priority_moves[i];
+			priority_moves[i] = priority_moves[j];
+			priority_moves[j] = temp;
+		}
+	}
+	
+	private void sortPriorityMoves(boolean useMvvLva) {
+		for (int i=0; i < priorityCount; i++) {
+			priority_scores[i] = useMvvLva ? getMvvLvaScore(priority_moves[i]) : getMoveTypeScore(priority_moves[i]);
+		}
+		// Stable insertion sort, highest score first; the lists are short and mostly ordered already
+		for (int i=1; i < priorityCount; i++) {
+			int move = priority_moves[i];
+			int score = priority_scores[i];
+			int j = i-1;
+			while (j >= 0 && priority_scores[j] < score) {
+				priority_moves[j+1] = priority_moves[j];
+				priority_scores[j+1] = priority_scores[j];
+				j--;
 			}
-			pm.unperformMove(false);
+			priority_moves[j+1] = move;
+			priority_scores[j+1] = score;
 		}
 	}
 	
@@ -142,18 +487,18 @@ public class MoveList implements Iterable<Integer> {
 			/* Don't order the move list in this case. */
 			break;
 		case 1:
-			Collections.sort(priority_moves, Move.mvvLvaComparator);
+			sortPriorityMoves(true);
 			break;
 		case 2:
-			Collections.reverse(priority_moves);
-			Collections.sort(priority_moves, moveTypeComparator);
+			reversePriorityMoves();
+			sortPriorityMoves(false);
 			break;
 		case 3:
-			Collections.reverse(priority_moves);
-			Collections.sort(priority_moves, Move.mvvLvaComparator);
+			reversePriorityMoves();
+			sortPriorityMoves(true);
 			break;
 		case 4:
-			Collections.sort(priority_moves, moveTypeComparator);
+			sortPriorityMoves(false);
 			break;
 		default:
 			EubosEngineMain.logger.severe(String.format("Bad move ordering scheme %d!", orderMoveList));
@@ -163,79 +508,135 @@ public class MoveList implements Iterable<Integer> {
 		}
 	}
 	
+	/* The legality of the moves in a staged list is only known once they have been iterated, so the accessors
+	 * that treat the list as a whole are only valid for lists built by initialise(). */
+	private void checkNotStaged() {
+		if (staged) {
+			throw new IllegalStateException("Only valid for a move list built by initialise(), not initialiseStaged()");
+		}
+	}
+	
 	@Override
 	public Iterator<Integer> iterator() {
-		return normal_search_moves.iterator();
+		checkNotStaged();
+		return new MoveListIterator().reset(priority_moves, priorityCount, normal_search_moves, normalCount);
 	}
 	
-	public Iterator<Integer> getStandardIterator(boolean extended, int captureSq) {
-		Iterator<Integer> it;
+	/* Note: the returned iterator is owned by this MoveList and is reset by each call. */
+	public MoveListIterator getStandardIterator(boolean extended, int captureSq) {
+		if (staged) {
+			stage = STAGE_BEST;
+			stageIndex = 0;
+			stagedExtended = extended;
+			stagedCaptureSq = captureSq;
+			return iterator.resetStaged();
+		}
 		if (extended) {
 			// Lazy creation of extended move list
-			extended_search_moves = new ArrayList<Integer>(priority_moves.size());
-			for (int currMove : priority_moves) {
+			extendedCount = 0;
+			for (int i=0; i < priorityCount; i++) {
+				int currMove = priority_moves[i];
 				if ((Move.isCapture(currMove) && (Move.getTargetPosition(currMove) == captureSq)) || Move.isQueenPromotion(currMove)) {
-					extended_search_moves.add(currMove);
+					extended_search_moves[extendedCount++] = currMove;
 				}
 			}
-			it = extended_search_moves.iterator();
+			return iterator.reset(extended_search_moves, extendedCount, normal_search_moves, 0);
 		} else {
-			it = normal_search_moves.iterator();
+			return iterator.reset(priority_moves, priorityCount, normal_search_moves, normalCount);
 		}
-		return it; 
+	}
+	
+	public int size() {
+		checkNotStaged();
+		return priorityCount + normalCount;
+	}
+	
+	public int getMove(int index) {
+		checkNotStaged();
+		return (index < priorityCount) ? priority_moves[index] : normal_search_moves[index-priorityCount];
 	}
 		
-	public boolean isMateOccurred() {
-		return (normal_search_moves.size() == 0);
+	public boolean isMateOccurred() throws InvalidPieceException {
+		if (staged) {
+			return isStagedMateOccurred();
+		}
+		return (priorityCount + normalCount == 0);
+	}
+	
+	/* Extended search move lists only hold captures on the target square and queen promotions, so none of them
+	 * being legal doesn't mean mate. This can rule mate out without generating all the moves. */
+	public boolean hasLegalPieceMove() {
+		return ENABLE_PIN_AWARE_LEGALITY && !needToEscapeMate && legalityChecker.hasLegalPieceMove();
 	}
 	
 	public GenericMove getRandomMove() {
 		GenericMove bestMove = null;
-		if (!isMateOccurred()) {
+		if (size() != 0) {
 			Random randomIndex = new Random();
-			Integer indexToGet = randomIndex.nextInt(normal_search_moves.size());
-			bestMove = Move.toGenericMove(normal_search_moves.get(indexToGet));		
+			int indexToGet = randomIndex.nextInt(size());
+			bestMove = Move.toGenericMove(getMove(indexToGet));		
 		}
 		return bestMove;
 	}
 	
 	@Override
 	public String toString() {
-		String retVal = "";
-		for (int move : this.normal_search_moves) {
-			retVal += Move.toString(move);
-			retVal += ", ";
+		StringBuilder retVal = new StringBuilder();
+		if (staged) {
+			// The pseudo-legal moves, in the order the stages hand them out
+			retVal.append("staged: ");
+			if (stagedBestMove != Move.NULL_MOVE) {
+				appendMoves(retVal, new int[] {stagedBestMove}, 1);
+			}
+			appendMoves(retVal, priority_moves, priorityCount);
+			appendMoves(retVal, killer_moves, killerCount);
+			appendMoves(retVal, normal_search_moves, normalCount);
+		} else {
+			appendMoves(retVal, priority_moves, priorityCount);
+			appendMoves(retVal, normal_search_moves, normalCount);
+		}
+		return retVal.toString();
+	}
+	
+	private static void appendMoves(StringBuilder retVal, int[] moves, int count) {
+		for (int i=0; i < count; i++) {
+			retVal.append(Move.toString(moves[i]));
+			retVal.append(", ");
 		}
-		return retVal;
 	}
 
 	public int getBestMove() {
-		if (normal_search_moves.size() != 0) {
-			return normal_search_moves.get(0);
+		if (size() != 0) {
+			return getMove(0);
 		} else {
 			return Move.NULL_MOVE;
 		}
 	}
 	
-	
 	public void addNormal(int move) {
-		this.normal_search_moves.add(move);
+		if (generatingEvasions && !legalityChecker.isEvasionCandidate(move)) return;
+		normal_search_moves[normalCount++] = move;
 	}
 	
 	public void addPrio(int move) {
-		this.priority_moves.add(move);
+		if (generatingEvasions && !legalityChecker.isEvasionCandidate(move)) return;
+		priority_moves[priorityCount++] = move;
 	}
 	
 	// Test API
 	boolean contains(int move) {
-		for (int reg_move : normal_search_moves) {
-			if (move == reg_move)
+		for (int i=0; i < size(); i++) {
+			if (move == getMove(i))
 				return true;
 		}
 		return false;
 	}
 	
 	public List<Integer> getList() {
-		return normal_search_moves;		
+		List<Integer> list = new ArrayList<Integer>(size());
+		for (int i=0; i < size(); i++) {
+			list.add(getMove(i));
+		}
+		return list;
 	}
 }
@@ -33,7 +33,10 @@ class MoveTracker {
 	public int lastMoveTargetSquare() {
 		int targetSq = Position.NOPOSITION;
 		if (!isEmpty()) {
-			targetSq = Move.getTargetPosition(TrackedMove.getMove(stack[index-1]));
+			int move = TrackedMove.getMove(stack[index-1]);
+			if (move != Move.NULL_MOVE) {
+				targetSq = Move.getTargetPosition(move);
+			}
 		}
 		return targetSq;
 	}
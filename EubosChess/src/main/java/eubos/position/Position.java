@@ -24,43 +24,45 @@ import eubos.main.EubosEngineMain;
 
 public final class Position {
 
+  // Squares are numbered 0..63 from a1 to h8, the same as the bit index in a bitboard. Moves keep a seven bit
+  // field for each square, so that NOPOSITION can be encoded.
   public static final int MASK = 0x7F;
 
-  public static final int a1 = 0;   public static final int a2 = 16;
-  public static final int b1 = 1;   public static final int b2 = 17;
-  public static final int c1 = 2;   public static final int c2 = 18;
-  public static final int d1 = 3;   public static final int d2 = 19;
-  public static final int e1 = 4;   public static final int e2 = 20;
-  public static final int f1 = 5;   public static final int f2 = 21;
-  public static final int g1 = 6;   public static final int g2 = 22;
-  public static final int h1 = 7;   public static final int h2 = 23;
-
-  public static final int a3 = 32;  public static final int a4 = 48;
-  public static final int b3 = 33;  public static final int b4 = 49;
-  public static final int c3 = 34;  public static final int c4 = 50;
-  public static final int d3 = 35;  public static final int d4 = 51;
-  public static final int e3 = 36;  public static final int e4 = 52;
-  public static final int f3 = 37;  public static final int f4 = 53;
-  public static final int g3 = 38;  public static final int g4 = 54;
-  public static final int h3 = 39;  public static final int h4 = 55;
-
-  public static final int a5 = 64;  public static final int a6 = 80;
-  public static final int b5 = 65;  public static final int b6 = 81;
-  public static final int c5 = 66;  public static final int c6 = 82;
-  public static final int d5 = 67;  public static final int d6 = 83;
-  public static final int e5 = 68;  public static final int e6 = 84;
-  public static final int f5 = 69;  public static final int f6 = 85;
-  public static final int g5 = 70;  public static final int g6 = 86;
-  public static final int h5 = 71;  public static final int h6 = 87;
-
-  public static final int a7 = 96;  public static final int a8 = 112;
-  public static final int b7 = 97;  public static final int b8 = 113;
-  public static final int c7 = 98;  public static final int c8 = 114;
-  public static final int d7 = 99;  public static final int d8 = 115;
-  public static final int e7 = 100; public static final int e8 = 116;
-  public static final int f7 = 101; public static final int f8 = 117;
-  public static final int g7 = 102; public static final int g8 = 118;
-  public static final int h7 = 103; public static final int h8 = 119;
+  public static final int a1 = 0;   public static final int a2 = 8;
+  public static final int b1 = 1;   public static final int b2 = 9;
+  public static final int c1 = 2;   public static final int c2 = 10;
+  public static final int d1 = 3;   public static final int d2 = 11;
+  public static final int e1 = 4;   public static final int e2 = 12;
+  public static final int f1 = 5;   public static final int f2 = 13;
+  public static final int g1 = 6;   public static final int g2 = 14;
+  public static final int h1 = 7;   public static final int h2 = 15;
+
+  public static final int a3 = 16;  public static final int a4 = 24;
+  public static final int b3 = 17;  public static final int b4 = 25;
+  public static final int c3 = 18;  public static final int c4 = 26;
+  public static final int d3 = 19;  public static final int d4 = 27;
+  public static final int e3 = 20;  public static final int e4 = 28;
+  public static final int f3 = 21;  public static final int f4 = 29;
+  public static final int g3 = 22;  public static final int g4 = 30;
+  public static final int h3 = 23;  public static final int h4 = 31;
+
+  public static final int a5 = 32;  public static final int a6 = 40;
+  public static final int b5 = 33;  public static final int b6 = 41;
+  public static final int c5 = 34;  public static final int c6 = 42;
+  public static final int d5 = 35;  public static final int d6 = 43;
+  public static final int e5 = 36;  public static final int e6 = 44;
+  public static final int f5 = 37;  public static final int f6 = 45;
+  public static final int g5 = 38;  public static final int g6 = 46;
+  public static final int h5 = 39;  public static final int h6 = 47;
+
+  public static final int a7 = 48;  public static final int a8 = 56;
+  public static final int b7 = 49;  public static final int b8 = 57;
+  public static final int c7 = 50;  public static final int c8 = 58;
+  public static final int d7 = 51;  public static final int d8 = 59;
+  public static final int e7 = 52; public static final int e8 = 60;
+  public static final int f7 = 53; public static final int f8 = 61;
+  public static final int g7 = 54; public static final int g8 = 62;
+  public static final int h7 = 55; public static final int h8 = 63;
 
   public static final int NOPOSITION = 127;
 
@@ -82,32 +84,36 @@ public final class Position {
     //assert genericPosition != null;
 	int position = Position.NOPOSITION; 
 	if (genericPosition != null) {
-		position = IntRank.valueOf(genericPosition.rank) * 16 + IntFile.valueOf(genericPosition.file);
+		position = IntRank.valueOf(genericPosition.rank) * 8 + IntFile.valueOf(genericPosition.file);
 	}
     return position;
   }
 
   public static GenericPosition toGenericPosition(int position) {
 	  if (EubosEngineMain.ASSERTS_ENABLED)
-		  	assert (position & 0x88) == 0;
+		  	assert isValid(position);
 	  return GenericPosition.valueOf(IntFile.toGenericFile(getFile(position)), IntRank.toGenericRank(getRank(position)));
   }
 
   public static int getFile(int position) {
 	  if (EubosEngineMain.ASSERTS_ENABLED)
 		  assert position != NOPOSITION;
-	  return position % 16;
+	  return position & 0x7;
   }
 
   public static int getRank(int position) {
 	  if (EubosEngineMain.ASSERTS_ENABLED)
 		  assert position != NOPOSITION;
 
-	  return position >>> 4;
+	  return position >>> 3;
   }
 
+public static boolean isValid(int position) {
+	return (position & ~0x3F) == 0;
+}
+
 public static int valueOf(int file, int rank) {
-	return (rank << 4) | (file & 0xF);
+	return (rank << 3) | (file & 0x7);
 }
 
 }
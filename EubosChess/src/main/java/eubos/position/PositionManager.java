@@ -11,6 +11,7 @@ import eubos.board.Board;
 import eubos.board.InvalidPieceException;
 import eubos.board.Piece;
 import eubos.board.Piece.Colour;
+import eubos.score.EvaluationCaches;
 import eubos.score.IEvaluate;
 import eubos.score.PositionEvaluator;
 import eubos.score.ReferenceScore;
@@ -18,16 +19,20 @@ import eubos.search.DrawChecker;
 
 public class PositionManager implements IChangePosition, IPositionAccessors {
 	
-	public PositionManager( String fenString, DrawChecker dc, ReferenceScore refScore) {
+	public PositionManager( String fenString, DrawChecker dc, ReferenceScore refScore, EvaluationCaches caches) {
 		moveTracker = new MoveTracker();
 		new fenParser( this, fenString );
 		hash = new ZobristHashCode(this, castling);
 		this.dc = dc;
 		if (refScore != null) {
-			pe = new PositionEvaluator(this, refScore);
+			pe = new PositionEvaluator(this, refScore, caches);
 		}
 	}
 	
+	public PositionManager( String fenString, DrawChecker dc, ReferenceScore refScore) {
+		this(fenString, dc, refScore, new EvaluationCaches());
+	}
+	
 	public PositionManager( String fenString) {
 		this(fenString, new DrawChecker(), new ReferenceScore(null));
 	}
@@ -77,6 +82,10 @@ public class PositionManager implements IChangePosition, IPositionAccessors {
 	public long getHash() {
 		return hash.hashCode;
 	}
+
+	public long getPawnHash() {
+		return hash.pawnHashCode;
+	}
 	
 	boolean repetitionPossible = false;
 	public boolean isThreefoldRepetitionPossible() {
@@ -152,6 +161,36 @@ public class PositionManager implements IChangePosition, IPositionAccessors {
 		}
 	}
 		
+	/* Passes the move to the opponent, for null move pruning. Only the side on move and the en passant target square
+	 * change, a null move is tracked so that these can be restored by unperformNullMove(). */
+	public void performNullMove() {
+		int prevEnPassantTargetSq = theBoard.getEnPassantTargetSq();
+		moveTracker.push(TrackedMove.valueOf(Move.NULL_MOVE, prevEnPassantTargetSq, castling.getFlags()));
+		theBoard.setEnPassantTargetSq(Position.NOPOSITION);
+		hash.updateNullMove(IntFile.NOFILE);
+		// The draw checker isn't updated, a position reached by passing can't be a repetition
+		repetitionPossible = false;
+		
+		onMove = Colour.getOpposite(onMove);
+		if (Colour.isWhite(onMove)) {
+			moveNumber++;
+		}
+	}
+	
+	public void unperformNullMove() {
+		long tm = moveTracker.pop();
+		int enPasTargetSq = TrackedMove.getEnPassantTarget(tm);
+		theBoard.setEnPassantTargetSq(enPasTargetSq);
+		int enPassantFile = (enPasTargetSq != Position.NOPOSITION) ? Position.getFile(enPasTargetSq) : IntFile.NOFILE;
+		hash.updateNullMove(enPassantFile);
+		repetitionPossible = dc.isPositionOpponentCouldClaimDraw(getHash());
+		
+		onMove = Piece.Colour.getOpposite(onMove);
+		if (Colour.isBlack(onMove)) {
+			moveNumber--;
+		}
+	}
+	
 	public String getFen() {
 		StringBuilder fen = new StringBuilder(theBoard.getAsFenString());
 		fen.append(' ');
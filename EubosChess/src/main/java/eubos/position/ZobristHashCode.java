@@ -12,6 +12,8 @@ import eubos.board.Piece;
 public class ZobristHashCode implements IForEachPieceCallback {
 	
 	public long hashCode;
+	// Hash of the pawns only, used to index the pawn structure evaluation
+	public long pawnHashCode;
 	
 	private static final int NUM_COLOURS = 2;
 	private static final int NUM_PIECES = 6;
@@ -42,10 +44,14 @@ public class ZobristHashCode implements IForEachPieceCallback {
 	private Stack<Integer> prevEnPassantFile = null;
 	private int prevCastlingMask = 0;
 		
+	/* The seed is fixed so that hash codes are the same for every run of the engine, which is needed
+	 * for a transposition table saved to file to be valid when it is reloaded. */
+	public static final long PRN_SEED = 0x45554230535A4F42L;
+	
 	static private final long prnLookupTable[] = new long[LENGTH_TABLE];
 	static {
 		// Set up the pseudo random number lookup table that shall be used
-		Random randGen = new Random();
+		Random randGen = new Random(PRN_SEED);
 		for (int index = 0; index < prnLookupTable.length; index++) {
 			prnLookupTable[index] = randGen.nextLong();
 		}
@@ -60,13 +66,22 @@ public class ZobristHashCode implements IForEachPieceCallback {
 	
 	@Override
 	public void callback(int piece, int atPos) { 
-		hashCode ^= getPrnForPiece(atPos, piece);
+		togglePiece(atPos, piece);
+	}
+	
+	private void togglePiece(int atPos, int piece) {
+		long prn = getPrnForPiece(atPos, piece);
+		hashCode ^= prn;
+		if (Piece.isPawn(piece)) {
+			pawnHashCode ^= prn;
+		}
 	}
 	
 	// Generate a hash code for a position from scratch
 	private long generate() {
 		// add pieces
 		hashCode = 0;
+		pawnHashCode = 0;
 		pos.getTheBoard().forEachPiece(this);
 		// add castling
 		prevCastlingMask = castling.getFlags();
@@ -87,10 +102,8 @@ public class ZobristHashCode implements IForEachPieceCallback {
 
 	protected long getPrnForPiece(int pos, int currPiece) {
 		// compute prnLookup index to use, based on piece type, colour and square.
-		int atFile = Position.getFile(pos);
-		int atRank = Position.getRank(pos);
 		int pieceType = (currPiece & Piece.PIECE_NO_COLOUR_MASK) - 1; // convert piece type to Zobrist index
-		int lookupIndex = atFile + atRank * 8 + pieceType * NUM_SQUARES;
+		int lookupIndex = pos + pieceType * NUM_SQUARES;
 		if (Piece.isBlack(currPiece)) {
 			lookupIndex += INDEX_BLACK;
 		}		
@@ -108,31 +121,37 @@ public class ZobristHashCode implements IForEachPieceCallback {
 		doOnMove();
 	}
 	
+	// Used to update the Zobrist hash code when the side on move passes, or when a pass is undone
+	public void updateNullMove(int enPassantFile) {
+		doEnPassant(enPassantFile);
+		doOnMove();
+	}
+	
 	protected void doBasicMove(int move, int piece) {
 		int promotedChessman = Move.getPromotion(move);
 		if (promotedChessman == Piece.NONE) {
 			// Basic move only
-			hashCode ^= getPrnForPiece(Move.getTargetPosition(move), piece);
-			hashCode ^= getPrnForPiece(Move.getOriginPosition(move), piece);
+			togglePiece(Move.getTargetPosition(move), piece);
+			togglePiece(Move.getOriginPosition(move), piece);
 		} else {
 			// Promotion
 			int promotedPiece = Piece.isWhite(piece) ? promotedChessman : Piece.BLACK|promotedChessman;
 			if ((Position.getRank(Move.getTargetPosition(move)) == IntRank.R1) ||
 				(Position.getRank(Move.getTargetPosition(move)) == IntRank.R8)) {
 				// is doing a promotion
-				hashCode ^= getPrnForPiece(Move.getTargetPosition(move), promotedPiece);
-				hashCode ^= getPrnForPiece(Move.getOriginPosition(move), piece);
+				togglePiece(Move.getTargetPosition(move), promotedPiece);
+				togglePiece(Move.getOriginPosition(move), piece);
 			} else {
 				// is undoing promotion
-				hashCode ^= getPrnForPiece(Move.getTargetPosition(move), piece);
-				hashCode ^= getPrnForPiece(Move.getOriginPosition(move), promotedPiece);
+				togglePiece(Move.getTargetPosition(move), piece);
+				togglePiece(Move.getOriginPosition(move), promotedPiece);
 			}
 		}
 	}
 
 	protected void doCapturedPiece(int targetPiece, int capturedPieceSquare) {
 		if (targetPiece != Piece.NONE)
-			hashCode ^= getPrnForPiece(capturedPieceSquare, targetPiece);
+			togglePiece(capturedPieceSquare, targetPiece);
 	}
 
 	private void setTargetFile(int enPasFile) {
@@ -0,0 +1,81 @@
+package eubos.score;
+
+import java.util.Arrays;
+
+/* Caches the static evaluation of positions, indexed by the Zobrist hash code, so that positions revisited
+ * by the extended search are only evaluated once. Not thread safe, each search thread has its own table. */
+public class EvalHashTable {
+
+	public static final int MBYTES_DEFAULT_SIZE = 1;
+	private static final int BYTES_PER_MEGABYTE = (1024 * 1024);
+
+	// Each entry is one long; the upper bits of the hash code with the score in the lower 16 bits
+	private static final long KEY_MASK = 0xFFFFFFFFFFFF0000L;
+	private static final long SCORE_MASK = 0x000000000000FFFFL;
+
+	private final long [] table;
+	private final int indexMask;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	public EvalHashTable() {
+		this(MBYTES_DEFAULT_SIZE);
+	}
+
+	public EvalHashTable(int sizeMBytes) {
+		// Round down to a power of two, so the table can be indexed by masking the hash code
+		int size = Integer.highestOneBit(Math.max(sizeMBytes, 1) * (BYTES_PER_MEGABYTE / Long.BYTES));
+		table = new long[size];
+		indexMask = size-1;
+	}
+
+	/* Returns true if the hash code is in the table; the score can then be read with getScore(). */
+	public boolean probe(long hashCode) {
+		if ((table[(int)(hashCode & indexMask)] & KEY_MASK) == (hashCode & KEY_MASK)) {
+			hits++;
+			return true;
+		}
+		misses++;
+		return false;
+	}
+
+	public short getScore(long hashCode) {
+		return (short)table[(int)(hashCode & indexMask)];
+	}
+
+	public void put(long hashCode, short score) {
+		table[(int)(hashCode & indexMask)] = (hashCode & KEY_MASK) | (score & SCORE_MASK);
+	}
+
+	public void clear() {
+		Arrays.fill(table, 0L);
+	}
+
+	public void resetStatistics() {
+		hits = 0;
+		misses = 0;
+	}
+
+	public int getSize() {
+		return table.length;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public int getHitRatePermille() {
+		long probes = hits+misses;
+		return (probes == 0) ? 0 : (int)((hits*1000)/probes);
+	}
+
+	public String report() {
+		return String.format("evalHash size=%d hits=%d misses=%d hitRate=%d%%",
+				table.length, hits, misses, getHitRatePermille()/10);
+	}
+}
@@ -0,0 +1,54 @@
+package eubos.score;
+
+import eubos.main.EubosEngineMain;
+import eubos.search.SearchContext;
+
+/* The eval hash and pawn hash tables of one search thread. The engine keeps one per worker thread for as long as
+ * the table sizes and thread count don't change, so they are allocated once rather than for every search. Each
+ * table is allocated on first use, so positions that are never evaluated, e.g. in perft, don't pay for them.
+ * Not thread safe, like the tables themselves. */
+public class EvaluationCaches {
+
+	private final int evalHashSizeMBytes;
+	private EvalHashTable evalHash;
+	private PawnEvalHashTable pawnHash;
+	// The context the cached evaluations were computed in
+	private SearchContext context;
+
+	public EvaluationCaches() {
+		this(EubosEngineMain.evalHashSize);
+	}
+
+	public EvaluationCaches(int evalHashSizeMBytes) {
+		this.evalHashSizeMBytes = evalHashSizeMBytes;
+	}
+
+	/* Called with the context of each new search. The evaluation depends on the search goal, so cached scores
+	 * are cleared when it changes. The pawn structure doesn't, so that table is kept. */
+	public void validateFor(SearchContext sc) {
+		if (context != null && !context.isEvaluatedAs(sc) && evalHash != null) {
+			evalHash.clear();
+		}
+		context = sc;
+		if (evalHash != null) {
+			evalHash.resetStatistics();
+		}
+		if (pawnHash != null) {
+			pawnHash.resetStatistics();
+		}
+	}
+
+	public EvalHashTable getEvalHashTable() {
+		if (evalHash == null) {
+			evalHash = new EvalHashTable(evalHashSizeMBytes);
+		}
+		return evalHash;
+	}
+
+	public PawnEvalHashTable getPawnHashTable() {
+		if (pawnHash == null) {
+			pawnHash = new PawnEvalHashTable();
+		}
+		return pawnHash;
+	}
+}
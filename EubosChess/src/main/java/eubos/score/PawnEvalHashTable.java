@@ -0,0 +1,93 @@
+package eubos.score;
+
+/* Caches the pawn structure evaluation, indexed by the pawn hash code of the position. As pawn structure
+ * rarely changes between sibling nodes, most positions hit an entry computed for an earlier position.
+ * Not thread safe, each search thread has its own table. */
+public class PawnEvalHashTable {
+
+	public static final int DEFAULT_SIZE_ENTRIES = (1 << 14);
+
+	// Each entry is four longs; the upper half of the pawn hash with the score, passed pawns and pawn attacks of each side
+	private static final int ENTRY_LONGS = 4;
+	private static final long KEY_MASK = 0xFFFFFFFF00000000L;
+	private static final long SCORE_MASK = 0x00000000FFFFFFFFL;
+
+	private final long [] table;
+	private final int size;
+	private final int indexMask;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	public PawnEvalHashTable() {
+		this(DEFAULT_SIZE_ENTRIES);
+	}
+
+	public PawnEvalHashTable(int sizeEntries) {
+		// Round down to a power of two, so the table can be indexed by masking the hash code
+		size = Integer.highestOneBit(Math.max(sizeEntries, 1));
+		table = new long[size*ENTRY_LONGS];
+		indexMask = size-1;
+	}
+
+	/* Returns the index of the entry for pawnHash, or -1 if it isn't in the table. The lower bits of the
+	 * hash select the entry and the upper half verifies it. An empty entry is all zeros, which is also the
+	 * correct entry for a position without pawns, whose pawn hash is zero. */
+	public int probe(long pawnHash) {
+		int index = (int)(pawnHash & indexMask)*ENTRY_LONGS;
+		if ((table[index] & KEY_MASK) == (pawnHash & KEY_MASK)) {
+			hits++;
+			return index;
+		}
+		misses++;
+		return -1;
+	}
+
+	public int put(long pawnHash, int score, long passed, long whiteAttacks, long blackAttacks) {
+		int index = (int)(pawnHash & indexMask)*ENTRY_LONGS;
+		table[index] = (pawnHash & KEY_MASK) | (score & SCORE_MASK);
+		table[index+1] = passed;
+		table[index+2] = whiteAttacks;
+		table[index+3] = blackAttacks;
+		return index;
+	}
+
+	public int getScore(int index) {
+		return (int)table[index];
+	}
+
+	public long getPassedPawns(int index) {
+		return table[index+1];
+	}
+
+	public long getPawnAttacks(int index, boolean isWhite) {
+		return isWhite ? table[index+2] : table[index+3];
+	}
+
+	public void resetStatistics() {
+		hits = 0;
+		misses = 0;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public int getHitRatePermille() {
+		long probes = hits+misses;
+		return (probes == 0) ? 0 : (int)((hits*1000)/probes);
+	}
+
+	public String report() {
+		return String.format("pawnHash size=%d hits=%d misses=%d hitRate=%d%%",
+				size, hits, misses, getHitRatePermille()/10);
+	}
+}
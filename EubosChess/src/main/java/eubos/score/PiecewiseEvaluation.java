@@ -22,6 +22,15 @@ public class PiecewiseEvaluation {
 	private void addBlack(short toAdd) { black += toAdd; }
 	private void addWhite(short toAdd) { white += toAdd; }
 	
+	public void removePiece(boolean isWhite, int piece_no_colour) {
+		short value = Board.PIECE_TO_MATERIAL_LUT[piece_no_colour];
+		if (isWhite) {
+			addWhite((short)-value);
+		} else {
+			addBlack((short)-value);
+		}
+	}
+	
 	public void addPiece(boolean isWhite, int piece_no_colour) {
 		short value = Board.PIECE_TO_MATERIAL_LUT[piece_no_colour];
 		if (isWhite) {
@@ -44,4 +53,5 @@ public class PiecewiseEvaluation {
 	}
 	
 	public short getPosition() { return position; }
+	public void setPosition(short position) { this.position = position; }
 }
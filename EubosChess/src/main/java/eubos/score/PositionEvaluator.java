@@ -16,6 +16,9 @@ public class PositionEvaluator implements IEvaluate, IForEachPieceCallback {
 
 	IPositionAccessors pm;
 	private SearchContext sc;
+	private EvaluationCaches caches;
+	private EvalHashTable evalHash;
+	private PawnEvalHashTable pawnHash;
 	
 	public static final int DOUBLED_PAWN_HANDICAP = 33;
 	public static final int PASSED_PAWN_BOOST = 30;
@@ -25,14 +28,23 @@ public class PositionEvaluator implements IEvaluate, IForEachPieceCallback {
 	public static final boolean ENABLE_PAWN_EVALUATION = true;
 	public static final boolean ENABLE_KING_SAFETY_EVALUATION = true;
 	public static final boolean ENABLE_DYNAMIC_POSITIONAL_EVALUATION = true;
+	public static final boolean ENABLE_PAWN_HASH_TABLE = true;
+	public static final boolean ENABLE_EVAL_HASH_TABLE = true;
 	
-	public PositionEvaluator(IPositionAccessors pm, ReferenceScore refScore) {	
+	public PositionEvaluator(IPositionAccessors pm, ReferenceScore refScore) {
+		this(pm, refScore, new EvaluationCaches());
+	}
+	
+	public PositionEvaluator(IPositionAccessors pm, ReferenceScore refScore, EvaluationCaches caches) {	
 		this.pm = pm;
 		PiecewiseEvaluation mat = pm.getTheBoard().me;
 		if (mat == null) {
 			mat = pm.getTheBoard().evaluateMaterial();
 		}
 		sc = new SearchContext(pm, mat, refScore);
+		// The caches are owned by the search thread and kept across searches, as long as the goal allows
+		this.caches = caches;
+		caches.validateFor(sc);
 	}
 	
 	public boolean isQuiescent(int currMove) {
@@ -47,6 +59,21 @@ public class PositionEvaluator implements IEvaluate, IForEachPieceCallback {
 	}
 	
 	public int evaluatePosition() {
+		// A position where a repetition is possible is scored according to the path to it, so isn't cached
+		boolean useEvalHash = ENABLE_EVAL_HASH_TABLE && !pm.isThreefoldRepetitionPossible();
+		long hashCode = pm.getHash();
+		if (useEvalHash && getEvalHashTable().probe(hashCode)) {
+			return Score.valueOf(evalHash.getScore(hashCode), Score.exact);
+		}
+		short score = computeEvaluation();
+		if (useEvalHash) {
+			evalHash.put(hashCode, score);
+		}
+		return Score.valueOf(score, Score.exact);
+	}
+	
+	/* The evaluation as computed when it isn't in the eval hash table. */
+	short computeEvaluation() {
 		pm.getTheBoard().evaluateMaterial();
 		SearchContextEvaluation eval = sc.computeSearchGoalBonus(pm.getTheBoard().me);
 		if (!eval.isDraw) {
@@ -58,10 +85,25 @@ public class PositionEvaluator implements IEvaluate, IForEachPieceCallback {
 				eval.score += evaluateKingSafety();
 			}
 		}
-		return Score.valueOf(eval.score, Score.exact);
+		return eval.score;
 	}
 	
 	int evaluatePawnStructure() {
+		if (!ENABLE_PAWN_HASH_TABLE) {
+			return computePawnStructure();
+		}
+		long pawnHashCode = pm.getPawnHash();
+		int index = getPawnHashTable().probe(pawnHashCode);
+		if (index == -1) {
+			int score = computePawnStructure();
+			Board bd = pm.getTheBoard();
+			index = pawnHash.put(pawnHashCode, score, passedPawns, bd.getPawnAttacks(Colour.white), bd.getPawnAttacks(Colour.black));
+		}
+		return pawnHash.getScore(index);
+	}
+	
+	private int computePawnStructure() {
+		passedPawns = 0;
 		boolean onMoveIsWhite = Colour.isWhite(pm.getOnMove());
 		Board bd = pm.getTheBoard();
 		int pawnEvaluationScore = 0;
@@ -86,10 +128,12 @@ public class PositionEvaluator implements IEvaluate, IForEachPieceCallback {
 	
 	Colour onMoveWas;
 	int passedPawnBoost = 0;
+	long passedPawns = 0;
 	
 	@Override
 	public void callback(int piece, int atPos) {
 		if (pm.getTheBoard().isPassedPawn(atPos, onMoveWas)) {
+			passedPawns |= 1L << atPos;
 			if (Position.getFile(atPos) == IntFile.Fa || Position.getFile(atPos) == IntFile.Fh) {
 				passedPawnBoost += ROOK_FILE_PASSED_PAWN_BOOST;
 			} else {
@@ -111,6 +155,20 @@ public class PositionEvaluator implements IEvaluate, IForEachPieceCallback {
 		return pawnHandicap + passedPawnBoost;
 	}
 	
+	public PawnEvalHashTable getPawnHashTable() {
+		if (pawnHash == null) {
+			pawnHash = caches.getPawnHashTable();
+		}
+		return pawnHash;
+	}
+	
+	public EvalHashTable getEvalHashTable() {
+		if (evalHash == null) {
+			evalHash = caches.getEvalHashTable();
+		}
+		return evalHash;
+	}
+	
 	public SearchContext getSearchContext() {
 		return this.sc;
 	}
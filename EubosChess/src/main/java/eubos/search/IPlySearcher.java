@@ -0,0 +1,14 @@
+package eubos.search;
+
+import eubos.board.InvalidPieceException;
+
+/* The core of the search, run by MiniMaxMoveGenerator for each depth of iterative deepening. */
+public interface IPlySearcher {
+	int searchPly() throws InvalidPieceException;
+	/* Searches the root position with a white relative window. A score outside the window is a bound; an upper
+	 * bound when the search failed low for white, a lower bound when it failed high. */
+	int searchPly(int alpha, int beta) throws InvalidPieceException;
+	boolean isTerminated();
+	void terminateFindMove();
+	void alternativeMoveListOrdering(int orderingScheme);
+}
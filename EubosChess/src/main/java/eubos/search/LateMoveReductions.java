@@ -0,0 +1,46 @@
+package eubos.search;
+
+/* The parameters of the late move reductions done by the PlySearcher, with the table of reductions they give. */
+public class LateMoveReductions {
+
+	// Quiet moves searched after this many moves at a node are reduced, by the ply in the reduction table
+	public static final int DEFAULT_MIN_MOVES = 3;
+	public static final int DEFAULT_MIN_DEPTH = 3;
+	// The reduction grows with the log of both the depth remaining and the number of moves searched
+	public static final double DEFAULT_BASE = 0.75;
+	public static final double DEFAULT_DIVISOR = 2.25;
+
+	public static final LateMoveReductions DEFAULT = new LateMoveReductions(DEFAULT_MIN_MOVES, DEFAULT_MIN_DEPTH, DEFAULT_BASE, DEFAULT_DIVISOR);
+
+	static final int TABLE_SIZE = 64;
+
+	private final int minMoves;
+	private final int minDepth;
+	final byte[][] reductionPly = new byte[TABLE_SIZE][TABLE_SIZE];
+
+	public LateMoveReductions(int minMoves, int minDepth, double base, double divisor) {
+		this.minMoves = minMoves;
+		this.minDepth = minDepth;
+		for (int depth=1; depth < TABLE_SIZE; depth++) {
+			for (int moveNum=1; moveNum < TABLE_SIZE; moveNum++) {
+				double reduction = base + Math.log(depth) * Math.log(moveNum) / divisor;
+				// Always leave at least one ply of normal search for the reduced move
+				reductionPly[depth][moveNum] = (byte)Math.max(0, Math.min((int)reduction, depth-2));
+			}
+		}
+	}
+
+	public int getMinMoves() {
+		return minMoves;
+	}
+
+	public int getMinDepth() {
+		return minDepth;
+	}
+
+	public byte getReduction(int depthRemaining, int movesSearched) {
+		if (movesSearched <= minMoves || depthRemaining < minDepth)
+			return 0;
+		return reductionPly[Math.min(depthRemaining, TABLE_SIZE-1)][Math.min(movesSearched, TABLE_SIZE-1)];
+	}
+}
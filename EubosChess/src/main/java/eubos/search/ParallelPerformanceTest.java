@@ -0,0 +1,117 @@
+package eubos.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import eubos.board.InvalidPieceException;
+import eubos.position.MoveList;
+import eubos.position.Position;
+import eubos.position.PositionManager;
+
+/* Counts the perft nodes of a position on several threads. The moves down to the split depth are each given
+ * a task, which builds its own PositionManager from the FEN, replays the moves from the root and then counts
+ * the rest of its subtree with a serial PerformanceTest. */
+public class ParallelPerformanceTest {
+
+	private static final int DEFAULT_SPLIT_DEPTH = 1;
+
+	private final String fen;
+	private final int requestedDepthPly;
+	private final int splitDepthPly;
+	private final int numThreads;
+	private boolean bulkCounting = false;
+
+	private long nodeCount = 0;
+	private long elapsedMillis = 0;
+
+	public ParallelPerformanceTest(String fen, int depth) {
+		this(fen, depth, DEFAULT_SPLIT_DEPTH, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelPerformanceTest(String fen, int depth, int splitDepth, int numThreads) {
+		this.fen = fen;
+		this.requestedDepthPly = depth;
+		this.splitDepthPly = splitDepth;
+		this.numThreads = numThreads;
+	}
+
+	public void setBulkCounting(boolean bulkCounting) {
+		this.bulkCounting = bulkCounting;
+	}
+
+	/* Throws IllegalStateException, wrapping the cause, if any task fails. */
+	public long perft() {
+		long start = System.currentTimeMillis();
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			nodeCount = pool.invoke(new PerftTask(new int[0]));
+		} finally {
+			pool.shutdown();
+		}
+		elapsedMillis = System.currentTimeMillis() - start;
+		return nodeCount;
+	}
+
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public long getNodesPerSecond() {
+		return (elapsedMillis == 0) ? 0 : (nodeCount*1000)/elapsedMillis;
+	}
+
+	public String report() {
+		return String.format("perft depth=%d threads=%d nodes=%d time=%dms nps=%d",
+				requestedDepthPly, numThreads, nodeCount, elapsedMillis, getNodesPerSecond());
+	}
+
+	private class PerftTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+		private final int[] movesFromRoot;
+
+		PerftTask(int[] movesFromRoot) {
+			this.movesFromRoot = movesFromRoot;
+		}
+
+		@Override
+		protected Long compute() {
+			PositionManager pm = new PositionManager(fen, new DrawChecker(), null);
+			long count = 0;
+			try {
+				for (int move : movesFromRoot) {
+					pm.performMove(move, false);
+				}
+				int remainingDepth = requestedDepthPly - movesFromRoot.length;
+				if (movesFromRoot.length >= splitDepthPly || remainingDepth <= 1) {
+					PerformanceTest serial = new PerformanceTest(pm, remainingDepth);
+					serial.setBulkCounting(bulkCounting);
+					return serial.perft();
+				}
+				List<PerftTask> subtasks = new ArrayList<PerftTask>();
+				MoveList ml = new MoveList();
+				ml.initialise(pm, 1);
+				MoveList.MoveListIterator iter = ml.getStandardIterator(false, Position.NOPOSITION);
+				while (iter.hasNext()) {
+					int[] movesToChild = Arrays.copyOf(movesFromRoot, movesFromRoot.length+1);
+					movesToChild[movesFromRoot.length] = iter.nextInt();
+					subtasks.add(new PerftTask(movesToChild));
+				}
+				for (PerftTask task : invokeAll(subtasks)) {
+					count += task.join();
+				}
+			} catch (InvalidPieceException e) {
+				// Fail the whole perft, rather than return a partial count for this subtree
+				throw new IllegalStateException(String.format("Perft of %s failed", fen), e);
+			}
+			return count;
+		}
+	}
+}
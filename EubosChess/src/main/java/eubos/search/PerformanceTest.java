@@ -1,6 +1,7 @@
 package eubos.search;
 
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import eubos.board.InvalidPieceException;
 import eubos.position.PositionManager;
@@ -13,35 +14,94 @@ public class PerformanceTest {
 	    private long nodeCount = 0;
 	    private int currPly = 0;
 	    private int requestedDepthPly = 0;
+	    private MoveList[] moveListStack;
+	    // At the last ply, count the legal moves instead of making each of them
+	    private boolean bulkCounting = false;
+	    private PerftHashTable hashTable = null;
 
 		public PerformanceTest(PositionManager pm, int depth) {
 	        this.pm = pm;
-	        requestedDepthPly = depth;
+	        setRequestedDepthPly(depth);
 	    }
 		
 	    public void setRequestedDepthPly(int requestedDepthPly) {
 			this.requestedDepthPly = requestedDepthPly;
+			moveListStack = new MoveList[requestedDepthPly];
+			for (int i=0; i < requestedDepthPly; i++) {
+				moveListStack[i] = new MoveList();
+			}
 		}
 	    
+	    public void setBulkCounting(boolean bulkCounting) {
+	    	this.bulkCounting = bulkCounting;
+	    }
+	    
+	    /* Subtree counts are then stored by hash code, so the Zobrist hash is updated as each move is made. */
+	    public void setHashTable(PerftHashTable hashTable) {
+	    	this.hashTable = hashTable;
+	    }
+	    
 	    public long perft() throws InvalidPieceException {
-	        if (currPly < requestedDepthPly) {        
-	            MoveList ml = new MoveList(pm);
-	            Iterator<Integer> iter = ml.getStandardIterator(false, Position.NOPOSITION);
-	            while (iter.hasNext()) {
-	            	int move = iter.next();
-	                try {
-						pm.performMove(move, false);
-		                currPly+=1;
-		                perft();
-		                currPly-=1;
-		                pm.unperformMove(false);
-					} catch (InvalidPieceException e) {
-						e.printStackTrace();
-					}
-	            }
-	        } else {
-	        	nodeCount += 1;
-	        }
-	        return nodeCount;
+	    	nodeCount += countNodes();
+	    	return nodeCount;
+	    }
+	    
+	    /* Returns the node count below each root move, in the order the moves were generated. */
+	    public Map<Integer, Long> divide() throws InvalidPieceException {
+	    	Map<Integer, Long> countPerMove = new LinkedHashMap<Integer, Long>();
+	    	if (requestedDepthPly == 0) {
+	    		return countPerMove;
+	    	}
+	    	boolean computeHash = (hashTable != null);
+	    	MoveList ml = moveListStack[0];
+	    	ml.initialise(pm, 1);
+	    	MoveList.MoveListIterator iter = ml.getStandardIterator(false, Position.NOPOSITION);
+	    	while (iter.hasNext()) {
+	    		int move = iter.nextInt();
+	    		pm.performMove(move, computeHash);
+	    		currPly+=1;
+	    		long count = countNodes();
+	    		currPly-=1;
+	    		pm.unperformMove(computeHash);
+	    		countPerMove.put(move, count);
+	    		nodeCount += count;
+	    	}
+	    	return countPerMove;
+	    }
+	    
+	    private long countNodes() throws InvalidPieceException {
+	    	int remainingDepth = requestedDepthPly - currPly;
+	    	if (remainingDepth == 0) {
+	    		return 1;
+	    	}
+	    	long hashCode = 0L;
+	    	if (hashTable != null) {
+	    		hashCode = pm.getHash();
+	    		long count = hashTable.probe(hashCode, remainingDepth);
+	    		if (count != PerftHashTable.NOT_FOUND) {
+	    			return count;
+	    		}
+	    	}
+	    	long count = 0;
+	    	MoveList ml = moveListStack[currPly];
+	    	ml.initialise(pm, 1);
+	    	if (bulkCounting && remainingDepth == 1) {
+	    		count = ml.size();
+	    	} else {
+	    		boolean computeHash = (hashTable != null);
+	    		MoveList.MoveListIterator iter = ml.getStandardIterator(false, Position.NOPOSITION);
+	    		while (iter.hasNext()) {
+	    			int move = iter.nextInt();
+	    			pm.performMove(move, computeHash);
+	    			currPly+=1;
+	    			count += countNodes();
+	    			currPly-=1;
+	    			pm.unperformMove(computeHash);
+	    		}
+	    	}
+	    	if (hashTable != null) {
+	    		hashTable.put(hashCode, remainingDepth, count);
+	    	}
+	    	return count;
 	    }
 	}
@@ -0,0 +1,53 @@
+package eubos.search;
+
+/* Caches perft subtree node counts, keyed by the Zobrist hash code and the remaining depth, so that a subtree
+ * reached by transposition is only counted once. Always replaces on a collision. Not thread safe. */
+public class PerftHashTable {
+
+	public static final int MBYTES_DEFAULT_SIZE = 16;
+	private static final int BYTES_PER_MEGABYTE = (1024 * 1024);
+	// Each entry is a hash code and a count
+	private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+
+	public static final long NOT_FOUND = -1L;
+
+	// The remaining depth is kept in the lower bits of the count
+	private static final int DEPTH_BITS = 8;
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS)-1;
+
+	private final long [] hashCodes;
+	private final long [] counts;
+	private final int indexMask;
+
+	public PerftHashTable() {
+		this(MBYTES_DEFAULT_SIZE);
+	}
+
+	public PerftHashTable(int sizeMBytes) {
+		// Round down to a power of two, so the table can be indexed by masking the hash code
+		int size = Integer.highestOneBit(Math.max(sizeMBytes, 1) * (BYTES_PER_MEGABYTE / BYTES_PER_ENTRY));
+		hashCodes = new long[size];
+		counts = new long[size];
+		indexMask = size-1;
+	}
+
+	/* Returns the node count stored for the position at this depth, or NOT_FOUND. */
+	public long probe(long hashCode, int depth) {
+		int index = (int)(hashCode & indexMask);
+		long entry = counts[index];
+		if (hashCodes[index] == hashCode && (entry & DEPTH_MASK) == depth) {
+			return entry >>> DEPTH_BITS;
+		}
+		return NOT_FOUND;
+	}
+
+	public void put(long hashCode, int depth, long count) {
+		int index = (int)(hashCode & indexMask);
+		hashCodes[index] = hashCode;
+		counts[index] = (count << DEPTH_BITS) | (depth & DEPTH_MASK);
+	}
+
+	public int getSize() {
+		return counts.length;
+	}
+}
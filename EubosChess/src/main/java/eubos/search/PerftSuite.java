@@ -0,0 +1,97 @@
+package eubos.search;
+
+import java.io.PrintStream;
+
+import eubos.board.InvalidPieceException;
+import eubos.position.PositionManager;
+
+/* The well known perft positions, with their node counts at a depth chosen to take around a second each. Running
+ * the suite checks the move generator, including en passant, castling and promotion edge cases, and reports its
+ * speed in nodes per second for each position. */
+public class PerftSuite {
+
+	public static class Entry {
+		public final String name;
+		public final String fen;
+		public final int depth;
+		public final long expectedCount;
+
+		public Entry(String name, String fen, int depth, long expectedCount) {
+			this.name = name;
+			this.fen = fen;
+			this.depth = depth;
+			this.expectedCount = expectedCount;
+		}
+	}
+
+	public static final Entry[] ENTRIES = {
+		new Entry("original", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 5, 4865609L),
+		new Entry("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4085603L),
+		new Entry("position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 6, 11030083L),
+		new Entry("position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422333L),
+		new Entry("position4 mirrored", "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1", 4, 422333L),
+		new Entry("position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4, 2103487L),
+		new Entry("position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4, 3894594L),
+		new Entry("illegal en passant 1", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1134888L),
+		new Entry("illegal en passant 2", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1015133L),
+		new Entry("en passant gives check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6, 1440467L),
+		new Entry("short castle gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6, 661072L),
+		new Entry("long castle gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6, 803711L),
+		new Entry("castling rights", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1274206L),
+		new Entry("castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4, 1720476L),
+		new Entry("promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3821001L),
+		new Entry("discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1004658L),
+		new Entry("promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217342L),
+		new Entry("under promote to give check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92683L),
+		new Entry("self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2217L),
+		new Entry("stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567584L),
+		new Entry("double check", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23527L),
+	};
+
+	private boolean bulkCounting = true;
+	private int hashSizeMBytes = 0;
+
+	public void setBulkCounting(boolean bulkCounting) {
+		this.bulkCounting = bulkCounting;
+	}
+
+	/* A size of zero runs the suite without a hash table. */
+	public void setHashSizeMBytes(int hashSizeMBytes) {
+		this.hashSizeMBytes = hashSizeMBytes;
+	}
+
+	public long run(Entry entry) throws InvalidPieceException {
+		PerformanceTest perft = new PerformanceTest(new PositionManager(entry.fen, new DrawChecker(), null), entry.depth);
+		perft.setBulkCounting(bulkCounting);
+		if (hashSizeMBytes > 0) {
+			perft.setHashTable(new PerftHashTable(hashSizeMBytes));
+		}
+		return perft.perft();
+	}
+
+	/* Runs every entry, printing a line per position, and returns true if all the node counts were correct. */
+	public boolean run(PrintStream out) throws InvalidPieceException {
+		boolean allPassed = true;
+		long totalNodes = 0;
+		long totalMillis = 0;
+		for (Entry entry : ENTRIES) {
+			long start = System.currentTimeMillis();
+			long count = run(entry);
+			long elapsedMillis = System.currentTimeMillis() - start;
+			boolean passed = (count == entry.expectedCount);
+			allPassed &= passed;
+			totalNodes += count;
+			totalMillis += elapsedMillis;
+			out.println(String.format("%-28s depth=%d nodes=%d expected=%d time=%dms nps=%d %s",
+					entry.name, entry.depth, count, entry.expectedCount, elapsedMillis,
+					getNodesPerSecond(count, elapsedMillis), passed ? "ok" : "FAILED"));
+		}
+		out.println(String.format("total nodes=%d time=%dms nps=%d %s",
+				totalNodes, totalMillis, getNodesPerSecond(totalNodes, totalMillis), allPassed ? "ok" : "FAILED"));
+		return allPassed;
+	}
+
+	private static long getNodesPerSecond(long nodes, long elapsedMillis) {
+		return (elapsedMillis == 0) ? 0 : (nodes*1000)/elapsedMillis;
+	}
+}
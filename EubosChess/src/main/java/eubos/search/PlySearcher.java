@@ -1,9 +1,10 @@
 package eubos.search;
 
-import java.util.Iterator;
 import java.util.List;
 
+import eubos.board.Board;
 import eubos.board.InvalidPieceException;
+import eubos.board.Piece.Colour;
 import eubos.main.EubosEngineMain;
 import eubos.position.IChangePosition;
 import eubos.position.IPositionAccessors;
@@ -19,7 +20,14 @@ import eubos.search.transposition.ITranspositionAccessor;
 import eubos.search.transposition.ITransposition;
 import eubos.search.transposition.TranspositionEvaluation;
 
-public class PlySearcher {
+public class PlySearcher implements IPlySearcher {
+	
+	public static final boolean ENABLE_NULL_MOVE_PRUNING = true;
+	// The null move search is reduced by R ply, and by one more ply when the remaining depth is above the threshold
+	public static final byte NULL_MOVE_REDUCTION_PLY = 2;
+	public static final byte NULL_MOVE_ADAPTIVE_DEPTH_THRESHOLD = 6;
+	
+	public static final boolean ENABLE_LATE_MOVE_REDUCTIONS = true;
 
 	private IChangePosition pm;
 	IPositionAccessors pos;
@@ -38,6 +46,8 @@ public class PlySearcher {
 	private ITranspositionAccessor tt;
 	private SearchMetricsReporter sr;
 	private KillerList killers;
+	// One move list per ply, reused for every node searched at that ply
+	private MoveList[] moveListStack;
 	
 	byte currPly = 0;
 	byte currDepthSearchedInPly = 0;
@@ -45,6 +55,12 @@ public class PlySearcher {
 	private byte extendedSearchDeepestPly = 0;
 	private byte extendedSearchLimitInPly = 0;
 	private int moveListOrdering = 1;
+	byte lastNullMovePly = -1;
+	private boolean useNullMovePruning = ENABLE_NULL_MOVE_PRUNING;
+	private int nullMoveCutOffs = 0;
+	private byte lastMoveReduction = 0;
+	private LateMoveReductions lateMoveReductions = ENABLE_LATE_MOVE_REDUCTIONS ? LateMoveReductions.DEFAULT : null;
+	private int lateMoveReSearches = 0;
 	
 	public PlySearcher(
 			ITranspositionAccessor hashMap,
@@ -73,6 +89,10 @@ public class PlySearcher {
 		dynamicSearchLevelInPly = searchDepthPly;
 		originalSearchDepthRequiredInPly = searchDepthPly;
 		extendedSearchLimitInPly = setExtSearchDepth();
+		moveListStack = new MoveList[originalSearchDepthRequiredInPly+MiniMaxMoveGenerator.EXTENDED_SEARCH_PLY_LIMIT+1];
+		for (int i=0; i < moveListStack.length; i++) {
+			moveListStack[i] = new MoveList();
+		}
 		
 		this.st = st;
 		tt = hashMap;
@@ -92,7 +112,20 @@ public class PlySearcher {
 		EubosEngineMain.logger.info("Terminating PlySearcher");
 		terminate = true;
 	}
-	private synchronized boolean isTerminated() { return terminate; }	
+	public synchronized boolean isTerminated() { return terminate; }	
+	
+	public int searchPly(int alpha, int beta) throws InvalidPieceException {
+		st.setRootWindow((short)alpha, (short)beta);
+		int theScore = searchPly();
+		st.setRootWindow(Short.MIN_VALUE, Short.MAX_VALUE);
+		short justScore = Score.getScore(theScore);
+		if (justScore <= alpha && alpha != Short.MIN_VALUE) {
+			theScore = Score.valueOf(justScore, Score.upperBound);
+		} else if (justScore >= beta && beta != Short.MAX_VALUE) {
+			theScore = Score.valueOf(justScore, Score.lowerBound);
+		}
+		return theScore;
+	}
 	
 	public int searchPly() throws InvalidPieceException {
 		int theScore = 0;
@@ -120,7 +153,11 @@ public class PlySearcher {
 			prevBestMove = eval.trans.getBestMove();
 			// intentional drop through
 		case insufficientNoData:
-			theScore = searchMoves( prevBestMove, eval.trans);
+			if (isNullMoveCutOff()) {
+				theScore = Score.valueOf(st.getBackedUpScoreAtPly((byte)(currPly-1)), pos.onMoveIsWhite() ? Score.lowerBound : Score.upperBound);
+			} else {
+				theScore = searchMoves( prevBestMove, eval.trans);
+			}
 			break;	
 		default:
 			break;
@@ -135,11 +172,10 @@ public class PlySearcher {
 		int trans_move;
 		byte trans_bound;
 		short trans_score;
-		synchronized (trans) {
-			trans_move = trans.getBestMove();
-			trans_bound = trans.getType();
-			trans_score = trans.getScore();
-		}
+		// Transpositions are a per-ply view of the table entry, so aren't shared with other threads
+		trans_move = trans.getBestMove();
+		trans_bound = trans.getType();
+		trans_score = trans.getScore();
 		// Check score for hashed position causing a search cut-off is still valid (i.e. best move doesn't lead to a draw)
 		// If hashed score is a draw score, check it is still a draw, if not, search position
 		boolean isThreefold = checkForRepetitionDueToPositionInSearchTree(trans_move);
@@ -149,11 +185,7 @@ public class PlySearcher {
 			theScore = searchMoves( trans_move, trans);
 		} else {
 			short adjustedScoreForThisPositionInTree = st.adjustHashTableMateInXScore(currPly, trans_score);
-			if (ITranspositionAccessor.USE_PRINCIPAL_VARIATION_TRANSPOSITIONS) {
-				pc.update(currPly, trans.getPv());
-			} else {
-				pc.set(currPly, trans_move);
-			}
+			pc.set(currPly, trans_move);
 			theScore = Score.valueOf(adjustedScoreForThisPositionInTree, trans_bound);
 		}
 		if (EubosEngineMain.UCI_INFO_ENABLED)
@@ -176,6 +208,66 @@ public class PlySearcher {
 		return retVal;
 	}
 	
+	private boolean isEitherSideOnlyKingAndPawns() {
+		// Pawn endgames and mates of a bare king depend on tempo and quiet moves, so aren't pruned or reduced
+		Board theBoard = pos.getTheBoard();
+		return theBoard.hasOnlyKingAndPawns(Colour.white) || theBoard.hasOnlyKingAndPawns(Colour.black);
+	}
+	
+	boolean isNullMoveAllowed() {
+		if (!useNullMovePruning || atRootNode() || lastNullMovePly == currPly-1 || !isInNormalSearch())
+			return false;
+		// Don't pass in pawn endgames, where the side on move is likely to be in zugzwang
+		if (isEitherSideOnlyKingAndPawns())
+			return false;
+		// The opponent's score has to be established for the null move to be able to refute their last move
+		short beta = st.getBackedUpScoreAtPly((byte)(currPly-1));
+		if (beta == Short.MIN_VALUE || beta == Short.MAX_VALUE || Score.isMate(beta))
+			return false;
+		int depthRemaining = originalSearchDepthRequiredInPly - currPly;
+		return depthRemaining >= NULL_MOVE_REDUCTION_PLY+2 && !pos.isKingInCheck();
+	}
+	
+	private boolean isNullMoveCutOff() throws InvalidPieceException {
+		if (!isNullMoveAllowed())
+			return false;
+		
+		int depthRemaining = originalSearchDepthRequiredInPly - currPly;
+		byte reduction = (byte)(NULL_MOVE_REDUCTION_PLY + ((depthRemaining > NULL_MOVE_ADAPTIVE_DEPTH_THRESHOLD) ? 1 : 0));
+		
+		// Search the null move with a minimal window at the opponent's best score
+		short beta = st.getBackedUpScoreAtPly((byte)(currPly-1));
+		short alpha = st.getBackedUpScoreAtPly(currPly);
+		st.setBackedUpScoreAtPly(currPly, (short)(pos.onMoveIsWhite() ? beta-1 : beta+1));
+		
+		byte prevNullMovePly = lastNullMovePly;
+		lastNullMovePly = currPly;
+		originalSearchDepthRequiredInPly -= reduction;
+		dynamicSearchLevelInPly -= reduction;
+		pm.performNullMove();
+		currPly++;
+		sda.nextPly();
+		int nullScore = searchPly();
+		pm.unperformNullMove();
+		currPly--;
+		sda.prevPly();
+		originalSearchDepthRequiredInPly += reduction;
+		dynamicSearchLevelInPly += reduction;
+		lastNullMovePly = prevNullMovePly;
+		
+		st.setBackedUpScoreAtPly(currPly, alpha);
+		pc.clearContinuationBeyondPly(currPly);
+		if (EubosEngineMain.UCI_INFO_ENABLED)
+			sm.incrementNodesSearched();
+		
+		short justNullScore = Score.getScore(nullScore);
+		boolean isCutOff = !isTerminated() && !Score.isMate(justNullScore) && st.isAlphaBetaCutOff(currPly, justNullScore);
+		if (isCutOff) {
+			nullMoveCutOffs++;
+		}
+		return isCutOff;
+	}
+	
 	private byte initialiseSearchAtPly() {
 		byte transDepthRequiredForTerminalNode = 0;
 		if (currPly >= originalSearchDepthRequiredInPly) {
@@ -199,12 +291,26 @@ public class PlySearcher {
 		int theScore;	
 		int[] killer_moves = killers.getMoves(currPly);
 		int targetSq = isInExtendedSearch() ? pos.lastMoveTargetSquare() : Position.NOPOSITION;
-		MoveList ml = new MoveList((PositionManager) pm, prevBestMove, killer_moves[0], killer_moves[1], moveListOrdering, targetSq);
+		MoveList ml = moveListStack[currPly];
+		if (MoveList.ENABLE_STAGED_MOVE_GENERATION) {
+			ml.initialiseStaged((PositionManager) pm, prevBestMove, killer_moves[0], killer_moves[1], moveListOrdering, targetSq);
+		} else {
+			ml.initialise((PositionManager) pm, prevBestMove, killer_moves[0], killer_moves[1], moveListOrdering, targetSq);
+		}
 		
         if (ml.isMateOccurred()) {
         	if (isInExtendedSearch()) {
-        		ml = new MoveList((PositionManager) pm, 0); // don't bother to sort
-        		if (!ml.isMateOccurred()) {
+        		// Only captures and promotions were generated, so check whether there are any other legal moves
+        		boolean isMate = false;
+        		if (!ml.hasLegalPieceMove()) {
+	        		if (MoveList.ENABLE_STAGED_MOVE_GENERATION) {
+	        			ml.initialiseStaged((PositionManager) pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 0, Position.NOPOSITION);
+	        		} else {
+	        			ml.initialise((PositionManager) pm, 0); // don't bother to sort
+	        		}
+	        		isMate = ml.isMateOccurred();
+        		}
+        		if (!isMate) {
 	        		// It isn't actually a mate, stand PAT
 	        		Byte plyBound = pos.onMoveIsWhite() ? Score.lowerBound : Score.upperBound;
 	    			theScore = Score.setType(pe.evaluatePosition(), plyBound);
@@ -220,47 +326,67 @@ public class PlySearcher {
                 setDepthSearchedInPly();
                 // Only update the transposition table in normal search, it isn't useful for extended search
                 short mateScoreForTable = (short)((Score.getScore(theScore) < 0) ? Short.MIN_VALUE + 1 : Short.MAX_VALUE - 1);
-    			trans = tt.setTransposition(trans, currDepthSearchedInPly, mateScoreForTable, Score.exact, Move.NULL_MOVE);
+    			trans = tt.setTransposition(currPly, trans, currDepthSearchedInPly, mateScoreForTable, Score.exact, Move.NULL_MOVE);
         	}
         	
             st.setBackedUpScoreAtPly(currPly, theScore);
 
         } else {
-    		Iterator<Integer> move_iter = ml.getStandardIterator(isInExtendedSearch(), pos.lastMoveTargetSquare());
+    		MoveList.MoveListIterator move_iter = ml.getStandardIterator(isInExtendedSearch(), pos.lastMoveTargetSquare());
    			theScore = actuallySearchMoves(ml, move_iter, trans);
         }
         return theScore;
     }
 
-	private int actuallySearchMoves(MoveList ml, Iterator<Integer> move_iter, ITransposition trans) throws InvalidPieceException {
+	private int actuallySearchMoves(MoveList ml, MoveList.MoveListIterator move_iter, ITransposition trans) throws InvalidPieceException {
 		boolean backedUpScoreWasExact = false;
 		boolean refutationFound = false;
+		boolean scoreBackedUp = false;
+		int bestMoveBeyondBound = Move.NULL_MOVE;
 
 		byte plyBound = pos.onMoveIsWhite() ? Score.lowerBound : Score.upperBound;
 		short plyScore = (plyBound == Score.lowerBound) ? Short.MIN_VALUE : Short.MAX_VALUE;
 		plyScore = establishStandPatInExtendedSearch(ml, plyBound, plyScore);
 		
-		if (!move_iter.hasNext()) {
+		if (!move_iter.hasNextMove()) {
 			sda.printExtSearchNoMoves(plyScore);
 			return plyScore;
 		}
 		
-		int currMove = move_iter.next();
+		int currMove = move_iter.nextInt();
 		pc.initialise(currPly, currMove);
+		
+		int movesSearched = 0;
+		boolean reductionsAllowed = lateMoveReductions != null && !atRootNode() && isInNormalSearch() && 
+				(originalSearchDepthRequiredInPly - currPly) >= lateMoveReductions.getMinDepth() && !pos.isKingInCheck() &&
+				!isEitherSideOnlyKingAndPawns();
 
 		while(!isTerminated()) {
 			if (EubosEngineMain.UCI_INFO_ENABLED)
 				pc.clearContinuationBeyondPly(currPly);
 			
-			int positionScore = applyMoveAndScore(currMove);
+			movesSearched++;
+			int positionScore = applyMoveAndScore(currMove, reductionsAllowed ? movesSearched : 0);
 			short justPositionScore = Score.getScore(positionScore);
 			
+			if (lastMoveReduction != 0 && !isTerminated() && 
+				(st.isAlphaBetaCutOff(currPly, justPositionScore) || st.isBackUpRequired(currPly, justPositionScore, plyBound))) {
+				// The reduced search beat the bound, so it has to be confirmed by a search to full depth
+				lateMoveReSearches++;
+				positionScore = applyMoveAndScore(currMove, 0);
+				justPositionScore = Score.getScore(positionScore);
+			}
+			
 			if (!isTerminated()) {
 				// Rationale: this is when a score was received from lower down the tree - at this instant update the depth searched
 				setDepthSearchedInPly();
 				
 				if (st.isAlphaBetaCutOff(currPly, justPositionScore)) {
 					plyScore = justPositionScore;
+					if (atRootNode()) {
+						// Failed high against the aspiration window, this move is the best found so far
+						updatePrincipalContinuation(currMove, justPositionScore);
+					}
 					trans = updateTranspositionTable(trans, currMove, plyScore, plyBound);
 					refutationFound = true;
 					killers.addMove(currPly, currMove);
@@ -274,22 +400,23 @@ public class PlySearcher {
 						backedUpScoreWasExact = true;
 					}
 					plyScore = justPositionScore;
+					scoreBackedUp = true;
 					st.setBackedUpScoreAtPly(currPly, justPositionScore);
 					
 					updatePrincipalContinuation(currMove, justPositionScore);
 					trans = updateTranspositionTable(trans, currMove, plyScore, plyBound);
 
 				} else if (shouldUpdatePositionBoundScoreAndBestMove(plyScore, plyBound, justPositionScore)) {
-					// Update the hash entry if the move is better than that previously stored at this position
+					// Only known to be a bound once all the moves have been searched, so it is stored after the loop
 					plyScore = justPositionScore;
-					trans = updateTranspositionTable(trans, currMove, plyScore, plyBound);
+					bestMoveBeyondBound = currMove;
 				} else {
 					// skip any worse score that isn't a refutation, a back-up or an improvement of plyScore
 				}
 			}
 			
-			if (move_iter.hasNext()) {
-				currMove = move_iter.next();
+			if (move_iter.hasNextMove()) {
+				currMove = move_iter.nextInt();
 			} else {
 				break;
 			}
@@ -301,6 +428,12 @@ public class PlySearcher {
 			}
 		}
 		
+		if (!isTerminated() && !scoreBackedUp && !refutationFound && bestMoveBeyondBound != Move.NULL_MOVE) {
+			// No move beat the bound this node was searched with, so the score is a bound on the other side of it
+			byte failedLowBound = (plyBound == Score.lowerBound) ? Score.upperBound : Score.lowerBound;
+			trans = updateTranspositionTable(trans, bestMoveBeyondBound, plyScore, failedLowBound);
+		}
+		
 		if (!isTerminated() && isInNormalSearch() && backedUpScoreWasExact && !refutationFound && trans != null) {
 			checkToPromoteHashTableToExact(trans, plyScore);
 			plyBound = Score.exact;
@@ -326,11 +459,7 @@ public class PlySearcher {
 	private ITransposition updateTranspositionTable(ITransposition trans, int currMove, short plyScore, byte plyBound) {
 		if (isInNormalSearch()) {
 			short scoreFromDownTree = updateMateScoresForEncodingMateDistanceInHashTable(plyScore);
-			if (ITranspositionAccessor.USE_PRINCIPAL_VARIATION_TRANSPOSITIONS) {
-				trans = tt.setTransposition(trans, currDepthSearchedInPly, scoreFromDownTree, plyBound, currMove, pc.toPvList(currPly));
-			} else {
-				trans = tt.setTransposition(trans, currDepthSearchedInPly, scoreFromDownTree, plyBound, currMove);
-			}
+			trans = tt.setTransposition(currPly, trans, currDepthSearchedInPly, scoreFromDownTree, plyBound, currMove);
 		}
 		return trans;
 	}
@@ -406,15 +535,35 @@ public class PlySearcher {
 		return doUpdate;
 	}
 	
-	private int applyMoveAndScore(int currMove) throws InvalidPieceException {
+	/* Called once the move has been made, so that a move giving check can be recognised. */
+	byte getLateMoveReduction(int currMove, int movesSearched) {
+		// Only quiet moves are reduced; not the hash move, captures, promotions, killers or checks
+		if (Move.getType(currMove) != Move.TYPE_REGULAR_NONE)
+			return 0;
+		byte reduction = lateMoveReductions.getReduction(originalSearchDepthRequiredInPly - currPly, movesSearched);
+		if (reduction != 0 && pos.isKingInCheck()) {
+			reduction = 0;
+		}
+		return reduction;
+	}
+	
+	/* The move is searched with a late move reduction when the number of moves searched at this node is given. */
+	private int applyMoveAndScore(int currMove, int movesSearched) throws InvalidPieceException {
 		sda.printPerformMove(currMove);
 		pm.performMove(currMove);
+		byte reduction = (movesSearched != 0) ? getLateMoveReduction(currMove, movesSearched) : 0;
+		originalSearchDepthRequiredInPly -= reduction;
+		dynamicSearchLevelInPly -= reduction;
 		currPly++;
 		sda.nextPly();
 		int positionScore = assessNewPosition(currMove);
 		pm.unperformMove();
 		currPly--;
 		sda.prevPly();
+		originalSearchDepthRequiredInPly += reduction;
+		dynamicSearchLevelInPly += reduction;
+		// Set after the search of the move, which overwrites it for the plies below
+		lastMoveReduction = reduction;
 		sda.printUndoMove(currMove);
 		
 		if (EubosEngineMain.UCI_INFO_ENABLED)
@@ -472,4 +621,21 @@ public class PlySearcher {
 	public void alternativeMoveListOrdering(int orderingScheme) {
 		moveListOrdering  = orderingScheme;		
 	}
+	
+	public void useNullMovePruning(boolean enable) {
+		useNullMovePruning = enable;
+	}
+	
+	public int getNullMoveCutOffs() {
+		return nullMoveCutOffs;
+	}
+	
+	/* Null disables late move reductions. */
+	public void useLateMoveReductions(LateMoveReductions reductions) {
+		lateMoveReductions = reductions;
+	}
+	
+	public int getLateMoveReSearches() {
+		return lateMoveReSearches;
+	}
 }
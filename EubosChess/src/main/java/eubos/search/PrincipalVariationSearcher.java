@@ -0,0 +1,388 @@
+package eubos.search;
+
+import java.util.List;
+
+import eubos.board.InvalidPieceException;
+import eubos.main.EubosEngineMain;
+import eubos.position.IChangePosition;
+import eubos.position.IPositionAccessors;
+import eubos.position.Move;
+import eubos.position.MoveList;
+import eubos.position.Position;
+import eubos.position.PositionManager;
+import eubos.score.IEvaluate;
+import eubos.score.IScoreMate;
+import eubos.score.MateScoreGenerator;
+import eubos.search.generators.MiniMaxMoveGenerator;
+import eubos.search.transposition.FixedSizeTranspositionTable;
+import eubos.search.transposition.ITranspositionAccessor;
+import eubos.search.transposition.TranspositionTableAccessor;
+
+/* A negamax principal variation search, passing explicit (alpha, beta) windows down the tree. The first move at
+ * each node is searched with the full window and the rest with a zero window, which are re-searched with the full
+ * window if they turn out to be inside it. Scores are relative to the side on move within the search, and are
+ * converted to Eubos' white relative scores at the root and for the transposition table. The extended search is
+ * the same as that of PlySearcher, so the node counts of the two searchers can be compared at the same depth. */
+public class PrincipalVariationSearcher implements IPlySearcher {
+
+	private static final int INFINITY = Short.MAX_VALUE + 1;
+	// Never written to, so can be shared by every list generated without killer moves
+	private static final int[] NO_KILLER_MOVES = {Move.NULL_MOVE, Move.NULL_MOVE};
+
+	private IChangePosition pm;
+	private IPositionAccessors pos;
+
+	private IEvaluate pe;
+	private IScoreMate sg;
+	private PrincipalContinuation pc;
+	private SearchMetrics sm;
+	private SearchMetricsReporter sr;
+	private SearchDebugAgent sda;
+	private FixedSizeTranspositionTable hashMap;
+	private ITranspositionAccessor tt;
+	private KillerList killers;
+	// One move list per ply, reused for every node searched at that ply
+	private MoveList[] moveListStack;
+
+	private boolean terminate = false;
+
+	private List<Integer> lastPc;
+	private byte currPly = 0;
+	private byte originalSearchDepthRequiredInPly = 0;
+	private byte extendedSearchDeepestPly = 0;
+	private byte extendedSearchLimitInPly = 0;
+	private int moveListOrdering = 1;
+
+	public PrincipalVariationSearcher(
+			FixedSizeTranspositionTable hashMap,
+			PrincipalContinuation pc,
+			SearchMetrics sm,
+			SearchMetricsReporter sr,
+			byte searchDepthPly,
+			IChangePosition pm,
+			IPositionAccessors pos,
+			List<Integer> lastPc,
+			IEvaluate pe,
+			KillerList killers,
+			SearchDebugAgent sda) {
+		this.pc = pc;
+		this.sm = sm;
+		this.sr = sr;
+		this.pm = pm;
+		this.pos = pos;
+		this.lastPc = lastPc;
+		this.pe = pe;
+		this.killers = killers;
+		this.sda = sda;
+		this.hashMap = hashMap;
+		// Only used to update the table, the scores are checked against the search window when it is probed
+		tt = new TranspositionTableAccessor(hashMap, pos, null, sda);
+		sg = new MateScoreGenerator(pos, pe);
+		originalSearchDepthRequiredInPly = searchDepthPly;
+		extendedSearchLimitInPly = (byte)(searchDepthPly +
+				Math.min(MiniMaxMoveGenerator.EXTENDED_SEARCH_PLY_LIMIT, searchDepthPly * 4));
+		moveListStack = new MoveList[originalSearchDepthRequiredInPly+MiniMaxMoveGenerator.EXTENDED_SEARCH_PLY_LIMIT+1];
+		for (int i=0; i < moveListStack.length; i++) {
+			moveListStack[i] = new MoveList();
+		}
+	}
+
+	public synchronized void terminateFindMove() {
+		EubosEngineMain.logger.info("Terminating PrincipalVariationSearcher");
+		terminate = true;
+	}
+	public synchronized boolean isTerminated() { return terminate; }
+
+	public void alternativeMoveListOrdering(int orderingScheme) {
+		moveListOrdering = orderingScheme;
+	}
+
+	public int searchPly() throws InvalidPieceException {
+		return searchPly(Short.MIN_VALUE, Short.MAX_VALUE);
+	}
+
+	/* Searches the root position with a white relative window. The returned score is exact if it is inside the
+	 * window, otherwise it is a bound; an upper bound when the search failed low for white, a lower bound when it
+	 * failed high. */
+	public int searchPly(int alpha, int beta) throws InvalidPieceException {
+		int sideAlpha = pos.onMoveIsWhite() ? alpha : -beta;
+		int sideBeta = pos.onMoveIsWhite() ? beta : -alpha;
+		int score = search(sideAlpha, sideBeta, originalSearchDepthRequiredInPly);
+		byte bound = Score.exact;
+		if (score <= sideAlpha) {
+			bound = Score.upperBound;
+		} else if (score >= sideBeta) {
+			bound = Score.lowerBound;
+		}
+		return Score.valueOf(toWhiteRelative(score), convertBound(bound));
+	}
+
+	private int search(int alpha, int beta, int depth) throws InvalidPieceException {
+		int alphaOriginal = alpha;
+		int prevBestMove = ((lastPc != null) && (lastPc.size() > currPly)) ? lastPc.get(currPly) : Move.NULL_MOVE;
+
+		long trans = hashMap.getTranspositionData(pos.getHash());
+		if (trans != 0L) {
+			int transMove = FixedSizeTranspositionTable.getBestMove(trans);
+			short transScore = FixedSizeTranspositionTable.getScore(trans);
+			if (currPly > 0 && FixedSizeTranspositionTable.getDepthSearchedInPly(trans) >= depth && !isDrawDependent(transScore, transMove)) {
+				int hashScore = fromHashTable(transScore);
+				byte hashBound = convertBound(FixedSizeTranspositionTable.getType(trans));
+				if (hashBound == Score.exact ||
+					(hashBound == Score.lowerBound && hashScore >= beta) ||
+					(hashBound == Score.upperBound && hashScore <= alpha)) {
+					if (transMove != Move.NULL_MOVE) {
+						pc.set(currPly, transMove);
+						if (hashBound == Score.lowerBound) {
+							killers.addMove(currPly, transMove);
+						}
+					}
+					if (EubosEngineMain.UCI_INFO_ENABLED)
+						sm.incrementNodesSearched();
+					return hashScore;
+				}
+			}
+			if (transMove != Move.NULL_MOVE) {
+				prevBestMove = transMove;
+			}
+		}
+
+		int[] killer_moves = killers.getMoves(currPly);
+		MoveList ml = moveListStack[currPly];
+		initialiseMoveList(ml, prevBestMove, killer_moves, moveListOrdering, Position.NOPOSITION);
+		if (ml.isMateOccurred()) {
+			// Not hashed, it is cheap to detect and a mate at a distance of zero from the position can't be stored
+			return toSideRelative(sg.scoreMate(currPly));
+		}
+
+		int bestScore = -INFINITY;
+		int bestMove = Move.NULL_MOVE;
+		boolean isFirstMove = true;
+		MoveList.MoveListIterator move_iter = ml.getStandardIterator(false, Position.NOPOSITION);
+		while (move_iter.hasNextMove()) {
+			int currMove = move_iter.nextInt();
+			if (isFirstMove && currPly == 0) {
+				pc.initialise(currPly, currMove);
+			}
+			int score;
+			if (isFirstMove) {
+				score = -searchMove(currMove, -beta, -alpha, depth-1);
+			} else {
+				// Prove the move is no better than the best so far, only search it properly if it is
+				score = -searchMove(currMove, -alpha-1, -alpha, depth-1);
+				if (score > alpha && score < beta && !isTerminated()) {
+					score = -searchMove(currMove, -beta, -alpha, depth-1);
+				}
+			}
+			if (isTerminated()) break;
+
+			isFirstMove = false;
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = currMove;
+				if (score > alpha) {
+					alpha = score;
+					updatePrincipalContinuation(currMove, score);
+					if (alpha >= beta) {
+						killers.addMove(currPly, currMove);
+						sda.printRefutationFound();
+						break;
+					}
+				}
+			}
+		}
+
+		if (EubosEngineMain.ENABLE_YIELD_IN_WORKER_THREADS) {
+			if ((currPly % 2) == 0) {
+				Thread.yield();
+			}
+		}
+
+		if (!isTerminated()) {
+			byte bound = Score.exact;
+			if (bestScore >= beta) {
+				bound = Score.lowerBound;
+			} else if (bestScore <= alphaOriginal) {
+				bound = Score.upperBound;
+			}
+			storeTransposition(depth, bestScore, bound, bestMove);
+		}
+		return bestScore;
+	}
+
+	private int extendedSearch(int alpha, int beta) throws InvalidPieceException {
+		int targetSq = pos.lastMoveTargetSquare();
+		MoveList ml = moveListStack[currPly];
+		initialiseMoveList(ml, Move.NULL_MOVE, killers.getMoves(currPly), moveListOrdering, targetSq);
+		int standPat = evaluatePosition();
+
+		if (ml.isMateOccurred()) {
+			// Only captures and promotions were generated, so check whether there are any other legal moves
+			boolean isMate = false;
+			if (!ml.hasLegalPieceMove()) {
+				initialiseMoveList(ml, Move.NULL_MOVE, NO_KILLER_MOVES, 0, Position.NOPOSITION);
+				isMate = ml.isMateOccurred();
+			}
+			return isMate ? toSideRelative(sg.scoreMate(currPly)) : standPat;
+		}
+
+		// The side on move doesn't have to capture, so the static evaluation is a lower bound
+		int bestScore = standPat;
+		if (bestScore >= beta) {
+			return bestScore;
+		}
+		if (bestScore > alpha) {
+			alpha = bestScore;
+		}
+
+		MoveList.MoveListIterator move_iter = ml.getStandardIterator(true, targetSq);
+		while (move_iter.hasNextMove()) {
+			int currMove = move_iter.nextInt();
+			if (EubosEngineMain.UCI_INFO_ENABLED)
+				pc.clearContinuationBeyondPly(currPly);
+
+			sda.printPerformMove(currMove);
+			pm.performMove(currMove);
+			currPly++;
+			sda.nextPly();
+			int score;
+			if (isDrawnPosition() || pe.isQuiescent(currMove) || isExtendedSearchLimitReached()) {
+				if (currPly > extendedSearchDeepestPly) {
+					extendedSearchDeepestPly = currPly;
+				}
+				score = -evaluatePosition();
+			} else {
+				score = -extendedSearch(-beta, -alpha);
+			}
+			pm.unperformMove();
+			currPly--;
+			sda.prevPly();
+			sda.printUndoMove(currMove);
+			if (EubosEngineMain.UCI_INFO_ENABLED)
+				sm.incrementNodesSearched();
+
+			if (isTerminated()) break;
+
+			if (score > bestScore) {
+				bestScore = score;
+				if (score > alpha) {
+					alpha = score;
+					pc.update(currPly, currMove);
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return bestScore;
+	}
+
+	private int searchMove(int currMove, int alpha, int beta, int depth) throws InvalidPieceException {
+		if (EubosEngineMain.UCI_INFO_ENABLED)
+			pc.clearContinuationBeyondPly(currPly);
+
+		sda.printPerformMove(currMove);
+		pm.performMove(currMove);
+		currPly++;
+		sda.nextPly();
+		int score;
+		if (isDrawnPosition()) {
+			score = evaluatePosition();
+		} else if (depth > 0) {
+			score = search(alpha, beta, depth);
+		} else if (pe.isQuiescent(currMove) || MiniMaxMoveGenerator.EXTENDED_SEARCH_PLY_LIMIT == 0) {
+			score = evaluatePosition();
+		} else {
+			score = extendedSearch(alpha, beta);
+		}
+		pm.unperformMove();
+		currPly--;
+		sda.prevPly();
+		sda.printUndoMove(currMove);
+
+		if (EubosEngineMain.UCI_INFO_ENABLED)
+			sm.incrementNodesSearched();
+		return score;
+	}
+
+	private void initialiseMoveList(MoveList ml, int prevBestMove, int[] killer_moves, int ordering, int targetSq)
+			throws InvalidPieceException {
+		if (MoveList.ENABLE_STAGED_MOVE_GENERATION) {
+			ml.initialiseStaged((PositionManager) pm, prevBestMove, killer_moves[0], killer_moves[1], ordering, targetSq);
+		} else {
+			ml.initialise((PositionManager) pm, prevBestMove, killer_moves[0], killer_moves[1], ordering, targetSq);
+		}
+	}
+
+	private boolean isDrawnPosition() {
+		if (pos.isThreefoldRepetitionPossible()) {
+			sda.printRepeatedPositionSearch(pos.getHash(), pos.getFen());
+			return true;
+		}
+		return pos.getTheBoard().isInsufficientMaterial();
+	}
+
+	/* A hashed draw score, or a hashed best move that now repeats the position, depends on the path to the
+	 * position, so the hashed score can't be trusted to cut off the search. */
+	private boolean isDrawDependent(short hashScore, int move) throws InvalidPieceException {
+		if (hashScore == 0) {
+			return true;
+		}
+		boolean isRepetition = false;
+		if (move != Move.NULL_MOVE) {
+			pm.performMove(move);
+			isRepetition = pos.isThreefoldRepetitionPossible();
+			pm.unperformMove();
+		}
+		return isRepetition;
+	}
+
+	private boolean isExtendedSearchLimitReached() {
+		// Only stop when the initial side is back on move, leaving room for one more move for each side
+		return (currPly%2 == 0) && (currPly > extendedSearchLimitInPly-2);
+	}
+
+	private int evaluatePosition() {
+		return toSideRelative(Score.getScore(pe.evaluatePosition()));
+	}
+
+	private int toSideRelative(short whiteRelativeScore) {
+		return pos.onMoveIsWhite() ? whiteRelativeScore : -whiteRelativeScore;
+	}
+
+	private short toWhiteRelative(int score) {
+		return (short)(pos.onMoveIsWhite() ? score : -score);
+	}
+
+	/* The sense of a bound is reversed between the white relative and side relative scores when black is on move. */
+	private byte convertBound(byte bound) {
+		if (bound == Score.exact || pos.onMoveIsWhite()) {
+			return bound;
+		}
+		return (bound == Score.lowerBound) ? Score.upperBound : Score.lowerBound;
+	}
+
+	private void storeTransposition(int depth, int score, byte bound, int bestMove) {
+		// Mate scores are stored as the distance from this position, not from the root node
+		short hashScore = toWhiteRelative(score);
+		if (Score.isMate(hashScore)) {
+			hashScore = (short)((hashScore < 0) ? hashScore - currPly : hashScore + currPly);
+		}
+		tt.setTransposition(currPly, null, (byte)depth, hashScore, convertBound(bound), bestMove);
+	}
+
+	private int fromHashTable(short hashScore) {
+		if (Score.isMate(hashScore)) {
+			hashScore = (short)((hashScore < 0) ? hashScore + currPly : hashScore - currPly);
+		}
+		return toSideRelative(hashScore);
+	}
+
+	private void updatePrincipalContinuation(int currMove, int score) {
+		pc.update(currPly, currMove);
+		if (EubosEngineMain.UCI_INFO_ENABLED && currPly == 0 && sr != null) {
+			sm.setPrincipalVariationData(extendedSearchDeepestPly, pc.toPvList(0), toWhiteRelative(score));
+			sr.reportPrincipalVariation(sm);
+		}
+	}
+}
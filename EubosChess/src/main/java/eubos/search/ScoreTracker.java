@@ -6,6 +6,9 @@ public class ScoreTracker {
 	private short[] scores;
 	private boolean initialOnMoveIsWhite = false;
 	private SearchDebugAgent sda;
+	// White relative bounds of the root window; the full range unless searching with an aspiration window
+	private short rootLowerBound = Short.MIN_VALUE;
+	private short rootUpperBound = Short.MAX_VALUE;
 	
 	private static final int MINIMUM_PLY_FOR_ALPHA_BETA_CUT_OFF = 2;
 
@@ -19,11 +22,27 @@ public class ScoreTracker {
 		scores[currPly] = scores[currPly-MINIMUM_PLY_FOR_ALPHA_BETA_CUT_OFF];
 	}
 
+	/* The root node starts from its own bound of the window, and each node at the first ply from the other bound,
+	 * so scores beyond the window are cut off as if they had already been refuted. */
 	private void initialiseWithWorstPossibleScore(byte currPly) {
 		if (onMoveIsWhite(currPly)) {
-			scores[currPly] = Short.MIN_VALUE;
+			scores[currPly] = rootLowerBound;
 		} else {
-			scores[currPly] = Short.MAX_VALUE;
+			scores[currPly] = rootUpperBound;
+		}
+	}
+	
+	void setRootWindow(short lowerBound, short upperBound) {
+		rootLowerBound = lowerBound;
+		rootUpperBound = upperBound;
+	}
+	
+	/* Whether the root score is beyond the bound of the window that is on the side of the opponent of the root. */
+	private boolean isBeyondRootWindow(short rootScore) {
+		if (onMoveIsWhite((byte)0)) {
+			return rootUpperBound != Short.MAX_VALUE && rootScore >= rootUpperBound;
+		} else {
+			return rootLowerBound != Short.MIN_VALUE && rootScore <= rootLowerBound;
 		}
 	}
 	
@@ -85,12 +104,14 @@ public class ScoreTracker {
 		if (currPly > 0) {
 			return isAlphaBeta(currPly, scoreBackedUpToNode);
 		}
-		return false;
+		// The root is only cut off by the bound of an aspiration window
+		return isBeyondRootWindow(scoreBackedUpToNode);
 	}
 
-	public boolean isAlphaBetaCutOffForHash(byte currPly, short hashScore) {
-		//if (currPly >= MINIMUM_PLY_FOR_ALPHA_BETA_CUT_OFF) {
-		if (currPly > 0) {
+	public boolean isAlphaBetaCutOffForHash(byte currPly, short hashScore, byte hashBound) {
+		// Only a bound on the side of the cut-off, i.e. from a search that wasn't itself cut short, can refute
+		byte boundForCutOff = onMoveIsWhite(currPly) ? Score.lowerBound : Score.upperBound;
+		if (currPly > 0 && hashBound == boundForCutOff) {
 			short adjustedHashScore = adjustHashTableMateInXScore(currPly, hashScore);			
 			return isAlphaBeta(currPly, adjustedHashScore);
 		}
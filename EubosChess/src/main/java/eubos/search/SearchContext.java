@@ -158,4 +158,14 @@ public class SearchContext {
 	public String getGoal() {
 		return goal.toString();
 	}
+	
+	/* Whether positions are scored the same in both contexts; the goal bonus depends on the goal and the side
+	 * that was initially on move, and simplification also on the initial material. */
+	public boolean isEvaluatedAs(SearchContext other) {
+		if (goal != other.goal || initialOnMove != other.initialOnMove) {
+			return false;
+		}
+		return goal != SearchGoal.simplify ||
+				(initial.getWhite() == other.initial.getWhite() && initial.getBlack() == other.initial.getBlack());
+	}
 }
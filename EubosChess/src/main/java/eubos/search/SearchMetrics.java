@@ -37,7 +37,7 @@ public class SearchMetrics {
 	}
 	
 	synchronized void incrementNodesSearched() { nodesSearched.incrementAndGet(); }
-	synchronized long getNodesSearched() { return nodesSearched.get(); }
+	public synchronized long getNodesSearched() { return nodesSearched.get(); }
 	
 	synchronized void incrementTime() {
 		long currentTimestamp = System.currentTimeMillis();
@@ -11,13 +11,18 @@ import eubos.position.IChangePosition;
 import eubos.position.IPositionAccessors;
 import eubos.position.Move;
 import eubos.position.PositionManager;
+import eubos.score.EvaluationCaches;
 import eubos.score.IEvaluate;
+import eubos.score.PositionEvaluator;
 import eubos.score.ReferenceScore;
 import eubos.search.DrawChecker;
+import eubos.search.IPlySearcher;
 import eubos.search.KillerList;
+import eubos.search.LateMoveReductions;
 import eubos.search.NoLegalMoveException;
 import eubos.search.PlySearcher;
 import eubos.search.PrincipalContinuation;
+import eubos.search.PrincipalVariationSearcher;
 import eubos.search.Score;
 import eubos.search.ScoreTracker;
 import eubos.search.SearchDebugAgent;
@@ -35,7 +40,7 @@ public class MiniMaxMoveGenerator implements
 	public PrincipalContinuation pc;
 	public SearchMetrics sm;
 
-	private PlySearcher ps;
+	private IPlySearcher ps;
 	private IEvaluate pe;
 	private FixedSizeTranspositionTable tt;
 	private TranspositionTableAccessor tta;
@@ -44,9 +49,22 @@ public class MiniMaxMoveGenerator implements
 	
 	private KillerList killers;
 	private int alternativeMoveListOrderingScheme = 1;
+	private boolean usePrincipalVariationSearch = ENABLE_PRINCIPAL_VARIATION_SEARCH;
+	private boolean useAspirationWindows = false;
+	private byte lastSearchDepth = 0;
+	private int aspirationReSearches = 0;
+	private boolean useNullMovePruning = PlySearcher.ENABLE_NULL_MOVE_PRUNING;
+	private int nullMoveCutOffs = 0;
+	private LateMoveReductions lateMoveReductions = PlySearcher.ENABLE_LATE_MOVE_REDUCTIONS ? LateMoveReductions.DEFAULT : null;
+	private int lateMoveReSearches = 0;
 	public SearchDebugAgent sda;
 	
 	public static final int EXTENDED_SEARCH_PLY_LIMIT = 8;
+	public static final boolean ENABLE_PRINCIPAL_VARIATION_SEARCH = false;
+	public static final boolean ENABLE_ASPIRATION_WINDOWS = true;
+	public static final int ASPIRATION_WINDOW_HALF_WIDTH = 50;
+	// Beyond this half width a window isn't saving anything, so fall back to a full window
+	public static final int ASPIRATION_WINDOW_MAX_HALF_WIDTH = 400;
 
 	// Used for unit tests
 	MiniMaxMoveGenerator( FixedSizeTranspositionTable hashMap,
@@ -61,8 +79,9 @@ public class MiniMaxMoveGenerator implements
 			String fen,
 			DrawChecker dc,
 			SearchMetricsReporter sr,
-			ReferenceScore refScore) {
-		PositionManager pm = new PositionManager(fen, dc, refScore);
+			ReferenceScore refScore,
+			EvaluationCaches caches) {
+		PositionManager pm = new PositionManager(fen, dc, refScore, caches);
 		commonInit(hashMap, pm, pm);
 		sr.register(sm);
 		sda = new SearchDebugAgent(pos.getMoveNumber(), pos.getOnMove() == Piece.Colour.white);
@@ -108,15 +127,31 @@ public class MiniMaxMoveGenerator implements
 		boolean foundMate = false;
 		boolean isExactScore = false;
 		initialiseSearchDepthDependentObjects(searchDepth, pm, sm);
-		ps = new PlySearcher(tta, st, pc, sm, sr, searchDepth, pm, pos, lastPc, pe, killers, sda);
+		if (usePrincipalVariationSearch) {
+			ps = new PrincipalVariationSearcher(tt, pc, sm, sr, searchDepth, pm, pos, lastPc, pe, killers, sda);
+		} else {
+			PlySearcher plySearcher = new PlySearcher(tta, st, pc, sm, sr, searchDepth, pm, pos, lastPc, pe, killers, sda);
+			plySearcher.useNullMovePruning(useNullMovePruning);
+			plySearcher.useLateMoveReductions(lateMoveReductions);
+			ps = plySearcher;
+		}
 		if (alternativeMoveListOrderingScheme > 0) {
 			ps.alternativeMoveListOrdering(alternativeMoveListOrderingScheme);
 		}
 		// Descend the plies in the search tree, to full depth, updating board and scoring positions
 		try {
-			int eubos_score = ps.searchPly();
+			int eubos_score;
+			if (isAspirationWindowUsable(searchDepth)) {
+				eubos_score = searchWithAspirationWindow(searchDepth);
+			} else {
+				eubos_score = ps.searchPly();
+			}
 			score = Score.getScore(eubos_score);
 			isExactScore = Score.isExact(eubos_score);
+			if (ps instanceof PlySearcher) {
+				nullMoveCutOffs += ((PlySearcher) ps).getNullMoveCutOffs();
+				lateMoveReSearches += ((PlySearcher) ps).getLateMoveReSearches();
+			}
 		} catch (AssertionError e) {
 			e.printStackTrace();
 			System.exit(0);
@@ -124,6 +159,7 @@ public class MiniMaxMoveGenerator implements
 		if (Score.isMate(score) && isExactScore) {
 			foundMate = true;
 		}
+		lastSearchDepth = searchDepth;
 		// Select the best move
 		GenericMove bestMove = Move.toGenericMove(pc.getBestMove((byte)0));
 		if (bestMove==null) {
@@ -132,6 +168,50 @@ public class MiniMaxMoveGenerator implements
 		return new SearchResult(bestMove,foundMate);
 	}
 	
+	/* The previous iteration's score is a good estimate of this one's, when this iteration is one ply deeper. */
+	private boolean isAspirationWindowUsable(byte searchDepth) {
+		return useAspirationWindows && searchDepth > 1 && lastSearchDepth == searchDepth-1 && !Score.isMate(score);
+	}
+	
+	/* Searches with a narrow window around the previous iteration's score. If the score falls outside the window,
+	 * the side it failed on is widened, doubling the distance from the bound each time, and the search is repeated. */
+	private int searchWithAspirationWindow(byte searchDepth) throws InvalidPieceException {
+		int halfWidth = ASPIRATION_WINDOW_HALF_WIDTH;
+		int alpha = Math.max(score - halfWidth, Short.MIN_VALUE);
+		int beta = Math.min(score + halfWidth, Short.MAX_VALUE);
+		int eubos_score = ps.searchPly(alpha, beta);
+		while (isOutsideWindow(Score.getScore(eubos_score), alpha, beta) && !ps.isTerminated()) {
+			short bound = Score.getScore(eubos_score);
+			halfWidth *= 2;
+			boolean useFullWindow = Score.isMate(bound) || halfWidth > ASPIRATION_WINDOW_MAX_HALF_WIDTH;
+			boolean failedLow = bound <= alpha;
+			if (failedLow) {
+				alpha = useFullWindow ? Short.MIN_VALUE : Math.max(bound - halfWidth, Short.MIN_VALUE);
+			} else {
+				beta = useFullWindow ? Short.MAX_VALUE : Math.min(bound + halfWidth, Short.MAX_VALUE);
+			}
+			aspirationReSearches++;
+			EubosEngineMain.logger.info(String.format("Aspiration window failed %s at depth %d with %s, re-searching [%d, %d]",
+					failedLow ? "low" : "high", searchDepth,
+					Score.toString(bound), alpha, beta));
+			eubos_score = ps.searchPly(alpha, beta);
+		}
+		return eubos_score;
+	}
+	
+	/* The score of a search that failed is a bound at or beyond the window; the full range can't fail. */
+	private static boolean isOutsideWindow(short score, int alpha, int beta) {
+		return (score <= alpha && alpha != Short.MIN_VALUE) || (score >= beta && beta != Short.MAX_VALUE);
+	}
+	
+	public String reportEvaluationCaches() {
+		if (!(pe instanceof PositionEvaluator)) {
+			return "";
+		}
+		PositionEvaluator evaluator = (PositionEvaluator)pe;
+		return String.format("%s %s", evaluator.getEvalHashTable().report(), evaluator.getPawnHashTable().report());
+	}
+	
 	public synchronized void terminateFindMove() {
 		if (ps != null)
 			ps.terminateFindMove();
@@ -140,4 +220,43 @@ public class MiniMaxMoveGenerator implements
 	public void alternativeMoveListOrdering(int schemeToUse) {
 		alternativeMoveListOrderingScheme = schemeToUse;		
 	}
+	
+	public void usePrincipalVariationSearch(boolean enable) {
+		usePrincipalVariationSearch = enable;
+	}
+	
+	public void useAspirationWindows(boolean enable) {
+		useAspirationWindows = enable;
+	}
+	
+	public int getAspirationReSearches() {
+		return aspirationReSearches;
+	}
+	
+	/* Reports the counts of the techniques that apply to the searcher in use, for logging. */
+	public String reportSearchStatistics() {
+		String windows = useAspirationWindows ? String.format("aspirationReSearches=%d", aspirationReSearches) : "aspirationWindows=off";
+		if (usePrincipalVariationSearch) {
+			return windows;
+		}
+		return String.format("%s nullMoveCutOffs=%d lateMoveReSearches=%d", windows, nullMoveCutOffs, lateMoveReSearches);
+	}
+	
+	/* Null move pruning is only done by the PlySearcher, the principal variation search doesn't pass. */
+	public void useNullMovePruning(boolean enable) {
+		useNullMovePruning = enable;
+	}
+	
+	public int getNullMoveCutOffs() {
+		return nullMoveCutOffs;
+	}
+	
+	/* Late move reductions are only done by the PlySearcher; null disables them. */
+	public void useLateMoveReductions(LateMoveReductions reductions) {
+		lateMoveReductions = reductions;
+	}
+	
+	public int getLateMoveReSearches() {
+		return lateMoveReSearches;
+	}
 }
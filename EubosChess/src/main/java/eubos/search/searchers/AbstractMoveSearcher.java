@@ -6,6 +6,7 @@ import com.fluxchess.jcpi.models.GenericMove;
 
 import eubos.board.InvalidPieceException;
 import eubos.main.EubosEngineMain;
+import eubos.score.EvaluationCaches;
 import eubos.score.ReferenceScore;
 import eubos.score.ReferenceScore.Reference;
 import eubos.search.DrawChecker;
@@ -25,14 +26,14 @@ public abstract class AbstractMoveSearcher extends Thread {
 	protected SearchMetricsReporter sr;
 	protected ReferenceScore refScore;
 
-	public AbstractMoveSearcher(EubosEngineMain eng, String fen, DrawChecker dc, FixedSizeTranspositionTable hashMap, ReferenceScore refScore) {
+	public AbstractMoveSearcher(EubosEngineMain eng, String fen, DrawChecker dc, FixedSizeTranspositionTable hashMap, EvaluationCaches caches, ReferenceScore refScore) {
 		super();
 		this.eubosEngine = eng;
 		if (EubosEngineMain.UCI_INFO_ENABLED) {
 			sendInfo = true;
 			sr = new SearchMetricsReporter(eubosEngine, hashMap, refScore);
 		}
-		this.mg = new MiniMaxMoveGenerator(hashMap, fen, dc, sr, refScore);
+		this.mg = new MiniMaxMoveGenerator(hashMap, fen, dc, sr, refScore, caches);
 		
 		// Setup the reference score that shall be used by any IterativeSearchStopper
 		this.refScore = refScore;
@@ -5,6 +5,7 @@ import java.util.List;
 import com.fluxchess.jcpi.commands.ProtocolBestMoveCommand;
 
 import eubos.main.EubosEngineMain;
+import eubos.score.EvaluationCaches;
 import eubos.score.ReferenceScore;
 import eubos.search.DrawChecker;
 import eubos.search.SearchResult;
@@ -14,13 +15,15 @@ public class FixedDepthMoveSearcher extends AbstractMoveSearcher {
 	
 	private byte searchDepth = 1;
 	boolean searchStopped = false;
+	private SearchResult result = null;
 	
 	public FixedDepthMoveSearcher( EubosEngineMain eubos, 
 			FixedSizeTranspositionTable hashMap, 
+			EvaluationCaches caches,
 			String fen,  
 			DrawChecker dc, 
 			byte searchDepth) {
-		super(eubos, fen, dc, hashMap, new ReferenceScore(hashMap));
+		super(eubos, fen, dc, hashMap, caches, new ReferenceScore(hashMap));
 		this.searchDepth = searchDepth;
 		this.setName("FixedDepthMoveSearcher");
 	}
@@ -31,18 +34,42 @@ public class FixedDepthMoveSearcher extends AbstractMoveSearcher {
 		mg.terminateFindMove();
 	}
 	
+	/* Without an engine, e.g. when run by the bench command, the search sends no UCI info or best move. */
 	@Override
 	public void run() {
 		SearchResult res = new SearchResult(null, false);
-		enableSearchMetricsReporter(true);
+		enableSearchMetricsReporter(eubosEngine != null);
 		List<Integer> pc = null;
 		for (byte depth=1; depth<=searchDepth && !searchStopped; depth++) {
 			res = doFindMove(res.bestMove, pc, depth);
 			pc = mg.pc.toPvList(0);
 		}
 		enableSearchMetricsReporter(false);
-		eubosEngine.sendBestMoveCommand(new ProtocolBestMoveCommand( res.bestMove, null ));
+		if (eubosEngine != null) {
+			eubosEngine.sendBestMoveCommand(new ProtocolBestMoveCommand( res.bestMove, null ));
+		}
 		terminateSearchMetricsReporter();
 		mg.sda.close();
+		result = res;
+	}
+	
+	public SearchResult getResult() {
+		return result;
+	}
+	
+	public long getNodesSearched() {
+		return mg.sm.getNodesSearched();
+	}
+	
+	public void usePrincipalVariationSearch(boolean enable) {
+		mg.usePrincipalVariationSearch(enable);
+	}
+	
+	public void useAspirationWindows(boolean enable) {
+		mg.useAspirationWindows(enable);
+	}
+	
+	public int getAspirationReSearches() {
+		return mg.getAspirationReSearches();
 	}
 }
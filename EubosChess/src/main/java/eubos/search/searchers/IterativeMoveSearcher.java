@@ -6,12 +6,14 @@ import com.fluxchess.jcpi.commands.ProtocolBestMoveCommand;
 
 import eubos.board.InvalidPieceException;
 import eubos.main.EubosEngineMain;
+import eubos.score.EvaluationCaches;
 import eubos.score.ReferenceScore;
 import eubos.score.ReferenceScore.Reference;
 import eubos.search.DrawChecker;
 import eubos.search.NoLegalMoveException;
 import eubos.search.Score;
 import eubos.search.SearchResult;
+import eubos.search.generators.MiniMaxMoveGenerator;
 import eubos.search.transposition.FixedSizeTranspositionTable;
 
 public class IterativeMoveSearcher extends AbstractMoveSearcher {
@@ -27,13 +29,15 @@ public class IterativeMoveSearcher extends AbstractMoveSearcher {
 
 	public IterativeMoveSearcher(EubosEngineMain eubos, 
 			FixedSizeTranspositionTable hashMap, 
+			EvaluationCaches caches,
 			String fen,  
 			DrawChecker dc, 
 			long time,
 			long increment,
 			ReferenceScore refScore) {
-		super(eubos, fen, dc, hashMap, refScore);
+		super(eubos, fen, dc, hashMap, caches, refScore);
 		this.setName("IterativeMoveSearcher");
+		mg.useAspirationWindows(MiniMaxMoveGenerator.ENABLE_ASPIRATION_WINDOWS);
 		if (time == Long.MAX_VALUE) {
 			analyse = true;
 			gameTimeRemaining = time;
@@ -97,7 +101,8 @@ public class IterativeMoveSearcher extends AbstractMoveSearcher {
 			}
 		}
 		EubosEngineMain.logger.info(
-			String.format("IterativeMoveSearcher ended best=%s gameTimeRemaining=%d", res.bestMove, gameTimeRemaining));
+			String.format("IterativeMoveSearcher ended best=%s gameTimeRemaining=%d %s, %s",
+					res.bestMove, gameTimeRemaining, mg.reportSearchStatistics(), mg.reportEvaluationCaches()));
 		stopper.end();
 		enableSearchMetricsReporter(false);
 		eubosEngine.sendBestMoveCommand(new ProtocolBestMoveCommand( res.bestMove, null ));
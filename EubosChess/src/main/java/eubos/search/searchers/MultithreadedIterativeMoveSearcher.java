@@ -9,6 +9,7 @@ import com.fluxchess.jcpi.models.GenericMove;
 import eubos.board.InvalidPieceException;
 import eubos.main.EubosEngineMain;
 import eubos.position.Move;
+import eubos.score.EvaluationCaches;
 import eubos.score.ReferenceScore;
 import eubos.search.DrawChecker;
 import eubos.search.NoLegalMoveException;
@@ -33,29 +34,32 @@ public class MultithreadedIterativeMoveSearcher extends IterativeMoveSearcher {
 	
 	public MultithreadedIterativeMoveSearcher(EubosEngineMain eubos, 
 			FixedSizeTranspositionTable hashMap, 
+			List<EvaluationCaches> caches,
 			String fen,  
 			DrawChecker dc, 
 			long time,
 			long increment,
 			int threads,
 			ReferenceScore refScore) {
-		super(eubos, hashMap, fen, dc, time, increment, refScore);
+		super(eubos, hashMap, caches.get(0), fen, dc, time, increment, refScore);
 		this.setName("MultithreadedIterativeMoveSearcher");
 		this.threads = threads;
 		this.tt = hashMap;
 		rootPositionHash = mg.pos.getHash();
 		workers = new ArrayList<MultithreadedSearchWorkerThread>(threads);
-		createMoveGenerators(hashMap, fen, dc, threads);
+		createMoveGenerators(hashMap, caches, fen, dc, threads);
 		stopper = new IterativeMoveSearchStopper();
 	}
 
-	private void createMoveGenerators(FixedSizeTranspositionTable hashMap, String fen, DrawChecker dc, int threads) {
+	private void createMoveGenerators(FixedSizeTranspositionTable hashMap, List<EvaluationCaches> caches, String fen, DrawChecker dc, int threads) {
 		moveGenerators = new ArrayList<MiniMaxMoveGenerator>(threads);
 		// The first move generator shall be that constructed by the abstract MoveSearcher
+		mg.useAspirationWindows(MiniMaxMoveGenerator.ENABLE_ASPIRATION_WINDOWS);
 		moveGenerators.add(mg);
-		// Create subsequent move generators using cloned DrawCheckers
+		// Create subsequent move generators using cloned DrawCheckers and the evaluation caches of each worker thread
 		for (int i=1; i < threads; i++) {
-			MiniMaxMoveGenerator thisMg = new MiniMaxMoveGenerator(hashMap, fen, new DrawChecker(dc.getState()), sr, refScore);
+			MiniMaxMoveGenerator thisMg = new MiniMaxMoveGenerator(hashMap, fen, new DrawChecker(dc.getState()), sr, refScore, caches.get(i));
+			thisMg.useAspirationWindows(MiniMaxMoveGenerator.ENABLE_ASPIRATION_WINDOWS);
 			moveGenerators.add(thisMg);
 		}
 		// Set move ordering scheme to use, if in operation
@@ -214,7 +218,8 @@ public class MultithreadedIterativeMoveSearcher extends IterativeMoveSearcher {
 			}
 			// The result can be read by reading the result member of this object or by reading the shared transposition table
 			halted = true;
-			EubosEngineMain.logger.info(String.format("Worker %s halted, notifying", this.getName()));
+			EubosEngineMain.logger.info(String.format("Worker %s halted, notifying, %s, %s",
+					this.getName(), myMg.reportSearchStatistics(), myMg.reportEvaluationCaches()));
 			synchronized(main) {
 				main.notify();
 			}
@@ -1,156 +1,398 @@
 package eubos.search.transposition;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
-import org.openjdk.jol.info.ClassLayout;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 import eubos.main.EubosEngineMain;
-import eubos.position.MoveList;
-
+import eubos.position.ZobristHashCode;
 
 public class FixedSizeTranspositionTable {
-	
+
 	public static final boolean DEBUG_LOGGING = false;
-	
+
+	public static final boolean USE_LOCKLESS_HASHING = true;
+
 	public static final long ELEMENTS_DEFAULT_HASH_SIZE = (1L << 25);
-	
-	public static final long MOVELIST_NORMAL_WORST_SIZE = 40L;
-	public static final long MOVELIST_NORMAL_AVERAGE_SIZE = 26L;
-	public static final long MOVELIST_EXTENDED_AVERAGE_SIZE = 5L;
-	
-	public static final long MOVELIST_AVERAGE_SIZE = (
-			MOVELIST_NORMAL_WORST_SIZE +
-			MOVELIST_EXTENDED_AVERAGE_SIZE);
-	
-	public static final long BYTES_MOVELIST_AVERAGE;
-	static {
-		BYTES_MOVELIST_AVERAGE = ClassLayout.parseClass(MoveList.class).instanceSize() +
-				MOVELIST_AVERAGE_SIZE*Integer.BYTES;
-	}
-	
-	public static final long BYTES_TRANSPOSTION_ELEMENT;
-	static {
-		BYTES_TRANSPOSTION_ELEMENT = ClassLayout.parseClass(Transposition.class).instanceSize();
-	}
-	
-	public static final long BYTES_HASHMAP_ENTRY;
-	static {
-		BYTES_HASHMAP_ENTRY = ClassLayout.parseClass(HashMap.Entry.class).instanceSize();
-	}
-	
-	public static final long BYTES_PER_TRANSPOSITION =  BYTES_TRANSPOSTION_ELEMENT + BYTES_HASHMAP_ENTRY;
-	
+
+	/* Each transposition is stored as two consecutive longs in the table; a key word, which is the Zobrist
+	 * hash code XORed with the data word, followed by the data word packed as:
+	 *   bits 0-31  best move
+	 *   bits 32-47 score
+	 *   bits 48-55 depth searched in ply
+	 *   bits 56-57 bound
+	 *   bits 58-63 generation of the search that last stored or probed it
+	 * A data word of zero indicates an empty slot, as a valid bound is never zero. Because the key word
+	 * depends on the data word, an entry torn by concurrent writes doesn't verify and is treated as a miss. */
+	public static final long BYTES_PER_TRANSPOSITION = 2L * Long.BYTES;
+
 	public static final long BYTES_PER_MEGABYTE = (1024L * 1000L);
-	
+
 	public static final long MBYTES_DEFAULT_HASH_SIZE = (ELEMENTS_DEFAULT_HASH_SIZE*BYTES_PER_TRANSPOSITION)/BYTES_PER_MEGABYTE;
-	
-	private Map<Long, ITransposition> hashMap = null;
-	private long hashMapSize = 0;
+
+	/* Transpositions are grouped in buckets that span a 64 byte cache line. All but the last slot of a
+	 * bucket are depth-preferred, they are only replaced by a deeper search or when left over from an
+	 * earlier search. Otherwise, the last slot of the bucket is always replaced. */
+	public static final int ENTRIES_PER_BUCKET = 4;
+	private static final int LONGS_PER_BUCKET = ENTRIES_PER_BUCKET * 2;
+
+	/* Number of entries sampled to estimate the permill of the table used by the current search. */
+	private static final long HASHFULL_SAMPLE_SIZE = 1000L;
+
+	private static final int NUM_LOCK_STRIPES = (1 << 10);
+
+	/* A hash file starts with a header of eight longs, so the table that follows it stays aligned to cache lines:
+	 *   magic number, file version, Zobrist seed, number of elements, generation, three reserved.
+	 * The table is stored in native byte order, as it is memory mapped when the file is reloaded. */
+	private static final long HASH_FILE_MAGIC = 0x4555424F53545421L;
+	private static final long HASH_FILE_VERSION = 1L;
+	private static final int HASH_FILE_HEADER_LONGS = 8;
+	public static final long HASH_FILE_HEADER_BYTES = HASH_FILE_HEADER_LONGS * Long.BYTES;
+	private static final int HASH_FILE_ELEMENTS_INDEX = 3;
+	private static final int HASH_FILE_GENERATION_INDEX = 4;
+	private static final int SAVE_BUFFER_BYTES = (1 << 20);
+
+	private static final int SCORE_SHIFT = Integer.SIZE;
+	private static final int DEPTH_SHIFT = SCORE_SHIFT + Short.SIZE;
+	private static final int BOUND_SHIFT = DEPTH_SHIFT + Byte.SIZE;
+	private static final int GENERATION_SHIFT = BOUND_SHIFT + 2;
+	private static final long MOVE_MASK = 0xFFFFFFFFL;
+	private static final long SCORE_MASK = 0xFFFFL;
+	private static final long DEPTH_MASK = 0xFFL;
+	private static final long BOUND_MASK = 0x3L;
+	private static final int GENERATION_MASK = 0x3F;
+
+	private ITableStorage table = null;
+	private String mappedFilename = null;
+	private long bucketMask = 0;
+	private Object [] locks = null;
+	private boolean isLockless = false;
+	private volatile int generation = 0;
 	private long maxHashMapSize = ELEMENTS_DEFAULT_HASH_SIZE;
-	
-	public long getHashMapSize() {
-		return hashMapSize;
-	}
-	
+
 	public long getHashMapMaxSize() {
 		return maxHashMapSize;
 	}
-	
+
 	public FixedSizeTranspositionTable() {
 		this(MBYTES_DEFAULT_HASH_SIZE, 1);
 	}
-	
+
 	public FixedSizeTranspositionTable(long hashSizeMBytes, int numThreads) {
-		long hashSizeElements = (hashSizeMBytes * BYTES_PER_MEGABYTE) / BYTES_PER_TRANSPOSITION;
+		this(hashSizeMBytes, numThreads, USE_LOCKLESS_HASHING, null);
+	}
+
+	public FixedSizeTranspositionTable(long hashSizeMBytes, int numThreads, boolean lockless) {
+		this(hashSizeMBytes, numThreads, lockless, null);
+	}
+
+	/* When hashFilename is given the table is memory mapped to that file. If the file holds a saved table, that
+	 * table is reloaded, at the size it was saved with. Otherwise, or if the file can't be used, if the configured hash size
+	 * is greater than 40% of the heap, the table is allocated off-heap, so it neither has to be clamped to the
+	 * heap nor does it have to be scanned by the garbage collector. */
+	public FixedSizeTranspositionTable(long hashSizeMBytes, int numThreads, boolean lockless, String hashFilename) {
+		long hashSizeElements = toPowerOfTwoElements(hashSizeMBytes * BYTES_PER_MEGABYTE);
 		long maxHeapSize = Runtime.getRuntime().maxMemory();
-		if ((hashSizeMBytes * BYTES_PER_MEGABYTE) > ((maxHeapSize*4)/10)) {
-			/* If the configured hash size is greater than 40% of the heap, then reduce the hash size
-			 * as we are resource constrained and garbage collection will kill speed of the engine. */
-			hashSizeElements = ((maxHeapSize*4)/10) / BYTES_PER_TRANSPOSITION;
+		boolean useHeap = (hashSizeMBytes * BYTES_PER_MEGABYTE) <= ((maxHeapSize*4)/10) &&
+				hashSizeElements*2 <= HeapTableStorage.MAX_LENGTH;
+
+		if (hashFilename != null && !hashFilename.isEmpty()) {
+			try {
+				long [] header = readHashFileHeader(hashFilename);
+				long mappedElements = (header != null) ? header[HASH_FILE_ELEMENTS_INDEX] : hashSizeElements;
+				table = new OffHeapTableStorage(mappedElements*2, hashFilename, HASH_FILE_HEADER_BYTES);
+				mappedFilename = hashFilename;
+				hashSizeElements = mappedElements;
+				if (header != null) {
+					generation = (int)header[HASH_FILE_GENERATION_INDEX];
+				}
+				EubosEngineMain.logger.info(String.format("Hash table mapped to file %s, reloaded=%b", hashFilename, header != null));
+			} catch (IOException e) {
+				// Fall back to the table that would have been used without a file
+				EubosEngineMain.logger.warning(String.format("Can't map hash table to file %s, %s", hashFilename, e.getMessage()));
+			}
+		}
+		if (table == null && !useHeap) {
+			try {
+				table = new OffHeapTableStorage(hashSizeElements*2);
+				EubosEngineMain.logger.info("Hash table allocated off-heap");
+			} catch (OutOfMemoryError e) {
+				// Direct buffers are limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap size
+				EubosEngineMain.logger.warning(String.format("Can't allocate hash table off-heap, %s", e.getMessage()));
+			}
 		}
-		
+		if (table == null) {
+			if (!useHeap) {
+				/* Reduce the hash size as we are resource constrained and garbage collection will
+				 * kill speed of the engine. */
+				hashSizeElements = toPowerOfTwoElements(Math.min((maxHeapSize*4)/10, HeapTableStorage.MAX_LENGTH*Long.BYTES));
+			}
+			table = new HeapTableStorage(hashSizeElements*2);
+		}
+
 		if (DEBUG_LOGGING) {
 			EubosEngineMain.logger.info(String.format(
-					"BYTES_TRANSPOSTION_ELEMENT=%d BYTES_MOVELIST_AVERAGE=%d, BYTES_PER_TRANSPOSITION=%d", 
-					BYTES_TRANSPOSTION_ELEMENT, BYTES_MOVELIST_AVERAGE,	BYTES_PER_TRANSPOSITION));
-			
-			EubosEngineMain.logger.info(String.format(
-					"Hash dimensions requestedSizeMBytes=%d maxHeapSizeMBytes=%d, maxSizeElements=%d, maxSizeMBytes=%d", 
+					"Hash dimensions requestedSizeMBytes=%d maxHeapSizeMBytes=%d, maxSizeElements=%d, maxSizeMBytes=%d",
 					hashSizeMBytes, maxHeapSize/BYTES_PER_MEGABYTE, hashSizeElements,
 					(hashSizeElements*BYTES_PER_TRANSPOSITION)/BYTES_PER_MEGABYTE));
 		}
-		if (numThreads == 1) {
-			hashMap = new HashMap<Long, ITransposition>((int)hashSizeElements, (float)0.75);
-		} else {
-			hashMap = new ConcurrentHashMap<Long, ITransposition>((int)hashSizeElements, (float)0.75);
+		bucketMask = (hashSizeElements / ENTRIES_PER_BUCKET) - 1;
+		// Unless the table is lockless, guard key and data words against torn updates when it is shared between threads
+		isLockless = lockless;
+		locks = new Object[(numThreads == 1 || lockless) ? 1 : NUM_LOCK_STRIPES];
+		for (int i=0; i < locks.length; i++) {
+			locks[i] = new Object();
 		}
-		hashMapSize = 0;
 		maxHashMapSize = hashSizeElements;
+		if (mappedFilename != null) {
+			try {
+				writeHashFileHeader(mappedFilename);
+			} catch (IOException e) {
+				EubosEngineMain.logger.warning(String.format("Can't write header of hash file %s, %s", mappedFilename, e.getMessage()));
+			}
+		}
 	}
-	
-	private void incrementAccessCount(ITransposition trans) {
-		if (trans != null) {
-			short count = trans.getAccessCount();
-			if (count != Short.MAX_VALUE) {
-				trans.setAccessCount((short)(count+1));
+
+	/* Returns the header of a saved hash file, or null if the file is new or empty. */
+	private static long [] readHashFileHeader(String filename) throws IOException {
+		File file = new File(filename);
+		if (!file.exists() || file.length() == 0) {
+			return null;
+		}
+		long [] header = new long[HASH_FILE_HEADER_LONGS];
+		try (RandomAccessFile hashFile = new RandomAccessFile(file, "r")) {
+			if (hashFile.length() >= HASH_FILE_HEADER_BYTES) {
+				for (int i=0; i < HASH_FILE_HEADER_LONGS; i++) {
+					header[i] = hashFile.readLong();
+				}
 			}
 		}
+		long elements = header[HASH_FILE_ELEMENTS_INDEX];
+		// Don't overwrite a file that isn't a hash file saved by this version of Eubos
+		if (header[0] != HASH_FILE_MAGIC || header[1] != HASH_FILE_VERSION || header[2] != ZobristHashCode.PRN_SEED ||
+			elements < ENTRIES_PER_BUCKET || Long.bitCount(elements) != 1 ||
+			file.length() != HASH_FILE_HEADER_BYTES + elements*BYTES_PER_TRANSPOSITION) {
+			throw new IOException("not a compatible hash file");
+		}
+		return header;
 	}
-	
-	public ITransposition getTransposition(long hashCode) {
-		ITransposition retrievedTrans = hashMap.get(hashCode);
-		incrementAccessCount(retrievedTrans);
-		return retrievedTrans;
-	}
-	
-	private Short getBottomTwentyPercentAccessThreshold() {
-		ArrayList<Short> theAccessCounts = new ArrayList<Short>(hashMap.size()); 
-		for (ITransposition trans : hashMap.values()) {
-			theAccessCounts.add(trans.getAccessCount());
-		}
-		Collections.sort(theAccessCounts);
-		int twentyPercentIndex = (int) (maxHashMapSize/5);
-		return theAccessCounts.get(twentyPercentIndex);
-	}
-	
-	private synchronized void removeLeastUsed() {
-		if (hashMapSize >= maxHashMapSize) {
-			EubosEngineMain.logger.info("Starting to free bottom 20% of Hash Table");
-			Short bottomTwentyPercentAccessThreshold = getBottomTwentyPercentAccessThreshold();
-			Iterator<Long> it = hashMap.keySet().iterator();
-			while (it.hasNext()){
-				ITransposition trans = hashMap.get(it.next());
-				short count = trans.getAccessCount();
-				if (count <= bottomTwentyPercentAccessThreshold) {
-					it.remove();
-					hashMapSize--;
-				} else {
-					// Normalise remaining counts after every cull operation
-					trans.setAccessCount((short)(count-bottomTwentyPercentAccessThreshold));
+
+	private void writeHashFileHeader(RandomAccessFile hashFile) throws IOException {
+		long [] header = new long[HASH_FILE_HEADER_LONGS];
+		header[0] = HASH_FILE_MAGIC;
+		header[1] = HASH_FILE_VERSION;
+		header[2] = ZobristHashCode.PRN_SEED;
+		header[HASH_FILE_ELEMENTS_INDEX] = maxHashMapSize;
+		header[HASH_FILE_GENERATION_INDEX] = generation;
+		hashFile.seek(0);
+		for (long value : header) {
+			hashFile.writeLong(value);
+		}
+	}
+
+	private void writeHashFileHeader(String filename) throws IOException {
+		try (RandomAccessFile hashFile = new RandomAccessFile(filename, "rw")) {
+			writeHashFileHeader(hashFile);
+		}
+	}
+
+	/* Saves the table, so that it can be reloaded by constructing a table with the same hash file. */
+	public synchronized void saveToFile(String filename) throws IOException {
+		if (filename.equals(mappedFilename)) {
+			table.flush();
+			writeHashFileHeader(filename);
+		} else {
+			try (RandomAccessFile hashFile = new RandomAccessFile(filename, "rw")) {
+				hashFile.setLength(0);
+				writeHashFileHeader(hashFile);
+				FileChannel channel = hashFile.getChannel();
+				ByteBuffer buffer = ByteBuffer.allocateDirect(SAVE_BUFFER_BYTES).order(ByteOrder.nativeOrder());
+				for (long i=0; i < table.length(); i++) {
+					if (!buffer.hasRemaining()) {
+						writeBuffer(channel, buffer);
+					}
+					buffer.putLong(table.get(i));
 				}
+				writeBuffer(channel, buffer);
 			}
-			EubosEngineMain.logger.info("Completed freeing bottom 20% of Hash Table");
 		}
+		EubosEngineMain.logger.info(String.format("Hash table saved to file %s", filename));
 	}
-	
-	public void putTransposition(long hashCode, ITransposition trans) {
-		if (hashMapSize >= maxHashMapSize) {
-			// Remove the oldest 20% of hashes to make way for this one
-			removeLeastUsed();
+
+	private static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
 		}
-		if (hashMap.put(hashCode, trans) == null) {
-			// Only increment size if hash wasn't already contained, otherwise overwrites
-			hashMapSize++;
+		buffer.clear();
+	}
+
+	private static long toPowerOfTwoElements(long hashSizeBytes) {
+		// Round down to a power of two number of buckets, so the hash code can be masked to index the table
+		return Math.max(Long.highestOneBit(hashSizeBytes / BYTES_PER_TRANSPOSITION), ENTRIES_PER_BUCKET);
+	}
+
+	private long getBucketIndex(long hashCode) {
+		return (hashCode & bucketMask) * LONGS_PER_BUCKET;
+	}
+
+	private Object getLock(long bucketIndex) {
+		return locks[(int)(bucketIndex / LONGS_PER_BUCKET) & (locks.length-1)];
+	}
+
+	static long pack(byte depth, short score, byte bound, int bestMove) {
+		long data = bestMove & MOVE_MASK;
+		data |= (score & SCORE_MASK) << SCORE_SHIFT;
+		data |= (depth & DEPTH_MASK) << DEPTH_SHIFT;
+		data |= (bound & BOUND_MASK) << BOUND_SHIFT;
+		return data;
+	}
+
+	public static int getBestMove(long data) {
+		return (int)(data & MOVE_MASK);
+	}
+
+	public static short getScore(long data) {
+		return (short)(data >>> SCORE_SHIFT);
+	}
+
+	public static byte getDepthSearchedInPly(long data) {
+		return (byte)(data >>> DEPTH_SHIFT);
+	}
+
+	public static byte getType(long data) {
+		return (byte)((data >>> BOUND_SHIFT) & BOUND_MASK);
+	}
+
+	static int getGeneration(long data) {
+		return (int)(data >>> GENERATION_SHIFT);
+	}
+
+	private long setGeneration(long data) {
+		return (data & ~((long)GENERATION_MASK << GENERATION_SHIFT)) | ((long)generation << GENERATION_SHIFT);
+	}
+
+	/* Called at the start of each search, so that entries left over from earlier searches can be identified. */
+	public void incrementGeneration() {
+		generation = (generation + 1) & GENERATION_MASK;
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	private long probe(long hashCode, long bucket) {
+		for (long i=bucket; i < bucket+LONGS_PER_BUCKET; i+=2) {
+			long data = table.get(i+1);
+			if ((table.get(i) ^ data) == hashCode && data != 0L) {
+				if (getGeneration(data) != generation) {
+					// Still useful to the current search, so protect it from replacement
+					data = setGeneration(data);
+					table.set(i, hashCode ^ data);
+					table.set(i+1, data);
+				}
+				return data;
+			}
 		}
-		incrementAccessCount(trans);
+		return 0L;
 	}
-	
+
+	private void store(long hashCode, long data, long bucket) {
+		data = setGeneration(data);
+		long alwaysReplaceSlot = bucket + LONGS_PER_BUCKET - 2;
+		long slot = alwaysReplaceSlot;
+		for (long i=bucket; i < bucket+LONGS_PER_BUCKET; i+=2) {
+			long slotData = table.get(i+1);
+			if ((table.get(i) ^ slotData) == hashCode && slotData != 0L) {
+				// Update of the same position, wherever it is in the bucket
+				table.set(i, hashCode ^ data);
+				table.set(i+1, data);
+				return;
+			}
+		}
+		int shallowestDepth = getDepthSearchedInPly(data);
+		boolean foundStale = false;
+		for (long i=bucket; i < alwaysReplaceSlot; i+=2) {
+			long slotData = table.get(i+1);
+			if (slotData == 0L) {
+				slot = i;
+				break;
+			}
+			int depth = getDepthSearchedInPly(slotData);
+			if (getGeneration(slotData) != generation) {
+				// Prefer replacing the shallowest entry from an earlier search
+				if (!foundStale || depth < shallowestDepth) {
+					foundStale = true;
+					shallowestDepth = depth;
+					slot = i;
+				}
+			} else if (!foundStale && depth <= shallowestDepth) {
+				shallowestDepth = depth;
+				slot = i;
+			}
+		}
+		table.set(slot, hashCode ^ data);
+		table.set(slot+1, data);
+	}
+
+	/* Returns the packed data word of the entry, or zero if the position isn't in the table. The fields
+	 * are read with the static getters, so probing the table doesn't allocate. */
+	public long getTranspositionData(long hashCode) {
+		long bucket = getBucketIndex(hashCode);
+		long data = 0L;
+		if (isLockless) {
+			data = probe(hashCode, bucket);
+		} else {
+			synchronized (getLock(bucket)) {
+				data = probe(hashCode, bucket);
+			}
+		}
+		return data;
+	}
+
+	/* Allocates a new view of the entry; the search uses getTranspositionData() or a reused view instead. */
+	public ITransposition getTransposition(long hashCode) {
+		long data = getTranspositionData(hashCode);
+		if (data == 0L) {
+			return null;
+		}
+		PackedTransposition trans = new PackedTransposition(this);
+		trans.setView(hashCode, data);
+		return trans;
+	}
+
+	public void putTransposition(long hashCode, ITransposition trans) {
+		putTranspositionData(hashCode, pack(trans.getDepthSearchedInPly(), trans.getScore(), trans.getType(), trans.getBestMove()));
+	}
+
+	void putTranspositionData(long hashCode, long data) {
+		long bucket = getBucketIndex(hashCode);
+		if (isLockless) {
+			store(hashCode, data, bucket);
+		} else {
+			synchronized (getLock(bucket)) {
+				store(hashCode, data, bucket);
+			}
+		}
+	}
+
+	public boolean isLockless() {
+		return isLockless;
+	}
+
+	/* The UCI hashfull, i.e. permill of sampled entries that were stored or probed by the current search. */
 	public short getHashUtilisation() {
-		return (short) (( ((long) hashMapSize)*(long)1000) / maxHashMapSize);
+		long sampleSize = Math.min(HASHFULL_SAMPLE_SIZE, maxHashMapSize);
+		long used = 0;
+		for (long i=0; i < sampleSize*2; i+=2) {
+			long data = table.get(i+1);
+			if (data != 0L && getGeneration(data) == generation) {
+				used++;
+			}
+		}
+		return (short) ((used*1000L) / sampleSize);
 	}
 }
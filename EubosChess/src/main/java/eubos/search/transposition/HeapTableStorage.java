@@ -0,0 +1,32 @@
+package eubos.search.transposition;
+
+class HeapTableStorage implements ITableStorage {
+	
+	/* Limited by the maximum length of a Java array. */
+	static final long MAX_LENGTH = (1L << 30);
+	
+	private long [] table;
+	
+	HeapTableStorage(long length) {
+		table = new long[(int)length];
+	}
+
+	@Override
+	public long get(long index) {
+		return table[(int)index];
+	}
+
+	@Override
+	public void set(long index, long value) {
+		table[(int)index] = value;
+	}
+
+	@Override
+	public long length() {
+		return table.length;
+	}
+
+	@Override
+	public void flush() {
+	}
+}
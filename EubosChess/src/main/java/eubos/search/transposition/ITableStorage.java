@@ -0,0 +1,14 @@
+package eubos.search.transposition;
+
+/* The longs that hold the packed entries of a FixedSizeTranspositionTable. */
+interface ITableStorage {
+	
+	long get(long index);
+	
+	void set(long index, long value);
+	
+	long length();
+	
+	/* Writes any changes through to the file backing the storage. */
+	void flush();
+}
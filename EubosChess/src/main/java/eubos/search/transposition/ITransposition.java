@@ -21,11 +21,5 @@ public interface ITransposition {
 	
 	boolean checkUpdateToExact(byte depth, short new_score, int new_bestMove);
 	
-	short getAccessCount();
-	
-	void setAccessCount(short accessCount);
-
-	List<Integer> getPv();
-	
 	TranspositionTableStatus evaluateSuitability(byte currPly, int depthRequiredPly, ScoreTracker st);
 }
\ No newline at end of file
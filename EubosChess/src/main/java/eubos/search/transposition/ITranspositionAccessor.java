@@ -1,12 +1,7 @@
 package eubos.search.transposition;
 
-import java.util.List;
-
 public interface ITranspositionAccessor {
 	
-	public static boolean USE_PRINCIPAL_VARIATION_TRANSPOSITIONS = false;
-	
 	TranspositionEvaluation getTransposition(byte currPly, int depthRequiredPly);
-	ITransposition setTransposition(ITransposition trans, byte depth, short new_score, byte new_bound, int new_bestMove);
-	ITransposition setTransposition(ITransposition trans, byte depth, short new_score, byte new_bound, int new_bestMove, List<Integer> pv);
+	ITransposition setTransposition(byte currPly, ITransposition trans, byte depth, short new_score, byte new_bound, int new_bestMove);
 }
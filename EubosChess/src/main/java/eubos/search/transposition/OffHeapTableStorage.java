@@ -0,0 +1,81 @@
+package eubos.search.transposition;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/* Stores the table outside of the Java heap, either in direct buffers or mapped to a file, so that
+ * its size isn't constrained by the heap and it isn't scanned by the garbage collector. */
+class OffHeapTableStorage implements ITableStorage {
+	
+	/* A single buffer can't exceed Integer.MAX_VALUE bytes, so the table is split into 1 GB segments. */
+	private static final int SEGMENT_SHIFT = 27;
+	private static final long SEGMENT_LENGTH = (1L << SEGMENT_SHIFT);
+	private static final long SEGMENT_MASK = SEGMENT_LENGTH - 1;
+	
+	private LongBuffer [] segments;
+	private MappedByteBuffer [] mappedSegments = null;
+	private long length;
+	
+	OffHeapTableStorage(long length) {
+		this.length = length;
+		segments = new LongBuffer[getNumSegments(length)];
+		for (int i=0; i < segments.length; i++) {
+			ByteBuffer segment = ByteBuffer.allocateDirect((int)(getSegmentLength(i) * Long.BYTES));
+			segments[i] = segment.order(ByteOrder.nativeOrder()).asLongBuffer();
+		}
+	}
+	
+	/* Maps the table to the file, starting at offsetBytes, retaining any contents of the file. */
+	OffHeapTableStorage(long length, String filename, long offsetBytes) throws IOException {
+		this.length = length;
+		segments = new LongBuffer[getNumSegments(length)];
+		mappedSegments = new MappedByteBuffer[segments.length];
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+			file.setLength(offsetBytes + length * Long.BYTES);
+			FileChannel channel = file.getChannel();
+			for (int i=0; i < segments.length; i++) {
+				// The mappings remain valid after the file is closed
+				mappedSegments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+						offsetBytes + i * SEGMENT_LENGTH * Long.BYTES, getSegmentLength(i) * Long.BYTES);
+				segments[i] = mappedSegments[i].order(ByteOrder.nativeOrder()).asLongBuffer();
+			}
+		}
+	}
+	
+	private static int getNumSegments(long length) {
+		return (int)((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+	}
+	
+	private long getSegmentLength(int segment) {
+		return Math.min(length - segment * SEGMENT_LENGTH, SEGMENT_LENGTH);
+	}
+
+	@Override
+	public long get(long index) {
+		return segments[(int)(index >>> SEGMENT_SHIFT)].get((int)(index & SEGMENT_MASK));
+	}
+
+	@Override
+	public void set(long index, long value) {
+		segments[(int)(index >>> SEGMENT_SHIFT)].put((int)(index & SEGMENT_MASK), value);
+	}
+
+	@Override
+	public long length() {
+		return length;
+	}
+
+	@Override
+	public void flush() {
+		if (mappedSegments != null) {
+			for (MappedByteBuffer segment : mappedSegments) {
+				segment.force();
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package eubos.search.transposition;
+
+import java.util.List;
+
+import eubos.position.Move;
+
+/* A view of a transposition held in the packed FixedSizeTranspositionTable; any update to the
+ * view is written back to the table. Views are reused, pointing them at a new entry with setView(). */
+class PackedTransposition extends Transposition {
+
+	private FixedSizeTranspositionTable table;
+	private long hashCode;
+
+	PackedTransposition(FixedSizeTranspositionTable table) {
+		super((byte)0, (short)0, (byte)0, Move.NULL_MOVE, null);
+		this.table = table;
+	}
+
+	void setView(long hashCode, long data) {
+		setView(hashCode,
+				FixedSizeTranspositionTable.getDepthSearchedInPly(data),
+				FixedSizeTranspositionTable.getScore(data),
+				FixedSizeTranspositionTable.getType(data),
+				FixedSizeTranspositionTable.getBestMove(data));
+	}
+
+	void setView(long hashCode, byte depth, short score, byte bound, int bestMove) {
+		// Assigned directly, the setters would keep the move of the last entry viewed if it is equivalent
+		this.hashCode = hashCode;
+		this.depthSearchedInPly = depth;
+		this.score = score;
+		this.type = bound;
+		this.bestMove = bestMove;
+	}
+
+	void writeBack() {
+		table.putTranspositionData(hashCode, FixedSizeTranspositionTable.pack(depthSearchedInPly, score, type, bestMove));
+	}
+
+	@Override
+	public boolean checkUpdate(
+			byte new_Depth, 
+			short new_score,
+			byte new_bound,
+			int new_bestMove, 
+			List<Integer> pv) {
+		boolean isUpdated = super.checkUpdate(new_Depth, new_score, new_bound, new_bestMove, pv);
+		if (isUpdated) {
+			writeBack();
+		}
+		return isUpdated;
+	}
+
+	@Override
+	public boolean checkUpdateToExact(
+			byte currDepthSearchedInPly,
+			short new_score,
+			int new_bestMove) {
+		boolean wasSetAsExact = super.checkUpdateToExact(currDepthSearchedInPly, new_score, new_bestMove);
+		if (wasSetAsExact) {
+			writeBack();
+		}
+		return wasSetAsExact;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		// Views are reused, so they are equal if they currently describe the same table entry
+		if (!(other instanceof PackedTransposition)) {
+			return false;
+		}
+		PackedTransposition trans = (PackedTransposition) other;
+		return table == trans.table && hashCode == trans.hashCode &&
+				FixedSizeTranspositionTable.pack(depthSearchedInPly, score, type, bestMove) ==
+				FixedSizeTranspositionTable.pack(trans.depthSearchedInPly, trans.score, trans.type, trans.bestMove);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(hashCode);
+	}
+}
@@ -15,7 +15,6 @@ public class Transposition implements ITransposition {
 	protected short score;
 	protected byte type;
 	protected int bestMove;
-	protected short accessCount;
 
 	public Transposition(byte depth, short score, byte bound, GenericMove bestMove) {
 		// Only used by tests
@@ -27,7 +26,6 @@ public class Transposition implements ITransposition {
 		setScore(score);
 		setType(bound);
 		setBestMove(bestMove);
-		setAccessCount((short)0);
 	}
 
 	@Override
@@ -79,7 +77,7 @@ public class Transposition implements ITransposition {
 	}
 	
 	@Override
-	public synchronized boolean checkUpdate(
+	public boolean checkUpdate(
 			byte new_Depth, 
 			short new_score,
 			byte new_bound,
@@ -121,7 +119,7 @@ public class Transposition implements ITransposition {
 	}
 	
 	@Override
-	public synchronized boolean checkUpdateToExact(
+	public boolean checkUpdateToExact(
 			byte currDepthSearchedInPly,
 			short new_score,
 			int new_bestMove) {
@@ -136,19 +134,7 @@ public class Transposition implements ITransposition {
 		return wasSetAsExact;
 	}
 	
-	public short getAccessCount() {
-		return accessCount;
-	}
-	
-	public void setAccessCount(short accessCount) {
-		this.accessCount = accessCount;
-	}
-	
-	public List<Integer> getPv() {
-		return null;
-	}
-	
-	public synchronized TranspositionTableStatus evaluateSuitability(byte currPly, int depthRequiredPly, ScoreTracker st) {
+	public TranspositionTableStatus evaluateSuitability(byte currPly, int depthRequiredPly, ScoreTracker st) {
 		TranspositionTableStatus eval = TranspositionTableStatus.insufficientNoData;
 		if (getDepthSearchedInPly() >= depthRequiredPly) {
 			
@@ -156,7 +142,7 @@ public class Transposition implements ITransposition {
 				eval = TranspositionTableStatus.sufficientTerminalNode;
 				
 			} else { // must be either (bound == Score.upperBound || bound == Score.lowerBound)
-				if (st.isAlphaBetaCutOffForHash(currPly, getScore())) {
+				if (st.isAlphaBetaCutOffForHash(currPly, getScore(), getType())) {
 					eval = TranspositionTableStatus.sufficientRefutation;
 		        } else {
 		        	eval = TranspositionTableStatus.sufficientSeedMoveList;
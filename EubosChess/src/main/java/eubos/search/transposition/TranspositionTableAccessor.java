@@ -1,17 +1,20 @@
 package eubos.search.transposition;
 
-import java.util.List;
-
 import eubos.position.IPositionAccessors;
 import eubos.search.ScoreTracker;
 import eubos.search.SearchDebugAgent;
 
 public class TranspositionTableAccessor implements ITranspositionAccessor {
 	
+	private static final int MAX_PLY = Byte.MAX_VALUE+1;
+	
 	private FixedSizeTranspositionTable hashMap;
 	private IPositionAccessors pos;
 	private ScoreTracker st;
 	private SearchDebugAgent sda;
+	// One evaluation and one table view per ply, reused for every node searched at that ply
+	private TranspositionEvaluation[] evalStack;
+	private PackedTransposition[] viewStack;
 	
 	public TranspositionTableAccessor(
 			FixedSizeTranspositionTable transTable,
@@ -22,51 +25,55 @@ public class TranspositionTableAccessor implements ITranspositionAccessor {
 		this.pos = pos;
 		this.st = st;
 		this.sda = sda;
+		evalStack = new TranspositionEvaluation[MAX_PLY];
+		viewStack = new PackedTransposition[MAX_PLY];
 	}
 	
 	public TranspositionEvaluation getTransposition(byte currPly, int depthRequiredPly) {
-		TranspositionEvaluation eval = new TranspositionEvaluation();
-		eval.trans = hashMap.getTransposition(pos.getHash());
-		if (eval.trans != null) {
+		TranspositionEvaluation eval = evalStack[currPly];
+		if (eval == null) {
+			eval = evalStack[currPly] = new TranspositionEvaluation();
+		}
+		eval.status = TranspositionEvaluation.TranspositionTableStatus.insufficientNoData;
+		eval.trans = null;
+		long data = hashMap.getTranspositionData(pos.getHash());
+		if (data != 0L) {
+			PackedTransposition view = getView(currPly);
+			view.setView(pos.getHash(), data);
+			eval.trans = view;
 			eval.status = eval.trans.evaluateSuitability(currPly, depthRequiredPly, st);
 		}
 		return eval;
 	}
 	
-	public ITransposition setTransposition(ITransposition trans, byte new_Depth, short new_score, byte new_bound, int new_bestMove) {
-		return setTransposition(trans, new_Depth, new_score, new_bound, new_bestMove, null);
-	}
-	
-	public ITransposition setTransposition(ITransposition trans, byte new_Depth, short new_score, byte new_bound, int new_bestMove, List<Integer> pv) {
-		boolean is_created = false;
+	public ITransposition setTransposition(byte currPly, ITransposition trans, byte new_Depth, short new_score, byte new_bound, int new_bestMove) {
 		if (trans == null) {
 			// Needed, because we want to merge this transposition with that of other threads, not to lose their effort.
-			// Read, modify, write, otherwise we blindly update the transposition table, potentially overwriting other thread's Transposition object.
-			trans = hashMap.getTransposition(pos.getHash());
-			if (trans == null) {
-				trans = createTranpositionAddToTable(new_Depth, new_score, new_bound, new_bestMove, pv);
-				is_created = true;
+			// Read, modify, write, otherwise we blindly update the transposition table, potentially overwriting other thread's entry.
+			PackedTransposition view = getView(currPly);
+			long data = hashMap.getTranspositionData(pos.getHash());
+			if (data == 0L) {
+				sda.printCreateTrans(pos.getHash());
+				view.setView(pos.getHash(), new_Depth, new_score, new_bound, new_bestMove);
+				view.writeBack();
+				sda.printTransUpdate(view, pos.getHash());
+				return view;
 			}
+			view.setView(pos.getHash(), data);
+			trans = view;
 		}
-		if (!is_created) {
-			boolean is_updated = trans.checkUpdate(new_Depth, new_score, new_bound, new_bestMove, pv);
-			if (is_updated) {
-				sda.printTransUpdate(trans, pos.getHash());
-			}
+		boolean is_updated = trans.checkUpdate(new_Depth, new_score, new_bound, new_bestMove, null);
+		if (is_updated) {
+			sda.printTransUpdate(trans, pos.getHash());
 		}
 		return trans;
 	}
 	
-	private ITransposition createTranpositionAddToTable(byte new_Depth, short new_score, byte new_bound, int new_bestMove, List<Integer> pv) {
-		ITransposition new_trans;
-		sda.printCreateTrans(pos.getHash());
-		if (USE_PRINCIPAL_VARIATION_TRANSPOSITIONS) {
-			new_trans = new PrincipalVariationTransposition(new_Depth, new_score, new_bound, new_bestMove, pv);
-		} else {
-			new_trans= new Transposition(new_Depth, new_score, new_bound, new_bestMove, null);
+	private PackedTransposition getView(byte currPly) {
+		PackedTransposition view = viewStack[currPly];
+		if (view == null) {
+			view = viewStack[currPly] = new PackedTransposition(hashMap);
 		}
-		hashMap.putTransposition(pos.getHash(), new_trans);
-		sda.printTransUpdate(new_trans, pos.getHash());
-		return new_trans;
+		return view;
 	}
 }
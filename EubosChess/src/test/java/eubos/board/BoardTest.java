@@ -9,12 +9,14 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.fluxchess.jcpi.models.GenericMove;
 import com.fluxchess.jcpi.models.GenericPosition;
 import com.fluxchess.jcpi.models.IllegalNotationException;
 
 import eubos.position.Move;
 import eubos.position.Position;
 import eubos.position.PositionManager;
+import eubos.score.PiecewiseEvaluation;
 import eubos.search.DrawChecker;
 
 public class BoardTest {
@@ -357,11 +359,77 @@ public class BoardTest {
 				k = 0;
 				for (long mask : inDirection) {
 					int position = SquareAttackEvaluator.directPieceMove_Lut[i][j][k];
-					assertEquals(BitBoard.positionToMask_Lut[position], mask);
+					assertEquals((1L << position), mask);
 					k++;
 				}
 				j++;
 			}
 		}
 	}
+	
+	@Test
+	public void testEvaluateMaterial_IncrementalMatchesFromScratch() throws Exception {
+		PositionManager pm = new PositionManager("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+		PiecewiseEvaluation initial = pm.getTheBoard().evaluateMaterial();
+		short initialDelta = initial.getDelta();
+		short initialPosition = initial.getPosition();
+		
+		pm.performMove(Move.toMove(new GenericMove("e1g1"), pm.getTheBoard()));
+		pm.performMove(Move.toMove(new GenericMove("h3g2"), pm.getTheBoard()));
+		pm.performMove(Move.toMove(new GenericMove("e5f7"), pm.getTheBoard()));
+		PiecewiseEvaluation incremental = pm.getTheBoard().evaluateMaterial();
+		PiecewiseEvaluation fromScratch = new PositionManager(pm.getFen()).getTheBoard().evaluateMaterial();
+		assertEquals(fromScratch.getWhite(), incremental.getWhite());
+		assertEquals(fromScratch.getBlack(), incremental.getBlack());
+		assertEquals(fromScratch.getPosition(), incremental.getPosition());
+		
+		pm.unperformMove();
+		pm.unperformMove();
+		pm.unperformMove();
+		PiecewiseEvaluation restored = pm.getTheBoard().evaluateMaterial();
+		assertEquals(initialDelta, restored.getDelta());
+		assertEquals(initialPosition, restored.getPosition());
+	}
+	
+	private void assertPiecesMatch(Board expected, Board actual) {
+		for (int atPos : Position.values) {
+			assertEquals(expected.getPieceAtSquare(atPos), actual.getPieceAtSquare(atPos));
+		}
+	}
+	
+	@Test
+	public void testGetPieceAtSquare_MailboxFollowsMoves() throws Exception {
+		String fen = "r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1";
+		PositionManager pm = new PositionManager(fen);
+		// En passant capture, castling and a promotion with capture
+		pm.performMove(Move.toMove(new GenericMove("e5d6"), pm.getTheBoard()));
+		pm.performMove(Move.toMove(new GenericMove("e8g8"), pm.getTheBoard()));
+		pm.performMove(Move.toMove(new GenericMove("b7a8q"), pm.getTheBoard()));
+		assertPiecesMatch(new PositionManager(pm.getFen()).getTheBoard(), pm.getTheBoard());
+		assertEquals(Piece.WHITE_QUEEN, pm.getTheBoard().getPieceAtSquare(Position.a8));
+		assertEquals(Piece.BLACK_ROOK, pm.getTheBoard().getPieceAtSquare(Position.f8));
+		assertEquals(Piece.NONE, pm.getTheBoard().getPieceAtSquare(Position.d5));
+		
+		pm.unperformMove();
+		pm.unperformMove();
+		pm.unperformMove();
+		assertPiecesMatch(new PositionManager(fen).getTheBoard(), pm.getTheBoard());
+	}
+	
+	@Test
+	public void testGetPieceAtSquareOptimise_OwnPieceIsDontCare() {
+		classUnderTest.setPieceAtSquare(Position.e4, Piece.WHITE_KNIGHT);
+		classUnderTest.setPieceAtSquare(Position.d5, Piece.BLACK_PAWN);
+		assertEquals(Piece.DONT_CARE, classUnderTest.getPieceAtSquareOptimise(Position.e4, true));
+		assertEquals(Piece.BLACK_PAWN, classUnderTest.getPieceAtSquareOptimise(Position.d5, true));
+		assertEquals(Piece.WHITE_KNIGHT, classUnderTest.getPieceAtSquareOptimise(Position.e4, false));
+		assertEquals(Piece.NONE, classUnderTest.getPieceAtSquareOptimise(Position.e5, false));
+	}
+	
+	@Test
+	public void test_hasOnlyKingAndPawns() throws InvalidPieceException, IllegalNotationException {
+		setUpPosition("8/5pk1/6p1/8/7P/6P1/r4P1K/8 w - - 0 1");
+		assertTrue(classUnderTest.hasOnlyKingAndPawns(Piece.Colour.white));
+		assertFalse(classUnderTest.hasOnlyKingAndPawns(Piece.Colour.black));
+	}
 }
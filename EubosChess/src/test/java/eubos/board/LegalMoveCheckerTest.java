@@ -0,0 +1,153 @@
+package eubos.board;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import eubos.position.Move;
+import eubos.position.Position;
+import eubos.position.PositionManager;
+
+public class LegalMoveCheckerTest {
+
+	private LegalMoveChecker classUnderTest;
+	private PositionManager pm;
+
+	private void setupPosition(String fen, boolean ownSideIsWhite) {
+		pm = new PositionManager(fen);
+		classUnderTest = new LegalMoveChecker();
+		classUnderTest.initialise(pm.getTheBoard(), ownSideIsWhite, pm.isKingInCheck(ownSideIsWhite ? Piece.Colour.white : Piece.Colour.black));
+	}
+
+	@Test
+	public void testNoPins_StartPosition() {
+		setupPosition("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", true);
+		assertEquals(0L, classUnderTest.getPinnedPieces());
+	}
+
+	@Test
+	public void testRankFilePin_OnlyMovesAlongRay() {
+		setupPosition("4r1k1/8/8/8/8/8/4R3/4K3 w - - 0 1", true);
+		assertEquals((1L << Position.e2), classUnderTest.getPinnedPieces());
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e2, Piece.WHITE_ROOK, Position.e5, Piece.NONE)));
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e2, Piece.WHITE_ROOK, Position.e8, Piece.BLACK_ROOK)));
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.e2, Piece.WHITE_ROOK, Position.d2, Piece.NONE)));
+	}
+
+	@Test
+	public void testDiagonalPin_KnightCantMove() {
+		setupPosition("6k1/8/8/b7/8/2N5/8/4K3 w - - 0 1", true);
+		assertEquals((1L << Position.c3), classUnderTest.getPinnedPieces());
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.c3, Piece.WHITE_KNIGHT, Position.b5, Piece.NONE)));
+	}
+
+	@Test
+	public void testNoPin_TwoPiecesBetween() {
+		setupPosition("4r1k1/8/8/8/4p3/8/4R3/4K3 w - - 0 1", true);
+		assertEquals(0L, classUnderTest.getPinnedPieces());
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e2, Piece.WHITE_ROOK, Position.d2, Piece.NONE)));
+	}
+
+	@Test
+	public void testNoPin_EnemyPieceBetween() {
+		setupPosition("6k1/8/8/b7/8/2n5/8/4K3 w - - 0 1", true);
+		assertEquals(0L, classUnderTest.getPinnedPieces());
+	}
+
+	@Test
+	public void testBlackPinned() {
+		setupPosition("4k3/4q3/8/8/8/8/8/4RK2 b - - 0 1", false);
+		assertEquals((1L << Position.e7), classUnderTest.getPinnedPieces());
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.e7, Piece.BLACK_QUEEN, Position.d6, Piece.NONE)));
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e7, Piece.BLACK_QUEEN, Position.e1, Piece.WHITE_ROOK)));
+	}
+
+	@Test
+	public void testKingMove_IntoAttackedSquare() {
+		setupPosition("4k3/8/8/8/8/8/8/r3K3 w - - 0 1", true);
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.d1, Piece.NONE)));
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.e2, Piece.NONE)));
+	}
+
+	@Test
+	public void testKingMove_BesideBlockedSlider() {
+		setupPosition("4k3/8/8/8/8/8/8/q1P1K3 w - - 0 1", true);
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.f1, Piece.NONE)));
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.d1, Piece.NONE)));
+	}
+
+	@Test
+	public void testKingCapture_DefendedPiece() {
+		setupPosition("4k3/8/8/8/8/3p4/4p3/4K3 w - - 0 1", true);
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.e2, Piece.BLACK_PAWN)));
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.d2, Piece.NONE)));
+	}
+
+	@Test
+	public void testMustBeMade_EnPassantAndCastling() {
+		int castle = Move.valueOf(Position.e1, Piece.WHITE_KING, Position.g1, Piece.NONE);
+		int kingStep = Move.valueOf(Position.e1, Piece.WHITE_KING, Position.f1, Piece.NONE);
+		int enPassant = Move.valueOf(Move.MISC_EN_PASSANT_CAPTURE_MASK, 0, Position.e5, Piece.WHITE_PAWN,
+				Position.d6, Piece.BLACK_PAWN, Piece.NONE);
+		assertTrue(LegalMoveChecker.mustBeMadeToCheckLegality(castle));
+		assertFalse(LegalMoveChecker.mustBeMadeToCheckLegality(kingStep));
+		assertTrue(LegalMoveChecker.mustBeMadeToCheckLegality(enPassant));
+	}
+
+	@Test
+	public void testSliderCheck_EvasionTargetsAreRayAndChecker() {
+		setupPosition("4k3/8/8/8/8/8/8/r3K3 w - - 0 1", true);
+		assertFalse(classUnderTest.isDoubleCheck());
+		long expected = (1L << Position.a1) | (1L << Position.b1) |
+				(1L << Position.c1) | (1L << Position.d1);
+		assertEquals(expected, classUnderTest.getEvasionTargets());
+	}
+
+	@Test
+	public void testKnightCheck_OnlyCaptureOfCheckerOrKingMove() {
+		setupPosition("4k3/8/8/8/8/5n2/8/R3K3 w - - 0 1", true);
+		assertEquals((1L << Position.f3), classUnderTest.getEvasionTargets());
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.a1, Piece.WHITE_ROOK, Position.d1, Piece.NONE)));
+		assertFalse(classUnderTest.isEvasionCandidate(Move.valueOf(Position.a1, Piece.WHITE_ROOK, Position.d1, Piece.NONE)));
+		assertTrue(classUnderTest.isEvasionCandidate(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.f1, Piece.NONE)));
+	}
+
+	@Test
+	public void testDoubleCheck() {
+		setupPosition("4r1k1/8/8/8/8/5n2/8/4K3 w - - 0 1", true);
+		assertTrue(classUnderTest.isDoubleCheck());
+		assertEquals(0L, classUnderTest.getEvasionTargets());
+	}
+
+	@Test
+	public void testInCheck_PinnedPieceCantBlock() {
+		// The bishop on d2 is pinned by the a5 queen, so it can't block the rook check on e3
+		setupPosition("4r1k1/8/8/q7/8/8/3B4/4K3 w - - 0 1", true);
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.d2, Piece.WHITE_BISHOP, Position.e3, Piece.NONE)));
+	}
+
+	@Test
+	public void testInCheck_KingCantRetreatAlongCheckRay() {
+		setupPosition("4k3/8/8/8/8/8/8/r3K3 w - - 0 1", true);
+		assertFalse(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.f1, Piece.NONE)));
+		assertTrue(classUnderTest.isLegal(Move.valueOf(Position.e1, Piece.WHITE_KING, Position.f2, Piece.NONE)));
+	}
+
+	@Test
+	public void testHasLegalPieceMove_OnlyPawnCanMove() {
+		setupPosition("8/8/8/8/8/8/P7/K1k5 w - - 0 1", true);
+		assertFalse(classUnderTest.hasLegalPieceMove());
+	}
+
+	@Test
+	public void testHasLegalPieceMove_PinnedKnightCantMove() {
+		setupPosition("8/8/8/8/8/2b5/PN6/K1k5 w - - 0 1", true);
+		assertFalse(classUnderTest.hasLegalPieceMove());
+	}
+
+	@Test
+	public void testHasLegalPieceMove_PinnedRookAlongRay() {
+		setupPosition("8/8/8/8/r7/8/R7/K1k5 w - - 0 1", true);
+		assertTrue(classUnderTest.hasLegalPieceMove());
+	}
+}
@@ -0,0 +1,73 @@
+package eubos.board;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import eubos.position.Position;
+import eubos.position.PositionManager;
+
+public class MagicBitBoardTest {
+
+	private static final int NUM_RANDOM_OCCUPANCIES = 200;
+
+	private void assertAttacksMatchRayWalk(long occupied) {
+		for (int square : Position.values) {
+			assertEquals(MagicBitBoard.createAttacksSlowly(square, SquareAttackEvaluator.rankFile, occupied),
+					MagicBitBoard.getRookAttacks(square, occupied));
+			assertEquals(MagicBitBoard.createAttacksSlowly(square, SquareAttackEvaluator.diagonals, occupied),
+					MagicBitBoard.getBishopAttacks(square, occupied));
+			assertEquals(MagicBitBoard.createAttacksSlowly(square, SquareAttackEvaluator.allDirect, occupied),
+					MagicBitBoard.getQueenAttacks(square, occupied));
+		}
+	}
+
+	@Test
+	public void testAttacks_EmptyBoard() {
+		assertAttacksMatchRayWalk(0L);
+	}
+
+	@Test
+	public void testAttacks_FullBoard() {
+		assertAttacksMatchRayWalk(0xFFFFFFFFFFFFFFFFL);
+	}
+
+	@Test
+	public void testAttacks_RandomOccupancies() {
+		Random random = new Random(0x1234L);
+		for (int i=0; i < NUM_RANDOM_OCCUPANCIES; i++) {
+			assertAttacksMatchRayWalk(random.nextLong() & random.nextLong());
+		}
+	}
+
+	@Test
+	public void testRookAttacks_a1_BlockedOnFileAndRank() {
+		long occupied = (1L << Position.a4) | (1L << Position.c1);
+		long expected = (1L << Position.a2) | (1L << Position.a3) |
+				(1L << Position.a4) | (1L << Position.b1) |
+				(1L << Position.c1);
+		assertEquals(expected, MagicBitBoard.getRookAttacks(Position.a1, occupied));
+	}
+
+	@Test
+	public void testBishopAttacks_d4_EmptyBoard() {
+		assertEquals(13, Long.bitCount(MagicBitBoard.getBishopAttacks(Position.d4, 0L)));
+	}
+
+	@Test
+	public void testRelevantOccupancyMask_ExcludesEdges() {
+		assertEquals(12, Long.bitCount(MagicBitBoard.createRelevantOccupancyMask(Position.a1, SquareAttackEvaluator.rankFile)));
+		assertEquals(9, Long.bitCount(MagicBitBoard.createRelevantOccupancyMask(Position.d4, SquareAttackEvaluator.diagonals)));
+	}
+
+	@Test
+	public void testMobility_MatchesCountOfEmptySquares() {
+		PositionManager pm = new PositionManager("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+		Board bd = pm.getTheBoard();
+		assertEquals(14, bd.getTwiceNumEmptyAllDirectSquares(Position.f3));
+		assertEquals(10, bd.getTwiceNumEmptyDiagonalSquares(Position.e2));
+		assertEquals(6, bd.getTwiceNumEmptyRankFileSquares(Position.a1));
+	}
+}
@@ -0,0 +1,99 @@
+package eubos.main;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+public class BenchTest {
+
+	private static final byte TEST_DEPTH = 3;
+
+	@Test
+	public void testNodeCountIsDeterministic() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Bench first = new Bench();
+		first.run(TEST_DEPTH, new PrintStream(output));
+		Bench second = new Bench();
+		second.run(TEST_DEPTH, new PrintStream(output));
+		assertTrue(first.getNodes() > 0);
+		assertEquals(first.getNodes(), second.getNodes());
+	}
+
+	@Test
+	public void testReportsEachPositionAndTotal() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Bench sut = new Bench();
+		sut.run(TEST_DEPTH, new PrintStream(output));
+		String[] lines = output.toString().trim().split("\\R");
+		assertEquals(Bench.FENS.length+1, lines.length);
+		assertTrue(lines[lines.length-1].startsWith(String.format("bench depth %d nodes %d", TEST_DEPTH, sut.getNodes())));
+	}
+
+	@Test
+	public void testPrincipalVariationSearchNeedsFewerNodes() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Bench plySearcher = new Bench();
+		plySearcher.run(TEST_DEPTH, new PrintStream(output));
+		Bench pvs = new Bench();
+		pvs.setPrincipalVariationSearch(true);
+		pvs.run(TEST_DEPTH, new PrintStream(output));
+		assertTrue(pvs.getNodes() > 0);
+		assertTrue(pvs.getNodes() < plySearcher.getNodes());
+	}
+
+	@Test
+	public void testParseDepth() {
+		assertEquals(Bench.DEFAULT_DEPTH, Bench.parseDepth(new String[] {"bench"}, 1));
+		assertEquals(5, Bench.parseDepth(new String[] {"bench", "5"}, 1));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testParseOptions_Unknown() {
+		new Bench().parseOptions(new String[] {"bench", "5", "pvs", "x"}, 2);
+	}
+
+	@Test
+	public void testCommandReader_PassesOptionsOn() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Bench pvs = new Bench();
+		pvs.setPrincipalVariationSearch(true);
+		pvs.setAspirationWindows(false);
+		pvs.run(TEST_DEPTH, new PrintStream(output));
+		output.reset();
+		BenchCommandReader sut = new BenchCommandReader(
+				new StringReader(String.format("bench %d pvs noaspiration\nquit\n", TEST_DEPTH)), new PrintStream(output));
+		assertEquals("quit", sut.readLine());
+		assertTrue(output.toString().contains(String.format("bench depth %d nodes %d ", TEST_DEPTH, pvs.getNodes())));
+	}
+
+	@Test
+	public void testCommandReader_RunsBenchAndPassesOtherCommandsOn() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BenchCommandReader sut = new BenchCommandReader(new StringReader("uci\nbench 2\nisready\n"), new PrintStream(output));
+		assertEquals("uci", sut.readLine());
+		assertEquals("isready", sut.readLine());
+		assertTrue(output.toString().contains("bench depth 2 nodes"));
+		assertNull(sut.readLine());
+	}
+
+	@Test
+	public void testCommandReader_BadDepth() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BenchCommandReader sut = new BenchCommandReader(new StringReader("bench x\nquit\n"), new PrintStream(output));
+		assertEquals("quit", sut.readLine());
+		assertTrue(output.toString().startsWith("usage"));
+	}
+
+	@Test
+	public void testCommandReader_OptionWithoutDepth() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BenchCommandReader sut = new BenchCommandReader(new StringReader("bench pvs\nquit\n"), new PrintStream(output));
+		assertEquals("quit", sut.readLine());
+		assertTrue(output.toString().startsWith("usage"));
+	}
+}
@@ -70,11 +70,14 @@ public class EubosEngineMainTest {
 	// Outputs
 	private static final String ID_NAME_CMD = "id name Eubos 2.0"+CMD_TERMINATOR;
 	private static final String ID_AUTHOR_CMD = "id author Chris Bolt"+CMD_TERMINATOR;
-	private static final String OPTION_HASH = "option name Hash type spin default 1310 min 32 max 4000"+CMD_TERMINATOR;
+	private static final String OPTION_HASH = "option name Hash type spin default 524 min 32 max 64000"+CMD_TERMINATOR;
 	private static final String OPTION_THREADS = String.format(
 			"option name Threads type spin default %s min 1 max %s%s",
 			Math.max(1, Runtime.getRuntime().availableProcessors()-2),
 			Runtime.getRuntime().availableProcessors(), CMD_TERMINATOR);
+	private static final String OPTION_HASH_FILE = "option name HashFile type string default <empty>"+CMD_TERMINATOR;
+	private static final String OPTION_SAVE_HASH = "option name SaveHash type button"+CMD_TERMINATOR;
+	private static final String OPTION_EVAL_HASH = "option name EvalHash type spin default 1 min 1 max 256"+CMD_TERMINATOR;
 	private static final String UCI_OK_CMD = "uciok"+CMD_TERMINATOR;
 	private static final String READY_OK_CMD = "readyok"+CMD_TERMINATOR;
 	
@@ -656,7 +659,7 @@ public class EubosEngineMainTest {
 	}
 
 	private void setupEngine() {
-		commands.add(new commandPair(UCI_CMD, ID_NAME_CMD+ID_AUTHOR_CMD+OPTION_HASH+OPTION_THREADS+UCI_OK_CMD));
+		commands.add(new commandPair(UCI_CMD, ID_NAME_CMD+ID_AUTHOR_CMD+OPTION_HASH+OPTION_THREADS+OPTION_HASH_FILE+OPTION_SAVE_HASH+OPTION_EVAL_HASH+UCI_OK_CMD));
 		commands.add(new commandPair("setoption name NumberOfWorkerThreads value 1"+CMD_TERMINATOR, null));
 		commands.add(new commandPair(ISREADY_CMD,READY_OK_CMD));
 		commands.add(new commandPair(NEWGAME_CMD,null));
@@ -309,5 +309,197 @@ public class MoveListTest {
 		classUnderTest = new MoveList(pm, best, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.NOPOSITION);
 		assertEquals(new GenericMove("f8b4"), Move.toGenericMove(classUnderTest.getBestMove()));
 	}
+	
+	@Test
+	public void test_reused_move_list_matches_newly_created() throws InvalidPieceException {
+		PositionManager pm = new PositionManager("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+		MoveList reused = new MoveList();
+		reused.initialise(new PositionManager("8/4P3/8/8/8/8/8/8 w - - - -"), 1);
+		for (int ordering = 0; ordering <= 4; ordering++) {
+			reused.initialise(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, ordering, Position.NOPOSITION);
+			classUnderTest = new MoveList(pm, ordering);
+			assertEquals(48, reused.size());
+			assertEquals(classUnderTest.getList(), reused.getList());
+		}
+	}
+	
+	@Test
+	public void test_primitive_iterator_is_reset_by_each_call() throws InvalidPieceException, IllegalNotationException {
+		setup("8/3k3B/8/1p6/2P5/8/4K3/8 w - - 0 1 ");
+		MoveList.MoveListIterator it = classUnderTest.getStandardIterator(NORMAL, Position.NOPOSITION);
+		assertEquals(new GenericMove("c4b5"), Move.toGenericMove(it.nextInt()));
+		it = classUnderTest.getStandardIterator(NORMAL, Position.NOPOSITION);
+		assertEquals(new GenericMove("c4b5"), Move.toGenericMove(it.nextInt()));
+		int count = 1;
+		while (it.hasNext()) {
+			assertEquals(classUnderTest.getMove(count), it.nextInt());
+			count++;
+		}
+		assertEquals(classUnderTest.size(), count);
+	}
+	
+	private void assertStagedMatchesEager(PositionManager pm, int best, int killer1, int killer2, int ordering, boolean extended) throws InvalidPieceException {
+		int targetSq = extended ? pm.lastMoveTargetSquare() : Position.NOPOSITION;
+		// Generate the staged list first, as making and unmaking promotions can reorder the piece lists
+		MoveList staged = new MoveList();
+		staged.initialiseStaged(pm, best, killer1, killer2, ordering, targetSq);
+		classUnderTest = new MoveList(pm, best, killer1, killer2, ordering, targetSq);
+		assertEquals(classUnderTest.isMateOccurred(), staged.isMateOccurred());
+		Iterator<Integer> eager_it = classUnderTest.getStandardIterator(extended, pm.lastMoveTargetSquare());
+		MoveList.MoveListIterator staged_it = staged.getStandardIterator(extended, pm.lastMoveTargetSquare());
+		while (eager_it.hasNext()) {
+			assertTrue(staged_it.hasNext());
+			assertEquals((int)eager_it.next(), staged_it.nextInt());
+		}
+		assertFalse(staged_it.hasNext());
+	}
+	
+	@Test
+	public void test_staged_best_and_killer_ordering_matches_eager() throws InvalidPieceException, IllegalNotationException {
+		PositionManager pm = new PositionManager( "8/3k3B/8/1p6/2P5/8/4K3/8 w - - 0 1 " );
+		int best = Move.toMove(new GenericMove("c4c5"), pm.getTheBoard());
+		int killer1 = Move.toMove(new GenericMove("e2d1"), pm.getTheBoard());
+		int killer2 = Move.toMove(new GenericMove("h7e4"), pm.getTheBoard());
+		for (int ordering = 0; ordering <= 4; ordering++) {
+			assertStagedMatchesEager(pm, best, killer1, killer2, ordering, NORMAL);
+		}
+	}
+	
+	@Test
+	public void test_staged_ordering_matches_eager_with_promotions_and_captures() throws InvalidPieceException {
+		PositionManager pm = new PositionManager("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 b kq - 0 1");
+		for (int ordering = 0; ordering <= 4; ordering++) {
+			assertStagedMatchesEager(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, ordering, NORMAL);
+		}
+	}
+	
+	@Test
+	public void test_staged_extended_search_moves_match_eager() throws InvalidPieceException {
+		PositionManager pm = new PositionManager("6k1/PBN5/8/2Kp4/2P5/5Q2/8/3R4 w - - 0 1 ");
+		assertStagedMatchesEager(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, EXTENDED);
+	}
+	
+	@Test
+	public void test_staged_illegal_moves_are_skipped_when_in_check() throws InvalidPieceException, IllegalNotationException {
+		PositionManager pm = new PositionManager("4k3/8/8/8/8/8/3q4/4K3 w - - 0 1");
+		int illegal_best = Move.valueOf(Position.e1, Piece.WHITE_KING, Position.e2, Piece.NONE);
+		assertStagedMatchesEager(pm, illegal_best, Move.NULL_MOVE, Move.NULL_MOVE, 1, NORMAL);
+		MoveList staged = new MoveList();
+		staged.initialiseStaged(pm, illegal_best, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.NOPOSITION);
+		MoveList.MoveListIterator it = staged.getStandardIterator(NORMAL, Position.NOPOSITION);
+		assertEquals(new GenericMove("e1d2"), Move.toGenericMove(it.nextInt()));
+		assertEquals(new GenericMove("e1f1"), Move.toGenericMove(it.nextInt()));
+		assertFalse(it.hasNext());
+	}
+	
+	@Test
+	public void test_staged_mate_is_detected() throws InvalidPieceException {
+		PositionManager pm = new PositionManager("8/8/8/8/8/1pp5/ppp5/Kp6 w - - - -"); // is_stalemate
+		MoveList staged = new MoveList();
+		staged.initialiseStaged(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.NOPOSITION);
+		assertTrue(staged.isMateOccurred());
+		assertFalse(staged.getStandardIterator(NORMAL, Position.NOPOSITION).hasNext());
+	}
 	 
+	
+	@Test
+	public void test_staged_list_accessors_are_rejected() throws InvalidPieceException {
+		PositionManager pm = new PositionManager("4k3/8/8/8/8/8/3q4/4K3 w - - 0 1");
+		MoveList staged = new MoveList();
+		staged.initialiseStaged(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.NOPOSITION);
+		try {
+			staged.size();
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		try {
+			staged.getBestMove();
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		try {
+			staged.getList();
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		// Lists the pseudo-legal moves, including the illegal ones that the iterator skips
+		assertTrue(staged.toString().startsWith("staged: "));
+		assertTrue(staged.toString().contains("e1e2"));
+	}
+	
+	@Test
+	public void test_staged_hasNextMove_matches_hasNext() throws InvalidPieceException {
+		PositionManager pm = new PositionManager("4k3/8/8/8/8/8/3q4/4K3 w - - 0 1");
+		MoveList staged = new MoveList();
+		staged.initialiseStaged(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.NOPOSITION);
+		MoveList.MoveListIterator it = staged.getStandardIterator(NORMAL, Position.NOPOSITION);
+		int count = 0;
+		while (it.hasNextMove()) {
+			assertTrue(it.hasNext());
+			it.nextInt();
+			count++;
+		}
+		assertFalse(it.hasNext());
+		assertEquals(new MoveList(pm).size(), count);
+	}
+	
+	@Test
+	public void test_check_evasions_only_block_capture_or_move_king() throws InvalidPieceException, IllegalNotationException {
+		// Rook checks along the e-file; the bishop and knight can block, or the king can step aside
+		PositionManager pm = new PositionManager("4r1k1/8/8/8/8/2B3N1/8/4K3 w - - 0 1");
+		classUnderTest = new MoveList(pm);
+		assertEquals(7, classUnderTest.size());
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("c3e5"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("g3e4"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("e1d1"), pm.getTheBoard())));
+		assertFalse(classUnderTest.contains(Move.toMove(new GenericMove("e1e2"), pm.getTheBoard())));
+	}
+	
+	@Test
+	public void test_double_check_only_king_moves() throws InvalidPieceException {
+		setup("4r1k1/8/8/8/8/2B2n2/8/4K3 w - - 0 1");
+		for (int i=0; i < classUnderTest.size(); i++) {
+			assertEquals(Piece.WHITE_KING, Move.getOriginPiece(classUnderTest.getMove(i)));
+		}
+		assertEquals(3, classUnderTest.size());
+	}
+	
+	@Test
+	public void test_check_evasions_pawn_pushes_interpose() throws InvalidPieceException, IllegalNotationException {
+		// Rook checks along the fourth rank; the pawns can block with single and double pushes, or capture it
+		PositionManager pm = new PositionManager("7k/8/8/8/r6K/1P1P4/4P3/8 w - - 0 1");
+		classUnderTest = new MoveList(pm);
+		assertEquals(8, classUnderTest.size());
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("b3b4"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("b3a4"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("d3d4"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("e2e4"), pm.getTheBoard())));
+		assertFalse(classUnderTest.contains(Move.toMove(new GenericMove("e2e3"), pm.getTheBoard())));
+	}
+	
+	@Test
+	public void test_check_evasions_en_passant_captures_checking_pawn() throws InvalidPieceException, IllegalNotationException {
+		PositionManager pm = new PositionManager("7k/8/8/3pP3/4K3/8/8/8 w - d6 0 1");
+		classUnderTest = new MoveList(pm);
+		assertEquals(8, classUnderTest.size());
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("e5d6"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("e4d5"), pm.getTheBoard())));
+	}
+	
+	@Test
+	public void test_staged_check_evasions_match_eager() throws InvalidPieceException {
+		PositionManager pm = new PositionManager("r3k2r/p1pp1pb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBqPPP/R3K2R w KQkq - 0 1");
+		assertStagedMatchesEager(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, NORMAL);
+	}
+	
+	@Test
+	public void test_extended_search_only_generates_captures_on_square_and_queen_promotions() throws InvalidPieceException, IllegalNotationException {
+		PositionManager pm = new PositionManager("3k4/1P6/8/3p4/4P3/2N5/P7/4K2R w K - 0 1");
+		classUnderTest = new MoveList(pm, Move.NULL_MOVE, Move.NULL_MOVE, Move.NULL_MOVE, 1, Position.d5);
+		assertEquals(3, classUnderTest.size());
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("b7b8q"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("e4d5"), pm.getTheBoard())));
+		assertTrue(classUnderTest.contains(Move.toMove(new GenericMove("c3d5"), pm.getTheBoard())));
+		assertTrue(classUnderTest.hasLegalPieceMove());
+	}
 }
@@ -834,4 +834,26 @@ public class PositionManagerTest {
 		contains( Move.valueOf( Position.a1, Piece.BLACK_ROOK, Position.a2, Piece.WHITE_PAWN ));
 		doesntContain( Move.valueOf( Position.a1, Piece.BLACK_ROOK, Position.a3, Piece.WHITE_PAWN ));
 	}
+	
+	@Test
+	public void test_performNullMove_GivesHashOfPositionWithOtherSideOnMove() {
+		classUnderTest = new PositionManager("rnbqkbnr/pppp1ppp/8/8/3pP3/8/PPP2PPP/RNBQKBNR b KQkq e3 0 3");
+		PositionManager expectedPm = new PositionManager("rnbqkbnr/pppp1ppp/8/8/3pP3/8/PPP2PPP/RNBQKBNR w KQkq - 0 4");
+		classUnderTest.performNullMove();
+		assertEquals(expectedPm.getHash(), classUnderTest.getHash());
+		assertEquals(Piece.Colour.white, classUnderTest.getOnMove());
+		assertEquals(Position.NOPOSITION, classUnderTest.getTheBoard().getEnPassantTargetSq());
+		assertEquals(Position.NOPOSITION, classUnderTest.lastMoveTargetSquare());
+	}
+	
+	@Test
+	public void test_performUnperformNullMove_RestoresPosition() {
+		classUnderTest = new PositionManager("rnbqkbnr/pppp1ppp/8/8/3pP3/8/PPP2PPP/RNBQKBNR b KQkq e3 0 3");
+		long initialHashCode = classUnderTest.getHash();
+		String initialFen = classUnderTest.getFen();
+		classUnderTest.performNullMove();
+		classUnderTest.unperformNullMove();
+		assertEquals(initialHashCode, classUnderTest.getHash());
+		assertEquals(initialFen, classUnderTest.getFen());
+	}
 }
\ No newline at end of file
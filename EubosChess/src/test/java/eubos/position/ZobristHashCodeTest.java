@@ -296,4 +296,38 @@ public class ZobristHashCodeTest {
 
 		assertEquals(originalHashCode, pm.getHash());	
 	}
+	
+	@Test
+	public void test_pawnHash_PieceMove_DoesNotChangePawnHash() throws Exception {
+		PositionManager pm = new PositionManager("4k3/4p3/8/8/8/8/4P3/4K1N1 w - - 0 1");
+		long originalPawnHash = pm.getPawnHash();
+		
+		pm.performMove(Move.valueOf(Position.g1, Piece.WHITE_KNIGHT, Position.f3, Piece.NONE));
+		
+		assertEquals(originalPawnHash, pm.getPawnHash());
+		assertNotEquals(0L, originalPawnHash);
+	}
+	
+	@Test
+	public void test_pawnHash_PerformCapture_GivesExpectedPawnHash() throws Exception {
+		GenericMove move = new GenericMove("e2f3");
+		PositionManager pm = new PositionManager("4k3/8/8/8/8/5p2/4P3/4K3 w - - 0 1");
+		PositionManager pm_after_capture = new PositionManager("4k3/8/8/8/8/5P2/8/4K3 b - - 0 2");
+		long originalPawnHash = pm.getPawnHash();
+		
+		pm.performMove(Move.toMove(move, pm.getTheBoard(), Move.TYPE_REGULAR_NONE));
+		assertEquals(pm_after_capture.getPawnHash(), pm.getPawnHash());
+		pm.unperformMove();
+		assertEquals(originalPawnHash, pm.getPawnHash());
+	}
+	
+	@Test
+	public void test_pawnHash_Promotion_RemovesPawn() throws Exception {
+		PositionManager pm = new PositionManager("8/8/p6p/5kp1/1P6/5P1P/p4PK1/8 b - - 1 6 ");
+		PositionManager after_pm = new PositionManager("8/8/p6p/5kp1/1P6/5P1P/5PK1/q7 w - - 0 7 ");
+		
+		pm.performMove(Move.toMove(new GenericMove("a2a1Q"), pm.getTheBoard(), Move.TYPE_PROMOTION_MASK));
+		
+		assertEquals(after_pm.getPawnHash(), pm.getPawnHash());
+	}
 }
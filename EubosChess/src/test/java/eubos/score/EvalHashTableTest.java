@@ -0,0 +1,53 @@
+package eubos.score;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EvalHashTableTest {
+
+	EvalHashTable sut;
+	
+	@Before
+	public void setUp() {
+		sut = new EvalHashTable(1);
+	}
+	
+	@Test
+	public void testSizeInEntries() {
+		assertEquals(1 << 17, sut.getSize());
+	}
+	
+	@Test
+	public void testProbe_WhenEmpty_Misses() {
+		assertFalse(sut.probe(0x1234_5678_9ABCL));
+		assertEquals(0, sut.getHits());
+		assertEquals(1, sut.getMisses());
+	}
+	
+	@Test
+	public void testPutProbe_NegativeScore() {
+		sut.put(0x1234_5678_9ABCL, (short)-1500);
+		assertTrue(sut.probe(0x1234_5678_9ABCL));
+		assertEquals(-1500, sut.getScore(0x1234_5678_9ABCL));
+		assertEquals(1000, sut.getHitRatePermille());
+	}
+	
+	@Test
+	public void testPut_OverwritesEntryAtSameIndex() {
+		sut.put(0x1234_5678_9ABCL, (short)25);
+		sut.put(0x4321_5678_9ABCL, (short)-25);
+		assertFalse(sut.probe(0x1234_5678_9ABCL));
+		assertTrue(sut.probe(0x4321_5678_9ABCL));
+		assertEquals(-25, sut.getScore(0x4321_5678_9ABCL));
+		assertEquals(500, sut.getHitRatePermille());
+	}
+	
+	@Test
+	public void testClear() {
+		sut.put(0x1234_5678_9ABCL, (short)25);
+		sut.clear();
+		assertFalse(sut.probe(0x1234_5678_9ABCL));
+	}
+}
@@ -0,0 +1,55 @@
+package eubos.score;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eubos.position.PositionManager;
+import eubos.search.DrawChecker;
+
+public class EvaluationCachesTest {
+
+	private static final String TRY_FOR_WIN_FEN = "rn2k1nr/1pp2p1p/p7/8/6b1/2P2N2/PPP2PP1/R1BB1RK1 b kq - 0 12";
+	private static final String TRY_FOR_MATE_FEN = "8/8/8/8/8/3k4/8/3KQ3 w - - 0 1";
+
+	EvaluationCaches sut;
+
+	@Before
+	public void setUp() {
+		sut = new EvaluationCaches(1);
+	}
+
+	private PositionManager setUpPosition(String fen) {
+		return new PositionManager(fen, new DrawChecker(), new ReferenceScore(null), sut);
+	}
+
+	@Test
+	public void testEvalHash_KeptAcrossSearchesWithTheSameGoal() {
+		PositionManager pm = setUpPosition(TRY_FOR_WIN_FEN);
+		int score = pm.getPositionEvaluator().evaluatePosition();
+		PositionEvaluator next = (PositionEvaluator) setUpPosition(TRY_FOR_WIN_FEN).getPositionEvaluator();
+		assertEquals(score, next.evaluatePosition());
+		assertSame(sut.getEvalHashTable(), next.getEvalHashTable());
+		assertEquals(1, next.getEvalHashTable().getHits());
+		assertEquals(0, next.getEvalHashTable().getMisses());
+	}
+
+	@Test
+	public void testEvalHash_ClearedWhenTheGoalChanges() {
+		PositionManager pm = setUpPosition(TRY_FOR_WIN_FEN);
+		pm.getPositionEvaluator().evaluatePosition();
+		assertTrue(sut.getEvalHashTable().probe(pm.getHash()));
+		PositionManager next = setUpPosition(TRY_FOR_MATE_FEN);
+		assertNotEquals(pm.getPositionEvaluator().getGoal(), next.getPositionEvaluator().getGoal());
+		assertFalse(sut.getEvalHashTable().probe(pm.getHash()));
+	}
+
+	@Test
+	public void testPawnHash_KeptWhenTheGoalChanges() {
+		PositionManager pm = setUpPosition(TRY_FOR_WIN_FEN);
+		pm.getPositionEvaluator().evaluatePosition();
+		setUpPosition(TRY_FOR_MATE_FEN);
+		assertTrue(sut.getPawnHashTable().probe(pm.getPawnHash()) != -1);
+	}
+}
@@ -0,0 +1,56 @@
+package eubos.score;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PawnEvalHashTableTest {
+
+	PawnEvalHashTable sut;
+	
+	@Before
+	public void setUp() {
+		sut = new PawnEvalHashTable(1000);
+	}
+	
+	@Test
+	public void testSizeIsRoundedDownToPowerOfTwo() {
+		assertEquals(512, sut.getSize());
+	}
+	
+	@Test
+	public void testProbe_WhenEmpty_Misses() {
+		assertEquals(-1, sut.probe(0x5678_0000_1234L));
+		assertEquals(0, sut.getHits());
+		assertEquals(1, sut.getMisses());
+	}
+	
+	@Test
+	public void testProbe_NoPawns_HitsEmptyEntry() {
+		int index = sut.probe(0L);
+		assertNotEquals(-1, index);
+		assertEquals(0, sut.getScore(index));
+		assertEquals(0L, sut.getPassedPawns(index));
+	}
+	
+	@Test
+	public void testPutProbe() {
+		sut.put(0x1234L, -45, 0x100L, 0x20000L, 0x0AL);
+		int index = sut.probe(0x1234L);
+		assertEquals(-45, sut.getScore(index));
+		assertEquals(0x100L, sut.getPassedPawns(index));
+		assertEquals(0x20000L, sut.getPawnAttacks(index, true));
+		assertEquals(0x0AL, sut.getPawnAttacks(index, false));
+		assertEquals(1000, sut.getHitRatePermille());
+	}
+	
+	@Test
+	public void testPut_OverwritesEntryAtSameIndex() {
+		sut.put(0x1234L, -45, 0L, 0L, 0L);
+		sut.put(0x1234L + (1L << 32) + 512, 60, 0L, 0L, 0L);
+		assertEquals(-1, sut.probe(0x1234L));
+		assertEquals(60, sut.getScore(sut.probe(0x1234L + (1L << 32) + 512)));
+		assertEquals(500, sut.getHitRatePermille());
+	}
+}
@@ -298,7 +298,6 @@ public class PositionEvaluatorTest {
 	}
 	
 	@Test
-	@Ignore
 	public void test_updateMaterialForMove_queen_promotion() throws InvalidPieceException {
 		setUpPosition("8/4P3/7k/8/8/8/1B6/8 w - - 0 1");
 		PiecewiseEvaluation initialMe = pm.getTheBoard().evaluateMaterial();
@@ -360,7 +359,6 @@ public class PositionEvaluatorTest {
 	}
 	
 	@Test
-	@Ignore
 	public void test_updateMaterialForMove_capture() throws InvalidPieceException {
 		setUpPosition("7k/p7/8/8/3n4/4PPP1/8/7K w - - 0 1");
 		PiecewiseEvaluation initialMe = pm.getTheBoard().evaluateMaterial();
@@ -397,4 +395,30 @@ public class PositionEvaluatorTest {
 		setUpPosition("r1b1k3/1p1p1p1p/p3pR2/8/4P3/1PN3r1/P1PQBK2/2q5 b q - 4 21 ");
 		assertEquals(-391, Score.getScore(SUT.evaluatePosition()));
 	}
+	
+	@Test
+	public void test_pawnStructure_CachedInPawnHashTable() {
+		setUpPosition("8/8/8/8/2p5/2p5/2p5/8 w - - 0 38 ");
+		int score = SUT.evaluatePawnStructure();
+		assertEquals(score, SUT.evaluatePawnStructure());
+		if (PositionEvaluator.ENABLE_PAWN_HASH_TABLE) {
+			PawnEvalHashTable pawnHash = SUT.getPawnHashTable();
+			assertEquals(1, pawnHash.getHits());
+			assertEquals(1, pawnHash.getMisses());
+			int index = pawnHash.probe(pm.getPawnHash());
+			assertEquals(0x0000000004040400L, pawnHash.getPassedPawns(index));
+			assertEquals(0x00000000000A0A0AL, pawnHash.getPawnAttacks(index, false));
+		}
+	}
+	
+	@Test
+	public void test_evaluation_CachedInEvalHashTable() {
+		setUpPosition("rn2k1nr/1pp2p1p/p7/8/6b1/2P2N2/PPP2PP1/R1BB1RK1 b kq - 0 12");
+		int score = SUT.evaluatePosition();
+		assertEquals(score, SUT.evaluatePosition());
+		if (PositionEvaluator.ENABLE_EVAL_HASH_TABLE) {
+			assertEquals(1, SUT.getEvalHashTable().getHits());
+			assertEquals(1, SUT.getEvalHashTable().getMisses());
+		}
+	}
 }
@@ -0,0 +1,243 @@
+package eubos.search;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fluxchess.jcpi.models.GenericMove;
+import com.fluxchess.jcpi.models.IllegalNotationException;
+
+import eubos.position.Move;
+import eubos.search.transposition.FixedSizeTranspositionTable;
+import eubos.search.transposition.ITransposition;
+import eubos.search.transposition.Transposition;
+
+public class FixedSizeTranspositionTableTest {
+
+	FixedSizeTranspositionTable sut;
+	
+	// Hash codes that differ only in the upper bits index the same bucket
+	private static final long BUCKET_STRIDE = (1L << 40);
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Before
+	public void setUp() throws Exception {
+		sut = new FixedSizeTranspositionTable(1, 1);
+	}
+	
+	@Test
+	public void testSizeIsPowerOfTwo() {
+		assertEquals(1L << 15, sut.getHashMapMaxSize());
+		assertEquals(0, sut.getHashUtilisation());
+	}
+	
+	@Test
+	public void testGet_WhenEmpty() {
+		assertNull(sut.getTransposition(0x1234L));
+	}
+	
+	@Test
+	public void testGetData_WhenEmpty() {
+		assertEquals(0L, sut.getTranspositionData(0x1234L));
+	}
+	
+	@Test
+	public void testPutGetData_Unpacked() throws IllegalNotationException {
+		GenericMove move = new GenericMove("e7e8q");
+		sut.putTransposition(0x1234L, new Transposition((byte)12, (short)-1500, Score.upperBound, move));
+		long data = sut.getTranspositionData(0x1234L);
+		assertEquals(12, FixedSizeTranspositionTable.getDepthSearchedInPly(data));
+		assertEquals(-1500, FixedSizeTranspositionTable.getScore(data));
+		assertEquals(Score.upperBound, FixedSizeTranspositionTable.getType(data));
+		assertEquals(move, Move.toGenericMove(FixedSizeTranspositionTable.getBestMove(data)));
+	}
+	
+	@Test
+	public void testPutGet_Unpacked() throws IllegalNotationException {
+		GenericMove move = new GenericMove("e7e8q");
+		sut.putTransposition(0x1234L, new Transposition((byte)12, (short)-1500, Score.upperBound, move));
+		ITransposition trans = sut.getTransposition(0x1234L);
+		assertNotNull(trans);
+		assertEquals(12, trans.getDepthSearchedInPly());
+		assertEquals(-1500, trans.getScore());
+		assertEquals(Score.upperBound, trans.getType());
+		assertEquals(move, Move.toGenericMove(trans.getBestMove()));
+	}
+	
+	@Test
+	public void testPutGet_MateScore() throws IllegalNotationException {
+		sut.putTransposition(0x1234L, new Transposition((byte)3, (short)(Short.MIN_VALUE+1), Score.exact, new GenericMove("a2a3")));
+		assertEquals(Short.MIN_VALUE+1, sut.getTransposition(0x1234L).getScore());
+	}
+	
+	@Test
+	public void testGet_WhenHashCodeDiffers() throws IllegalNotationException {
+		sut.putTransposition(0x1234L, new Transposition((byte)1, (short)0, Score.exact, new GenericMove("e2e4")));
+		assertNull(sut.getTransposition(0x1234L+BUCKET_STRIDE));
+	}
+	
+	@Test
+	public void testPut_OverwritesSamePosition() throws IllegalNotationException {
+		sut.putTransposition(0x1234L, new Transposition((byte)1, (short)10, Score.lowerBound, new GenericMove("e2e4")));
+		sut.putTransposition(0x1234L, new Transposition((byte)2, (short)20, Score.exact, new GenericMove("d2d4")));
+		ITransposition trans = sut.getTransposition(0x1234L);
+		assertEquals(2, trans.getDepthSearchedInPly());
+		assertEquals(20, trans.getScore());
+	}
+	
+	@Test
+	public void testPut_WhenBucketFull_ReplacesShallowest() throws IllegalNotationException {
+		for (int i=0; i < FixedSizeTranspositionTable.ENTRIES_PER_BUCKET; i++) {
+			byte depth = (byte)((i == 2) ? 1 : 5);
+			sut.putTransposition(0x1234L+i*BUCKET_STRIDE, new Transposition(depth, (short)0, Score.exact, new GenericMove("e2e4")));
+		}
+		long newHash = 0x1234L+FixedSizeTranspositionTable.ENTRIES_PER_BUCKET*BUCKET_STRIDE;
+		sut.putTransposition(newHash, new Transposition((byte)3, (short)0, Score.exact, new GenericMove("e2e4")));
+		assertNotNull(sut.getTransposition(newHash));
+		assertNull(sut.getTransposition(0x1234L+2*BUCKET_STRIDE));
+		assertNotNull(sut.getTransposition(0x1234L+3*BUCKET_STRIDE));
+	}
+	
+	private void fillBucket() throws IllegalNotationException {
+		for (int i=0; i < FixedSizeTranspositionTable.ENTRIES_PER_BUCKET; i++) {
+			// The last, shallower, search can't replace any of the depth-preferred slots
+			byte depth = (byte)((i == FixedSizeTranspositionTable.ENTRIES_PER_BUCKET-1) ? 2 : 5);
+			sut.putTransposition(0x1234L+i*BUCKET_STRIDE, new Transposition(depth, (short)0, Score.exact, new GenericMove("e2e4")));
+		}
+	}
+	
+	@Test
+	public void testPut_WhenDepthPreferredSlotsDeeper_ReplacesAlwaysReplaceSlot() throws IllegalNotationException {
+		fillBucket();
+		long newHash = 0x1234L+FixedSizeTranspositionTable.ENTRIES_PER_BUCKET*BUCKET_STRIDE;
+		sut.putTransposition(newHash, new Transposition((byte)1, (short)0, Score.exact, new GenericMove("e2e4")));
+		assertNotNull(sut.getTransposition(newHash));
+		for (int i=0; i < FixedSizeTranspositionTable.ENTRIES_PER_BUCKET-1; i++) {
+			assertNotNull(sut.getTransposition(0x1234L+i*BUCKET_STRIDE));
+		}
+		assertNull(sut.getTransposition(0x1234L+(FixedSizeTranspositionTable.ENTRIES_PER_BUCKET-1)*BUCKET_STRIDE));
+	}
+	
+	@Test
+	public void testPut_WhenEntryFromEarlierSearch_ReplacedByShallowerSearch() throws IllegalNotationException {
+		fillBucket();
+		sut.incrementGeneration();
+		// Probing the first entry in the new search means it is retained
+		assertNotNull(sut.getTransposition(0x1234L));
+		long newHash = 0x1234L+FixedSizeTranspositionTable.ENTRIES_PER_BUCKET*BUCKET_STRIDE;
+		sut.putTransposition(newHash, new Transposition((byte)1, (short)0, Score.exact, new GenericMove("e2e4")));
+		assertNotNull(sut.getTransposition(newHash));
+		assertNotNull(sut.getTransposition(0x1234L));
+		assertNull(sut.getTransposition(0x1234L+BUCKET_STRIDE));
+	}
+	
+	@Test
+	public void testGenerationWraps() {
+		for (int i=0; i < 64; i++) {
+			sut.incrementGeneration();
+		}
+		assertEquals(0, sut.getGeneration());
+	}
+	
+	@Test
+	public void testUpdateOfRetrievedTranspositionIsWrittenBack() throws IllegalNotationException {
+		sut.putTransposition(0x1234L, new Transposition((byte)1, (short)10, Score.lowerBound, new GenericMove("e2e4")));
+		ITransposition trans = sut.getTransposition(0x1234L);
+		assertTrue(trans.checkUpdate((byte)4, (short)30, Score.exact, Move.toMove(new GenericMove("d2d4")), null));
+		ITransposition updated = sut.getTransposition(0x1234L);
+		assertEquals(4, updated.getDepthSearchedInPly());
+		assertEquals(30, updated.getScore());
+		assertEquals(new GenericMove("d2d4"), Move.toGenericMove(updated.getBestMove()));
+	}
+	
+	@Test
+	public void testPutGet_Lockless() throws IllegalNotationException {
+		sut = new FixedSizeTranspositionTable(1, 4, true);
+		assertTrue(sut.isLockless());
+		sut.putTransposition(0x1234L, new Transposition((byte)7, (short)55, Score.lowerBound, new GenericMove("g1f3")));
+		ITransposition trans = sut.getTransposition(0x1234L);
+		assertEquals(7, trans.getDepthSearchedInPly());
+		assertEquals(55, trans.getScore());
+		assertNull(sut.getTransposition(0x1234L+BUCKET_STRIDE));
+	}
+	
+	@Test
+	public void testHashUtilisation_CountsCurrentSearchOnly() throws IllegalNotationException {
+		// Fill the first 250 buckets, i.e. the first 1000 entries of the table
+		for (long hash=0; hash < 250; hash++) {
+			for (int i=0; i < FixedSizeTranspositionTable.ENTRIES_PER_BUCKET; i++) {
+				byte depth = (byte)(FixedSizeTranspositionTable.ENTRIES_PER_BUCKET-i);
+				sut.putTransposition(hash+i*BUCKET_STRIDE, new Transposition(depth, (short)0, Score.exact, new GenericMove("e2e4")));
+			}
+		}
+		assertEquals(1000, sut.getHashUtilisation());
+		sut.incrementGeneration();
+		assertEquals(0, sut.getHashUtilisation());
+		assertNotNull(sut.getTransposition(0L));
+		assertEquals(1, sut.getHashUtilisation());
+	}
+	
+	@Test
+	public void testPutGet_FileBacked() throws IllegalNotationException, IOException {
+		File hashFile = folder.newFile("hash.bin");
+		sut = new FixedSizeTranspositionTable(1, 1, true, hashFile.getPath());
+		assertEquals(1L << 15, sut.getHashMapMaxSize());
+		assertEquals(FixedSizeTranspositionTable.HASH_FILE_HEADER_BYTES +
+				(1L << 15) * FixedSizeTranspositionTable.BYTES_PER_TRANSPOSITION, hashFile.length());
+		sut.putTransposition(0x1234L, new Transposition((byte)7, (short)55, Score.lowerBound, new GenericMove("g1f3")));
+		ITransposition trans = sut.getTransposition(0x1234L);
+		assertEquals(7, trans.getDepthSearchedInPly());
+		assertEquals(55, trans.getScore());
+		assertEquals(Score.lowerBound, trans.getType());
+	}
+	
+	@Test
+	public void testSaveToFile_ReloadsMappedTable() throws IllegalNotationException, IOException {
+		File hashFile = folder.newFile("hash.bin");
+		sut = new FixedSizeTranspositionTable(1, 1, true, hashFile.getPath());
+		sut.incrementGeneration();
+		sut.putTransposition(0x1234L, new Transposition((byte)7, (short)55, Score.lowerBound, new GenericMove("g1f3")));
+		sut.saveToFile(hashFile.getPath());
+		
+		FixedSizeTranspositionTable reloaded = new FixedSizeTranspositionTable(1, 1, true, hashFile.getPath());
+		assertEquals(sut.getGeneration(), reloaded.getGeneration());
+		ITransposition trans = reloaded.getTransposition(0x1234L);
+		assertNotNull(trans);
+		assertEquals(7, trans.getDepthSearchedInPly());
+		assertEquals(55, trans.getScore());
+		assertEquals(new GenericMove("g1f3"), Move.toGenericMove(trans.getBestMove()));
+	}
+	
+	@Test
+	public void testSaveToFile_FromHeap_ReloadsAtSavedSize() throws IllegalNotationException, IOException {
+		File hashFile = new File(folder.getRoot(), "hash.bin");
+		sut.putTransposition(0x1234L, new Transposition((byte)3, (short)-20, Score.exact, new GenericMove("e2e4")));
+		sut.saveToFile(hashFile.getPath());
+		
+		FixedSizeTranspositionTable reloaded = new FixedSizeTranspositionTable(4, 1, true, hashFile.getPath());
+		assertEquals(1L << 15, reloaded.getHashMapMaxSize());
+		ITransposition trans = reloaded.getTransposition(0x1234L);
+		assertNotNull(trans);
+		assertEquals(3, trans.getDepthSearchedInPly());
+		assertEquals(-20, trans.getScore());
+		assertEquals(Score.exact, trans.getType());
+	}
+	
+	@Test
+	public void testIncompatibleFile_IsNotOverwritten() throws IOException {
+		File otherFile = folder.newFile("other.txt");
+		Files.write(otherFile.toPath(), "not a hash file".getBytes());
+		sut = new FixedSizeTranspositionTable(1, 1, true, otherFile.getPath());
+		assertEquals(15, otherFile.length());
+		assertEquals(1L << 15, sut.getHashMapMaxSize());
+	}
+}
@@ -17,6 +17,7 @@ import com.fluxchess.jcpi.models.IllegalNotationException;
 import eubos.board.InvalidPieceException;
 import eubos.main.EubosEngineMain;
 import eubos.position.PositionManager;
+import eubos.score.EvaluationCaches;
 import eubos.score.ReferenceScore;
 import eubos.search.searchers.IterativeMoveSearcher;
 import eubos.search.transposition.FixedSizeTranspositionTable;
@@ -49,7 +50,7 @@ public class IterativeMoveSearcherTest {
 	private EubosMock eubos;
 	
 	protected void setupPosition(String fen, long time) {
-		sut = new IterativeMoveSearcher(eubos, hashMap, fen, new DrawChecker(), time, 0, new ReferenceScore(hashMap));
+		sut = new IterativeMoveSearcher(eubos, hashMap, new EvaluationCaches(), fen, new DrawChecker(), time, 0, new ReferenceScore(hashMap));
 	}
 	
 	@Before
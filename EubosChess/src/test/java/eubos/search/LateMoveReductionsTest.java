@@ -0,0 +1,51 @@
+package eubos.search;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LateMoveReductionsTest {
+	
+	private LateMoveReductions sut = LateMoveReductions.DEFAULT;
+	
+	@Test
+	public void test_table_LeavesOnePlyOfNormalSearch() {
+		for (int depth=1; depth < LateMoveReductions.TABLE_SIZE; depth++) {
+			for (int moveNum=1; moveNum < LateMoveReductions.TABLE_SIZE; moveNum++) {
+				assertTrue(sut.reductionPly[depth][moveNum] <= Math.max(0, depth-2));
+			}
+		}
+	}
+	
+	@Test
+	public void test_table_IncreasesWithDepthAndMoveNumber() {
+		for (int depth=2; depth < LateMoveReductions.TABLE_SIZE; depth++) {
+			for (int moveNum=2; moveNum < LateMoveReductions.TABLE_SIZE; moveNum++) {
+				assertTrue(sut.reductionPly[depth][moveNum] >= sut.reductionPly[depth-1][moveNum]);
+				assertTrue(sut.reductionPly[depth][moveNum] >= sut.reductionPly[depth][moveNum-1]);
+			}
+		}
+		assertTrue(sut.reductionPly[8][30] > sut.reductionPly[3][4]);
+	}
+	
+	@Test
+	public void test_getReduction_NoneBelowMinimumMovesOrDepth() {
+		assertEquals(0, sut.getReduction(20, LateMoveReductions.DEFAULT_MIN_MOVES));
+		assertEquals(0, sut.getReduction(LateMoveReductions.DEFAULT_MIN_DEPTH-1, 40));
+		assertTrue(sut.getReduction(20, LateMoveReductions.DEFAULT_MIN_MOVES+1) > 0);
+	}
+	
+	@Test
+	public void test_getReduction_BeyondTheTableUsesTheLastEntry() {
+		int last = LateMoveReductions.TABLE_SIZE-1;
+		assertEquals(sut.reductionPly[last][last], sut.getReduction(100, 200));
+	}
+	
+	@Test
+	public void test_parameters_ChangeTheReductions() {
+		LateMoveReductions aggressive = new LateMoveReductions(1, 2, 1.5, 1.0);
+		assertTrue(aggressive.getReduction(8, 10) > sut.getReduction(8, 10));
+		assertEquals(1, aggressive.getMinMoves());
+		assertEquals(2, aggressive.getMinDepth());
+	}
+}
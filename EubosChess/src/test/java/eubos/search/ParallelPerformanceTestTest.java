@@ -0,0 +1,56 @@
+package eubos.search;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import eubos.board.InvalidPieceException;
+import eubos.position.PositionManager;
+
+public class ParallelPerformanceTestTest {
+
+	private static final String ORIGINAL = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - - -";
+	private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+	private ParallelPerformanceTest sut;
+
+	@Test
+	public void perft_depth0() {
+		sut = new ParallelPerformanceTest(ORIGINAL, 0);
+		assertEquals(1, sut.perft());
+	}
+
+	@Test
+	public void perft_depth1() {
+		sut = new ParallelPerformanceTest(ORIGINAL, 1);
+		assertEquals(20, sut.perft());
+	}
+
+	@Test
+	public void perft_OriginalPosition() {
+		sut = new ParallelPerformanceTest(ORIGINAL, 4);
+		assertEquals(197281, sut.perft());
+		assertEquals(197281, sut.getNodeCount());
+	}
+
+	@Test
+	public void perft_Kiwipete_SplitBelowRoot() {
+		sut = new ParallelPerformanceTest(KIWIPETE, 3, 2, 4);
+		assertEquals(97862, sut.perft());
+	}
+
+	@Test
+	public void perft_Position4_MatchesSerial() throws InvalidPieceException {
+		long serial = new PerformanceTest(new PositionManager(POSITION_4), 3).perft();
+		sut = new ParallelPerformanceTest(POSITION_4, 3, 1, 2);
+		assertEquals(serial, sut.perft());
+	}
+
+	@Test
+	public void perft_Kiwipete_BulkCounting() {
+		sut = new ParallelPerformanceTest(KIWIPETE, 3);
+		sut.setBulkCounting(true);
+		assertEquals(97862, sut.perft());
+	}
+}
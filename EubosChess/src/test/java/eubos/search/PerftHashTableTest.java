@@ -0,0 +1,67 @@
+package eubos.search;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eubos.board.InvalidPieceException;
+import eubos.position.PositionManager;
+
+public class PerftHashTableTest {
+
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - - -";
+	private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - - -";
+
+	private PerftHashTable sut;
+
+	@Before
+	public void setUp() {
+		sut = new PerftHashTable(1);
+	}
+
+	@Test
+	public void testProbe_Empty() {
+		assertEquals(PerftHashTable.NOT_FOUND, sut.probe(0x123456789L, 3));
+	}
+
+	@Test
+	public void testPut_ThenProbe() {
+		sut.put(0x123456789L, 3, 97862L);
+		assertEquals(97862L, sut.probe(0x123456789L, 3));
+	}
+
+	@Test
+	public void testProbe_DifferentDepthNotFound() {
+		sut.put(0x123456789L, 3, 97862L);
+		assertEquals(PerftHashTable.NOT_FOUND, sut.probe(0x123456789L, 2));
+	}
+
+	@Test
+	public void testProbe_DifferentHashSameIndexNotFound() {
+		sut.put(0x1L, 3, 97862L);
+		assertEquals(PerftHashTable.NOT_FOUND, sut.probe(0x1L | ((long)sut.getSize() << 4), 3));
+	}
+
+	@Test
+	public void testPerft_BulkCounting() throws InvalidPieceException {
+		PerformanceTest perft = new PerformanceTest(new PositionManager(KIWIPETE), 3);
+		perft.setBulkCounting(true);
+		assertEquals(97862L, perft.perft());
+	}
+
+	@Test
+	public void testPerft_Hashed() throws InvalidPieceException {
+		PerformanceTest perft = new PerformanceTest(new PositionManager(POSITION_3), 5);
+		perft.setHashTable(sut);
+		assertEquals(674624L, perft.perft());
+	}
+
+	@Test
+	public void testPerft_HashedAndBulkCounting() throws InvalidPieceException {
+		PerformanceTest perft = new PerformanceTest(new PositionManager(KIWIPETE), 4);
+		perft.setHashTable(sut);
+		perft.setBulkCounting(true);
+		assertEquals(4085603L, perft.perft());
+	}
+}
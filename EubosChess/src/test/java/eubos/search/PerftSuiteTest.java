@@ -0,0 +1,66 @@
+package eubos.search;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import eubos.board.InvalidPieceException;
+import eubos.position.PositionManager;
+
+public class PerftSuiteTest {
+
+	// Entries below this count are quick enough to run with the unit tests
+	private static final long QUICK_ENTRY_MAX_COUNT = 1100000L;
+
+	private PerftSuite sut;
+
+	@Before
+	public void setUp() {
+		sut = new PerftSuite();
+	}
+
+	@Test
+	public void testQuickEntries() throws InvalidPieceException {
+		for (PerftSuite.Entry entry : PerftSuite.ENTRIES) {
+			if (entry.expectedCount <= QUICK_ENTRY_MAX_COUNT) {
+				assertEquals(entry.name, entry.expectedCount, sut.run(entry));
+			}
+		}
+	}
+
+	@Test
+	public void testQuickEntries_Hashed() throws InvalidPieceException {
+		sut.setHashSizeMBytes(1);
+		for (PerftSuite.Entry entry : PerftSuite.ENTRIES) {
+			if (entry.expectedCount <= QUICK_ENTRY_MAX_COUNT) {
+				assertEquals(entry.name, entry.expectedCount, sut.run(entry));
+			}
+		}
+	}
+
+	@Test
+	@Ignore
+	public void testAllEntries() throws InvalidPieceException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		assertTrue(sut.run(new PrintStream(output)));
+	}
+
+	@Test
+	public void testDivide_SumsToPerftCount() throws InvalidPieceException {
+		PerformanceTest perft = new PerformanceTest(new PositionManager(
+				"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 3);
+		Map<Integer, Long> countPerMove = perft.divide();
+		assertEquals(48, countPerMove.size());
+		long total = 0;
+		for (long count : countPerMove.values()) {
+			total += count;
+		}
+		assertEquals(97862L, total);
+	}
+}
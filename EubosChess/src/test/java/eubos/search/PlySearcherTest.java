@@ -19,6 +19,7 @@ import eubos.board.Piece.Colour;
 import eubos.main.EubosEngineMain;
 import eubos.position.IPositionAccessors;
 import eubos.position.Move;
+import eubos.position.MoveList;
 import eubos.position.PositionManager;
 import eubos.score.PositionEvaluator;
 import eubos.score.ReferenceScore;
@@ -69,7 +70,7 @@ public class PlySearcherTest {
 	
 	private void initialisePositionAndSearch(String fen, byte depth) {
 		pm = new PositionManager(fen, new DrawChecker(), null);
-		PositionEvaluator pe = new PositionEvaluator(pm, null);
+		PositionEvaluator pe = new PositionEvaluator(pm, new ReferenceScore(null));
 		KillerList killers = new KillerList(depth);
 		classUnderTest = new PlySearcher(
 				mock_hashMap,
@@ -102,15 +103,15 @@ public class PlySearcherTest {
 		
 		doReturn(new TranspositionEvaluation()).when(mock_hashMap).getTransposition(anyByte(), anyInt());
 		
-		doReturn(new Transposition((byte)1, (short)0, (byte) 1, null)).when(mock_hashMap).setTransposition((Transposition)isNull(), anyByte(), anyShort(), anyByte(), anyInt());
+		doReturn(new Transposition((byte)1, (short)0, (byte) 1, null)).when(mock_hashMap).setTransposition(anyByte(), (Transposition)isNull(), anyByte(), anyShort(), anyByte(), anyInt());
 		
 		assertEquals(650, classUnderTest.searchPly());
 		
-		verify(mock_hashMap, times(8)).setTransposition((Transposition)isNull(), anyByte(), anyShort(), anyByte(), anyInt());
+		verify(mock_hashMap, times(8)).setTransposition(anyByte(), (Transposition)isNull(), anyByte(), anyShort(), anyByte(), anyInt());
 		
 		ArgumentCaptor<Integer> captorNew = ArgumentCaptor.forClass(Integer.class);
 		ArgumentCaptor<Transposition> captorOld = ArgumentCaptor.forClass(Transposition.class);
-		verify(mock_hashMap, times(8)).setTransposition(captorOld.capture(), anyByte(), anyShort(), anyByte(), captorNew.capture());
+		verify(mock_hashMap, times(8)).setTransposition(anyByte(), captorOld.capture(), anyByte(), anyShort(), anyByte(), captorNew.capture());
 		List<Integer> new_trans_args = captorNew.getAllValues();
 		List<Transposition> trans_args = captorOld.getAllValues();
 			
@@ -183,9 +184,140 @@ public class PlySearcherTest {
 		
 	    //setupBackUpToRootNodeTerminatesTest();
 		doReturn(new TranspositionEvaluation()).when(mock_hashMap).getTransposition(anyByte(), anyInt());
-		verify(mock_hashMap, never()).setTransposition((Transposition)isNull(), anyByte(), anyShort(), anyByte(), anyInt());
+		verify(mock_hashMap, never()).setTransposition(anyByte(), (Transposition)isNull(), anyByte(), anyShort(), anyByte(), anyInt());
 		classUnderTest.searchPly();
 	}
+	
+	private boolean isNullMoveAllowedAtFirstPly(String fen) {
+		initialisePositionAndSearch(fen, (byte)5);
+		// White searched the root node and has established a score for black to beat
+		st.setProvisionalScoreAtPly((byte)0);
+		st.setBackedUpScoreAtPly((byte)0, (short)50);
+		st.setProvisionalScoreAtPly((byte)1);
+		classUnderTest.currPly = 1;
+		return classUnderTest.isNullMoveAllowed();
+	}
+	
+	@Test
+	public void test_nullMove_allowedInQuietPosition() {
+		assertTrue(isNullMoveAllowedAtFirstPly("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R b KQ - 0 8"));
+		assertTrue(isNullMoveAllowedAtFirstPly("r3k3/8/8/8/8/8/3R4/4K3 b - - 0 1"));
+	}
+	
+	@Test
+	public void test_nullMove_suppressedWhenInCheck() {
+		assertFalse(isNullMoveAllowedAtFirstPly("r3k3/8/8/8/8/8/4R3/4K3 b - - 0 1"));
+	}
+	
+	@Test
+	public void test_nullMove_suppressedDirectlyAfterNullMove() {
+		assertTrue(isNullMoveAllowedAtFirstPly("r3k3/8/8/8/8/8/3R4/4K3 b - - 0 1"));
+		classUnderTest.lastNullMovePly = 0;
+		assertFalse(classUnderTest.isNullMoveAllowed());
+	}
+	
+	@Test
+	public void test_nullMove_suppressedInKingAndPawnEnding() {
+		assertFalse(isNullMoveAllowedAtFirstPly("4k3/4p3/8/8/8/8/4P3/4K3 b - - 0 1"));
+		// Only one side needs to be reduced to king and pawns
+		assertFalse(isNullMoveAllowedAtFirstPly("r3k3/4p3/8/8/8/8/4P3/4K3 b - - 0 1"));
+	}
+	
+	@Test
+	public void test_nullMove_suppressedWhenDisabled() {
+		initialisePositionAndSearch("r3k3/8/8/8/8/8/3R4/4K3 b - - 0 1", (byte)5);
+		classUnderTest.useNullMovePruning(false);
+		st.setProvisionalScoreAtPly((byte)0);
+		st.setBackedUpScoreAtPly((byte)0, (short)50);
+		st.setProvisionalScoreAtPly((byte)1);
+		classUnderTest.currPly = 1;
+		assertFalse(classUnderTest.isNullMoveAllowed());
+	}
+	
+	private int getGeneratedMove(String move) throws IllegalNotationException, InvalidPieceException {
+		GenericMove required = new GenericMove(move);
+		for (int generated : new MoveList(pm).getList()) {
+			if (required.equals(Move.toGenericMove(generated)))
+				return generated;
+		}
+		fail();
+		return Move.NULL_MOVE;
+	}
+	
+	private byte getLateMoveReductionOfMadeMove(int move, int movesSearched) throws InvalidPieceException {
+		pm.performMove(move);
+		byte reduction = classUnderTest.getLateMoveReduction(move, movesSearched);
+		pm.unperformMove();
+		return reduction;
+	}
+	
+	@Test
+	public void test_lateMoveReduction_onlyReducesLateQuietMoves() throws InvalidPieceException, IllegalNotationException {
+		initialisePositionAndSearch("r3k3/8/8/3p4/8/8/3R4/4K3 w - - 0 1", (byte)8);
+		int quiet = getGeneratedMove("d2c2");
+		assertTrue(getLateMoveReductionOfMadeMove(quiet, 20) > 0);
+		assertEquals(0, getLateMoveReductionOfMadeMove(quiet, LateMoveReductions.DEFAULT_MIN_MOVES));
+	}
+	
+	@Test
+	public void test_lateMoveReduction_neverReducesCaptures() throws InvalidPieceException, IllegalNotationException {
+		initialisePositionAndSearch("r3k3/8/8/3p4/8/8/3R4/4K3 w - - 0 1", (byte)8);
+		int capture = getGeneratedMove("d2d5");
+		assertTrue(Move.isCapture(capture));
+		assertEquals(0, getLateMoveReductionOfMadeMove(capture, 20));
+	}
+	
+	@Test
+	public void test_lateMoveReduction_neverReducesKillers() throws InvalidPieceException, IllegalNotationException {
+		initialisePositionAndSearch("r3k3/8/8/3p4/8/8/3R4/4K3 w - - 0 1", (byte)8);
+		int killer = Move.setKiller(getGeneratedMove("d2c2"));
+		assertEquals(0, getLateMoveReductionOfMadeMove(killer, 20));
+	}
+	
+	@Test
+	public void test_lateMoveReduction_neverReducesChecks() throws InvalidPieceException, IllegalNotationException {
+		initialisePositionAndSearch("r3k3/8/8/3p4/8/8/3R4/4K3 w - - 0 1", (byte)8);
+		int check = getGeneratedMove("d2e2");
+		assertTrue(Move.isRegular(check));
+		assertEquals(0, getLateMoveReductionOfMadeMove(check, 20));
+	}
+	
+	@Test
+	public void test_lateMoveReduction_usesConfiguredReductions() throws InvalidPieceException, IllegalNotationException {
+		initialisePositionAndSearch("r3k3/8/8/3p4/8/8/3R4/4K3 w - - 0 1", (byte)8);
+		classUnderTest.useLateMoveReductions(new LateMoveReductions(30, 3, 0.75, 2.25));
+		int quiet = getGeneratedMove("d2c2");
+		assertEquals(0, getLateMoveReductionOfMadeMove(quiet, 20));
+		assertTrue(getLateMoveReductionOfMadeMove(quiet, 31) > 0);
+	}
+	
+	@Test
+	public void test_aspirationWindow_failHighIsLowerBound() throws InvalidPieceException {
+		// White wins the rook, so a window around a losing score fails high
+		initialisePositionAndSearch("4k3/8/8/3r4/8/8/3Q4/4K3 w - - 0 1", (byte)2);
+		doReturn(new TranspositionEvaluation()).when(mock_hashMap).getTransposition(anyByte(), anyInt());
+		int score = classUnderTest.searchPly(-550, -450);
+		assertTrue(Score.getScore(score) >= -450);
+		assertEquals(Score.lowerBound, Score.getType(score));
+	}
+	
+	@Test
+	public void test_aspirationWindow_failLowIsUpperBound() throws InvalidPieceException {
+		initialisePositionAndSearch("4k3/8/8/3r4/8/8/3Q4/4K3 w - - 0 1", (byte)2);
+		doReturn(new TranspositionEvaluation()).when(mock_hashMap).getTransposition(anyByte(), anyInt());
+		int score = classUnderTest.searchPly(2000, 2100);
+		assertTrue(Score.getScore(score) <= 2000);
+		assertEquals(Score.upperBound, Score.getType(score));
+	}
+	
+	@Test
+	public void test_aspirationWindow_insideWindowMatchesFullWindow() throws InvalidPieceException {
+		initialisePositionAndSearch("4k3/8/8/3r4/8/8/3Q4/4K3 w - - 0 1", (byte)2);
+		doReturn(new TranspositionEvaluation()).when(mock_hashMap).getTransposition(anyByte(), anyInt());
+		short fullWindowScore = Score.getScore(classUnderTest.searchPly());
+		initialisePositionAndSearch("4k3/8/8/3r4/8/8/3Q4/4K3 w - - 0 1", (byte)2);
+		assertEquals(fullWindowScore, Score.getScore(classUnderTest.searchPly(fullWindowScore-50, fullWindowScore+50)));
+	}
 
 	/*private void setupBackUpToRootNodeTerminatesTest() throws InvalidPieceException {
 		doAnswer(new Answer<Void>(){
@@ -0,0 +1,143 @@
+package eubos.search;
+
+import static org.junit.Assert.*;
+
+import java.util.logging.Level;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fluxchess.jcpi.models.GenericMove;
+import com.fluxchess.jcpi.models.IllegalNotationException;
+
+import eubos.board.InvalidPieceException;
+import eubos.main.EubosEngineMain;
+import eubos.position.Move;
+import eubos.position.PositionManager;
+import eubos.search.generators.MiniMaxMoveGenerator;
+import eubos.search.transposition.FixedSizeTranspositionTable;
+
+public class PrincipalVariationSearcherTest {
+
+	private PrincipalVariationSearcher classUnderTest;
+	private PositionManager pm;
+	private PrincipalContinuation pc;
+	private SearchMetrics sm;
+	private SearchDebugAgent sda;
+	private FixedSizeTranspositionTable hashMap;
+
+	@Before
+	public void setUp() {
+		EubosEngineMain.logger.setLevel(Level.OFF);
+		sda = new SearchDebugAgent(0, true);
+		hashMap = new FixedSizeTranspositionTable(2, 1);
+	}
+
+	@After
+	public void tearDown() {
+		sda.close();
+	}
+
+	private void setupPosition(String fen, byte depth) {
+		pm = new PositionManager(fen);
+		pc = new PrincipalContinuation(depth+MiniMaxMoveGenerator.EXTENDED_SEARCH_PLY_LIMIT, sda);
+		sm = new SearchMetrics(pm);
+		classUnderTest = new PrincipalVariationSearcher(hashMap, pc, sm, null, depth, pm, pm, null,
+				pm.getPositionEvaluator(), new KillerList(EubosEngineMain.SEARCH_DEPTH_IN_PLY), sda);
+	}
+
+	private GenericMove getBestMove() {
+		return Move.toGenericMove(pc.getBestMove((byte)0));
+	}
+
+	@Test
+	public void test_mateInOne() throws InvalidPieceException, IllegalNotationException {
+		setupPosition("5r1k/p2R4/1pp2p1p/8/5q2/3Q1bN1/PP3P2/6K1 w - - - -", (byte)2);
+		int score = classUnderTest.searchPly();
+		assertEquals(new GenericMove("d3h7"), getBestMove());
+		assertTrue(Score.isMate(Score.getScore(score)));
+		assertTrue(Score.getScore(score) > 0);
+		assertTrue(Score.isExact(score));
+	}
+
+	@Test
+	public void test_mateInThree_BlackMated() throws InvalidPieceException, IllegalNotationException {
+		setupPosition("1r1q3k/2pp4/p7/1p6/1b1B2Q1/2N5/PPP4P/5R1K b - - 6 1", (byte)5);
+		int score = classUnderTest.searchPly();
+		assertEquals(new GenericMove("d8f6"), getBestMove());
+		// Mated at ply 4 of the search, scores are relative to white
+		assertEquals(Short.MAX_VALUE-4, Score.getScore(score));
+	}
+
+	@Test
+	public void test_captureHangingQueen() throws InvalidPieceException, IllegalNotationException {
+		setupPosition("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1", (byte)3);
+		classUnderTest.searchPly();
+		assertEquals(new GenericMove("d1d5"), getBestMove());
+	}
+
+	@Test
+	public void test_extendedSearch_recaptureQueenLeadsToLossOfMaterial() throws InvalidPieceException, IllegalNotationException {
+		setupPosition("8/6q1/5p2/8/8/2Q5/8/8 w - - 0 38 ", (byte)1);
+		classUnderTest.searchPly();
+		assertNotEquals(new GenericMove("c3f6"), getBestMove());
+	}
+
+	@Test
+	public void test_windowBelowScore_FailsHigh() throws InvalidPieceException {
+		// White is a queen up
+		setupPosition("4k3/8/8/8/8/8/8/3QK3 w - - 0 1", (byte)2);
+		int score = classUnderTest.searchPly(-100, 100);
+		assertEquals(Score.lowerBound, Score.getType(score));
+		assertTrue(Score.getScore(score) >= 100);
+	}
+
+	@Test
+	public void test_windowAboveScore_FailsLow() throws InvalidPieceException {
+		setupPosition("4k3/8/8/8/8/8/8/3QK3 w - - 0 1", (byte)2);
+		int score = classUnderTest.searchPly(2000, 2100);
+		assertEquals(Score.upperBound, Score.getType(score));
+		assertTrue(Score.getScore(score) <= 2000);
+	}
+
+	@Test
+	public void test_windowBelowScore_BlackOnMove_FailsHigh() throws InvalidPieceException {
+		// The window is white relative, so a white advantage fails high whichever side is on move
+		setupPosition("4k3/8/8/8/8/8/8/3QK3 b - - 0 1", (byte)2);
+		int score = classUnderTest.searchPly(-100, 100);
+		assertEquals(Score.lowerBound, Score.getType(score));
+		assertTrue(Score.getScore(score) >= 100);
+	}
+
+	@Test
+	public void test_windowContainingScore_IsExact() throws InvalidPieceException {
+		String fen = "4k3/8/8/8/8/8/8/3QK3 w - - 0 1";
+		setupPosition(fen, (byte)2);
+		int fullWindowScore = classUnderTest.searchPly();
+		hashMap = new FixedSizeTranspositionTable(2, 1);
+		setupPosition(fen, (byte)2);
+		short score = Score.getScore(fullWindowScore);
+		assertEquals(fullWindowScore, classUnderTest.searchPly(score-10, score+10));
+	}
+
+	@Test
+	public void test_repeatedSearchIsDeterministic() throws InvalidPieceException {
+		String fen = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+		setupPosition(fen, (byte)3);
+		int firstScore = classUnderTest.searchPly();
+		long firstNodes = sm.getNodesSearched();
+		hashMap = new FixedSizeTranspositionTable(2, 1);
+		setupPosition(fen, (byte)3);
+		assertEquals(firstScore, classUnderTest.searchPly());
+		assertEquals(firstNodes, sm.getNodesSearched());
+	}
+
+	@Test
+	public void test_terminatedSearchStillHasBestMove() throws InvalidPieceException {
+		setupPosition("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 4 8", (byte)6);
+		classUnderTest.terminateFindMove();
+		classUnderTest.searchPly();
+		assertNotNull(getBestMove());
+	}
+}
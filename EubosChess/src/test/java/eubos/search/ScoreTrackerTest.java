@@ -207,6 +207,40 @@ public class ScoreTrackerTest {
 		assertTrue(classUnderTest.isAlphaBetaCutOff(PLY2, Score.getScore(positionScore_A_C_E_D)));	
 	}
 	
+	@Test
+	public void testSetRootWindow_SeedsFirstTwoPlies() {
+		classUnderTest.setRootWindow((short)-50, (short)50);
+		initialiseToSearchDepth();
+		assertEquals(-50, classUnderTest.getBackedUpScoreAtPly(PLY0));
+		assertEquals(50, classUnderTest.getBackedUpScoreAtPly(PLY1));
+		assertEquals(-50, classUnderTest.getBackedUpScoreAtPly(PLY2));
+		assertEquals(50, classUnderTest.getBackedUpScoreAtPly(PLY3));
+	}
+	
+	@Test
+	public void testIsAlphaBetaCutOff_PlyZero_FailHighOfRootWindow() {
+		classUnderTest.setRootWindow((short)-50, (short)50);
+		classUnderTest.setProvisionalScoreAtPly(PLY0);
+		assertFalse(classUnderTest.isAlphaBetaCutOff(PLY0, (short)49));
+		assertTrue(classUnderTest.isAlphaBetaCutOff(PLY0, (short)50));
+	}
+	
+	@Test
+	public void testIsAlphaBetaCutOff_PlyZero_BlackRootFailsLowOfRootWindow() {
+		classUnderTest = new ScoreTracker(searchDepth, !isWhite, new SearchDebugAgent(0, true));
+		classUnderTest.setRootWindow((short)-50, (short)50);
+		classUnderTest.setProvisionalScoreAtPly(PLY0);
+		assertFalse(classUnderTest.isAlphaBetaCutOff(PLY0, (short)-49));
+		assertTrue(classUnderTest.isAlphaBetaCutOff(PLY0, (short)-50));
+	}
+	
+	@Test
+	public void testIsAlphaBetaCutOffForHash_OnlyNaturalBoundRefutes() {
+		classUnderTest.setBackedUpScoreAtPly(PLY1, (short)20);
+		assertTrue(classUnderTest.isAlphaBetaCutOffForHash(PLY2, (short)30, Score.lowerBound));
+		assertFalse(classUnderTest.isAlphaBetaCutOffForHash(PLY2, (short)30, Score.upperBound));
+	}
+	
 	public static short WHITE_MATES_IN_1 = Short.MAX_VALUE - 1;
 	public static short WHITE_MATES_IN_2 = Short.MAX_VALUE - 2;
 	public static short WHITE_MATES_IN_3 = Short.MAX_VALUE - 3;
@@ -58,7 +58,7 @@ public class TranspositionTableAccessorTest {
 		List<GenericMove> pc = new ArrayList<GenericMove>();
 		pc.add(new GenericMove("e2e4"));
 		
-		sut.setTransposition(null, (byte)1, (short)105, Score.exact, Move.toMove(pc.get(0), pm.getTheBoard()));
+		sut.setTransposition(currPly, null, (byte)1, (short)105, Score.exact, Move.toMove(pc.get(0), pm.getTheBoard()));
 		
 		eval = sut.getTransposition(currPly, 1);
 		
@@ -70,7 +70,7 @@ public class TranspositionTableAccessorTest {
 		List<GenericMove> pc = new ArrayList<GenericMove>();
 		pc.add(new GenericMove("e2e4"));
 		
-		sut.setTransposition(null, (byte)1, (short)105, Score.exact, Move.toMove(pc.get(0)));
+		sut.setTransposition(currPly, null, (byte)1, (short)105, Score.exact, Move.toMove(pc.get(0)));
 		
 		eval = sut.getTransposition(currPly, 2);
 		
@@ -82,7 +82,7 @@ public class TranspositionTableAccessorTest {
 	public void testEval_StoreRetrieve_whenNoMoveList_insufficientNoData() throws InvalidPieceException, IllegalNotationException {
 		List<GenericMove> pc = new ArrayList<GenericMove>();
 		
-		sut.setTransposition(null, (byte)1, (short)105, Score.exact, Move.toMove(pc.get(0)));
+		sut.setTransposition(currPly, null, (byte)1, (short)105, Score.exact, Move.toMove(pc.get(0)));
 		
 		eval = sut.getTransposition(currPly, 2);
 		
@@ -95,7 +95,7 @@ public class TranspositionTableAccessorTest {
 		pc.add(new GenericMove("e2e4"));
 
 		currPly = 3;
-		sut.setTransposition(null, (byte)1, (short)18, Score.upperBound, Move.toMove(pc.get(0)));
+		sut.setTransposition(currPly, null, (byte)1, (short)18, Score.upperBound, Move.toMove(pc.get(0)));
 		
 		// Set up score tracker according to diagram
 		st.setBackedUpScoreAtPly((byte)0, (short)12);
@@ -115,7 +115,7 @@ public class TranspositionTableAccessorTest {
 		pc.add(new GenericMove("e2e4"));
 
 		currPly = 3;
-		sut.setTransposition(null, (byte)1, (short)18, Score.upperBound, Move.toMove(pc.get(0), pm.getTheBoard()));
+		sut.setTransposition(currPly, null, (byte)1, (short)18, Score.upperBound, Move.toMove(pc.get(0), pm.getTheBoard()));
 		
 		// Set up score tracker according to diagram
 		st.setBackedUpScoreAtPly((byte)0, Score.valueOf((short)12, Score.upperBound));
@@ -136,7 +136,17 @@ public class TranspositionTableAccessorTest {
 		pc.add(new GenericMove("e2e4"));
 
 		currPly = 2;
-		sut.setTransposition(null, (byte)1, (short)105, Score.lowerBound, Move.toMove(pc.get(0)));
+		sut.setTransposition(currPly, null, (byte)1, (short)105, Score.lowerBound, Move.toMove(pc.get(0)));
+	}
+	
+	@Test
+	public void testProbeAndStore_ReuseTheViewForThePly() throws IllegalNotationException {
+		ITransposition stored_trans = sut.setTransposition(currPly, null, (byte)1, (short)105, Score.exact, Move.toMove(new GenericMove("e2e4")));
+		TranspositionEvaluation first = sut.getTransposition(currPly, 1);
+		TranspositionEvaluation second = sut.getTransposition(currPly, 1);
+		assertSame(first, second);
+		assertSame(stored_trans, second.trans);
+		assertNotSame(stored_trans, sut.setTransposition((byte)(currPly+1), null, (byte)1, (short)105, Score.exact, Move.toMove(new GenericMove("e2e4"))));
 	}
 	
 	@Test
@@ -147,9 +157,9 @@ public class TranspositionTableAccessorTest {
 		pc.add(move1);
 
 		currPly = 2;
-		ITransposition stored_trans = sut.setTransposition(null, (byte)1, (short)105, Score.lowerBound, Move.toMove(move1, pm.getTheBoard()));
+		ITransposition stored_trans = sut.setTransposition(currPly, null, (byte)1, (short)105, Score.lowerBound, Move.toMove(move1, pm.getTheBoard()));
 		
-		stored_trans = sut.setTransposition(stored_trans, (byte)1, (short)110, Score.exact, Move.toMove(move2, pm.getTheBoard()));
+		stored_trans = sut.setTransposition(currPly, stored_trans, (byte)1, (short)110, Score.exact, Move.toMove(move2, pm.getTheBoard()));
 		
 		assertEquals(Score.exact, stored_trans.getType());
 		assertEquals(110, stored_trans.getScore());
@@ -174,9 +184,9 @@ public class TranspositionTableAccessorTest {
 		pc.add(move1);
 		
 		currPly = 0;
-		ITransposition stored_trans = sut.setTransposition(null, (byte)9, (short)25, Score.lowerBound, Move.toMove(move1));
+		ITransposition stored_trans = sut.setTransposition(currPly, null, (byte)9, (short)25, Score.lowerBound, Move.toMove(move1));
 		
-		stored_trans = sut.setTransposition(stored_trans, (byte)9, (short)72, Score.lowerBound, Move.toMove(move2));
+		stored_trans = sut.setTransposition(currPly, stored_trans, (byte)9, (short)72, Score.lowerBound, Move.toMove(move2));
 		
 		assertEquals(Score.lowerBound, stored_trans.getType());
 		assertEquals(72, stored_trans.getScore());
@@ -0,0 +1,114 @@
+package eubos.search;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import eubos.board.InvalidPieceException;
+import eubos.main.EubosEngineMain;
+import eubos.score.EvaluationCaches;
+import eubos.score.ReferenceScore;
+import eubos.search.generators.MiniMaxMoveGenerator;
+import eubos.search.transposition.FixedSizeTranspositionTable;
+
+/* Benchmark of search speed against the number of threads sharing the transposition table,
+ * comparing the lockless table with the lock striped one. Run manually on a multi-core host;
+ * the largest thread count defaults to the number of cores and can be set with -Deubos.scaling.threads. */
+@Ignore
+public class TranspositionTableScalingTest {
+
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - - -";
+	private static final long HASH_SIZE_MBYTES = 256;
+	private static final long SEARCH_DURATION_MS = 5000;
+	private static final byte MAX_SEARCH_DEPTH = 30;
+	private static final int MAX_THREADS = Integer.getInteger("eubos.scaling.threads", EubosEngineMain.numCores);
+
+	private volatile boolean stopped;
+
+	private class SearchWorker extends Thread {
+		private MiniMaxMoveGenerator mg;
+
+		SearchWorker(MiniMaxMoveGenerator mg) {
+			this.mg = mg;
+		}
+
+		public void run() {
+			byte depth = 1;
+			List<Integer> lastPc = null;
+			try {
+				while (!stopped && depth < MAX_SEARCH_DEPTH) {
+					mg.findMove(depth, lastPc, null);
+					lastPc = mg.pc.toPvList(0);
+					depth++;
+				}
+			} catch (NoLegalMoveException | InvalidPieceException e) {
+				fail();
+			}
+		}
+	}
+
+	@Before
+	public void setUp() {
+		EubosEngineMain.logger.setLevel(Level.INFO);
+	}
+
+	private long measureNodesPerSecond(int threads, boolean lockless) throws InterruptedException {
+		FixedSizeTranspositionTable tt = new FixedSizeTranspositionTable(HASH_SIZE_MBYTES, threads, lockless);
+		SearchMetricsReporter sr = new SearchMetricsReporter(null, tt, null);
+		List<MiniMaxMoveGenerator> moveGenerators = new ArrayList<MiniMaxMoveGenerator>(threads);
+		List<SearchWorker> workers = new ArrayList<SearchWorker>(threads);
+		for (int i=0; i < threads; i++) {
+			MiniMaxMoveGenerator mg = new MiniMaxMoveGenerator(tt, KIWIPETE, new DrawChecker(), sr, new ReferenceScore(tt), new EvaluationCaches());
+			mg.alternativeMoveListOrdering((i%4)+1);
+			moveGenerators.add(mg);
+			workers.add(new SearchWorker(mg));
+		}
+		stopped = false;
+		long start = System.currentTimeMillis();
+		for (SearchWorker worker : workers) {
+			worker.start();
+		}
+		Thread.sleep(SEARCH_DURATION_MS);
+		stopped = true;
+		for (MiniMaxMoveGenerator mg : moveGenerators) {
+			mg.terminateFindMove();
+		}
+		for (SearchWorker worker : workers) {
+			worker.join();
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		long nodes = 0;
+		for (MiniMaxMoveGenerator mg : moveGenerators) {
+			nodes += mg.sm.getNodesSearched();
+		}
+		return (nodes*1000)/elapsed;
+	}
+
+	@Test
+	public void scalingOfNodesPerSecondWithThreads() throws InterruptedException {
+		// Discard a first run of each mode, so that the measurements are not skewed by JIT compilation
+		measureNodesPerSecond(1, false);
+		measureNodesPerSecond(1, true);
+		boolean locklessFirst = false;
+		for (int threads=1; threads <= MAX_THREADS; threads*=2) {
+			// Alternate which mode runs first, so that neither is always measured on a warmer JVM and heap
+			long lockedNps, locklessNps;
+			if (locklessFirst) {
+				locklessNps = measureNodesPerSecond(threads, true);
+				lockedNps = measureNodesPerSecond(threads, false);
+			} else {
+				lockedNps = measureNodesPerSecond(threads, false);
+				locklessNps = measureNodesPerSecond(threads, true);
+			}
+			locklessFirst = !locklessFirst;
+			EubosEngineMain.logger.info(String.format("threads=%d locked nps=%d lockless nps=%d",
+					threads, lockedNps, locklessNps));
+		}
+	}
+}
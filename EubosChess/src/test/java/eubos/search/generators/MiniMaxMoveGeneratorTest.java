@@ -305,8 +305,8 @@ public class MiniMaxMoveGeneratorTest {
 		// http://open-chess.org/viewtopic.php?f=7&t=997
 		setupPosition("8/4N3/7Q/4k3/8/4KP2/3P4/8 w - - 0 1" );
 		// Two possible pawn mates
-		//expectedMove = new GenericMove("f3f4");
-		expectedMove = new GenericMove("d2d4");
+		expectedMove = new GenericMove("f3f4");
+		//expectedMove = new GenericMove("d2d4");
 		doFindMoveTest((byte)2, true);
 	}
 	
@@ -480,6 +480,90 @@ public class MiniMaxMoveGeneratorTest {
 		assertEquals(expectedMove, res.bestMove);
 	}
 	
+	@Test
+	public void test_mate_in_2_PrincipalVariationSearch() throws InvalidPieceException, IllegalNotationException, NoLegalMoveException {
+		setupPosition("5bkr/5ppp/5P2/8/8/8/6Q1/R4KR1 w - - 0 38 ");
+		classUnderTest.usePrincipalVariationSearch(true);
+		expectedMove = new GenericMove("g2g7");
+		SearchResult res = classUnderTest.findMove((byte)4);
+		
+		assertEquals(expectedMove, res.bestMove);
+		assertTrue(res.foundMate);
+	}
+	
+	@Test
+	public void test_findMove_mateInThree_WhiteMated_PrincipalVariationSearch() throws InvalidPieceException, IllegalNotationException {
+		setupPosition("5r1k/ppp4p/2n5/1B1b2q1/1P6/P7/2PP4/1R1Q3K w - - 6 32");
+		classUnderTest.usePrincipalVariationSearch(true);
+		expectedMove = new GenericMove("d1f3");
+		doFindMoveTest(true);
+	}
+	
+	@Test
+	public void test_aspirationWindows_SameResultAsFullWindow() throws InvalidPieceException, NoLegalMoveException {
+		String fen = "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 4 8";
+		PositionManager fullWindowPm = new PositionManager(fen);
+		MiniMaxMoveGenerator fullWindow = new MiniMaxMoveGenerator(new FixedSizeTranspositionTable(2, 1), fullWindowPm, fullWindowPm);
+		fullWindow.usePrincipalVariationSearch(true);
+		hashMap = new FixedSizeTranspositionTable(2, 1);
+		setupPosition(fen);
+		classUnderTest.usePrincipalVariationSearch(true);
+		classUnderTest.useAspirationWindows(true);
+		for (byte depth=1; depth<=4; depth++) {
+			SearchResult expected = fullWindow.findMove(depth);
+			SearchResult res = classUnderTest.findMove(depth);
+			assertEquals(expected.bestMove, res.bestMove);
+			assertEquals(fullWindow.getScore(), classUnderTest.getScore());
+		}
+		fullWindow.sda.close();
+	}
+	
+	@Test
+	public void test_aspirationWindows_ReSearchFindsMate() throws InvalidPieceException, NoLegalMoveException, IllegalNotationException {
+		setupPosition("5bkr/5ppp/5P2/8/8/8/6Q1/R4KR1 w - - 0 38 ");
+		classUnderTest.usePrincipalVariationSearch(true);
+		classUnderTest.useAspirationWindows(true);
+		SearchResult res = null;
+		for (byte depth=1; depth<=4; depth++) {
+			res = classUnderTest.findMove(depth);
+		}
+		assertEquals(new GenericMove("g2g7"), res.bestMove);
+		assertTrue(res.foundMate);
+		// The score jumps to a mate, which can't be inside the window around the previous score
+		assertTrue(classUnderTest.getAspirationReSearches() > 0);
+	}
+	
+	@Test
+	public void test_aspirationWindows_PlySearcher_SameResultAsFullWindow() throws InvalidPieceException, NoLegalMoveException {
+		String fen = "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 4 8";
+		PositionManager fullWindowPm = new PositionManager(fen);
+		MiniMaxMoveGenerator fullWindow = new MiniMaxMoveGenerator(new FixedSizeTranspositionTable(2, 1), fullWindowPm, fullWindowPm);
+		fullWindow.useAspirationWindows(false);
+		hashMap = new FixedSizeTranspositionTable(2, 1);
+		setupPosition(fen);
+		classUnderTest.useAspirationWindows(true);
+		for (byte depth=1; depth<=5; depth++) {
+			SearchResult expected = fullWindow.findMove(depth);
+			SearchResult res = classUnderTest.findMove(depth);
+			assertEquals(expected.bestMove, res.bestMove);
+			assertEquals(fullWindow.getScore(), classUnderTest.getScore());
+		}
+		fullWindow.sda.close();
+	}
+	
+	@Test
+	public void test_aspirationWindows_PlySearcher_ReSearchFindsMate() throws InvalidPieceException, NoLegalMoveException, IllegalNotationException {
+		setupPosition("5bkr/5ppp/5P2/8/8/8/6Q1/R4KR1 w - - 0 38 ");
+		classUnderTest.useAspirationWindows(true);
+		SearchResult res = null;
+		for (byte depth=1; depth<=4; depth++) {
+			res = classUnderTest.findMove(depth);
+		}
+		assertEquals(new GenericMove("g2g7"), res.bestMove);
+		assertTrue(res.foundMate);
+		assertTrue(classUnderTest.getAspirationReSearches() > 0);
+	}
+	
 	@Test
 	public void test_extendedSearch_recaptureQueenLeadsToLossOfMaterial() throws InvalidPieceException, IllegalNotationException, NoLegalMoveException {
 		if (PositionEvaluator.ENABLE_QUIESCENCE_CHECK) {
@@ -492,6 +576,77 @@ public class MiniMaxMoveGeneratorTest {
 		}
 	}
 	
+	@Test
+	public void test_nullMovePruning_cutsOffInQuietMiddlegame() throws InvalidPieceException, NoLegalMoveException {
+		setupPosition("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w KQ - 0 8");
+		classUnderTest.findMove((byte)5);
+		assertTrue(classUnderTest.getNullMoveCutOffs() > 0);
+	}
+	
+	@Test
+	public void test_nullMovePruning_noCutOffsWhenDisabled() throws InvalidPieceException, NoLegalMoveException {
+		setupPosition("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w KQ - 0 8");
+		classUnderTest.useNullMovePruning(false);
+		classUnderTest.findMove((byte)5);
+		assertEquals(0, classUnderTest.getNullMoveCutOffs());
+	}
+	
+	private void assertNullMovePruningFindsSameMove(String fen, byte depth) throws InvalidPieceException, NoLegalMoveException {
+		setupPosition(fen);
+		classUnderTest.useNullMovePruning(false);
+		SearchResult withoutNullMove = classUnderTest.findMove(depth);
+		short scoreWithoutNullMove = classUnderTest.getScore();
+		classUnderTest.sda.close();
+		
+		hashMap = new FixedSizeTranspositionTable();
+		setupPosition(fen);
+		SearchResult withNullMove = classUnderTest.findMove(depth);
+		assertEquals(withoutNullMove.bestMove, withNullMove.bestMove);
+		assertEquals(scoreWithoutNullMove, classUnderTest.getScore());
+	}
+	
+	@Test
+	public void test_nullMovePruning_findsSameMateInTwo() throws InvalidPieceException, NoLegalMoveException {
+		assertNullMovePruningFindsSameMove("1r1q3k/2pp4/p7/1p6/1b1B2Q1/2N5/PPP4P/5R1K b - - 6 1", (byte)5);
+	}
+	
+	@Test
+	public void test_nullMovePruning_findsSameMoveWhenMated() throws InvalidPieceException, NoLegalMoveException {
+		assertNullMovePruningFindsSameMove("5r1k/ppp4p/2n5/1B1b2q1/1P6/P7/2PP4/1R1Q3K w - - 6 32", (byte)5);
+	}
+	
+	@Test
+	public void test_lateMoveReductions_reSearchAtFullDepthInMiddlegame() throws InvalidPieceException, NoLegalMoveException {
+		setupPosition("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w KQ - 0 8");
+		classUnderTest.findMove((byte)5);
+		assertTrue(classUnderTest.getLateMoveReSearches() > 0);
+	}
+	
+	@Test
+	public void test_lateMoveReductions_noReSearchesWhenDisabled() throws InvalidPieceException, NoLegalMoveException {
+		setupPosition("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w KQ - 0 8");
+		classUnderTest.useLateMoveReductions(null);
+		classUnderTest.findMove((byte)5);
+		assertEquals(0, classUnderTest.getLateMoveReSearches());
+	}
+	
+	@Test
+	public void test_lateMoveReductions_reSearchFindsSameMateInTwo() throws InvalidPieceException, NoLegalMoveException {
+		String fen = "1r1q3k/2pp4/p7/1p6/1b1B2Q1/2N5/PPP4P/5R1K b - - 6 1";
+		setupPosition(fen);
+		classUnderTest.useLateMoveReductions(null);
+		SearchResult unreduced = classUnderTest.findMove((byte)6);
+		short unreducedScore = classUnderTest.getScore();
+		classUnderTest.sda.close();
+		
+		hashMap = new FixedSizeTranspositionTable();
+		setupPosition(fen);
+		SearchResult reduced = classUnderTest.findMove((byte)6);
+		assertTrue(classUnderTest.getLateMoveReSearches() > 0);
+		assertEquals(unreduced.bestMove, reduced.bestMove);
+		assertEquals(unreducedScore, classUnderTest.getScore());
+	}
+	
 	@Test
 	@Ignore // confusing as the position is unreal - e.g. stalemate! Perhaps add Kings???
 	public void test_extendedSearch_recaptureBishopLeadsToLossOfMaterial() throws InvalidPieceException, IllegalNotationException, NoLegalMoveException {